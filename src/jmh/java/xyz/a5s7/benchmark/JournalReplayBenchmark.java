@@ -0,0 +1,176 @@
+package xyz.a5s7.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.journal.FsyncPolicy;
+import xyz.a5s7.domain.journal.JournalHandler;
+import xyz.a5s7.domain.journal.JournalProperties;
+import xyz.a5s7.domain.journal.MappedJournal;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderListener;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Speed of recovery from the journal. Throughput is reported in commands per microsecond,
+ * which is millions of commands per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class JournalReplayBenchmark {
+    private static final int COMMANDS = 1 << 20;
+    private static final String TICKER = "BENCH";
+
+    @Param({"TREE_MAP", "LADDER"})
+    public BookType bookType;
+
+    private Path directory;
+    private MappedJournal journal;
+    private OrderBookFactory factory;
+
+    @Setup
+    public void writeJournal() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new MappedJournal(new JournalProperties(true, directory.toString(), DataSize.ofMegabytes(64),
+            FsyncPolicy.ASYNC, Duration.ofMillis(1)));
+        journal.start();
+        OrderFlow flow = new OrderFlow(COMMANDS, 42);
+        for (int i = 0; i < flow.size(); i++) {
+            var order = new LimitOrder(flow.orderIds[i], 1L, TICKER, flow.directions[i], flow.prices[i],
+                flow.quantities[i], null);
+            switch (flow.types[i]) {
+                case OrderFlow.PLACE -> journal.appendPlace(order);
+                case OrderFlow.CANCEL -> journal.appendCancel(order);
+                default -> journal.appendAmend(order, flow.prices[i], flow.quantities[i], null);
+            }
+        }
+        journal.flush();
+        var properties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, bookType, 4096, 4096);
+        factory = new OrderBookFactory(properties, (aggressingId, restingId, price, quantity, timestamp) -> { },
+            DepthListener.NONE, OrderListener.NONE);
+    }
+
+    @TearDown
+    public void deleteJournal() throws IOException {
+        journal.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Reads and decodes the records only.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public long decode(Blackhole blackhole) {
+        return journal.replay(0, new JournalHandler() {
+            @Override
+            public void onPlace(long sequence, LimitOrder order) {
+                blackhole.consume(order);
+            }
+
+            @Override
+            public void onCancel(long sequence, String ticker, long orderId) {
+                blackhole.consume(orderId);
+            }
+
+            @Override
+            public void onAmend(long sequence, String ticker, long orderId, long price, long quantity,
+                                ZonedDateTime timestamp) {
+                blackhole.consume(price);
+            }
+
+            @Override
+            public void onRestore(long sequence, LimitOrder order) {
+                blackhole.consume(order);
+            }
+
+            @Override
+            public void onRemove(long sequence, String ticker, long orderId) {
+                blackhole.consume(orderId);
+            }
+
+            @Override
+            public void onPhase(long sequence, String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+                blackhole.consume(phase);
+            }
+        });
+    }
+
+    /**
+     * Rebuilds the order books from the journal, as on startup, without the request path around the matching.
+     */
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public Map<String, OrderBook> rebuildOrderBooks() {
+        Map<String, OrderBook> orderBooks = new HashMap<>();
+        journal.replay(0, new JournalHandler() {
+            @Override
+            public void onPlace(long sequence, LimitOrder order) {
+                orderBooks.computeIfAbsent(order.getTicker(), factory::create).addOrder(order);
+            }
+
+            @Override
+            public void onCancel(long sequence, String ticker, long orderId) {
+                orderBooks.get(ticker).cancelOrder(orderId);
+            }
+
+            @Override
+            public void onAmend(long sequence, String ticker, long orderId, long price, long quantity,
+                                ZonedDateTime timestamp) {
+                orderBooks.get(ticker).amendOrder(orderId, price, quantity, timestamp);
+            }
+
+            @Override
+            public void onRestore(long sequence, LimitOrder order) {
+                orderBooks.computeIfAbsent(order.getTicker(), factory::create).addOrder(order);
+            }
+
+            @Override
+            public void onRemove(long sequence, String ticker, long orderId) {
+                orderBooks.get(ticker).cancelOrder(orderId);
+            }
+
+            @Override
+            public void onPhase(long sequence, String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+                orderBooks.computeIfAbsent(ticker, factory::create).changePhase(phase, timestamp);
+            }
+        });
+        return orderBooks;
+    }
+}
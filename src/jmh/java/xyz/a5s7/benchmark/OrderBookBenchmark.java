@@ -0,0 +1,125 @@
+package xyz.a5s7.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderListener;
+
+/**
+ * Single-threaded cost of the basic order book operations, for each book implementation.
+ * Throughput mode reports ops/s, sample time mode reports the latency distribution (p50, p99, p99.9 ...),
+ * run with {@code -prof gc} to see the allocation rate per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class OrderBookBenchmark {
+    private static final long MID = 1_000_000;
+    private static final int DEEP_BOOK_LEVELS = 10_000;
+    private static final int DEEP_BOOK_ORDERS_PER_LEVEL = 10;
+
+    @Param({"TREE_MAP", "LADDER"})
+    public BookType bookType;
+
+    private OrderBook orderBook;
+    private OrderBook deepBook;
+    private SplittableRandom random;
+    private long nextId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        var properties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, bookType, 4096, 4096);
+        var factory = new OrderBookFactory(properties, (aggressingId, restingId, price, quantity, timestamp) -> { },
+            DepthListener.NONE, OrderListener.NONE);
+        random = new SplittableRandom(42);
+        nextId = 1;
+        orderBook = factory.create("BENCH");
+        // resting liquidity on both sides, so that no-match orders land in a populated book
+        for (int i = 1; i <= 50; i++) {
+            orderBook.addOrder(order(Direction.BID, MID - i, 10));
+            orderBook.addOrder(order(Direction.ASK, MID + i, 10));
+        }
+        deepBook = factory.create("DEEP");
+        for (int level = 1; level <= DEEP_BOOK_LEVELS; level++) {
+            for (int i = 0; i < DEEP_BOOK_ORDERS_PER_LEVEL; i++) {
+                deepBook.addOrder(order(Direction.BID, MID - level, 10));
+                deepBook.addOrder(order(Direction.ASK, MID + level, 10));
+            }
+        }
+    }
+
+    /**
+     * Adds an order that does not cross the spread, and cancels it to keep the book at a steady size.
+     */
+    @Benchmark
+    public LimitOrder addWithoutMatch() {
+        LimitOrder order = order(Direction.BID, MID - 1 - random.nextInt(50), 10);
+        orderBook.addOrder(order);
+        return orderBook.cancelOrder(order.getId());
+    }
+
+    /**
+     * Rests one order at each of {@link Sweep#levels} ask levels, then takes them all with one bid.
+     */
+    @Benchmark
+    public LimitOrder sweepLevels(Sweep sweep) {
+        int levels = sweep.levels;
+        for (int i = 0; i < levels; i++) {
+            orderBook.addOrder(order(Direction.ASK, MID + 100 + i, 1));
+        }
+        LimitOrder taker = order(Direction.BID, MID + 100 + levels, levels);
+        orderBook.addOrder(taker);
+        return taker;
+    }
+
+    /**
+     * Inserts an order at a random level of a book with 10 000 levels per side, and cancels it.
+     */
+    @Benchmark
+    public void deepBookInsert(Blackhole blackhole) {
+        LimitOrder order = order(Direction.ASK, MID + 1 + random.nextInt(DEEP_BOOK_LEVELS), 10);
+        deepBook.addOrder(order);
+        blackhole.consume(deepBook.cancelOrder(order.getId()));
+    }
+
+    private LimitOrder order(Direction direction, long price, long quantity) {
+        return new LimitOrder(nextId++, 1L, "BENCH", direction, price, quantity, null);
+    }
+
+    /**
+     * Kept apart from the benchmark state, so that only the sweep benchmark runs for each number of levels.
+     */
+    @State(Scope.Thread)
+    public static class Sweep {
+        /**
+         * Number of price levels taken by one sweeping order.
+         */
+        @Param({"1", "5", "20"})
+        public int levels;
+    }
+}
@@ -0,0 +1,73 @@
+package xyz.a5s7.benchmark;
+
+import java.util.SplittableRandom;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Pre-generated stream of order book commands resembling a liquid market:
+ * prices are normally distributed around a randomly walking mid, most orders rest near the top of the book,
+ * a part of them crosses the spread, and cancels of recently placed orders outnumber new orders.
+ * Amends reprice a recent order keeping its quantity, which is never less than what has been filled.
+ * Generating the stream up front keeps random number generation out of the measured code.
+ */
+public final class OrderFlow {
+    public static final byte PLACE = 0;
+    public static final byte CANCEL = 1;
+    public static final byte AMEND = 2;
+
+    final byte[] types;
+    final Direction[] directions;
+    final long[] prices;
+    final long[] quantities;
+    // id of the placed order, or of the order to cancel or amend
+    final long[] orderIds;
+    // number of orders placed by one pass over the stream
+    final long placedOrders;
+
+    public OrderFlow(int size, long seed) {
+        types = new byte[size];
+        directions = new Direction[size];
+        prices = new long[size];
+        quantities = new long[size];
+        orderIds = new long[size];
+        SplittableRandom random = new SplittableRandom(seed);
+        long mid = 1_000_000;
+        long nextId = 1;
+        // quantity of every placed order by id, amends keep it and only move the price
+        long[] placedQuantities = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            mid = Math.max(1_000, mid + random.nextInt(-2, 3));
+            directions[i] = random.nextBoolean() ? Direction.BID : Direction.ASK;
+            // half-spread of 2 ticks, so that the tail of the distribution crosses it
+            long distance = 2 + Math.round(Math.abs(random.nextGaussian()) * 10);
+            if (random.nextInt(10) == 0) {
+                distance = -distance;
+            }
+            prices[i] = directions[i] == Direction.BID ? mid - distance : mid + distance;
+            quantities[i] = 1 + random.nextInt(100);
+            int action = random.nextInt(100);
+            if (nextId > 1 && action < 50) {
+                types[i] = CANCEL;
+                orderIds[i] = recentOrder(random, nextId);
+            } else if (nextId > 1 && action < 60) {
+                types[i] = AMEND;
+                orderIds[i] = recentOrder(random, nextId);
+                quantities[i] = placedQuantities[(int) orderIds[i]];
+            } else {
+                types[i] = PLACE;
+                orderIds[i] = nextId;
+                placedQuantities[(int) nextId++] = quantities[i];
+            }
+        }
+        placedOrders = nextId - 1;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    private static long recentOrder(SplittableRandom random, long nextId) {
+        return Math.max(1, nextId - 1 - random.nextInt(200));
+    }
+}
@@ -0,0 +1,84 @@
+package xyz.a5s7.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderListener;
+
+/**
+ * Replays a generated mix of new orders, cancels and amends, see {@link OrderFlow}, one command per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Thread)
+public class OrderFlowBenchmark {
+    private static final int FLOW_SIZE = 1 << 20;
+
+    @Param({"TREE_MAP", "LADDER"})
+    public BookType bookType;
+
+    private OrderFlow flow;
+    private OrderBookFactory factory;
+    private OrderBook orderBook;
+    private int position;
+    // added to ids on every pass over the flow, so that ids stay unique
+    private long idOffset;
+
+    @Setup
+    public void generateFlow() {
+        flow = new OrderFlow(FLOW_SIZE, 42);
+        var properties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, bookType, 4096, 4096);
+        factory = new OrderBookFactory(properties, (aggressingId, restingId, price, quantity, timestamp) -> { },
+            DepthListener.NONE, OrderListener.NONE);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        orderBook = factory.create("BENCH");
+        position = 0;
+        idOffset = 0;
+    }
+
+    @Benchmark
+    public LimitOrder replay() {
+        int i = position;
+        long orderId = flow.orderIds[i] + idOffset;
+        LimitOrder result = switch (flow.types[i]) {
+            case OrderFlow.PLACE -> {
+                var order = new LimitOrder(orderId, 1L, "BENCH", flow.directions[i], flow.prices[i],
+                    flow.quantities[i], null);
+                orderBook.addOrder(order);
+                yield order;
+            }
+            case OrderFlow.CANCEL -> orderBook.cancelOrder(orderId);
+            default -> orderBook.amendOrder(orderId, flow.prices[i], flow.quantities[i], null);
+        };
+        if (++position == flow.size()) {
+            position = 0;
+            idOffset += flow.placedOrders;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,153 @@
+package xyz.a5s7.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.engine.SequencedMatchingEngine;
+import xyz.a5s7.domain.engine.SynchronizedMatchingEngine;
+import xyz.a5s7.domain.journal.DisabledJournal;
+import xyz.a5s7.domain.marketdata.MarketDataProperties;
+import xyz.a5s7.domain.marketdata.MarketDataPublisher;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.repository.FillIndex;
+import xyz.a5s7.domain.repository.OpenOrderIndex;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.service.InstrumentProperties;
+import xyz.a5s7.domain.service.InstrumentRegistry;
+import xyz.a5s7.domain.service.NotificationService;
+import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.domain.service.TradeService;
+
+/**
+ * Full {@link OrderService#placeOrder} path: id generation, order repository, matching engine
+ * and publication of fills to the execution event ring, handled by trade persistence and notifications.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+@State(Scope.Benchmark)
+public class OrderServiceBenchmark {
+    private static final long MID = 1_000_000;
+    private static final List<String> TICKERS = List.of("BTC", "ETH", "SOL", "XRP");
+
+    @Param({"SYNCHRONIZED", "SEQUENCED"})
+    public EngineMode mode;
+
+    @Param({"LADDER"})
+    public BookType bookType;
+
+    private OrderService orderService;
+    private ExecutionEventRing executionEventRing;
+    private MarketDataPublisher marketDataPublisher;
+    private SequencedMatchingEngine sequencedEngine;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        var properties = new EngineProperties(mode, TICKERS.size(), 1024, bookType, 4096, 4096);
+        var orderRepo = new OrderRepo();
+        // meters recording as in the application, so the benchmark includes their cost
+        var meterRegistry = new SimpleMeterRegistry();
+        var openOrderIndex = new OpenOrderIndex();
+        var instrumentRegistry = new InstrumentRegistry(new InstrumentProperties(
+            new InstrumentProperties.Spec(new BigDecimal("0.01"), new BigDecimal("0.01")), Map.of()));
+        executionEventRing = new ExecutionEventRing(properties, List.of(
+            new TradeService(new TradeRepo(), new FillIndex(), orderRepo, Optional.empty()),
+            new NotificationService(orderRepo, instrumentRegistry)
+        ), meterRegistry);
+        executionEventRing.start();
+        marketDataPublisher = new MarketDataPublisher(new MarketDataProperties(8192), meterRegistry,
+            instrumentRegistry);
+        marketDataPublisher.start();
+        var orderBookFactory = new OrderBookFactory(properties, executionEventRing, marketDataPublisher,
+            openOrderIndex);
+        MatchingEngine matchingEngine;
+        if (mode == EngineMode.SEQUENCED) {
+            sequencedEngine = new SequencedMatchingEngine(properties, orderRepo, orderBookFactory, new DisabledJournal(),
+                meterRegistry);
+            sequencedEngine.start();
+            matchingEngine = sequencedEngine;
+        } else {
+            matchingEngine = new SynchronizedMatchingEngine(orderRepo, orderBookFactory, new DisabledJournal(),
+                meterRegistry);
+        }
+        orderService = new OrderService(orderRepo, openOrderIndex, matchingEngine, Optional.empty());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (sequencedEngine != null) {
+            sequencedEngine.stop();
+            sequencedEngine = null;
+        }
+        executionEventRing.stop();
+        marketDataPublisher.stop();
+    }
+
+    /**
+     * Orders for a single ticker from a single thread.
+     */
+    @Benchmark
+    public LimitOrder placeOrder() {
+        return orderService.placeOrder(randomOrder("BTC"));
+    }
+
+    /**
+     * Orders for a single hot ticker from several threads, contending for one order book.
+     */
+    @Benchmark
+    @Threads(4)
+    public LimitOrder placeOrderContended() {
+        return orderService.placeOrder(randomOrder("BTC"));
+    }
+
+    /**
+     * Orders spread over several tickers from several threads.
+     */
+    @Benchmark
+    @Threads(4)
+    public LimitOrder placeOrderSpread() {
+        return orderService.placeOrder(randomOrder(TICKERS.get(ThreadLocalRandom.current().nextInt(TICKERS.size()))));
+    }
+
+    /**
+     * Prices around a fixed mid with a part of the orders crossing it, so that the book neither grows
+     * without bound nor runs empty.
+     */
+    private static LimitOrder randomOrder(String ticker) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Direction direction = random.nextBoolean() ? Direction.BID : Direction.ASK;
+        long distance = random.nextInt(-5, 20);
+        long price = direction == Direction.BID ? MID - distance : MID + distance;
+        return new LimitOrder(random.nextLong(1, 1_000), ticker, direction, price, random.nextLong(1, 100), null);
+    }
+}
@@ -2,10 +2,10 @@ package xyz.a5s7;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
-@EnableAsync(proxyTargetClass = true)
+@ConfigurationPropertiesScan
 public class OrderBookApplication {
     public static void main(String[] args) {
         SpringApplication.run(OrderBookApplication.class, args);
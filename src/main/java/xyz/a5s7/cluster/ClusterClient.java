@@ -0,0 +1,110 @@
+package xyz.a5s7.cluster;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends requests to the REST API of the other nodes. Every request is marked as forwarded,
+ * so the receiving node serves it itself instead of routing it again.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.cluster.enabled", havingValue = "true")
+public class ClusterClient {
+    /**
+     * Marks a request forwarded by another node, with the number of times it has been forwarded as value.
+     */
+    public static final String FORWARDED_HEADER = "X-Orderbook-Forwarded";
+
+    private final ClusterNode clusterNode;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient;
+
+    public ClusterClient(ClusterNode clusterNode, ObjectMapper objectMapper) {
+        this.clusterNode = clusterNode;
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(clusterNode.requestTimeout())
+            .build();
+    }
+
+    /**
+     * @param hops         number of times the request has been forwarded, including this time
+     * @param pathAndQuery path of the request, with its query string if any
+     * @param headers      headers to send along, apart from the marker of forwarded requests
+     * @param body         body of the request, null if it has none
+     * @return response, its body is read as it arrives and must be closed
+     */
+    public HttpResponse<InputStream> forward(int node, int hops, String method, String pathAndQuery,
+                                             Map<String, String> headers, byte[] body) {
+        HttpRequest.Builder request = request(node, hops, pathAndQuery)
+            .method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reach node " + node + " at " + clusterNode.url(node), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for node " + node);
+        }
+    }
+
+    /**
+     * Sends the body as JSON and reads the response as JSON.
+     *
+     * @param body         body of the request, null if it has none
+     * @param responseType type of the response body, {@code Void} to ignore it
+     * @throws IllegalStateException if the node does not respond with a success status
+     */
+    public <T> T call(int node, String method, String path, Object body, Class<T> responseType) {
+        HttpRequest.Builder request = request(node, 1, path)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        try {
+            if (body == null) {
+                request.method(method, HttpRequest.BodyPublishers.noBody());
+            } else {
+                request.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Node " + node + " responded to " + method + " " + path + " with "
+                    + response.statusCode() + ": " + new String(response.body(), StandardCharsets.UTF_8));
+            }
+            if (responseType == Void.class || response.body().length == 0) {
+                return null;
+            }
+            return objectMapper.readValue(response.body(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot convert JSON of " + method + " " + path, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot reach node " + node + " at " + clusterNode.url(node), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for node " + node);
+        }
+    }
+
+    private HttpRequest.Builder request(int node, int hops, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(clusterNode.url(node) + pathAndQuery))
+            // bounds the wait for the response headers, a streamed body may take longer
+            .timeout(clusterNode.requestTimeout())
+            .header(FORWARDED_HEADER, Integer.toString(hops));
+    }
+}
@@ -0,0 +1,118 @@
+package xyz.a5s7.cluster;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import xyz.a5s7.domain.snapshot.BookSnapshot;
+
+/**
+ * Membership of the cluster and moves of tickers between nodes. Apart from the lookups,
+ * these endpoints are called by the nodes themselves or by operators, and must not be exposed to clients.
+ */
+@RestController
+@RequestMapping("/cluster")
+@ConditionalOnProperty(name = "orderbook.cluster.enabled", havingValue = "true")
+public class ClusterController {
+    private final ClusterNode clusterNode;
+    private final TickerMigration tickerMigration;
+
+    public ClusterController(ClusterNode clusterNode, TickerMigration tickerMigration) {
+        this.clusterNode = clusterNode;
+        this.tickerMigration = tickerMigration;
+    }
+
+    @GetMapping
+    public ClusterView getCluster() {
+        List<String> nodes = new ArrayList<>();
+        for (int node = 0; node < clusterNode.nodeCount(); node++) {
+            nodes.add(clusterNode.url(node));
+        }
+        return new ClusterView(clusterNode.nodeId(), nodes, clusterNode.getAssignments());
+    }
+
+    @GetMapping("/tickers/{ticker}")
+    public TickerOwnerView getOwner(@PathVariable String ticker) {
+        int node = clusterNode.ownerOf(ticker);
+        return new TickerOwnerView(ticker, node, clusterNode.url(node));
+    }
+
+    /**
+     * Moves the ticker to another node, routed to the node owning the ticker.
+     */
+    @PostMapping("/tickers/{ticker}/move")
+    public TickerMigration.MoveResult move(@PathVariable String ticker, @RequestParam int node) {
+        return tickerMigration.move(ticker, node);
+    }
+
+    @PutMapping("/tickers/{ticker}/stage")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void stage(@PathVariable String ticker, @RequestBody BookSnapshot copy) {
+        if (!ticker.equals(copy.ticker())) {
+            throw new IllegalArgumentException("Copy of " + copy.ticker() + " cannot be staged as " + ticker);
+        }
+        tickerMigration.stage(copy);
+    }
+
+    @DeleteMapping("/tickers/{ticker}/stage")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void abort(@PathVariable String ticker) {
+        tickerMigration.abort(ticker);
+    }
+
+    @PostMapping("/tickers/{ticker}/install")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void install(@PathVariable String ticker, @RequestBody List<TickerCommand> commands) {
+        tickerMigration.install(ticker, commands);
+    }
+
+    /**
+     * Records that the ticker has been moved to the node.
+     */
+    @PutMapping("/tickers/{ticker}/owner")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void assign(@PathVariable String ticker, @RequestParam int node) {
+        clusterNode.assign(ticker, node);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalStateException(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(UncheckedIOException.class)
+    public ResponseEntity<String> handleUncheckedIOException(UncheckedIOException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(ex.getMessage());
+    }
+
+    /**
+     * @param nodes       base URLs of the nodes, by node id
+     * @param assignments tickers moved away from the node the hash ring assigns them to
+     */
+    public record ClusterView(int nodeId, List<String> nodes, Map<String, Integer> assignments) {
+    }
+
+    public record TickerOwnerView(String ticker, int node, String url) {
+    }
+}
@@ -0,0 +1,148 @@
+package xyz.a5s7.cluster;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.gateway.GatewayProperties;
+
+/**
+ * This node's view of the cluster: which node owns each ticker, and which node generated each order id.
+ * <p>
+ * Tickers are assigned to nodes by consistent hashing, unless they have been moved to another node since;
+ * moves are recorded in a file, so that they outlive a restart. Every node generates the order ids
+ * with its own remainder modulo the number of nodes, so ids never collide and tell the node that generated them.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.cluster.enabled", havingValue = "true")
+public class ClusterNode {
+    private static final String ASSIGNMENTS_FILE = "assignments.properties";
+
+    private final ClusterProperties properties;
+    private final HashRing ring;
+    private final Path assignmentsFile;
+    // tickers moved away from the node the ring assigns them to
+    private final Map<String, Integer> assignments = new ConcurrentHashMap<>();
+    private final Map<String, TickerGate> gates = new ConcurrentHashMap<>();
+
+    public ClusterNode(ClusterProperties properties, OrderRepo orderRepo, GatewayProperties gatewayProperties) {
+        if (properties.nodes().isEmpty()) {
+            throw new IllegalArgumentException("Nodes of the cluster must be provided");
+        }
+        if (properties.nodeId() < 0 || properties.nodeId() >= properties.nodes().size()) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + (properties.nodes().size() - 1));
+        }
+        if (gatewayProperties.enabled()) {
+            // orders entered through the gateway would bypass the routing and the moves of tickers
+            throw new IllegalStateException("Order entry gateway is not supported in cluster mode, "
+                + "disable it with orderbook.gateway.enabled=false");
+        }
+        this.properties = properties;
+        this.ring = new HashRing(properties.nodes().size(), properties.virtualNodes());
+        this.assignmentsFile = Path.of(properties.directory()).resolve(ASSIGNMENTS_FILE);
+        loadAssignments();
+        orderRepo.partitionIds(properties.nodeId(), properties.nodes().size());
+    }
+
+    public int nodeId() {
+        return properties.nodeId();
+    }
+
+    public int nodeCount() {
+        return properties.nodes().size();
+    }
+
+    /**
+     * @return base URL of the REST API of the node
+     */
+    public String url(int node) {
+        return properties.nodes().get(node);
+    }
+
+    public int ownerOf(String ticker) {
+        Integer node = assignments.get(ticker);
+        return node != null ? node : ring.nodeFor(ticker);
+    }
+
+    public boolean owns(String ticker) {
+        return ownerOf(ticker) == nodeId();
+    }
+
+    /**
+     * @return node that generated the order id, the order may have been moved away from it since
+     */
+    public int originOf(long orderId) {
+        return (int) Math.floorMod(orderId, (long) nodeCount());
+    }
+
+    /**
+     * Records that the ticker is owned by the node from now on.
+     */
+    public synchronized void assign(String ticker, int node) {
+        if (node < 0 || node >= nodeCount()) {
+            throw new IllegalArgumentException("Node must be between 0 and " + (nodeCount() - 1));
+        }
+        if (ring.nodeFor(ticker) == node) {
+            assignments.remove(ticker);
+        } else {
+            assignments.put(ticker, node);
+        }
+        saveAssignments();
+    }
+
+    /**
+     * @return tickers assigned to another node than the one the ring assigns them to
+     */
+    public Map<String, Integer> getAssignments() {
+        return new TreeMap<>(assignments);
+    }
+
+    Duration requestTimeout() {
+        return properties.requestTimeout();
+    }
+
+    TickerGate gate(String ticker) {
+        return gates.computeIfAbsent(ticker, key -> new TickerGate());
+    }
+
+    private void loadAssignments() {
+        if (!Files.exists(assignmentsFile)) {
+            return;
+        }
+        var file = new Properties();
+        try (Reader reader = Files.newBufferedReader(assignmentsFile)) {
+            file.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + assignmentsFile.toAbsolutePath(), e);
+        }
+        file.forEach((ticker, node) -> assignments.put((String) ticker, Integer.parseInt((String) node)));
+    }
+
+    private void saveAssignments() {
+        var file = new Properties();
+        assignments.forEach((ticker, node) -> file.setProperty(ticker, Integer.toString(node)));
+        try {
+            Files.createDirectories(assignmentsFile.getParent());
+            Path temporary = assignmentsFile.resolveSibling(ASSIGNMENTS_FILE + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary)) {
+                file.store(writer, "Tickers moved away from the node the hash ring assigns them to");
+            }
+            Files.move(temporary, assignmentsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write " + assignmentsFile.toAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package xyz.a5s7.cluster;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled        whether tickers are partitioned across the nodes, each node serving only the tickers it owns
+ * @param nodeId         index of this node in {@code nodes}
+ * @param nodes          base URLs of the REST API of every node, the same list on every node
+ * @param virtualNodes   points of each node on the hash ring, more spread the tickers more evenly
+ * @param directory      directory of the file recording the tickers moved away from the node the ring assigns them
+ * @param requestTimeout how long a request forwarded to another node, or waiting for a ticker being moved, may take
+ */
+@ConfigurationProperties("orderbook.cluster")
+public record ClusterProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0") int nodeId,
+        @DefaultValue List<String> nodes,
+        @DefaultValue("128") int virtualNodes,
+        @DefaultValue("cluster") String directory,
+        @DefaultValue("30s") Duration requestTimeout) {
+}
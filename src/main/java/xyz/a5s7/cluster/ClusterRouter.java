@@ -0,0 +1,475 @@
+package xyz.a5s7.cluster;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.web.OrderController;
+import xyz.a5s7.web.response.PlaceOrderResult;
+
+/**
+ * Routes every request to the node owning the tickers it is about, so that clients may send any request
+ * to any node.
+ * <ul>
+ *     <li>Requests naming a ticker, in the path, the query or the body of a new order, are forwarded to its owner.
+ *     <li>Requests naming an order are served by the node holding it: this node if it has the order,
+ *     else the first node found to have it, starting with the node that generated its id.
+ *     <li>A batch of orders of tickers owned by several nodes is split by owner and the results are merged.
+ *     <li>The open orders of all tickers are gathered from every node.
+ * </ul>
+ * Commands of a ticker owned by this node pass the {@link TickerGate} of the ticker, so that they wait
+ * while it is being moved and are forwarded to the new owner afterwards.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.cluster.enabled", havingValue = "true")
+public class ClusterRouter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+    private static final Pattern BOOK_PATH = Pattern.compile("/books/([^/]+)(?:/stream)?");
+    private static final Pattern PHASE_PATH = Pattern.compile("/books/([^/]+)/phase");
+    private static final Pattern ORDER_PATH = Pattern.compile("/orders/(-?\\d+)");
+    private static final Pattern MOVE_PATH = Pattern.compile("/cluster/tickers/([^/]+)/move");
+    private static final List<String> REQUEST_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE,
+        HttpHeaders.ACCEPT, "Last-Event-ID");
+    private static final List<String> RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.LOCATION,
+        HttpHeaders.CACHE_CONTROL);
+
+    private final ClusterNode clusterNode;
+    private final ClusterClient clusterClient;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    public ClusterRouter(ClusterNode clusterNode, ClusterClient clusterClient, OrderService orderService,
+                         ObjectMapper objectMapper) {
+        this.clusterNode = clusterNode;
+        this.clusterClient = clusterClient;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        Matcher matcher;
+        if ((matcher = BOOK_PATH.matcher(path)).matches() || (matcher = MOVE_PATH.matcher(path)).matches()) {
+            routeByTickers(Set.of(matcher.group(1)), false, request, response, chain);
+        } else if ((matcher = PHASE_PATH.matcher(path)).matches()) {
+            routeByTickers(Set.of(matcher.group(1)), !method.equals("GET"), request, response, chain);
+        } else if (path.equals("/orders") && method.equals("POST")) {
+            var cachedRequest = new CachedBodyRequest(request);
+            JsonNode body = readJson(cachedRequest.body);
+            routeByTickers(tickersOf(body == null ? List.of() : List.of(body)), true, cachedRequest, response, chain);
+        } else if (path.equals("/orders") && method.equals("GET") && request.getParameter("ticker") == null) {
+            if (hops(request) > 0) {
+                chain.doFilter(request, response);
+            } else {
+                gatherOpenOrders(request, response);
+            }
+        } else if (path.equals("/orders") || path.equals("/trades") && request.getParameter("orderId") == null) {
+            String ticker = request.getParameter("ticker");
+            routeByTickers(ticker == null ? Set.of() : Set.of(ticker), method.equals("DELETE"), request, response,
+                chain);
+        } else if (path.equals("/orders/batch") && method.equals("POST")) {
+            routeBatch(new CachedBodyRequest(request), response, chain);
+        } else if ((matcher = ORDER_PATH.matcher(path)).matches()) {
+            routeByOrder(Long.parseLong(matcher.group(1)), !method.equals("GET"), new CachedBodyRequest(request),
+                response, chain);
+        } else if (path.equals("/trades") && isLong(request.getParameter("orderId"))) {
+            routeByOrder(Long.parseLong(request.getParameter("orderId")), false, request, response, chain);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Forwards the request to the node owning the tickers, or serves it if this node owns them.
+     *
+     * @param tickers tickers owned by the same node, served here if none
+     * @param command whether the request changes the order books of the tickers
+     */
+    private void routeByTickers(Set<String> tickers, boolean command, HttpServletRequest request,
+                                HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        // a request forwarded around by nodes that disagree on the owner is eventually served where it is
+        boolean routed = !tickers.isEmpty() && hops(request) < clusterNode.nodeCount();
+        while (true) {
+            int owner = routed ? clusterNode.ownerOf(tickers.iterator().next()) : clusterNode.nodeId();
+            if (owner != clusterNode.nodeId()) {
+                forward(owner, request, response);
+                return;
+            }
+            if (!command) {
+                chain.doFilter(request, response);
+                return;
+            }
+            List<TickerGate> gates = enter(tickers);
+            if (gates == null) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Ticker is being moved, retry later");
+                return;
+            }
+            if (!routed || tickers.stream().allMatch(clusterNode::owns)) {
+                serve(gates, request, response, chain);
+                return;
+            }
+            // moved while waiting at the gate
+            gates.forEach(TickerGate::exit);
+        }
+    }
+
+    private void routeByOrder(long orderId, boolean command, HttpServletRequest request, HttpServletResponse response,
+                              FilterChain chain) throws ServletException, IOException {
+        Optional<LimitOrder> order = orderService.findOrder(orderId);
+        if (order.isPresent()) {
+            // closed orders stay where they were closed, open ones are moved with their ticker
+            boolean open = order.get().getStatus() == OrderStatus.OPEN;
+            routeByTickers(open ? Set.of(order.get().getTicker()) : Set.of(), command && open, request, response,
+                chain);
+            return;
+        }
+        if (hops(request) > 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int origin = clusterNode.originOf(orderId);
+        List<Integer> nodes = new ArrayList<>();
+        nodes.add(origin);
+        for (int node = 0; node < clusterNode.nodeCount(); node++) {
+            if (node != origin) {
+                nodes.add(node);
+            }
+        }
+        for (int node : nodes) {
+            if (node == clusterNode.nodeId()) {
+                continue;
+            }
+            HttpResponse<InputStream> forwarded;
+            try {
+                forwarded = clusterClient.forward(node, 1, request.getMethod(), pathAndQuery(request),
+                    headersOf(request), bodyOf(request));
+            } catch (UncheckedIOException e) {
+                // the order may still be found on another node
+                log.warn("Cannot look order#{} up on node {}: {}", orderId, node, e.getMessage());
+                continue;
+            }
+            if (forwarded.statusCode() != HttpServletResponse.SC_NOT_FOUND) {
+                copy(forwarded, response);
+                return;
+            }
+            forwarded.body().close();
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Places the orders of each node as a batch of their own, unless they are all owned by the same node.
+     */
+    private void routeBatch(CachedBodyRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        JsonNode requests = readJson(request.body);
+        if (requests == null || !requests.isArray() || requests.isEmpty()
+            || requests.size() > OrderController.MAX_BATCH_SIZE) {
+            // rejected as a whole by the controller
+            chain.doFilter(request, response);
+            return;
+        }
+        Map<Integer, List<Integer>> indexesByNode = new TreeMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Set<String> tickers = tickersOf(List.of(requests.get(i)));
+            int node = tickers.isEmpty() ? clusterNode.nodeId() : clusterNode.ownerOf(tickers.iterator().next());
+            indexesByNode.computeIfAbsent(node, key -> new ArrayList<>()).add(i);
+        }
+        if (indexesByNode.size() == 1 || hops(request) >= clusterNode.nodeCount()) {
+            List<JsonNode> orders = new ArrayList<>();
+            requests.forEach(orders::add);
+            routeByTickers(tickersOf(orders), true, request, response, chain);
+            return;
+        }
+        var results = new JsonNode[requests.size()];
+        for (Map.Entry<Integer, List<Integer>> group : indexesByNode.entrySet()) {
+            int node = group.getKey();
+            List<Integer> indexes = group.getValue();
+            ArrayNode part = objectMapper.createArrayNode();
+            indexes.forEach(index -> part.add(requests.get(index)));
+            JsonNode partResults = null;
+            String error;
+            try {
+                HttpResponse<InputStream> forwarded = clusterClient.forward(node, hops(request) + 1, "POST",
+                    pathAndQuery(request), headersOf(request), objectMapper.writeValueAsBytes(part));
+                if (forwarded.statusCode() / 100 == 4) {
+                    // e.g. not authenticated, the same for every node
+                    copy(forwarded, response);
+                    return;
+                }
+                try (InputStream body = forwarded.body()) {
+                    if (forwarded.statusCode() == HttpServletResponse.SC_OK) {
+                        partResults = objectMapper.readTree(body);
+                    }
+                }
+                error = "Node " + node + " responded with status " + forwarded.statusCode();
+            } catch (UncheckedIOException e) {
+                error = e.getMessage();
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = partResults != null && partResults.size() == indexes.size()
+                    ? partResults.get(i) : objectMapper.valueToTree(PlaceOrderResult.rejected(error));
+            }
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), results);
+    }
+
+    /**
+     * Lists the open orders held by every node, sorted by ticker as a single node lists them.
+     */
+    private void gatherOpenOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<JsonNode> orders = new ArrayList<>();
+        for (int node = 0; node < clusterNode.nodeCount(); node++) {
+            HttpResponse<InputStream> forwarded;
+            try {
+                forwarded = clusterClient.forward(node, 1, "GET", pathAndQuery(request), headersOf(request), null);
+            } catch (UncheckedIOException e) {
+                response.sendError(HttpServletResponse.SC_BAD_GATEWAY, e.getMessage());
+                return;
+            }
+            if (forwarded.statusCode() != HttpServletResponse.SC_OK) {
+                copy(forwarded, response);
+                return;
+            }
+            try (InputStream body = forwarded.body()) {
+                objectMapper.readTree(body).forEach(orders::add);
+            }
+        }
+        orders.sort(Comparator.comparing(order -> order.path("ticker").asText()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), orders);
+    }
+
+    private void forward(int node, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpResponse<InputStream> forwarded;
+        try {
+            forwarded = clusterClient.forward(node, hops(request) + 1, request.getMethod(), pathAndQuery(request),
+                headersOf(request), bodyOf(request));
+        } catch (UncheckedIOException e) {
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, e.getMessage());
+            return;
+        }
+        copy(forwarded, response);
+    }
+
+    /**
+     * @return gates of the tickers entered, in the order of the tickers, or null if one stayed frozen
+     */
+    private List<TickerGate> enter(Collection<String> tickers) {
+        List<TickerGate> gates = new ArrayList<>(tickers.size());
+        for (String ticker : tickers) {
+            TickerGate gate = clusterNode.gate(ticker);
+            if (!gate.enter(clusterNode.requestTimeout())) {
+                gates.forEach(TickerGate::exit);
+                return null;
+            }
+            gates.add(gate);
+        }
+        return gates;
+    }
+
+    /**
+     * Serves the request here and leaves the gates once it completes, which for an asynchronous request
+     * is after this method returns.
+     */
+    private static void serve(List<TickerGate> gates, HttpServletRequest request, HttpServletResponse response,
+                              FilterChain chain) throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        // also called after a timeout or an error
+                        gates.forEach(TickerGate::exit);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                gates.forEach(TickerGate::exit);
+            }
+        }
+    }
+
+    /**
+     * Copies the response of another node, flushing its body as it arrives so that streamed events are not held.
+     */
+    private static void copy(HttpResponse<InputStream> forwarded, HttpServletResponse response) throws IOException {
+        response.setStatus(forwarded.statusCode());
+        for (String name : RESPONSE_HEADERS) {
+            forwarded.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+        }
+        try (InputStream body = forwarded.body()) {
+            OutputStream output = response.getOutputStream();
+            var buffer = new byte[8192];
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                output.write(buffer, 0, read);
+                if (body.available() == 0) {
+                    output.flush();
+                }
+            }
+        }
+    }
+
+    private Set<String> tickersOf(List<JsonNode> orders) {
+        Set<String> tickers = new TreeSet<>();
+        for (JsonNode order : orders) {
+            JsonNode ticker = order.path("ticker");
+            if (ticker.isTextual()) {
+                tickers.add(ticker.asText());
+            }
+        }
+        return tickers;
+    }
+
+    /**
+     * @return JSON of the body, null if it is not JSON and left for the controller to reject
+     */
+    private JsonNode readJson(byte[] body) {
+        try {
+            return body.length == 0 ? null : objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static int hops(HttpServletRequest request) {
+        String hops = request.getHeader(ClusterClient.FORWARDED_HEADER);
+        if (hops == null) {
+            return 0;
+        }
+        return isLong(hops) ? Integer.parseInt(hops) : 1;
+    }
+
+    private static boolean isLong(String value) {
+        return value != null && value.matches("-?\\d{1,18}");
+    }
+
+    private static String pathAndQuery(HttpServletRequest request) {
+        return request.getQueryString() == null
+            ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+    }
+
+    private static Map<String, String> headersOf(HttpServletRequest request) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (String name : REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return headers;
+    }
+
+    private static byte[] bodyOf(HttpServletRequest request) throws IOException {
+        byte[] body = request instanceof CachedBodyRequest cachedRequest
+            ? cachedRequest.body : request.getInputStream().readAllBytes();
+        return body.length == 0 ? null : body;
+    }
+
+    /**
+     * Request whose body is read upfront, to be routed by its content and still be read by the controller.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            var input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Body is already read");
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package xyz.a5s7.cluster;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent hashing of keys to nodes: every node has several points on a ring of 64-bit hashes,
+ * and a key belongs to the node of the first point at or after its own hash. Adding a node takes
+ * over only the keys falling right before its points, about one in the new number of nodes.
+ */
+public class HashRing {
+    private final TreeMap<Long, Integer> points = new TreeMap<>();
+
+    /**
+     * @param nodes        number of nodes, identified by their index
+     * @param virtualNodes points of each node on the ring
+     */
+    public HashRing(int nodes, int virtualNodes) {
+        if (nodes < 1) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Number of virtual nodes must be greater than 0");
+        }
+        for (int node = 0; node < nodes; node++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                // a colliding point keeps the lower node, the same on every node of the cluster
+                points.putIfAbsent(hash("node-" + node + "#" + point), node);
+            }
+        }
+    }
+
+    /**
+     * @return index of the node owning the key
+     */
+    public int nodeFor(String key) {
+        Map.Entry<Long, Integer> point = points.ceilingEntry(hash(key));
+        return (point == null ? points.firstEntry() : point).getValue();
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer to spread similar keys.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
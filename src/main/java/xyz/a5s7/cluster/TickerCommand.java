@@ -0,0 +1,83 @@
+package xyz.a5s7.cluster;
+
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Journal record of a ticker, copied to the node the ticker is moved to. Fields not used by the type are 0 or null.
+ *
+ * @param price               price of a placed, amended or restored order
+ * @param quantity            quantity of a placed, amended or restored order
+ * @param selfTradePrevention of a placed or restored order, null from nodes that did not send it is NONE
+ * @param orderType           of a placed or restored order, null from nodes that did not send it is LIMIT
+ * @param timeInForce         of a placed or restored order, null from nodes that did not send it is GTC
+ * @param displayQuantity     of a placed or restored iceberg order
+ * @param hiddenQuantity      of a restored iceberg order
+ * @param stopPrice           of a placed stop order, or of a restored one waiting for its trigger
+ * @param phase               the order book changed to
+ */
+public record TickerCommand(Type type, long orderId, Long userId, Direction direction, long price, long quantity,
+                            long pendingQuantity, ZonedDateTime timestamp, SelfTradePrevention selfTradePrevention,
+                            OrderType orderType, TimeInForce timeInForce, long displayQuantity,
+                            long hiddenQuantity, long stopPrice, TradingPhase phase) {
+    public enum Type {
+        PLACE, CANCEL, AMEND, RESTORE, REMOVE, PHASE
+    }
+
+    static TickerCommand place(LimitOrder order) {
+        return new TickerCommand(Type.PLACE, order.getId(), order.getUserId(), order.getDirection(), order.getPrice(),
+            order.getQuantity(), order.getQuantity(), order.getTimestamp(), order.getSelfTradePrevention(),
+            order.getOrderType(), order.getTimeInForce(), order.getDisplayQuantity(), 0,
+            order.getStopPrice(), null);
+    }
+
+    static TickerCommand restore(LimitOrder order) {
+        return new TickerCommand(Type.RESTORE, order.getId(), order.getUserId(), order.getDirection(),
+            order.getPrice(), order.getQuantity(), order.getPendingQuantity(), order.getTimestamp(),
+            order.getSelfTradePrevention(), order.getOrderType(), order.getTimeInForce(), order.getDisplayQuantity(),
+            order.getHiddenQuantity(), order.getPendingStopPrice(), null);
+    }
+
+    static TickerCommand amend(long orderId, long price, long quantity, ZonedDateTime timestamp) {
+        return new TickerCommand(Type.AMEND, orderId, null, null, price, quantity, 0, timestamp, null, null, null,
+            0, 0, 0, null);
+    }
+
+    static TickerCommand phase(TradingPhase phase, ZonedDateTime timestamp) {
+        return new TickerCommand(Type.PHASE, 0, null, null, 0, 0, 0, timestamp, null, null, null, 0, 0, 0, phase);
+    }
+
+    static TickerCommand of(Type type, long orderId) {
+        return new TickerCommand(type, orderId, null, null, 0, 0, 0, null, null, null, null, 0, 0, 0, null);
+    }
+
+    /**
+     * Executes the command again in a copy of the order book of the ticker.
+     */
+    void applyTo(OrderBook orderBook) {
+        switch (type) {
+            case PLACE, RESTORE -> orderBook.addOrder(toOrder(orderBook.getTicker()));
+            case CANCEL, REMOVE -> orderBook.cancelOrder(orderId);
+            case AMEND -> orderBook.amendOrder(orderId, price, quantity, timestamp);
+            case PHASE -> orderBook.changePhase(phase, timestamp);
+        }
+    }
+
+    private LimitOrder toOrder(String ticker) {
+        return LimitOrder.restore(orderId, userId, ticker, direction, price, quantity, pendingQuantity, false,
+                timestamp)
+            .withType(orderType == null ? OrderType.LIMIT : orderType,
+                timeInForce == null ? TimeInForce.GTC : timeInForce)
+            .withSelfTradePrevention(selfTradePrevention == null ? SelfTradePrevention.NONE : selfTradePrevention)
+            .withDisplayQuantity(displayQuantity)
+            .withHiddenQuantity(hiddenQuantity)
+            .withStopPrice(stopPrice);
+    }
+}
@@ -0,0 +1,95 @@
+package xyz.a5s7.cluster;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets the commands of a ticker through unless the ticker is frozen while it is moved to another node.
+ * Freezing waits for the commands already let through to complete.
+ * <p>
+ * Unlike a read lock, a command may leave the gate on another thread than the one it entered on,
+ * e.g. once an asynchronous request completes.
+ */
+class TickerGate {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int inFlight;
+    private boolean frozen;
+
+    /**
+     * Waits while the ticker is frozen.
+     *
+     * @return whether the command may go on, false if the ticker stayed frozen for the whole timeout;
+     *         a command that may go on must {@link #exit()} once done
+     */
+    boolean enter(Duration timeout) {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (frozen) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = changed.awaitNanos(nanos);
+            }
+            inFlight++;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void exit() {
+        lock.lock();
+        try {
+            if (--inFlight == 0) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops letting commands through and waits for those let through to complete.
+     *
+     * @throws IllegalStateException if the ticker is already frozen or its commands did not complete in time
+     */
+    void freeze(Duration timeout) {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            if (frozen) {
+                throw new IllegalStateException("Ticker is already being moved");
+            }
+            frozen = true;
+            while (inFlight > 0) {
+                if (nanos <= 0) {
+                    thaw();
+                    throw new IllegalStateException("Commands of the ticker did not complete in " + timeout);
+                }
+                nanos = changed.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            thaw();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while freezing the ticker");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void thaw() {
+        lock.lock();
+        try {
+            frozen = false;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
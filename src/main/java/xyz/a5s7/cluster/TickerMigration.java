@@ -0,0 +1,297 @@
+package xyz.a5s7.cluster;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.journal.JournalHandler;
+import xyz.a5s7.domain.journal.JournalProperties;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.TradingPhase;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.snapshot.BookSnapshot;
+
+/**
+ * Moves the order book of a ticker to another node while the ticker keeps trading for most of the move.
+ * <p>
+ * With the journal enabled, the book is copied and staged on the target node first, without stopping
+ * the ticker. The ticker is then frozen: its commands in flight complete and new ones wait, the journal
+ * records of the ticker written since the copy are replayed on the staged book, and the target installs
+ * the staged book and takes the ticker over. The source removes the resting orders from its book and lets
+ * the waiting commands through, which are forwarded to the new owner. Without the journal the book is
+ * copied once frozen.
+ */
+@Service
+@ConditionalOnProperty(name = "orderbook.cluster.enabled", havingValue = "true")
+public class TickerMigration {
+    private static final Logger log = LoggerFactory.getLogger(TickerMigration.class);
+
+    private final ClusterNode clusterNode;
+    private final ClusterClient clusterClient;
+    private final MatchingEngine matchingEngine;
+    private final OrderBookFactory orderBookFactory;
+    private final OrderRepo orderRepo;
+    private final Journal journal;
+    private final boolean journaled;
+    // books copied from the node owning the ticker, waiting to be installed
+    private final Map<String, OrderBook> staged = new ConcurrentHashMap<>();
+
+    public TickerMigration(ClusterNode clusterNode, ClusterClient clusterClient, MatchingEngine matchingEngine,
+                           OrderBookFactory orderBookFactory, OrderRepo orderRepo, Journal journal,
+                           JournalProperties journalProperties) {
+        this.clusterNode = clusterNode;
+        this.clusterClient = clusterClient;
+        this.matchingEngine = matchingEngine;
+        this.orderBookFactory = orderBookFactory;
+        this.orderRepo = orderRepo;
+        this.journal = journal;
+        this.journaled = journalProperties.enabled();
+    }
+
+    /**
+     * Moves a ticker owned by this node to another node.
+     *
+     * @throws IllegalArgumentException if the node is not valid or the ticker is not owned by this node
+     * @throws IllegalStateException    if the ticker is already being moved or the target node failed
+     */
+    public MoveResult move(String ticker, int node) {
+        if (node < 0 || node >= clusterNode.nodeCount()) {
+            throw new IllegalArgumentException("Node must be between 0 and " + (clusterNode.nodeCount() - 1));
+        }
+        if (!clusterNode.owns(ticker)) {
+            throw new IllegalArgumentException("Ticker " + ticker + " is owned by node " + clusterNode.ownerOf(ticker));
+        }
+        if (node == clusterNode.nodeId()) {
+            throw new IllegalArgumentException("Ticker " + ticker + " is already owned by node " + node);
+        }
+        TickerGate gate = clusterNode.gate(ticker);
+        BookSnapshot copy = null;
+        boolean installed = false;
+        try {
+            if (journaled) {
+                copy = copy(ticker);
+                clusterClient.call(node, "PUT", stagePath(ticker), copy, Void.class);
+            }
+            gate.freeze(clusterNode.requestTimeout());
+            try {
+                List<TickerCommand> commands = List.of();
+                if (copy == null) {
+                    copy = copy(ticker);
+                    clusterClient.call(node, "PUT", stagePath(ticker), copy, Void.class);
+                } else {
+                    commands = readCommands(ticker, copy.journalSequence());
+                }
+                clusterClient.call(node, "POST", tickerPath(ticker) + "/install", commands, Void.class);
+                installed = true;
+                clusterNode.assign(ticker, node);
+                int removed = removeOrders(ticker);
+                log.info("Moved {} to node {}: {} resting orders, {} commands replayed", ticker, node, removed,
+                    commands.size());
+                notifyOtherNodes(ticker, node);
+                return new MoveResult(ticker, node, removed, commands.size());
+            } finally {
+                gate.thaw();
+            }
+        } catch (RuntimeException e) {
+            if (copy != null && !installed) {
+                abortSafely(ticker, node);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stages the copy of the order book of a ticker owned by another node, replacing any copy staged before.
+     *
+     * @throws IllegalStateException if the ticker is owned by this node
+     */
+    public void stage(BookSnapshot copy) {
+        if (clusterNode.owns(copy.ticker())) {
+            throw new IllegalStateException("Ticker " + copy.ticker() + " is already owned by this node");
+        }
+        OrderBook orderBook = orderBookFactory.createDetached(copy.ticker());
+        copy.restore(orderBook, order -> order);
+        staged.put(copy.ticker(), orderBook);
+    }
+
+    /**
+     * Replays the commands on the staged book of the ticker, installs its resting orders in the order book
+     * of this node and takes the ticker over.
+     *
+     * @param commands commands of the ticker executed by its owner since the staged copy
+     * @return number of orders installed
+     * @throws IllegalStateException if the ticker is not staged or its order book on this node is not empty
+     */
+    public int install(String ticker, List<TickerCommand> commands) {
+        OrderBook stagedBook = staged.remove(ticker);
+        if (stagedBook == null) {
+            throw new IllegalStateException("Ticker " + ticker + " is not staged");
+        }
+        commands.forEach(command -> command.applyTo(stagedBook));
+        List<LimitOrder> orders = new ArrayList<>();
+        stagedBook.forEachOrder(Direction.BID, orders::add);
+        stagedBook.forEachOrder(Direction.ASK, orders::add);
+        matchingEngine.withOrderBook(ticker, orderBook -> {
+            if (orderBook.getLevelCount(Direction.BID) > 0 || orderBook.getLevelCount(Direction.ASK) > 0) {
+                throw new IllegalStateException("Order book of " + ticker + " is not empty");
+            }
+            // orders of a book copied outside continuous trading may cross, they are installed during the call
+            TradingPhase phase = stagedBook.getPhase();
+            if (phase != TradingPhase.CONTINUOUS) {
+                changePhase(orderBook, TradingPhase.AUCTION_CALL);
+            }
+            for (LimitOrder resting : orders) {
+                // the resting order is linked into the staged book, a copy is linked into the live one
+                LimitOrder order = LimitOrder.restore(resting.getId(), resting.getUserId(), ticker,
+                    resting.getDirection(), resting.getPrice(), resting.getQuantity(), resting.getPendingQuantity(),
+                    false, resting.getTimestamp())
+                    .withType(resting.getOrderType(), resting.getTimeInForce())
+                    .withSelfTradePrevention(resting.getSelfTradePrevention())
+                    .withDisplayQuantity(resting.getDisplayQuantity())
+                    .withHiddenQuantity(resting.getHiddenQuantity())
+                    .withStopPrice(resting.getPendingStopPrice());
+                orderBook.addOrder(orderRepo.save(order));
+                journal.appendRestore(order);
+            }
+            changePhase(orderBook, phase);
+            return null;
+        });
+        journal.awaitDurable(journal.lastSequence());
+        clusterNode.assign(ticker, clusterNode.nodeId());
+        return orders.size();
+    }
+
+    public void abort(String ticker) {
+        staged.remove(ticker);
+    }
+
+    private void changePhase(OrderBook orderBook, TradingPhase phase) {
+        if (orderBook.getPhase() != phase) {
+            orderBook.changePhase(phase, null);
+            journal.appendPhase(orderBook.getTicker(), phase, null);
+        }
+    }
+
+    private BookSnapshot copy(String ticker) {
+        return matchingEngine.withOrderBook(ticker, orderBook -> BookSnapshot.of(orderBook, journal.lastSequence()));
+    }
+
+    private List<TickerCommand> readCommands(String ticker, long afterSequence) {
+        List<TickerCommand> commands = new ArrayList<>();
+        journal.read(afterSequence, journal.lastSequence(), new JournalHandler() {
+            @Override
+            public void onPlace(long sequence, LimitOrder order) {
+                if (order.getTicker().equals(ticker)) {
+                    commands.add(TickerCommand.place(order));
+                }
+            }
+
+            @Override
+            public void onCancel(long sequence, String orderTicker, long orderId) {
+                if (orderTicker.equals(ticker)) {
+                    commands.add(TickerCommand.of(TickerCommand.Type.CANCEL, orderId));
+                }
+            }
+
+            @Override
+            public void onAmend(long sequence, String orderTicker, long orderId, long price, long quantity,
+                                ZonedDateTime timestamp) {
+                if (orderTicker.equals(ticker)) {
+                    commands.add(TickerCommand.amend(orderId, price, quantity, timestamp));
+                }
+            }
+
+            @Override
+            public void onRestore(long sequence, LimitOrder order) {
+                if (order.getTicker().equals(ticker)) {
+                    commands.add(TickerCommand.restore(order));
+                }
+            }
+
+            @Override
+            public void onRemove(long sequence, String orderTicker, long orderId) {
+                if (orderTicker.equals(ticker)) {
+                    commands.add(TickerCommand.of(TickerCommand.Type.REMOVE, orderId));
+                }
+            }
+
+            @Override
+            public void onPhase(long sequence, String phaseTicker, TradingPhase phase, ZonedDateTime timestamp) {
+                if (phaseTicker.equals(ticker)) {
+                    commands.add(TickerCommand.phase(phase, timestamp));
+                }
+            }
+        });
+        return commands;
+    }
+
+    /**
+     * Removes the resting orders of a ticker moved away, they are now served by the new owner.
+     *
+     * @return number of orders removed
+     */
+    private int removeOrders(String ticker) {
+        int removed = matchingEngine.withOrderBook(ticker, orderBook -> {
+            List<LimitOrder> orders = new ArrayList<>();
+            orderBook.forEachOrder(Direction.BID, orders::add);
+            orderBook.forEachOrder(Direction.ASK, orders::add);
+            for (LimitOrder order : orders) {
+                orderBook.cancelOrder(order.getId());
+                orderRepo.remove(order.getId());
+                journal.appendRemove(order);
+            }
+            return orders.size();
+        });
+        journal.awaitDurable(journal.lastSequence());
+        return removed;
+    }
+
+    private void notifyOtherNodes(String ticker, int owner) {
+        for (int node = 0; node < clusterNode.nodeCount(); node++) {
+            if (node == owner || node == clusterNode.nodeId()) {
+                continue;
+            }
+            try {
+                clusterClient.call(node, "PUT", tickerPath(ticker) + "/owner?node=" + owner, null, Void.class);
+            } catch (RuntimeException e) {
+                // the node forwards the commands of the ticker here until told, they are forwarded again
+                log.warn("Cannot tell node {} that {} moved to node {}", node, ticker, owner, e);
+            }
+        }
+    }
+
+    private void abortSafely(String ticker, int node) {
+        try {
+            clusterClient.call(node, "DELETE", stagePath(ticker), null, Void.class);
+        } catch (RuntimeException e) {
+            log.warn("Cannot discard the copy of {} staged on node {}", ticker, node, e);
+        }
+    }
+
+    private static String tickerPath(String ticker) {
+        return "/cluster/tickers/" + ticker;
+    }
+
+    private static String stagePath(String ticker) {
+        return tickerPath(ticker) + "/stage";
+    }
+
+    /**
+     * @param orders   number of resting orders moved
+     * @param commands number of commands executed during the copy and replayed on the target node
+     */
+    public record MoveResult(String ticker, int node, int orders, int commands) {
+    }
+}
@@ -0,0 +1,514 @@
+package xyz.a5s7.domain.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.model.Trade;
+
+/**
+ * Closed orders and their trades on disk, in append-only segment files numbered from 1.
+ * <p>
+ * A record is big-endian: payload length, CRC32 of the payload, then the payload with the order as
+ * id, user id, ticker, direction, price, quantity, pending quantity, whether it was cancelled and timestamp
+ * in microseconds since the epoch, followed by the count of its trades and each trade as
+ * id, aggressing order id, resting order id, price, quantity and timestamp, then the self-trade prevention,
+ * order type, time in force, display quantity and stop price of the order, missing from records written before
+ * they were archived.
+ * <p>
+ * Every segment has an index of the offsets of its records, sorted by order id, kept in memory and
+ * looked up without locking. Once a segment is full, its index is written next to it, so that
+ * the store is reopened without reading the sealed segments; the last segment is scanned instead, and
+ * a record torn by a crash at its end is truncated. An order archived twice, e.g. after it was replayed
+ * from the journal, is found in its latest record.
+ * <p>
+ * Orders read recently are cached, so that clients polling an archived order do not read the disk each time.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.retention.enabled", havingValue = "true")
+public class ArchiveStore implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ArchiveStore.class);
+
+    private static final int INDEX_MAGIC = 0x4F424158;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final String PREFIX = "archive-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+
+    private final Path directory;
+    private final long segmentSize;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // segments from the oldest to the current one, replaced as a whole when a segment is added
+    private volatile List<Segment> segments;
+    private final ReentrantLock cacheLock = new ReentrantLock();
+    private final Map<Long, ArchivedOrder> cache;
+
+    public ArchiveStore(RetentionProperties properties) {
+        if (properties.segmentSize().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Archive segment size must not exceed 2GB");
+        }
+        this.directory = Path.of(properties.directory());
+        this.segmentSize = properties.segmentSize().toBytes();
+        int cacheSize = properties.cacheSize();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ArchivedOrder> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        try {
+            Files.createDirectories(directory);
+            this.segments = open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open archive in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Appends the orders and forces them to the storage device, after which they can be dropped from memory.
+     */
+    public void append(List<ArchivedOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        appendLock.lock();
+        try {
+            Segment segment = segments.getLast();
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            long[] ids = new long[orders.size()];
+            int[] offsets = new int[orders.size()];
+            long position = segment.channel.size();
+            for (int i = 0; i < orders.size(); i++) {
+                ids[i] = orders.get(i).order().getId();
+                offsets[i] = (int) (position + bytes.size());
+                writeRecord(orders.get(i), out);
+            }
+            out.flush();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                position += segment.channel.write(buffer, position);
+            }
+            segment.channel.force(false);
+            segment.index = segment.index.merge(SegmentIndex.of(ids, offsets));
+            if (position >= segmentSize) {
+                seal(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to archive in " + directory.toAbsolutePath(), e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * @return archived order with its trades, or empty if the order has not been archived
+     */
+    public Optional<ArchivedOrder> find(long orderId) {
+        cacheLock.lock();
+        try {
+            ArchivedOrder cached = cache.get(orderId);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        } finally {
+            cacheLock.unlock();
+        }
+        List<Segment> current = segments;
+        for (Segment segment : current.reversed()) {
+            int offset = segment.index.offsetOf(orderId);
+            if (offset >= 0) {
+                ArchivedOrder archived = read(segment, offset);
+                cacheLock.lock();
+                try {
+                    cache.put(orderId, archived);
+                } finally {
+                    cacheLock.unlock();
+                }
+                return Optional.of(archived);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return number of archived records, counting an order archived twice once per segment
+     */
+    public long size() {
+        return segments.stream().mapToLong(segment -> segment.index.ids.length).sum();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn("Cannot close archive segment {}", segment.path, e);
+            }
+        }
+    }
+
+    private List<Segment> open() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                })
+                .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                .toList();
+        }
+        List<Segment> opened = new ArrayList<>(paths.size() + 1);
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            boolean last = i == paths.size() - 1;
+            FileChannel channel = last
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+            SegmentIndex index = last ? null : readIndex(indexPath(path));
+            if (index == null) {
+                index = scan(path, channel, last);
+            }
+            opened.add(new Segment(number(path), path, channel, index));
+        }
+        if (opened.isEmpty()) {
+            opened.add(create(1));
+        }
+        long records = opened.stream().mapToLong(segment -> segment.index.ids.length).sum();
+        log.info("Opened archive of {} segments with {} records in {}", opened.size(), records,
+            directory.toAbsolutePath());
+        return List.copyOf(opened);
+    }
+
+    private Segment create(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", PREFIX, number, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        return new Segment(number, path, channel, SegmentIndex.EMPTY);
+    }
+
+    private void seal(Segment segment) throws IOException {
+        writeIndex(segment.index, indexPath(segment.path));
+        List<Segment> sealed = new ArrayList<>(segments);
+        sealed.add(create(segment.number + 1));
+        segments = List.copyOf(sealed);
+    }
+
+    private static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Indexes the complete records of the segment, truncating a torn record at the end of the last segment.
+     */
+    private static SegmentIndex scan(Path path, FileChannel channel, boolean last) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        List<Long> ids = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+        while (position + RECORD_HEADER_LENGTH <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || position + RECORD_HEADER_LENGTH + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + RECORD_HEADER_LENGTH);
+            var crc = new CRC32();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            ids.add(payload.getLong(0));
+            offsets.add((int) position);
+            position += RECORD_HEADER_LENGTH + length;
+        }
+        if (position < size) {
+            if (!last) {
+                throw new IOException("Archive segment " + path + " is damaged at offset " + position);
+            }
+            log.warn("Truncating torn record at offset {} of archive segment {}", position, path);
+            channel.truncate(position);
+        }
+        return SegmentIndex.of(ids.stream().mapToLong(Long::longValue).toArray(),
+            offsets.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void writeIndex(SegmentIndex index, Path path) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(index.ids.length);
+        for (int i = 0; i < index.ids.length; i++) {
+            out.writeLong(index.ids[i]);
+            out.writeInt(index.offsets[i]);
+        }
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return index read from the file, or null if it is missing or damaged
+     */
+    private static SegmentIndex readIndex(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            var in = new DataInputStream(new ByteArrayInputStream(bytes));
+            if (in.readInt() != INDEX_MAGIC) {
+                throw new IOException("Not an archive index");
+            }
+            int count = in.readInt();
+            long[] ids = new long[count];
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = in.readLong();
+                offsets[i] = in.readInt();
+            }
+            var crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - Long.BYTES);
+            if (in.readLong() != crc.getValue()) {
+                throw new IOException("Archive index checksum mismatch");
+            }
+            return new SegmentIndex(ids, offsets);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read archive index {}, scanning its segment", path, e);
+            return null;
+        }
+    }
+
+    private static void writeRecord(ArchivedOrder archived, DataOutputStream out) throws IOException {
+        var bytes = new ByteArrayOutputStream(128);
+        var payload = new DataOutputStream(bytes);
+        LimitOrder order = archived.order();
+        payload.writeLong(order.getId());
+        payload.writeLong(order.getUserId() == null ? 0 : order.getUserId());
+        payload.writeUTF(order.getTicker());
+        payload.writeByte(order.getDirection().ordinal());
+        payload.writeLong(order.getPrice());
+        payload.writeLong(order.getQuantity());
+        payload.writeLong(order.getPendingQuantity());
+        payload.writeBoolean(order.getStatus() == OrderStatus.CANCELLED);
+        payload.writeLong(toMicros(order.getTimestamp()));
+        payload.writeInt(archived.trades().size());
+        for (Trade trade : archived.trades()) {
+            payload.writeLong(trade.id());
+            payload.writeLong(trade.aggressingId());
+            payload.writeLong(trade.restingId());
+            payload.writeLong(trade.price());
+            payload.writeLong(trade.quantity());
+            payload.writeLong(toMicros(trade.timestamp()));
+        }
+        payload.writeByte(order.getSelfTradePrevention().ordinal());
+        payload.writeByte(order.getOrderType().ordinal());
+        payload.writeByte(order.getTimeInForce().ordinal());
+        payload.writeLong(order.getDisplayQuantity());
+        payload.writeLong(order.getStopPrice());
+        payload.flush();
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeInt(bytes.size());
+        out.writeInt((int) crc.getValue());
+        bytes.writeTo(out);
+    }
+
+    private static ArchivedOrder read(Segment segment, int offset) {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH);
+            readFully(segment.channel, header, offset);
+            ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+            readFully(segment.channel, payload, offset + RECORD_HEADER_LENGTH);
+            var in = new DataInputStream(new ByteArrayInputStream(payload.array()));
+            long id = in.readLong();
+            long userId = in.readLong();
+            LimitOrder order = LimitOrder.restore(id, userId == 0 ? null : userId, in.readUTF(),
+                DIRECTIONS[in.readByte()], in.readLong(), in.readLong(), in.readLong(), in.readBoolean(),
+                fromMicros(in.readLong()));
+            int tradeCount = in.readInt();
+            Trade[] trades = new Trade[tradeCount];
+            for (int i = 0; i < tradeCount; i++) {
+                trades[i] = new Trade(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    fromMicros(in.readLong()));
+            }
+            if (in.available() > 0) {
+                order.withSelfTradePrevention(SELF_TRADE_PREVENTIONS[in.readByte()]);
+            }
+            if (in.available() > 0) {
+                order.withType(ORDER_TYPES[in.readByte()], TIMES_IN_FORCE[in.readByte()]);
+            }
+            if (in.available() > 0) {
+                order.withDisplayQuantity(in.readLong());
+            }
+            if (in.available() > 0) {
+                order.withStopPrice(in.readLong());
+            }
+            return new ArchivedOrder(order, List.of(trades));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + segment.path + " at " + offset, e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+    }
+
+    private static long toMicros(ZonedDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static ZonedDateTime fromMicros(long micros) {
+        if (micros == NO_TIMESTAMP) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L)
+            .atZone(ZoneId.systemDefault());
+    }
+
+    private static final class Segment {
+        final long number;
+        final Path path;
+        final FileChannel channel;
+        // replaced by the appending thread, read without locking
+        volatile SegmentIndex index;
+
+        Segment(long number, Path path, FileChannel channel, SegmentIndex index) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Offsets of the records of a segment, sorted by order id.
+     */
+    private record SegmentIndex(long[] ids, int[] offsets) {
+        static final SegmentIndex EMPTY = new SegmentIndex(new long[0], new int[0]);
+
+        /**
+         * @return index of the records, of which the later one is kept when an id repeats
+         */
+        static SegmentIndex of(long[] ids, int[] offsets) {
+            Integer[] order = new Integer[ids.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // stable, so records of the same id stay in the order they were written
+            Arrays.sort(order, Comparator.comparingLong(i -> ids[i]));
+            long[] sortedIds = new long[ids.length];
+            int[] sortedOffsets = new int[ids.length];
+            int count = 0;
+            for (int i : order) {
+                if (count > 0 && sortedIds[count - 1] == ids[i]) {
+                    count--;
+                }
+                sortedIds[count] = ids[i];
+                sortedOffsets[count++] = offsets[i];
+            }
+            return new SegmentIndex(Arrays.copyOf(sortedIds, count), Arrays.copyOf(sortedOffsets, count));
+        }
+
+        /**
+         * @return index of both, with the records of {@code later} replacing those of the same ids
+         */
+        SegmentIndex merge(SegmentIndex later) {
+            long[] mergedIds = new long[ids.length + later.ids.length];
+            int[] mergedOffsets = new int[mergedIds.length];
+            int i = 0;
+            int j = 0;
+            int count = 0;
+            while (i < ids.length || j < later.ids.length) {
+                if (j == later.ids.length || i < ids.length && ids[i] < later.ids[j]) {
+                    mergedIds[count] = ids[i];
+                    mergedOffsets[count++] = offsets[i++];
+                } else {
+                    if (i < ids.length && ids[i] == later.ids[j]) {
+                        i++;
+                    }
+                    mergedIds[count] = later.ids[j];
+                    mergedOffsets[count++] = later.offsets[j++];
+                }
+            }
+            return new SegmentIndex(Arrays.copyOf(mergedIds, count), Arrays.copyOf(mergedOffsets, count));
+        }
+
+        /**
+         * @return offset of the record of the order, or -1 if the segment has none
+         */
+        int offsetOf(long id) {
+            if (ids.length == 0 || id < ids[0] || id > ids[ids.length - 1]) {
+                return -1;
+            }
+            int found = Arrays.binarySearch(ids, id);
+            return found < 0 ? -1 : offsets[found];
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package xyz.a5s7.domain.archive;
+
+import java.util.List;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.Trade;
+
+/**
+ * Closed order moved out of memory, together with its trades.
+ */
+public record ArchivedOrder(LimitOrder order, List<Trade> trades) {
+}
@@ -0,0 +1,27 @@
+package xyz.a5s7.domain.archive;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param enabled         whether closed orders and their trades are moved from memory to the archive
+ * @param directory       directory of the archive segment files
+ * @param closedAge       how long an order stays in memory once it is filled or cancelled
+ * @param maxClosedOrders closed orders kept in memory, the oldest closed ones are archived earlier beyond it
+ * @param interval        how often orders are checked for archiving
+ * @param segmentSize     size of an archive segment file, a new one is started once it is exceeded
+ * @param cacheSize       archived orders read recently that are kept in memory
+ */
+@ConfigurationProperties("orderbook.retention")
+public record RetentionProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("archive") String directory,
+        @DefaultValue("10m") Duration closedAge,
+        @DefaultValue("100000") int maxClosedOrders,
+        @DefaultValue("10s") Duration interval,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("10000") int cacheSize) {
+}
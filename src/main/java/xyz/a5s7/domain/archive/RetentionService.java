@@ -0,0 +1,176 @@
+package xyz.a5s7.domain.archive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.service.JournalRecovery;
+import xyz.a5s7.util.LongObjectHashMap;
+
+/**
+ * Bounds the memory held by orders that can no longer change: filled and cancelled orders are moved,
+ * with their trades, from the repositories to the {@link ArchiveStore} once they have been closed for
+ * the configured age, or earlier, oldest closed first, when there are more of them than the configured count.
+ * <p>
+ * The repositories are checked periodically on the retention thread. The trades of an order are saved by the
+ * trade persistence thread after its fills, which may lag behind when the {@link ExecutionEventRing} is backed up.
+ * The check after the one that finds an order closed records the fills published so far, which include those of
+ * the order, and the order is archived only once they have all been handled, so its trades are archived with it.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.retention.enabled", havingValue = "true")
+public class RetentionService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private final ArchiveStore archiveStore;
+    private final OrderRepo orderRepo;
+    private final TradeRepo tradeRepo;
+    private final ExecutionEventRing executionEventRing;
+    private final long closedAgeNanos;
+    private final int maxClosedOrders;
+    private final long intervalMillis;
+    private final Counter archived;
+    // accessed by the retention thread only: orders found closed by the last check, without their fills recorded
+    private final List<ClosedOrder> foundOrders = new ArrayList<>();
+    // closed orders in the order they were found closed
+    private final ArrayDeque<ClosedOrder> closedOrders = new ArrayDeque<>();
+    private final LongObjectHashMap<ClosedOrder> closedById = new LongObjectHashMap<>();
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    public RetentionService(RetentionProperties properties, ArchiveStore archiveStore, OrderRepo orderRepo,
+                            TradeRepo tradeRepo, ExecutionEventRing executionEventRing, MeterRegistry meterRegistry) {
+        if (properties.maxClosedOrders() < 0) {
+            throw new IllegalArgumentException("Maximum number of closed orders must not be negative");
+        }
+        this.archiveStore = archiveStore;
+        this.orderRepo = orderRepo;
+        this.tradeRepo = tradeRepo;
+        this.executionEventRing = executionEventRing;
+        this.closedAgeNanos = properties.closedAge().toNanos();
+        this.maxClosedOrders = properties.maxClosedOrders();
+        this.intervalMillis = properties.interval().toMillis();
+        this.archived = Counter.builder("orderbook.retention.archived")
+            .description("Closed orders moved from memory to the archive")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Finds the orders closed since the previous check and archives those closed long enough.
+     *
+     * @return number of orders archived
+     */
+    public int archive() {
+        long checkedAt = System.nanoTime();
+        // the last fill of an order found closed by the previous check has been published by now
+        long published = executionEventRing.cursor();
+        for (ClosedOrder found : foundOrders) {
+            closedOrders.add(new ClosedOrder(found.id(), found.foundAt(), published));
+        }
+        foundOrders.clear();
+        orderRepo.forEach(order -> {
+            // filled and cancelled are final, a stale read only delays the order to the next check
+            if (order.getStatus() != OrderStatus.OPEN && !closedById.containsKey(order.getId())) {
+                var closed = new ClosedOrder(order.getId(), checkedAt, Long.MAX_VALUE);
+                foundOrders.add(closed);
+                closedById.put(closed.id(), closed);
+            }
+        });
+        long handled = executionEventRing.handledSequence();
+        List<ArchivedOrder> batch = new ArrayList<>();
+        while (!closedOrders.isEmpty()) {
+            ClosedOrder closed = closedOrders.peek();
+            boolean old = checkedAt - closed.foundAt() >= closedAgeNanos;
+            boolean overflow = closedOrders.size() + foundOrders.size() > maxClosedOrders;
+            // the orders are queued with their fills in order, no later one has its trades saved either
+            if (closed.fillSequence() > handled || !old && !overflow) {
+                break;
+            }
+            closedOrders.poll();
+            closedById.remove(closed.id());
+            orderRepo.findById(closed.id()).ifPresent(order -> batch.add(new ArchivedOrder(order,
+                tradeRepo.findTradesByOrderId(closed.id()).orElseGet(List::of))));
+        }
+        // the orders are dropped from memory only once they are durable in the archive
+        archiveStore.append(batch);
+        for (ArchivedOrder archivedOrder : batch) {
+            LimitOrder order = archivedOrder.order();
+            orderRepo.remove(order.getId());
+            tradeRepo.removeTradesByOrderId(order.getId());
+        }
+        archived.increment(batch.size());
+        if (!batch.isEmpty()) {
+            log.debug("Archived {} closed orders, {} closed orders left in memory", batch.size(),
+                closedOrders.size() + foundOrders.size());
+        }
+        return batch.size();
+    }
+
+    private void archiveSafely() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            log.error("Error archiving closed orders", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::archiveSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Retention thread did not stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started once the order books are recovered.
+     */
+    @Override
+    public int getPhase() {
+        return JournalRecovery.PHASE + 1;
+    }
+
+    /**
+     * @param fillSequence sequence in the execution ring not exceeded by the fills of the order,
+     *                     {@link Long#MAX_VALUE} until recorded by the check after the one finding it closed
+     */
+    private record ClosedOrder(long id, long foundAt, long fillSequence) {
+    }
+}
@@ -0,0 +1,182 @@
+package xyz.a5s7.domain.audit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.ExecutionEvent;
+import xyz.a5s7.domain.engine.ExecutionEventHandler;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+/**
+ * Binary log of every fill, for investigations, decoded with {@link AuditLogDecoder}.
+ * <p>
+ * Fills are handed over by the {@link xyz.a5s7.domain.engine.ExecutionEventRing} like to any other handler,
+ * so the matching threads neither format nor write anything. The handler thread encodes each fill into
+ * a preallocated direct buffer and writes the buffer to the file once per batch of fills, without forcing it
+ * to the storage device: fills buffered when the process crashes are lost, they are in the journal anyway.
+ * Fills replayed from the journal on startup have been logged before the restart and are not logged again.
+ * <p>
+ * Every start opens a new file, files are numbered from 1. A file starts with {@link #MAGIC}, followed by
+ * little-endian records: length of the rest of the record, type, timestamp in milliseconds since the epoch,
+ * aggressing and resting order ids, aggressing and resting user ids, direction of the aggressing order,
+ * price in ticks, quantity in lots, then length and UTF-8 bytes of the ticker.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.audit.enabled", havingValue = "true")
+public class AuditLog implements ExecutionEventHandler, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+
+    static final int MAGIC = 0x5541424F;
+    static final byte FILL = 1;
+    static final String PREFIX = "audit-";
+    static final String SUFFIX = ".bin";
+    static final int MAX_TICKER_LENGTH = 255;
+    // type, timestamp, 4 ids, direction, price, quantity and ticker length
+    static final int FILL_LENGTH = 1 + Long.BYTES * 5 + 1 + Long.BYTES * 2 + 1;
+    private static final int MAX_RECORD_LENGTH = Integer.BYTES + FILL_LENGTH + MAX_TICKER_LENGTH;
+    private static final byte NO_SIDE = -1;
+    private static final byte[] NO_TICKER = new byte[0];
+
+    private final Path directory;
+    private final long segmentSize;
+    private final OrderRepo orderRepo;
+    // accessed by the handler thread only
+    private final ByteBuffer buffer;
+    private final Map<String, byte[]> tickers = new HashMap<>();
+    private FileChannel channel;
+    private long number;
+
+    public AuditLog(AuditProperties properties, OrderRepo orderRepo) {
+        if (properties.bufferSize().toBytes() < MAX_RECORD_LENGTH
+            || properties.bufferSize().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Audit buffer size must be between " + MAX_RECORD_LENGTH
+                + " bytes and 2GB");
+        }
+        this.directory = Path.of(properties.directory());
+        this.segmentSize = properties.segmentSize().toBytes();
+        this.orderRepo = orderRepo;
+        this.buffer = ByteBuffer.allocateDirect((int) properties.bufferSize().toBytes())
+            .order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            Files.createDirectories(directory);
+            this.number = lastNumber(directory);
+            next();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit log in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch) {
+        if (!event.replayed()) {
+            if (buffer.remaining() < MAX_RECORD_LENGTH) {
+                flush();
+            }
+            append(event);
+        }
+        if (endOfBatch) {
+            flush();
+        }
+    }
+
+    private void append(ExecutionEvent event) {
+        LimitOrder aggressing = orderRepo.findById(event.aggressingId()).orElse(null);
+        LimitOrder resting = orderRepo.findById(event.restingId()).orElse(null);
+        byte[] ticker = aggressing == null ? NO_TICKER : tickers.computeIfAbsent(aggressing.getTicker(),
+            AuditLog::encode);
+        buffer.putInt(FILL_LENGTH + ticker.length);
+        buffer.put(FILL);
+        buffer.putLong(event.timestamp());
+        buffer.putLong(event.aggressingId());
+        buffer.putLong(event.restingId());
+        buffer.putLong(userId(aggressing));
+        buffer.putLong(userId(resting));
+        buffer.put(aggressing == null ? NO_SIDE : (byte) aggressing.getDirection().ordinal());
+        buffer.putLong(event.price());
+        buffer.putLong(event.quantity());
+        buffer.put((byte) ticker.length);
+        buffer.put(ticker);
+    }
+
+    /**
+     * Writes the buffered fills to the file, failures are logged and lose the buffered fills.
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (channel.position() >= segmentSize) {
+                channel.close();
+                next();
+            }
+        } catch (IOException e) {
+            log.error("Cannot write to audit log {}", path(number), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void next() throws IOException {
+        number++;
+        channel = FileChannel.open(path(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, MAGIC);
+        while (magic.hasRemaining()) {
+            channel.write(magic);
+        }
+    }
+
+    private Path path(long number) {
+        return directory.resolve(String.format("%s%010d%s", PREFIX, number, SUFFIX));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close audit log {}", path(number), e);
+        }
+    }
+
+    private static long lastNumber(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .map(path -> path.getFileName().toString())
+                .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                .mapToLong(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                .max()
+                .orElse(0);
+        }
+    }
+
+    private static long userId(LimitOrder order) {
+        return order == null || order.getUserId() == null ? 0 : order.getUserId();
+    }
+
+    private static byte[] encode(String ticker) {
+        byte[] bytes = ticker.getBytes(UTF_8);
+        if (bytes.length > MAX_TICKER_LENGTH) {
+            throw new IllegalArgumentException("Ticker " + ticker + " is too long for the audit log");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,119 @@
+package xyz.a5s7.domain.audit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Reads the files of the {@link AuditLog}. Run without the application, with the files or directories to decode
+ * as arguments, it prints every fill as a line of JSON:
+ * <pre>
+ * java -cp target/classes xyz.a5s7.domain.audit.AuditLogDecoder audit
+ * </pre>
+ * A record cut short at the end of a file, e.g. by a crash while it was written, ends the file.
+ */
+public final class AuditLogDecoder {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private AuditLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLogDecoder <audit file or directory>...");
+            System.exit(1);
+        }
+        PrintStream out = System.out;
+        for (String arg : args) {
+            for (Path file : files(Path.of(arg))) {
+                decode(file, record -> out.println(toJson(record)));
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * @return audit files of the directory in the order they were written, or the path itself if it is a file
+     */
+    public static List<Path> files(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return List.of(path);
+        }
+        try (Stream<Path> files = Files.list(path)) {
+            return files
+                .filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(AuditLog.PREFIX) && name.endsWith(AuditLog.SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * @return number of records read
+     * @throws IOException if the file is not an audit log
+     */
+    public static int decode(Path file, Consumer<AuditRecord> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != AuditLog.MAGIC) {
+            throw new IOException(file + " is not an audit log");
+        }
+        int records = 0;
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            if (length < AuditLog.FILL_LENGTH || length > buffer.remaining()) {
+                break;
+            }
+            int next = buffer.position() + length;
+            if (buffer.get() == AuditLog.FILL) {
+                consumer.accept(readFill(buffer));
+                records++;
+            }
+            // records of unknown types are skipped
+            buffer.position(next);
+        }
+        return records;
+    }
+
+    private static AuditRecord readFill(ByteBuffer buffer) {
+        long timestamp = buffer.getLong();
+        long aggressingId = buffer.getLong();
+        long restingId = buffer.getLong();
+        long aggressingUserId = buffer.getLong();
+        long restingUserId = buffer.getLong();
+        byte side = buffer.get();
+        long price = buffer.getLong();
+        long quantity = buffer.getLong();
+        byte[] ticker = new byte[Byte.toUnsignedInt(buffer.get())];
+        buffer.get(ticker);
+        return new AuditRecord(timestamp, new String(ticker, UTF_8), aggressingId, restingId, aggressingUserId,
+            restingUserId, side < 0 ? null : DIRECTIONS[side], price, quantity);
+    }
+
+    static String toJson(AuditRecord record) {
+        List<String> fields = new ArrayList<>();
+        fields.add("\"time\":\"" + Instant.ofEpochMilli(record.timestamp()) + "\"");
+        fields.add("\"ticker\":\"" + record.ticker().replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+        fields.add("\"aggressingId\":" + record.aggressingId());
+        fields.add("\"restingId\":" + record.restingId());
+        fields.add("\"aggressingUserId\":" + record.aggressingUserId());
+        fields.add("\"restingUserId\":" + record.restingUserId());
+        fields.add("\"side\":" + (record.side() == null ? "null" : "\"" + record.side() + "\""));
+        fields.add("\"price\":" + record.price());
+        fields.add("\"quantity\":" + record.quantity());
+        return "{" + String.join(",", fields) + "}";
+    }
+}
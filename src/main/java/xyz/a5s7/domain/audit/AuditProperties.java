@@ -0,0 +1,19 @@
+package xyz.a5s7.domain.audit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param enabled     whether every fill is written to the audit log
+ * @param directory   directory of the audit log files
+ * @param segmentSize size of an audit log file, a new one is started once it is exceeded
+ * @param bufferSize  size of the buffer fills are written to before being written to the file
+ */
+@ConfigurationProperties("orderbook.audit")
+public record AuditProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("audit") String directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("64KB") DataSize bufferSize) {
+}
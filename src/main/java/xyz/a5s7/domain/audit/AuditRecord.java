@@ -0,0 +1,18 @@
+package xyz.a5s7.domain.audit;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Fill read from the audit log.
+ *
+ * @param timestamp        time of the command that initiated the fill, in milliseconds since the epoch
+ * @param ticker           ticker of the orders, empty if the orders were no longer known when the fill was written
+ * @param aggressingUserId user of the order that initiated the fill, 0 if unknown
+ * @param restingUserId    user of the order that was resting in the book, 0 if unknown
+ * @param side             direction of the order that initiated the fill, null if unknown
+ * @param price            in ticks
+ * @param quantity         in lots
+ */
+public record AuditRecord(long timestamp, String ticker, long aggressingId, long restingId, long aggressingUserId,
+                          long restingUserId, Direction side, long price, long quantity) {
+}
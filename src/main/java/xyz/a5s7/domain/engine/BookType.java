@@ -0,0 +1,12 @@
+package xyz.a5s7.domain.engine;
+
+public enum BookType {
+    /**
+     * {@link xyz.a5s7.domain.model.TreeMapOrderBook}
+     */
+    TREE_MAP,
+    /**
+     * {@link xyz.a5s7.domain.model.LadderOrderBook}
+     */
+    LADDER
+}
@@ -0,0 +1,5 @@
+package xyz.a5s7.domain.engine;
+
+enum CommandType {
+    PLACE, PLACE_GROUP, CANCEL, CANCEL_ALL, AMEND, VISIT
+}
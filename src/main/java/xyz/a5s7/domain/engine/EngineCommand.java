@@ -0,0 +1,99 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+
+/**
+ * Reusable slot of a shard command ring buffer.
+ * Filled by the request thread, executed and cleared by the matching thread.
+ * The outcome of the execution is kept until the batch of commands is journaled, then completes the result.
+ */
+final class EngineCommand {
+    CommandType type;
+    // time the command was submitted, in System.nanoTime()
+    long submitted;
+    // order to place, or order to cancel or amend
+    LimitOrder order;
+    // orders of one ticker to place in this order
+    List<LimitOrder> orders;
+    long price;
+    long quantity;
+    ZonedDateTime timestamp;
+    // ticker of the book to visit, null to visit all books of the shard, or of the book to cancel orders in
+    String ticker;
+    // whether to create the book to visit if there is none
+    boolean create;
+    long userId;
+    Function<OrderBook, ?> visitor;
+    CompletableFuture<Object> result;
+    Object outcome;
+    Throwable failure;
+
+    void place(LimitOrder order, CompletableFuture<Object> result) {
+        this.type = CommandType.PLACE;
+        this.order = order;
+        this.result = result;
+    }
+
+    void placeGroup(List<LimitOrder> orders, CompletableFuture<Object> result) {
+        this.type = CommandType.PLACE_GROUP;
+        this.orders = orders;
+        this.result = result;
+    }
+
+    void cancelAll(String ticker, long userId, CompletableFuture<Object> result) {
+        this.type = CommandType.CANCEL_ALL;
+        this.ticker = ticker;
+        this.userId = userId;
+        this.result = result;
+    }
+
+    void cancel(LimitOrder order, CompletableFuture<Object> result) {
+        this.type = CommandType.CANCEL;
+        this.order = order;
+        this.result = result;
+    }
+
+    void amend(LimitOrder order, long price, long quantity, ZonedDateTime timestamp,
+               CompletableFuture<Object> result) {
+        this.type = CommandType.AMEND;
+        this.order = order;
+        this.price = price;
+        this.quantity = quantity;
+        this.timestamp = timestamp;
+        this.result = result;
+    }
+
+    void visit(String ticker, boolean create, Function<OrderBook, ?> visitor, CompletableFuture<Object> result) {
+        this.type = CommandType.VISIT;
+        this.ticker = ticker;
+        this.create = create;
+        this.visitor = visitor;
+        this.result = result;
+    }
+
+    void complete() {
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(outcome);
+        }
+    }
+
+    void clear() {
+        type = null;
+        order = null;
+        orders = null;
+        timestamp = null;
+        ticker = null;
+        visitor = null;
+        result = null;
+        outcome = null;
+        failure = null;
+    }
+}
@@ -0,0 +1,86 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import xyz.a5s7.domain.model.OrderBook;
+
+/**
+ * Meters of the matching threads, created up front so that recording a command allocates nothing:
+ * the timers keep fixed histogram buckets, the fill counter of a ticker is created with its first fill.
+ */
+final class EngineMetrics {
+    private final MeterRegistry meterRegistry;
+    private final Timer[] waits = new Timer[CommandType.values().length];
+    private final Timer[] executions = new Timer[CommandType.values().length];
+    private final DistributionSummary matches;
+    private final Map<String, Counter> fills = new ConcurrentHashMap<>();
+
+    EngineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (CommandType type : CommandType.values()) {
+            String command = type.name().toLowerCase(Locale.ROOT);
+            waits[type.ordinal()] = Timer.builder("orderbook.engine.wait")
+                .description("Time a command waits for its order book, for its lock or in the ring of its shard")
+                .tag("command", command)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+            executions[type.ordinal()] = Timer.builder("orderbook.engine.execution")
+                .description("Time a command holds its order book, journaling included")
+                .tag("command", command)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+        }
+        this.matches = DistributionSummary.builder("orderbook.engine.matches")
+            .description("Resting orders an incoming order is matched against, iterations of the match loop")
+            .publishPercentileHistogram()
+            .maximumExpectedValue(10_000.0)
+            .register(meterRegistry);
+    }
+
+    /**
+     * @param submitted time the command was submitted, in {@link System#nanoTime()}
+     * @param started   time the command got hold of its order book
+     * @param completed time the command released its order book
+     */
+    void recordCommand(CommandType type, long submitted, long started, long completed) {
+        waits[type.ordinal()].record(started - submitted, TimeUnit.NANOSECONDS);
+        executions[type.ordinal()].record(completed - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the match of an order placed or amended in the book.
+     *
+     * @param matchCount {@link OrderBook#getMatchCount() match count} of the book before the order was added
+     */
+    void recordMatch(OrderBook orderBook, long matchCount) {
+        long matched = orderBook.getMatchCount() - matchCount;
+        matches.record(matched);
+        if (matched > 0) {
+            fills(orderBook.getTicker()).increment(matched);
+        }
+    }
+
+    private Counter fills(String ticker) {
+        Counter counter = fills.get(ticker);
+        if (counter == null) {
+            counter = fills.computeIfAbsent(ticker, key -> Counter.builder("orderbook.engine.fills")
+                .description("Fills executed in the order book of the ticker")
+                .tag("ticker", key)
+                .register(meterRegistry));
+        }
+        return counter;
+    }
+}
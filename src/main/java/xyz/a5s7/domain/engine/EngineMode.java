@@ -0,0 +1,12 @@
+package xyz.a5s7.domain.engine;
+
+public enum EngineMode {
+    /**
+     * Orders are matched on the request thread, holding the lock of the order book.
+     */
+    SYNCHRONIZED,
+    /**
+     * Orders are matched by a dedicated thread owning a shard of tickers, fed by a command ring buffer.
+     */
+    SEQUENCED
+}
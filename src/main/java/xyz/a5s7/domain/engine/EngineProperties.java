@@ -0,0 +1,24 @@
+package xyz.a5s7.domain.engine;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param mode          how orders are sequenced, see {@link EngineMode}
+ * @param shards        number of matching threads in {@link EngineMode#SEQUENCED} mode,
+ *                      each ticker is always matched by the same shard
+ * @param ringSize      capacity of the command ring buffer of a shard, must be a power of 2
+ * @param bookType      order book implementation
+ * @param ladderLevels  number of ticks kept in the array of each side of a {@link BookType#LADDER} book
+ * @param eventRingSize capacity of the ring buffer of fills shared by all order books, must be a power of 2,
+ *                      see {@link ExecutionEventRing}
+ */
+@ConfigurationProperties("orderbook.engine")
+public record EngineProperties(
+        @DefaultValue("SYNCHRONIZED") EngineMode mode,
+        @DefaultValue("4") int shards,
+        @DefaultValue("1024") int ringSize,
+        @DefaultValue("TREE_MAP") BookType bookType,
+        @DefaultValue("4096") int ladderLevels,
+        @DefaultValue("4096") int eventRingSize) {
+}
@@ -0,0 +1,218 @@
+package xyz.a5s7.domain.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+/**
+ * Single writer of the order books of its tickers.
+ * Commands are executed strictly in the order they were published to the ring buffer,
+ * so the books need no locking.
+ * <p>
+ * Commands are acknowledged a batch at a time, once the journal records of the whole batch are durable,
+ * so that a batch waits for one group commit rather than every command for its own.
+ */
+final class EngineShard implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(EngineShard.class);
+
+    private final RingBuffer<EngineCommand> ringBuffer;
+    private final Sequence sequence = new Sequence();
+    // accessed by the shard thread only
+    private final Map<String, OrderBook> orderBooks = new HashMap<>();
+    private final OrderRepo orderRepo;
+    private final OrderBookFactory orderBookFactory;
+    private final Journal journal;
+    private final EngineMetrics metrics;
+    private final Thread thread;
+    private volatile boolean running;
+
+    EngineShard(int index, int ringSize, OrderRepo orderRepo, OrderBookFactory orderBookFactory, Journal journal,
+                EngineMetrics metrics) {
+        this.ringBuffer = new RingBuffer<>(ringSize, EngineCommand::new);
+        this.orderRepo = orderRepo;
+        this.orderBookFactory = orderBookFactory;
+        this.journal = journal;
+        this.metrics = metrics;
+        this.thread = new Thread(this, "matcher-" + index);
+        this.thread.setDaemon(true);
+        ringBuffer.addConsumer(sequence, thread);
+    }
+
+    RingBuffer<EngineCommand> ringBuffer() {
+        return ringBuffer;
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        ringBuffer.signalConsumers();
+        thread.join();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+        while (running) {
+            long available = ringBuffer.waitFor(next, this::isRunning);
+            long journalSequence = 0;
+            for (long executed = next; executed <= available; executed++) {
+                journalSequence = Math.max(journalSequence, execute(ringBuffer.get(executed)));
+            }
+            Throwable journalFailure = awaitDurable(journalSequence);
+            for (; next <= available; next++) {
+                EngineCommand command = ringBuffer.get(next);
+                if (journalFailure != null) {
+                    command.failure = journalFailure;
+                }
+                command.complete();
+                command.clear();
+            }
+            sequence.set(available);
+        }
+        rejectPending(next);
+    }
+
+    /**
+     * @return sequence of the journal record of the command, or 0 if it changed nothing
+     */
+    private long execute(EngineCommand command) {
+        long started = System.nanoTime();
+        try {
+            return switch (command.type) {
+                case PLACE -> place(command);
+                case PLACE_GROUP -> placeGroup(command);
+                case CANCEL -> cancel(command);
+                case CANCEL_ALL -> cancelAll(command);
+                case AMEND -> amend(command);
+                case VISIT -> visit(command);
+            };
+        } catch (Throwable e) {
+            command.failure = e;
+            return 0;
+        } finally {
+            metrics.recordCommand(command.type, command.submitted, started, System.nanoTime());
+        }
+    }
+
+    private long place(EngineCommand command) {
+        LimitOrder order = orderRepo.save(command.order);
+        OrderBook orderBook = orderBook(order);
+        long journalSequence = journal.appendPlace(order);
+        long matchCount = orderBook.getMatchCount();
+        orderBook.addOrder(order);
+        metrics.recordMatch(orderBook, matchCount);
+        command.outcome = order;
+        return journalSequence;
+    }
+
+    /**
+     * @return sequence of the journal record of the last order placed
+     */
+    private long placeGroup(EngineCommand command) {
+        List<PlaceResult> results = new ArrayList<>(command.orders.size());
+        long journalSequence = 0;
+        for (LimitOrder request : command.orders) {
+            try {
+                LimitOrder order = orderRepo.save(request);
+                OrderBook orderBook = orderBook(order);
+                journalSequence = journal.appendPlace(order);
+                long matchCount = orderBook.getMatchCount();
+                orderBook.addOrder(order);
+                metrics.recordMatch(orderBook, matchCount);
+                results.add(PlaceResult.placed(order));
+            } catch (RuntimeException e) {
+                results.add(PlaceResult.failed(e));
+            }
+        }
+        command.outcome = results;
+        return journalSequence;
+    }
+
+    private long cancel(EngineCommand command) {
+        LimitOrder order = orderBook(command.order).cancelOrder(command.order.getId());
+        command.outcome = order;
+        return order == null ? 0 : journal.appendCancel(order);
+    }
+
+    /**
+     * @return sequence of the journal record of the last order cancelled
+     */
+    private long cancelAll(EngineCommand command) {
+        OrderBook orderBook = orderBooks.get(command.ticker);
+        List<LimitOrder> cancelled = orderBook == null ? List.of() : orderBook.cancelOrders(command.userId);
+        long journalSequence = 0;
+        for (LimitOrder order : cancelled) {
+            journalSequence = journal.appendCancel(order);
+        }
+        command.outcome = cancelled;
+        return journalSequence;
+    }
+
+    private long amend(EngineCommand command) {
+        OrderBook orderBook = orderBook(command.order);
+        long matchCount = orderBook.getMatchCount();
+        LimitOrder order = orderBook.amendOrder(command.order.getId(), command.price, command.quantity,
+            command.timestamp);
+        command.outcome = order;
+        if (order == null) {
+            return 0;
+        }
+        metrics.recordMatch(orderBook, matchCount);
+        return journal.appendAmend(order, command.price, command.quantity, command.timestamp);
+    }
+
+    private long visit(EngineCommand command) {
+        if (command.ticker == null) {
+            orderBooks.values().forEach(command.visitor::apply);
+        } else {
+            OrderBook orderBook = command.create
+                ? orderBooks.computeIfAbsent(command.ticker, orderBookFactory::create)
+                : orderBooks.get(command.ticker);
+            command.outcome = orderBook == null ? null : command.visitor.apply(orderBook);
+        }
+        return 0;
+    }
+
+    private Throwable awaitDurable(long journalSequence) {
+        try {
+            journal.awaitDurable(journalSequence);
+            return null;
+        } catch (RuntimeException e) {
+            log.error("Error waiting for journal", e);
+            return e;
+        }
+    }
+
+    private OrderBook orderBook(LimitOrder order) {
+        return orderBooks.computeIfAbsent(order.getTicker(), orderBookFactory::create);
+    }
+
+    private void rejectPending(long next) {
+        for (; next <= ringBuffer.cursor(); next++) {
+            if (ringBuffer.isPublished(next)) {
+                EngineCommand command = ringBuffer.get(next);
+                command.result.completeExceptionally(new IllegalStateException("Matching engine is stopped"));
+                command.clear();
+            }
+        }
+        sequence.set(next - 1);
+        log.info("{} stopped", thread.getName());
+    }
+}
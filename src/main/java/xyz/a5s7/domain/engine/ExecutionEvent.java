@@ -0,0 +1,82 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+import xyz.a5s7.domain.model.Trade;
+
+/**
+ * Fill published by the matching thread to the {@link ExecutionEventRing}.
+ * Instances are preallocated and overwritten once every handler has passed them,
+ * so a handler must copy what it needs to keep, e.g. with {@link #toTrade()}.
+ */
+public final class ExecutionEvent {
+    private long aggressingId;
+    private long restingId;
+    private long price;
+    private long quantity;
+    private long timestamp;
+    private boolean replayed;
+
+    void set(long aggressingId, long restingId, long price, long quantity, long timestamp, boolean replayed) {
+        this.aggressingId = aggressingId;
+        this.restingId = restingId;
+        this.price = price;
+        this.quantity = quantity;
+        this.timestamp = timestamp;
+        this.replayed = replayed;
+    }
+
+    public long aggressingId() {
+        return aggressingId;
+    }
+
+    public long restingId() {
+        return restingId;
+    }
+
+    /**
+     * @return price of the trade, in ticks
+     */
+    public long price() {
+        return price;
+    }
+
+    /**
+     * @return quantity of the trade, in lots
+     */
+    public long quantity() {
+        return quantity;
+    }
+
+    /**
+     * @return time of the trade, in milliseconds since the epoch
+     */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return whether the fill is a result of replaying the journal on startup,
+     * so it has already been reported before the restart
+     */
+    public boolean replayed() {
+        return replayed;
+    }
+
+    public Trade toTrade() {
+        return new Trade(aggressingId, restingId, price, quantity,
+            Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()));
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionEvent[" +
+                "aggressingId=" + aggressingId + ", " +
+                "restingId=" + restingId + ", " +
+                "price=" + price + ", " +
+                "quantity=" + quantity + ", " +
+                "timestamp=" + timestamp + ", " +
+                "replayed=" + replayed + ']';
+    }
+}
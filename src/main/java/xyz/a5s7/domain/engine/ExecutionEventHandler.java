@@ -0,0 +1,15 @@
+package xyz.a5s7.domain.engine;
+
+/**
+ * Consumer of the {@link ExecutionEventRing}. Every handler runs on its own thread
+ * and sees every event, in the order the fills happened in their order book.
+ */
+public interface ExecutionEventHandler {
+    /**
+     * @param event      reused after the call returns, must not be kept
+     * @param sequence   position of the event in the ring
+     * @param endOfBatch whether it is the last of the events available to the handler,
+     *                   a good moment to flush work buffered over the batch
+     */
+    void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,90 @@
+package xyz.a5s7.domain.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Feeds the events of the ring to one handler on a dedicated thread,
+ * in batches of everything published since the previous batch.
+ */
+final class ExecutionEventProcessor implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ExecutionEventProcessor.class);
+
+    private final RingBuffer<ExecutionEvent> ringBuffer;
+    private final ExecutionEventHandler handler;
+    private final String name;
+    private final Sequence sequence = new Sequence();
+    private final Thread thread;
+    private volatile boolean running;
+
+    ExecutionEventProcessor(RingBuffer<ExecutionEvent> ringBuffer, ExecutionEventHandler handler) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.name = handler.getClass().getSimpleName();
+        this.thread = new Thread(this, "execution-" + name);
+        this.thread.setDaemon(true);
+        ringBuffer.addConsumer(sequence, thread);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Stops after handling the events already published.
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        ringBuffer.signalConsumers();
+        thread.join();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * @return sequence of the last event handled by the handler
+     */
+    long handled() {
+        return sequence.get();
+    }
+
+    /**
+     * @return number of events published and not yet handled by the handler
+     */
+    long backlog() {
+        return Math.max(0, ringBuffer.cursor() - sequence.get());
+    }
+
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+        while (running) {
+            long available = ringBuffer.waitFor(next, this::isRunning);
+            next = handle(next, available);
+        }
+        long claimed = ringBuffer.cursor();
+        while (next <= claimed && ringBuffer.isPublished(next)) {
+            next = handle(next, next);
+        }
+        log.info("{} stopped", thread.getName());
+    }
+
+    private long handle(long next, long available) {
+        for (; next <= available; next++) {
+            try {
+                handler.onEvent(ringBuffer.get(next), next, next == available);
+            } catch (Throwable e) {
+                log.error("Error handling {}", ringBuffer.get(next), e);
+            }
+        }
+        sequence.set(available);
+        return next;
+    }
+}
@@ -0,0 +1,116 @@
+package xyz.a5s7.domain.engine;
+
+import java.util.List;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.TradeListener;
+
+/**
+ * Hands fills over from the matching threads to the {@link ExecutionEventHandler}s.
+ * <p>
+ * A fill is copied into a preallocated event of a ring buffer, so the matching thread neither allocates
+ * nor waits for the handlers, unless they fall a whole ring behind: then it waits for the slowest of them,
+ * and the backpressure reaches the order entry instead of the backlog growing without bound.
+ * The backlog of every handler is metered.
+ */
+@Component
+public class ExecutionEventRing implements TradeListener, SmartLifecycle {
+    /**
+     * Started before and stopped after the web server and the matching engine,
+     * so that no fill is published while the handlers are not running.
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final RingBuffer<ExecutionEvent> ringBuffer;
+    private final List<ExecutionEventProcessor> processors;
+    private volatile boolean running;
+    private volatile boolean replaying;
+
+    public ExecutionEventRing(EngineProperties properties, List<ExecutionEventHandler> handlers,
+                              MeterRegistry meterRegistry) {
+        this.ringBuffer = new RingBuffer<>(properties.eventRingSize(), ExecutionEvent::new);
+        this.processors = handlers.stream()
+            .map(handler -> new ExecutionEventProcessor(ringBuffer, handler))
+            .toList();
+        for (ExecutionEventProcessor processor : processors) {
+            Gauge.builder("orderbook.execution.backlog", processor, ExecutionEventProcessor::backlog)
+                .description("Fills published and not yet handled by the handler")
+                .tag("handler", processor.name())
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void onTrade(long aggressingId, long restingId, long price, long quantity, long timestamp) {
+        long sequence = ringBuffer.next();
+        try {
+            ringBuffer.get(sequence).set(aggressingId, restingId, price, quantity, timestamp, replaying);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    /**
+     * Marks the fills published from now on as {@link ExecutionEvent#replayed() replayed}.
+     */
+    public void setReplaying(boolean replaying) {
+        this.replaying = replaying;
+    }
+
+    /**
+     * @return sequence of the last fill claimed by a matching thread, published or about to be
+     */
+    public long cursor() {
+        return ringBuffer.cursor();
+    }
+
+    /**
+     * @return sequence of the last fill handled by every handler
+     */
+    public long handledSequence() {
+        long handled = ringBuffer.cursor();
+        for (ExecutionEventProcessor processor : processors) {
+            handled = Math.min(handled, processor.handled());
+        }
+        return handled;
+    }
+
+    /**
+     * @return number of events not yet handled by the slowest handler
+     */
+    public long backlog() {
+        return ringBuffer.backlog();
+    }
+
+    @Override
+    public void start() {
+        processors.forEach(ExecutionEventProcessor::start);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (ExecutionEventProcessor processor : processors) {
+                processor.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,86 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+
+/**
+ * Owns the order books and decides on which thread and in which sequence orders are matched.
+ */
+public interface MatchingEngine {
+    /**
+     * Saves the order, assigning it an id, and matches it against the order book of its ticker.
+     *
+     * @return saved order, with pending quantity reflecting the trades executed during placement
+     */
+    LimitOrder placeOrder(LimitOrder order);
+
+    /**
+     * Like {@link #placeOrder(LimitOrder)}, but an engine matching on threads of its own does not block
+     * the calling thread until the order is matched and journaled.
+     *
+     * @return future of the saved order, completed exceptionally if the order could not be placed
+     */
+    default CompletableFuture<LimitOrder> placeOrderAsync(LimitOrder order) {
+        try {
+            return CompletableFuture.completedFuture(placeOrder(order));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Places the orders grouped by ticker: the order book of each ticker is acquired once for its whole group,
+     * which is matched in the order of the list, and the batch waits for the journal once.
+     * An order failing to be placed does not stop the others.
+     *
+     * @return results in the order of the list
+     */
+    List<PlaceResult> placeOrders(List<LimitOrder> orders);
+
+    /**
+     * @return cancelled order or empty if the order no longer rests in the book
+     */
+    Optional<LimitOrder> cancelOrder(LimitOrder order);
+
+    /**
+     * Cancels all orders of the user resting in the order book of the ticker at once,
+     * no other command is executed on the book in between.
+     *
+     * @return cancelled orders
+     */
+    List<LimitOrder> cancelOrders(String ticker, long userId);
+
+    /**
+     * @return amended order or empty if the order no longer rests in the book
+     * @see xyz.a5s7.domain.model.OrderBook#amendOrder(long, long, long, ZonedDateTime)
+     */
+    Optional<LimitOrder> amendOrder(LimitOrder order, long price, long quantity, ZonedDateTime timestamp);
+
+    /**
+     * Runs the action on every order book, on the thread owning the book and between two commands,
+     * so the action sees a consistent book. Returns once the action has run on all books.
+     */
+    void forEachOrderBook(Consumer<OrderBook> action);
+
+    /**
+     * Runs the action on the order book of the ticker, creating the book if there is none,
+     * on the thread owning the book and between two commands.
+     *
+     * @return result of the action
+     */
+    <T> T withOrderBook(String ticker, Function<OrderBook, T> action);
+
+    /**
+     * Runs the action on the order book of the ticker like {@link #withOrderBook}, but only if the book exists.
+     *
+     * @return result of the action, or empty if there is no book or the action returned null
+     */
+    <T> Optional<T> withExistingOrderBook(String ticker, Function<OrderBook, T> action);
+}
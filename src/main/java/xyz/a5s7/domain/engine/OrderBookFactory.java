@@ -0,0 +1,56 @@
+package xyz.a5s7.domain.engine;
+
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.LadderOrderBook;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderListener;
+import xyz.a5s7.domain.model.TradeListener;
+import xyz.a5s7.domain.model.TreeMapOrderBook;
+
+/**
+ * Creates order books of the configured {@link BookType}.
+ */
+@Component
+public class OrderBookFactory {
+    private final BookType bookType;
+    private final int ladderLevels;
+    private final TradeListener tradeListener;
+    private final DepthListener depthListener;
+    private final OrderListener orderListener;
+
+    /**
+     * @param tradeListener receives the fills of every order book, see {@link ExecutionEventRing}
+     * @param depthListener receives the price level changes of every order book
+     * @param orderListener receives the orders entering and leaving every order book
+     */
+    public OrderBookFactory(EngineProperties properties, TradeListener tradeListener, DepthListener depthListener,
+                            OrderListener orderListener) {
+        this.bookType = properties.bookType();
+        this.ladderLevels = properties.ladderLevels();
+        this.tradeListener = tradeListener;
+        this.depthListener = depthListener;
+        this.orderListener = orderListener;
+    }
+
+    public OrderBook create(String ticker) {
+        return create(ticker, tradeListener, depthListener, orderListener);
+    }
+
+    /**
+     * @return order book reporting its trades and changes to no one, e.g. to rebuild a book apart from the engine
+     */
+    public OrderBook createDetached(String ticker) {
+        return create(ticker, (aggressingId, restingId, price, quantity, timestamp) -> { }, DepthListener.NONE,
+            OrderListener.NONE);
+    }
+
+    private OrderBook create(String ticker, TradeListener tradeListener, DepthListener depthListener,
+                             OrderListener orderListener) {
+        return switch (bookType) {
+            case TREE_MAP -> new TreeMapOrderBook(ticker, tradeListener, depthListener, orderListener);
+            case LADDER -> new LadderOrderBook(ticker, tradeListener, depthListener, orderListener, ladderLevels);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package xyz.a5s7.domain.engine;
+
+import xyz.a5s7.domain.model.LimitOrder;
+
+/**
+ * Outcome of placing one order of a batch: the placed order, or the failure that prevented placing it.
+ *
+ * @param order   saved order, with pending quantity reflecting the trades executed during placement,
+ *                null if it failed
+ * @param failure why the order was not placed, null if it was
+ */
+public record PlaceResult(LimitOrder order, RuntimeException failure) {
+    public static PlaceResult placed(LimitOrder order) {
+        return new PlaceResult(order, null);
+    }
+
+    public static PlaceResult failed(RuntimeException failure) {
+        return new PlaceResult(null, failure);
+    }
+
+    public boolean isPlaced() {
+        return failure == null;
+    }
+}
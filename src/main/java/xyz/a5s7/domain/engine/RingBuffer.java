@@ -0,0 +1,182 @@
+package xyz.a5s7.domain.engine;
+
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer ring of preallocated, reusable entries.
+ * <p>
+ * Producers {@link #next() claim} a sequence, fill the entry in place and {@link #publish(long) publish} it.
+ * Consumers track their progress with a {@link Sequence} registered as a gating sequence:
+ * a producer never overwrites an entry that the slowest consumer has not passed yet,
+ * so a full ring applies backpressure to producers instead of growing.
+ */
+public final class RingBuffer<E> {
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    private final Object[] entries;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong(Sequence.INITIAL_VALUE);
+    // sequence last published to each slot, lets consumers skip over slots claimed but not yet filled
+    private final AtomicLongArray published;
+    private volatile Sequence[] gatingSequences = new Sequence[0];
+    private final CopyOnWriteArrayList<Thread> consumerThreads = new CopyOnWriteArrayList<>();
+    private final AtomicInteger parkedConsumers = new AtomicInteger();
+
+    public RingBuffer(int capacity, Supplier<E> factory) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of 2");
+        }
+        Objects.requireNonNull(factory);
+        this.entries = new Object[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+            published.set(i, Sequence.INITIAL_VALUE);
+        }
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Registers a consumer: producers will not wrap past its sequence.
+     * The thread is woken up by producers when it parks waiting for new entries.
+     */
+    public synchronized void addConsumer(Sequence sequence, Thread thread) {
+        sequence.set(cursor.get());
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = new Sequence[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = sequence;
+        gatingSequences = updated;
+        consumerThreads.add(thread);
+    }
+
+    /**
+     * Wakes up the thread instead of the former one, for a consumer restarted on a new thread.
+     */
+    public synchronized void replaceConsumerThread(Thread former, Thread thread) {
+        consumerThreads.set(consumerThreads.indexOf(former), thread);
+    }
+
+    /**
+     * Claims the next sequence, waiting while the ring is full.
+     */
+    public long next() {
+        long sequence = cursor.incrementAndGet();
+        long wrapPoint = sequence - entries.length;
+        int tries = 0;
+        while (wrapPoint > minimumGatingSequence()) {
+            tries = backOff(tries);
+        }
+        return sequence;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        if (parkedConsumers.get() > 0) {
+            for (Thread thread : consumerThreads) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    public boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * @return the highest sequence that has been claimed by producers, not necessarily published.
+     */
+    public long cursor() {
+        return cursor.get();
+    }
+
+    /**
+     * Waits until at least {@code sequence} is published.
+     *
+     * @return the highest contiguous published sequence, which may be greater than requested,
+     * or {@code sequence - 1} if {@code running} turned false while waiting
+     */
+    public long waitFor(long sequence, BooleanSupplier running) {
+        int tries = 0;
+        while (!isPublished(sequence)) {
+            if (!running.getAsBoolean()) {
+                return sequence - 1;
+            }
+            if (tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+            } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+                Thread.yield();
+            } else {
+                parkedConsumers.incrementAndGet();
+                try {
+                    if (!isPublished(sequence) && running.getAsBoolean()) {
+                        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                    }
+                } finally {
+                    parkedConsumers.decrementAndGet();
+                }
+            }
+            tries++;
+        }
+        long available = sequence;
+        long claimed = cursor.get();
+        while (available < claimed && isPublished(available + 1)) {
+            available++;
+        }
+        return available;
+    }
+
+    /**
+     * Wakes up parked consumers, e.g. to let them observe a shutdown.
+     */
+    public void signalConsumers() {
+        for (Thread thread : consumerThreads) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @return number of published entries not yet consumed by the slowest consumer
+     */
+    public long backlog() {
+        return Math.max(0, cursor.get() - minimumGatingSequence());
+    }
+
+    private long minimumGatingSequence() {
+        Sequence[] sequences = gatingSequences;
+        long minimum = Long.MAX_VALUE;
+        for (Sequence sequence : sequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return sequences.length == 0 ? cursor.get() : minimum;
+    }
+
+    private static int backOff(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(1_000L);
+        }
+        return tries + 1;
+    }
+}
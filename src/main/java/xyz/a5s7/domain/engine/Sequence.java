@@ -0,0 +1,61 @@
+package xyz.a5s7.domain.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+abstract class LhsPadding {
+    @SuppressWarnings("unused")
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class SequenceValue extends LhsPadding {
+    protected volatile long value;
+}
+
+abstract class RhsPadding extends SequenceValue {
+    @SuppressWarnings("unused")
+    protected long p9, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * Progress counter of a ring buffer consumer.
+ * Padded to its own cache line (fields are laid out superclass first), so that producers
+ * spinning on it do not false-share with whatever is allocated next to it.
+ */
+public final class Sequence extends RhsPadding {
+    public static final long INITIAL_VALUE = -1L;
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public Sequence() {
+        this(INITIAL_VALUE);
+    }
+
+    public Sequence(long initialValue) {
+        this.value = initialValue;
+    }
+
+    public long get() {
+        return value;
+    }
+
+    /**
+     * Ordered store, cheaper than a volatile write and enough for a single writer.
+     */
+    public void set(long sequence) {
+        VALUE.setRelease(this, sequence);
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
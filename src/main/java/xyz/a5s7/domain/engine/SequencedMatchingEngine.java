@@ -0,0 +1,206 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+/**
+ * Matches orders on dedicated threads, one per shard of tickers.
+ * The calling thread only publishes a command to the ring buffer of the shard owning the ticker
+ * and waits for its completion, so requests for a hot ticker queue up in the ring instead of
+ * convoying on a lock, and the order of execution is the order of publication.
+ * The time a command waits in the ring and the time its execution takes are metered apart.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.engine.mode", havingValue = "sequenced")
+public class SequencedMatchingEngine implements MatchingEngine, SmartLifecycle {
+    /**
+     * Started after and stopped before the execution event ring, and before the web server accepts requests.
+     */
+    public static final int PHASE = ExecutionEventRing.PHASE + 1;
+
+    private final EngineShard[] shards;
+    private volatile boolean running;
+
+    public SequencedMatchingEngine(EngineProperties properties, OrderRepo orderRepo,
+                                   OrderBookFactory orderBookFactory, Journal journal, MeterRegistry meterRegistry) {
+        if (properties.shards() < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = new EngineShard[properties.shards()];
+        var metrics = new EngineMetrics(meterRegistry);
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new EngineShard(i, properties.ringSize(), orderRepo, orderBookFactory, journal, metrics);
+        }
+    }
+
+    @Override
+    public LimitOrder placeOrder(LimitOrder order) {
+        return await(submit(shardFor(order.getTicker()), (command, result) -> command.place(order, result)));
+    }
+
+    /**
+     * The calling thread only waits if the ring buffer of the shard is full.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<LimitOrder> placeOrderAsync(LimitOrder order) {
+        try {
+            CompletableFuture<?> result = submit(shardFor(order.getTicker()),
+                (command, future) -> command.place(order, future));
+            return (CompletableFuture<LimitOrder>) result;
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Each group is one command, the groups of different shards are matched in parallel.
+     */
+    @Override
+    public List<PlaceResult> placeOrders(List<LimitOrder> requests) {
+        Map<String, List<Integer>> indexesByTicker = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByTicker.computeIfAbsent(requests.get(i).getTicker(), ticker -> new ArrayList<>()).add(i);
+        }
+        List<CompletableFuture<Object>> groupResults = new ArrayList<>(indexesByTicker.size());
+        for (Map.Entry<String, List<Integer>> group : indexesByTicker.entrySet()) {
+            List<LimitOrder> orders = group.getValue().stream().map(requests::get).toList();
+            groupResults.add(submit(shardFor(group.getKey()), (command, result) -> command.placeGroup(orders, result)));
+        }
+        var results = new PlaceResult[requests.size()];
+        int group = 0;
+        for (List<Integer> indexes : indexesByTicker.values()) {
+            List<PlaceResult> groupResult = await(groupResults.get(group++));
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = groupResult.get(i);
+            }
+        }
+        return List.of(results);
+    }
+
+    @Override
+    public Optional<LimitOrder> cancelOrder(LimitOrder order) {
+        return Optional.ofNullable(await(submit(shardFor(order.getTicker()),
+            (command, result) -> command.cancel(order, result))));
+    }
+
+    @Override
+    public List<LimitOrder> cancelOrders(String ticker, long userId) {
+        return await(submit(shardFor(ticker), (command, result) -> command.cancelAll(ticker, userId, result)));
+    }
+
+    @Override
+    public Optional<LimitOrder> amendOrder(LimitOrder order, long price, long quantity, ZonedDateTime timestamp) {
+        return Optional.ofNullable(await(submit(shardFor(order.getTicker()),
+            (command, result) -> command.amend(order, price, quantity, timestamp, result))));
+    }
+
+    @Override
+    public void forEachOrderBook(Consumer<OrderBook> action) {
+        Function<OrderBook, Object> visitor = orderBook -> {
+            action.accept(orderBook);
+            return null;
+        };
+        var results = new CompletableFuture<?>[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            results[i] = submit(shards[i], (command, result) -> command.visit(null, false, visitor, result));
+        }
+        await(CompletableFuture.allOf(results));
+    }
+
+    @Override
+    public <T> T withOrderBook(String ticker, Function<OrderBook, T> action) {
+        return await(submit(shardFor(ticker), (command, result) -> command.visit(ticker, true, action, result)));
+    }
+
+    @Override
+    public <T> Optional<T> withExistingOrderBook(String ticker, Function<OrderBook, T> action) {
+        return Optional.ofNullable(await(submit(shardFor(ticker),
+            (command, result) -> command.visit(ticker, false, action, result))));
+    }
+
+    private EngineShard shardFor(String ticker) {
+        return shards[Math.floorMod(ticker.hashCode(), shards.length)];
+    }
+
+    private CompletableFuture<Object> submit(EngineShard shard,
+                                             BiConsumer<EngineCommand, CompletableFuture<Object>> translator) {
+        if (!running) {
+            throw new IllegalStateException("Matching engine is not running");
+        }
+        var result = new CompletableFuture<Object>();
+        RingBuffer<EngineCommand> ringBuffer = shard.ringBuffer();
+        // waiting for room in a full ring counts as waiting for the book
+        long submitted = System.nanoTime();
+        long sequence = ringBuffer.next();
+        try {
+            EngineCommand command = ringBuffer.get(sequence);
+            translator.accept(command, result);
+            command.submitted = submitted;
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T await(CompletableFuture<?> result) {
+        try {
+            return (T) result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void start() {
+        for (EngineShard shard : shards) {
+            shard.start();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (EngineShard shard : shards) {
+                shard.stop();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
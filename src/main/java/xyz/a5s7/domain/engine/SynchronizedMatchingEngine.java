@@ -0,0 +1,229 @@
+package xyz.a5s7.domain.engine;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+/**
+ * Matches orders on the calling thread, one thread at a time per order book.
+ * Commands are journaled while the order book is held, so the journal has them in the order of execution,
+ * and the calling thread waits for the journal after releasing it.
+ * <p>
+ * A book is held with a {@link ReentrantLock} rather than its monitor: a virtual thread waiting for the lock
+ * unmounts from its carrier, while one blocked on a monitor would pin it, so thousands of requests
+ * queued on a hot book would exhaust the carriers.
+ * <p>
+ * The time a command waits for the lock and the time it holds it are metered apart, so that contention
+ * on a hot book is told from slow matching.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.engine.mode", havingValue = "synchronized", matchIfMissing = true)
+public class SynchronizedMatchingEngine implements MatchingEngine {
+    private final Map<String, LockedOrderBook> orderBooks = new ConcurrentHashMap<>();
+    private final OrderRepo orderRepo;
+    private final OrderBookFactory orderBookFactory;
+    private final Journal journal;
+    private final EngineMetrics metrics;
+
+    public SynchronizedMatchingEngine(OrderRepo orderRepo, OrderBookFactory orderBookFactory, Journal journal,
+                                      MeterRegistry meterRegistry) {
+        this.orderRepo = orderRepo;
+        this.orderBookFactory = orderBookFactory;
+        this.journal = journal;
+        this.metrics = new EngineMetrics(meterRegistry);
+    }
+
+    @Override
+    public LimitOrder placeOrder(LimitOrder request) {
+        LimitOrder order;
+        long journalSequence;
+        LockedOrderBook orderBook = orderBook(request.getTicker());
+        long submitted = System.nanoTime();
+        orderBook.lock.lock();
+        long started = System.nanoTime();
+        try {
+            order = orderRepo.save(request);
+            journalSequence = journal.appendPlace(order);
+            long matchCount = orderBook.book.getMatchCount();
+            orderBook.book.addOrder(order);
+            metrics.recordMatch(orderBook.book, matchCount);
+        } finally {
+            orderBook.lock.unlock();
+            metrics.recordCommand(CommandType.PLACE, submitted, started, System.nanoTime());
+        }
+        journal.awaitDurable(journalSequence);
+        return order;
+    }
+
+    @Override
+    public List<PlaceResult> placeOrders(List<LimitOrder> requests) {
+        Map<String, List<Integer>> indexesByTicker = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            indexesByTicker.computeIfAbsent(requests.get(i).getTicker(), ticker -> new ArrayList<>()).add(i);
+        }
+        var results = new PlaceResult[requests.size()];
+        long journalSequence = 0;
+        for (Map.Entry<String, List<Integer>> group : indexesByTicker.entrySet()) {
+            LockedOrderBook orderBook = orderBook(group.getKey());
+            long submitted = System.nanoTime();
+            orderBook.lock.lock();
+            long started = System.nanoTime();
+            try {
+                for (int index : group.getValue()) {
+                    try {
+                        LimitOrder order = orderRepo.save(requests.get(index));
+                        journalSequence = Math.max(journalSequence, journal.appendPlace(order));
+                        long matchCount = orderBook.book.getMatchCount();
+                        orderBook.book.addOrder(order);
+                        metrics.recordMatch(orderBook.book, matchCount);
+                        results[index] = PlaceResult.placed(order);
+                    } catch (RuntimeException e) {
+                        results[index] = PlaceResult.failed(e);
+                    }
+                }
+            } finally {
+                orderBook.lock.unlock();
+                metrics.recordCommand(CommandType.PLACE_GROUP, submitted, started, System.nanoTime());
+            }
+        }
+        journal.awaitDurable(journalSequence);
+        return List.of(results);
+    }
+
+    @Override
+    public Optional<LimitOrder> cancelOrder(LimitOrder order) {
+        LockedOrderBook orderBook = orderBooks.get(order.getTicker());
+        if (orderBook == null) {
+            return Optional.empty();
+        }
+        long journalSequence;
+        LimitOrder cancelled;
+        long submitted = System.nanoTime();
+        orderBook.lock.lock();
+        long started = System.nanoTime();
+        try {
+            cancelled = orderBook.book.cancelOrder(order.getId());
+            if (cancelled == null) {
+                return Optional.empty();
+            }
+            journalSequence = journal.appendCancel(cancelled);
+        } finally {
+            orderBook.lock.unlock();
+            metrics.recordCommand(CommandType.CANCEL, submitted, started, System.nanoTime());
+        }
+        journal.awaitDurable(journalSequence);
+        return Optional.of(cancelled);
+    }
+
+    @Override
+    public List<LimitOrder> cancelOrders(String ticker, long userId) {
+        LockedOrderBook orderBook = orderBooks.get(ticker);
+        if (orderBook == null) {
+            return List.of();
+        }
+        long journalSequence = 0;
+        List<LimitOrder> cancelled;
+        long submitted = System.nanoTime();
+        orderBook.lock.lock();
+        long started = System.nanoTime();
+        try {
+            cancelled = orderBook.book.cancelOrders(userId);
+            for (LimitOrder order : cancelled) {
+                journalSequence = journal.appendCancel(order);
+            }
+        } finally {
+            orderBook.lock.unlock();
+            metrics.recordCommand(CommandType.CANCEL_ALL, submitted, started, System.nanoTime());
+        }
+        journal.awaitDurable(journalSequence);
+        return cancelled;
+    }
+
+    @Override
+    public Optional<LimitOrder> amendOrder(LimitOrder order, long price, long quantity, ZonedDateTime timestamp) {
+        LockedOrderBook orderBook = orderBooks.get(order.getTicker());
+        if (orderBook == null) {
+            return Optional.empty();
+        }
+        long journalSequence;
+        LimitOrder amended;
+        long submitted = System.nanoTime();
+        orderBook.lock.lock();
+        long started = System.nanoTime();
+        try {
+            long matchCount = orderBook.book.getMatchCount();
+            amended = orderBook.book.amendOrder(order.getId(), price, quantity, timestamp);
+            if (amended == null) {
+                return Optional.empty();
+            }
+            metrics.recordMatch(orderBook.book, matchCount);
+            journalSequence = journal.appendAmend(amended, price, quantity, timestamp);
+        } finally {
+            orderBook.lock.unlock();
+            metrics.recordCommand(CommandType.AMEND, submitted, started, System.nanoTime());
+        }
+        journal.awaitDurable(journalSequence);
+        return Optional.of(amended);
+    }
+
+    @Override
+    public void forEachOrderBook(Consumer<OrderBook> action) {
+        for (LockedOrderBook orderBook : orderBooks.values()) {
+            orderBook.lock.lock();
+            try {
+                action.accept(orderBook.book);
+            } finally {
+                orderBook.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public <T> T withOrderBook(String ticker, Function<OrderBook, T> action) {
+        LockedOrderBook orderBook = orderBook(ticker);
+        orderBook.lock.lock();
+        try {
+            return action.apply(orderBook.book);
+        } finally {
+            orderBook.lock.unlock();
+        }
+    }
+
+    @Override
+    public <T> Optional<T> withExistingOrderBook(String ticker, Function<OrderBook, T> action) {
+        LockedOrderBook orderBook = orderBooks.get(ticker);
+        if (orderBook == null) {
+            return Optional.empty();
+        }
+        orderBook.lock.lock();
+        try {
+            return Optional.ofNullable(action.apply(orderBook.book));
+        } finally {
+            orderBook.lock.unlock();
+        }
+    }
+
+    private LockedOrderBook orderBook(String ticker) {
+        return orderBooks.computeIfAbsent(ticker,
+            key -> new LockedOrderBook(orderBookFactory.create(key), new ReentrantLock()));
+    }
+
+    private record LockedOrderBook(OrderBook book, ReentrantLock lock) {
+    }
+}
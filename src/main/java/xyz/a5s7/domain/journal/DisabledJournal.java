@@ -0,0 +1,64 @@
+package xyz.a5s7.domain.journal;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Journal used when journaling is disabled: nothing is written and there is nothing to replay.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.journal.enabled", havingValue = "false", matchIfMissing = true)
+public class DisabledJournal implements Journal {
+    @Override
+    public long appendPlace(LimitOrder order) {
+        return 0;
+    }
+
+    @Override
+    public long appendCancel(LimitOrder order) {
+        return 0;
+    }
+
+    @Override
+    public long appendAmend(LimitOrder order, long price, long quantity, ZonedDateTime timestamp) {
+        return 0;
+    }
+
+    @Override
+    public long appendRestore(LimitOrder order) {
+        return 0;
+    }
+
+    @Override
+    public long appendRemove(LimitOrder order) {
+        return 0;
+    }
+
+    @Override
+    public long appendPhase(String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+        return 0;
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+    }
+
+    @Override
+    public long lastSequence() {
+        return 0;
+    }
+
+    @Override
+    public long replay(long afterSequence, JournalHandler handler) {
+        return afterSequence;
+    }
+
+    @Override
+    public void read(long afterSequence, long toSequence, JournalHandler handler) {
+    }
+}
@@ -0,0 +1,21 @@
+package xyz.a5s7.domain.journal;
+
+/**
+ * When journal records are forced to the storage device, and so when a command is acknowledged.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every record is forced before its command is acknowledged.
+     */
+    EVERY_MESSAGE,
+    /**
+     * Records are forced together every group commit interval,
+     * commands are acknowledged when the group containing their record is forced.
+     */
+    GROUP_COMMIT,
+    /**
+     * Records are forced every group commit interval, but commands are acknowledged without waiting for it,
+     * so a power loss may lose the commands of the last interval.
+     */
+    ASYNC
+}
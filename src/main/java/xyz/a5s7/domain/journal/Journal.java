@@ -0,0 +1,80 @@
+package xyz.a5s7.domain.journal;
+
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Append-only log of the commands that changed the order books, in the order they were executed
+ * in each order book, so that replaying it through the matching engine rebuilds the same books.
+ * <p>
+ * Appends are made by the thread executing the command, right after it changed the order book,
+ * and the command must not be acknowledged before {@link #awaitDurable(long)} returns for its sequence.
+ * A placed order is the exception: it is appended right before it is matched, as matching may change it,
+ * e.g. decrement its quantity to prevent a self-trade, and replaying must start from the order as submitted.
+ */
+public interface Journal {
+    /**
+     * @param order placed order with its id assigned, not matched yet
+     * @return sequence of the record
+     */
+    long appendPlace(LimitOrder order);
+
+    /**
+     * @return sequence of the record
+     */
+    long appendCancel(LimitOrder order);
+
+    /**
+     * @return sequence of the record
+     */
+    long appendAmend(LimitOrder order, long price, long quantity, ZonedDateTime timestamp);
+
+    /**
+     * Records an order that rests in the book with its current state, rather than the command that placed it,
+     * e.g. an order moved from another node.
+     *
+     * @return sequence of the record
+     */
+    long appendRestore(LimitOrder order);
+
+    /**
+     * Records an order leaving the book without being cancelled, e.g. moved to another node.
+     *
+     * @return sequence of the record
+     */
+    long appendRemove(LimitOrder order);
+
+    /**
+     * Records the order book of the ticker changing to another trading phase.
+     *
+     * @return sequence of the record
+     */
+    long appendPhase(String ticker, TradingPhase phase, ZonedDateTime timestamp);
+
+    /**
+     * Waits until the record with the sequence, and all records before it, are durable
+     * according to the configured {@link FsyncPolicy}.
+     */
+    void awaitDurable(long sequence);
+
+    /**
+     * @return sequence of the last record appended, 0 if there is none
+     */
+    long lastSequence();
+
+    /**
+     * Feeds the records following {@code afterSequence} to the handler, in the order they were appended.
+     * Appends made while replaying are ignored, as they come from the commands being replayed.
+     *
+     * @return sequence of the last record replayed, or {@code afterSequence} if there was none
+     */
+    long replay(long afterSequence, JournalHandler handler);
+
+    /**
+     * Feeds the records following {@code afterSequence} up to {@code toSequence} to the handler
+     * while appends go on, e.g. to copy the commands of a ticker executed after a snapshot of its book.
+     */
+    void read(long afterSequence, long toSequence, JournalHandler handler);
+}
@@ -0,0 +1,33 @@
+package xyz.a5s7.domain.journal;
+
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Receives the records of a {@link Journal} being replayed.
+ */
+public interface JournalHandler {
+    void onPlace(long sequence, LimitOrder order);
+
+    void onCancel(long sequence, String ticker, long orderId);
+
+    void onAmend(long sequence, String ticker, long orderId, long price, long quantity, ZonedDateTime timestamp);
+
+    /**
+     * @param order order in the state it rested in the book with
+     * @see Journal#appendRestore(LimitOrder)
+     */
+    void onRestore(long sequence, LimitOrder order);
+
+    /**
+     * @see Journal#appendRemove(LimitOrder)
+     */
+    void onRemove(long sequence, String ticker, long orderId);
+
+    /**
+     * @see Journal#appendPhase(String, TradingPhase, ZonedDateTime)
+     */
+    void onPhase(long sequence, String ticker, TradingPhase phase, ZonedDateTime timestamp);
+}
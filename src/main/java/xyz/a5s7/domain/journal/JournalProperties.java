@@ -0,0 +1,24 @@
+package xyz.a5s7.domain.journal;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param enabled             whether commands are journaled and replayed on startup
+ * @param directory           directory of the journal segment files
+ * @param segmentSize         size of a segment file, mapped into memory as a whole
+ * @param fsync               when records are forced to the storage device
+ * @param groupCommitInterval how often records are forced with {@link FsyncPolicy#GROUP_COMMIT}
+ *                            and {@link FsyncPolicy#ASYNC}
+ */
+@ConfigurationProperties("orderbook.journal")
+public record JournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("journal") String directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("GROUP_COMMIT") FsyncPolicy fsync,
+        @DefaultValue("200us") Duration groupCommitInterval) {
+}
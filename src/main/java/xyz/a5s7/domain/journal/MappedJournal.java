@@ -0,0 +1,691 @@
+package xyz.a5s7.domain.journal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Journal written to memory-mapped segment files of a fixed size, named after the sequence of their first record.
+ * <p>
+ * A record is a little-endian int length of the rest of the record, followed by
+ * the long sequence, the byte type and the fields of the command:
+ * <ul>
+ *     <li>place - order id, ticker, user id, direction, price, quantity, timestamp, self-trade prevention,
+ *     order type, time in force, display quantity, stop price</li>
+ *     <li>cancel - order id, ticker</li>
+ *     <li>amend - order id, ticker, price, quantity, timestamp</li>
+ *     <li>restore - order id, ticker, user id, direction, price, quantity, pending quantity, timestamp,
+ *     self-trade prevention, order type, display quantity, hidden quantity, stop price if not triggered yet</li>
+ *     <li>remove - order id, ticker</li>
+ *     <li>trading phase - ticker, phase, timestamp</li>
+ * </ul>
+ * Tickers are a byte length followed by UTF-8 bytes, timestamps are microseconds since the epoch.
+ * Fields added after the first version come last, a record written before they existed is read with their defaults.
+ * A zero length marks the end of the journal, as the unwritten part of a segment is zero-filled,
+ * and a length of -1 marks the end of a full segment.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.journal.enabled", havingValue = "true")
+public class MappedJournal implements Journal, SmartLifecycle {
+    /**
+     * Started before and stopped after everything that appends to the journal.
+     */
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 8192;
+
+    private static final Logger log = LoggerFactory.getLogger(MappedJournal.class);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int END_OF_SEGMENT = -1;
+    private static final int RECORD_HEADER = Integer.BYTES + Long.BYTES + 1;
+    private static final byte PLACE = 1;
+    private static final byte CANCEL = 2;
+    private static final byte AMEND = 3;
+    private static final byte RESTORE = 4;
+    private static final byte REMOVE = 5;
+    private static final byte TRADING_PHASE = 6;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TimeInForce[] TIMES_IN_FORCE = TimeInForce.values();
+    private static final TradingPhase[] TRADING_PHASES = TradingPhase.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsync;
+    private final long groupCommitNanos;
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableCondition = durableLock.newCondition();
+    // held while appending, a lock rather than the monitor so that a virtual thread waiting for it or forcing
+    // a segment under it does not pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final Map<String, byte[]> tickers = new HashMap<>();
+    private MappedByteBuffer segment;
+    private int recordStart;
+    private int forcedPosition;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile boolean replaying;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public MappedJournal(JournalProperties properties) {
+        if (properties.segmentSize().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment must be smaller than 2GB");
+        }
+        this.directory = Path.of(properties.directory());
+        this.segmentSize = (int) properties.segmentSize().toBytes();
+        this.fsync = properties.fsync();
+        this.groupCommitNanos = properties.groupCommitInterval().toNanos();
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open journal in " + directory.toAbsolutePath(), e);
+        }
+        durableSequence = lastSequence;
+    }
+
+    @Override
+    public long appendPlace(LimitOrder order) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] ticker = tickerBytes(order.getTicker());
+            long sequence = begin(PLACE,
+                Long.BYTES + 1 + ticker.length + Long.BYTES + 1 + 3 * Long.BYTES + 3 + 2 * Long.BYTES);
+            segment.putLong(order.getId());
+            segment.put((byte) ticker.length).put(ticker);
+            segment.putLong(order.getUserId() == null ? 0 : order.getUserId());
+            segment.put((byte) order.getDirection().ordinal());
+            segment.putLong(order.getPrice());
+            segment.putLong(order.getQuantity());
+            segment.putLong(toMicros(order.getTimestamp()));
+            segment.put((byte) order.getSelfTradePrevention().ordinal());
+            segment.put((byte) order.getOrderType().ordinal());
+            segment.put((byte) order.getTimeInForce().ordinal());
+            segment.putLong(order.getDisplayQuantity());
+            segment.putLong(order.getStopPrice());
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendCancel(LimitOrder order) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] ticker = tickerBytes(order.getTicker());
+            long sequence = begin(CANCEL, Long.BYTES + 1 + ticker.length);
+            segment.putLong(order.getId());
+            segment.put((byte) ticker.length).put(ticker);
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendAmend(LimitOrder order, long price, long quantity, ZonedDateTime timestamp) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] ticker = tickerBytes(order.getTicker());
+            long sequence = begin(AMEND, Long.BYTES + 1 + ticker.length + 3 * Long.BYTES);
+            segment.putLong(order.getId());
+            segment.put((byte) ticker.length).put(ticker);
+            segment.putLong(price);
+            segment.putLong(quantity);
+            segment.putLong(toMicros(timestamp));
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendRestore(LimitOrder order) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] ticker = tickerBytes(order.getTicker());
+            long sequence = begin(RESTORE,
+                Long.BYTES + 1 + ticker.length + Long.BYTES + 1 + 4 * Long.BYTES + 2 + 3 * Long.BYTES);
+            segment.putLong(order.getId());
+            segment.put((byte) ticker.length).put(ticker);
+            segment.putLong(order.getUserId() == null ? 0 : order.getUserId());
+            segment.put((byte) order.getDirection().ordinal());
+            segment.putLong(order.getPrice());
+            segment.putLong(order.getQuantity());
+            segment.putLong(order.getPendingQuantity());
+            segment.putLong(toMicros(order.getTimestamp()));
+            segment.put((byte) order.getSelfTradePrevention().ordinal());
+            segment.put((byte) order.getOrderType().ordinal());
+            segment.putLong(order.getDisplayQuantity());
+            segment.putLong(order.getHiddenQuantity());
+            segment.putLong(order.getPendingStopPrice());
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendRemove(LimitOrder order) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] ticker = tickerBytes(order.getTicker());
+            long sequence = begin(REMOVE, Long.BYTES + 1 + ticker.length);
+            segment.putLong(order.getId());
+            segment.put((byte) ticker.length).put(ticker);
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long appendPhase(String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+        if (replaying) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            byte[] tickerBytes = tickerBytes(ticker);
+            long sequence = begin(TRADING_PHASE, 1 + tickerBytes.length + 1 + Long.BYTES);
+            segment.put((byte) tickerBytes.length).put(tickerBytes);
+            segment.put((byte) phase.ordinal());
+            segment.putLong(toMicros(timestamp));
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record read by {@link #readRecords} from the journal of another node, keeping its sequence.
+     *
+     * @param record whole record, from its length to its last field
+     * @throws IllegalStateException if the record does not directly follow the last record of this journal
+     */
+    public long appendCopy(ByteBuffer record) {
+        lock.lock();
+        try {
+            long sequence = record.getLong(Integer.BYTES);
+            if (sequence != lastSequence + 1) {
+                throw new IllegalStateException("Journal record #" + sequence + " does not follow #" + lastSequence);
+            }
+            int fieldsLength = Integer.BYTES + record.getInt(0) - RECORD_HEADER;
+            begin(record.get(RECORD_HEADER - 1), fieldsLength);
+            segment.put(segment.position(), record, RECORD_HEADER, fieldsLength);
+            segment.position(segment.position() + fieldsLength);
+            return commit(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executes a record through the handler like a replayed one: commands executed by the handler are not
+     * journaled again.
+     *
+     * @param record whole record, from its length to its last field
+     */
+    public void apply(ByteBuffer record, JournalHandler handler) {
+        ByteBuffer fields = record.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(RECORD_HEADER);
+        replaying = true;
+        try {
+            dispatch(fields, record.getLong(Integer.BYTES), record.get(RECORD_HEADER - 1), handler);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Override
+    public void awaitDurable(long sequence) {
+        if (fsync != FsyncPolicy.GROUP_COMMIT || durableSequence >= sequence) {
+            return;
+        }
+        durableLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (!running) {
+                    throw new IllegalStateException("Journal is stopped");
+                }
+                durableCondition.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal");
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    @Override
+    public long replay(long afterSequence, JournalHandler handler) {
+        replaying = true;
+        try {
+            return read(afterSequence, Long.MAX_VALUE, handler, "replay");
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Override
+    public void read(long afterSequence, long toSequence, JournalHandler handler) {
+        // records past the last one committed may be partially written
+        read(afterSequence, Math.min(toSequence, lastSequence()), handler, "read");
+    }
+
+    /**
+     * Reads the records as they are stored, e.g. to copy them to the journal of another node.
+     */
+    public void readRecords(long afterSequence, long toSequence, RecordHandler handler) {
+        read(afterSequence, Math.min(toSequence, lastSequence()), handler, "read");
+    }
+
+    private long read(long afterSequence, long toSequence, JournalHandler handler, String action) {
+        return read(afterSequence, toSequence,
+            (sequence, record) -> dispatch(record.position(RECORD_HEADER), sequence, record.get(RECORD_HEADER - 1),
+                handler), action);
+    }
+
+    private long read(long afterSequence, long toSequence, RecordHandler handler, String action) {
+        try {
+            List<Path> segments = segments();
+            long last = afterSequence;
+            for (int i = 0; i < segments.size(); i++) {
+                // all records of a segment precede the first record of the next one
+                if (i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= afterSequence + 1) {
+                    continue;
+                }
+                if (firstSequence(segments.get(i)) > toSequence) {
+                    break;
+                }
+                last = Math.max(last, read(segments.get(i), afterSequence, toSequence, handler));
+            }
+            return last;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot " + action + " journal in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for records after the sequence to be durable.
+     *
+     * @return sequence of the last durable record, not greater than the given one if none became durable in time
+     */
+    public long awaitDurableAfter(long sequence, Duration timeout) {
+        long nanos = timeout.toNanos();
+        durableLock.lock();
+        try {
+            while (durableSequence <= sequence && nanos > 0 && running) {
+                nanos = durableCondition.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            durableLock.unlock();
+        }
+        // durable sequence is set past the last record once stopped
+        return Math.min(durableSequence, lastSequence());
+    }
+
+    /**
+     * Forces the records appended so far to the storage device.
+     */
+    public void flush() {
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        long sequence;
+        lock.lock();
+        try {
+            buffer = segment;
+            from = forcedPosition;
+            to = segment.position();
+            sequence = lastSequence;
+            forcedPosition = to;
+        } finally {
+            lock.unlock();
+        }
+        if (to > from) {
+            buffer.force(from, to - from);
+        }
+        markDurable(sequence);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (fsync != FsyncPolicy.EVERY_MESSAGE) {
+            flusher = new Thread(this::flushPeriodically, "journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        markDurable(Long.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    private void flushPeriodically() {
+        while (running) {
+            LockSupport.parkNanos(groupCommitNanos);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Error forcing journal", e);
+            }
+        }
+    }
+
+    private void markDurable(long sequence) {
+        durableLock.lock();
+        try {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+            durableCondition.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+
+    /**
+     * Starts a record, leaving room for its length, which is written last by {@link #commit(long)}.
+     */
+    private long begin(byte type, int fieldsLength) {
+        int recordLength = RECORD_HEADER + fieldsLength;
+        // room is always left for the end of segment marker
+        if (segment.position() + recordLength + Integer.BYTES > segment.capacity()) {
+            roll();
+            if (recordLength + Integer.BYTES > segment.capacity()) {
+                throw new IllegalArgumentException("Journal record does not fit a segment");
+            }
+        }
+        recordStart = segment.position();
+        long sequence = lastSequence + 1;
+        segment.position(recordStart + Integer.BYTES);
+        segment.putLong(sequence).put(type);
+        return sequence;
+    }
+
+    private long commit(long sequence) {
+        segment.putInt(recordStart, segment.position() - recordStart - Integer.BYTES);
+        lastSequence = sequence;
+        if (fsync == FsyncPolicy.EVERY_MESSAGE) {
+            segment.force(forcedPosition, segment.position() - forcedPosition);
+            forcedPosition = segment.position();
+            markDurable(sequence);
+        }
+        return sequence;
+    }
+
+    private void roll() {
+        segment.putInt(segment.position(), END_OF_SEGMENT);
+        // forced as a whole, so that it is durable even if the flusher is still forcing a part of it
+        segment.force();
+        markDurable(lastSequence);
+        try {
+            segment = map(segmentPath(lastSequence + 1), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment", e);
+        }
+        forcedPosition = 0;
+    }
+
+    /**
+     * Maps the last segment and finds the end of its records, or creates the first segment.
+     */
+    private void open() throws IOException {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            segment = map(segmentPath(1), segmentSize);
+            return;
+        }
+        Path last = segments.getLast();
+        lastSequence = firstSequence(last) - 1;
+        segment = map(last, Math.max(segmentSize, (int) Files.size(last)));
+        int position = 0;
+        int length;
+        while (position + Integer.BYTES <= segment.capacity() && (length = segment.getInt(position)) > 0) {
+            lastSequence = segment.getLong(position + Integer.BYTES);
+            position += Integer.BYTES + length;
+        }
+        segment.position(position);
+        forcedPosition = position;
+        if (position + Integer.BYTES <= segment.capacity() && segment.getInt(position) == END_OF_SEGMENT) {
+            segment = map(segmentPath(lastSequence + 1), segmentSize);
+            forcedPosition = 0;
+        }
+    }
+
+    private long read(Path path, long afterSequence, long toSequence, RecordHandler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        long last = afterSequence;
+        int position = 0;
+        int length;
+        while (position + Integer.BYTES <= buffer.limit() && (length = buffer.getInt(position)) > 0) {
+            buffer.position(position + Integer.BYTES);
+            long sequence = buffer.getLong();
+            if (sequence > toSequence) {
+                break;
+            }
+            if (sequence > afterSequence) {
+                ByteBuffer record = buffer.slice(position, Integer.BYTES + length).order(ByteOrder.LITTLE_ENDIAN);
+                handler.onRecord(sequence, record);
+                last = sequence;
+            }
+            position += Integer.BYTES + length;
+        }
+        return last;
+    }
+
+    private static void dispatch(ByteBuffer buffer, long sequence, byte type, JournalHandler handler) {
+        if (type == TRADING_PHASE) {
+            // the only record not about an order
+            handler.onPhase(sequence, ticker(buffer), TRADING_PHASES[buffer.get()], fromMicros(buffer.getLong()));
+            return;
+        }
+        long orderId = buffer.getLong();
+        String ticker = ticker(buffer);
+        switch (type) {
+            case PLACE -> {
+                long userId = buffer.getLong();
+                Direction direction = DIRECTIONS[buffer.get()];
+                long price = buffer.getLong();
+                long quantity = buffer.getLong();
+                ZonedDateTime timestamp = fromMicros(buffer.getLong());
+                var order = new LimitOrder(orderId, userId, ticker, direction, price, quantity, timestamp)
+                    .withSelfTradePrevention(selfTradePrevention(buffer));
+                order.withType(orderType(buffer), timeInForce(buffer));
+                order.withDisplayQuantity(optionalLong(buffer));
+                handler.onPlace(sequence, order.withStopPrice(optionalLong(buffer)));
+            }
+            case CANCEL -> handler.onCancel(sequence, ticker, orderId);
+            case AMEND -> handler.onAmend(sequence, ticker, orderId,
+                buffer.getLong(), buffer.getLong(), fromMicros(buffer.getLong()));
+            case RESTORE -> {
+                long userId = buffer.getLong();
+                Direction direction = DIRECTIONS[buffer.get()];
+                long price = buffer.getLong();
+                long quantity = buffer.getLong();
+                long pendingQuantity = buffer.getLong();
+                ZonedDateTime timestamp = fromMicros(buffer.getLong());
+                var order = LimitOrder.restore(orderId, userId, ticker, direction, price, quantity, pendingQuantity,
+                    false, timestamp).withSelfTradePrevention(selfTradePrevention(buffer));
+                order.withType(orderType(buffer), TimeInForce.GTC).withDisplayQuantity(optionalLong(buffer))
+                    .withHiddenQuantity(optionalLong(buffer));
+                handler.onRestore(sequence, order.withStopPrice(optionalLong(buffer)));
+            }
+            case REMOVE -> handler.onRemove(sequence, ticker, orderId);
+            default -> throw new IllegalStateException("Unknown journal record type " + type + " at " + sequence);
+        }
+    }
+
+    private static String ticker(ByteBuffer buffer) {
+        byte[] tickerBytes = new byte[buffer.get()];
+        buffer.get(tickerBytes);
+        return new String(tickerBytes, UTF_8);
+    }
+
+    private static SelfTradePrevention selfTradePrevention(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? SELF_TRADE_PREVENTIONS[buffer.get()] : SelfTradePrevention.NONE;
+    }
+
+    private static OrderType orderType(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? ORDER_TYPES[buffer.get()] : OrderType.LIMIT;
+    }
+
+    private static TimeInForce timeInForce(ByteBuffer buffer) {
+        return buffer.hasRemaining() ? TIMES_IN_FORCE[buffer.get()] : TimeInForce.GTC;
+    }
+
+    private static long optionalLong(ByteBuffer buffer) {
+        return buffer.remaining() >= Long.BYTES ? buffer.getLong() : 0;
+    }
+
+    private byte[] tickerBytes(String ticker) {
+        byte[] bytes = tickers.computeIfAbsent(ticker, it -> it.getBytes(UTF_8));
+        if (bytes.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Ticker is too long");
+        }
+        return bytes;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private Path segmentPath(long firstSequence) {
+        return directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+    }
+
+    private static long toMicros(ZonedDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static ZonedDateTime fromMicros(long micros) {
+        if (micros == NO_TIMESTAMP) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L)
+            .atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Receives the records of the journal as they are stored.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        /**
+         * @param record whole record, from its length to its last field, only valid during the call
+         */
+        void onRecord(long sequence, ByteBuffer record);
+    }
+}
@@ -0,0 +1,14 @@
+package xyz.a5s7.domain.marketdata;
+
+import java.util.List;
+
+/**
+ * Best price levels of an order book.
+ *
+ * @param sequence number of level changes of the book applied so far,
+ *                 the {@link DepthUpdate}s with a higher sequence follow this state
+ * @param bids     from the best price to the worst
+ * @param asks     from the best price to the worst
+ */
+public record BookDepth(String ticker, long sequence, List<Level> bids, List<Level> asks) {
+}
@@ -0,0 +1,113 @@
+package xyz.a5s7.domain.marketdata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Aggregated price levels of one order book, kept up to date by the market data thread
+ * and read by request threads, so that reading the depth never touches the order book itself.
+ */
+final class DepthBook {
+    private final String ticker;
+    private final NavigableMap<Long, Level> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, Level> asks = new TreeMap<>();
+    // resting quantity of each side, by Direction ordinal
+    private final long[] quantities = new long[2];
+    // guarded by this
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private long sequence;
+    private Level bestBid;
+    private Level bestAsk;
+
+    DepthBook(String ticker) {
+        this.ticker = ticker;
+    }
+
+    synchronized void apply(Direction side, long price, long quantity, int orderCount) {
+        sequence++;
+        NavigableMap<Long, Level> levels = side == Direction.BID ? bids : asks;
+        Level previous = quantity == 0
+            ? levels.remove(price)
+            : levels.put(price, new Level(price, quantity, orderCount));
+        quantities[side.ordinal()] += quantity - (previous == null ? 0 : previous.quantity());
+        if (!subscriptions.isEmpty()) {
+            var update = new DepthUpdate(ticker, sequence, side, price, quantity, orderCount);
+            for (Subscription subscription : subscriptions) {
+                subscription.offer(update);
+            }
+        }
+        Level bid = best(bids);
+        Level ask = best(asks);
+        if (!Objects.equals(bid, bestBid) || !Objects.equals(ask, bestAsk)) {
+            bestBid = bid;
+            bestAsk = ask;
+            if (!subscriptions.isEmpty()) {
+                var topOfBook = new TopOfBook(ticker, sequence, bid, ask);
+                for (Subscription subscription : subscriptions) {
+                    subscription.offer(topOfBook);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param depth maximum number of levels of each side
+     */
+    synchronized BookDepth depth(int depth) {
+        return new BookDepth(ticker, sequence, top(bids, depth), top(asks, depth));
+    }
+
+    synchronized TopOfBook topOfBook() {
+        return new TopOfBook(ticker, sequence, bestBid, bestAsk);
+    }
+
+    synchronized int levelCount(Direction side) {
+        return (side == Direction.BID ? bids : asks).size();
+    }
+
+    /**
+     * @return total quantity resting on the side, in lots
+     */
+    synchronized long quantity(Direction side) {
+        return quantities[side.ordinal()];
+    }
+
+    /**
+     * Starts the subscription with the current depth, so that it receives exactly the updates following it.
+     */
+    synchronized void subscribe(Subscription subscription, int depth) {
+        subscription.offer(depth(depth));
+        subscriptions.add(subscription);
+    }
+
+    synchronized void unsubscribe(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private static Level best(NavigableMap<Long, Level> levels) {
+        Map.Entry<Long, Level> best = levels.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    private static List<Level> top(NavigableMap<Long, Level> levels, int depth) {
+        if (levels.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Level> top = new ArrayList<>(Math.min(depth, levels.size()));
+        for (Level level : levels.values()) {
+            if (top.size() == depth) {
+                break;
+            }
+            top.add(level);
+        }
+        return top;
+    }
+}
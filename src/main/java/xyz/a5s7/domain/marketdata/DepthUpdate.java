@@ -0,0 +1,11 @@
+package xyz.a5s7.domain.marketdata;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * New state of a price level of an order book, a quantity of 0 removes the level.
+ *
+ * @param sequence number of the change among the changes of the book
+ */
+public record DepthUpdate(String ticker, long sequence, Direction side, long price, long quantity, int orderCount) {
+}
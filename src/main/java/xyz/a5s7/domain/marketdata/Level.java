@@ -0,0 +1,11 @@
+package xyz.a5s7.domain.marketdata;
+
+/**
+ * Aggregated resting orders at one price.
+ *
+ * @param price      in ticks
+ * @param quantity   total pending quantity, in lots
+ * @param orderCount number of orders
+ */
+public record Level(long price, long quantity, int orderCount) {
+}
@@ -0,0 +1,22 @@
+package xyz.a5s7.domain.marketdata;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Reusable entry of the ring buffer of {@link MarketDataPublisher}.
+ */
+final class LevelChange {
+    String ticker;
+    Direction side;
+    long price;
+    long quantity;
+    int orderCount;
+
+    void set(String ticker, Direction side, long price, long quantity, int orderCount) {
+        this.ticker = ticker;
+        this.side = side;
+        this.price = price;
+        this.quantity = quantity;
+        this.orderCount = orderCount;
+    }
+}
@@ -0,0 +1,17 @@
+package xyz.a5s7.domain.marketdata;
+
+/**
+ * Receives the market data of a {@link Subscription}, one call at a time, on a thread of its own,
+ * so it may block on a slow client without holding up the market data thread or other subscribers.
+ * An exception thrown by the listener closes the subscription.
+ */
+public interface MarketDataListener {
+    /**
+     * First message of a subscription, the state the updates apply to.
+     */
+    void onBook(BookDepth book);
+
+    void onLevel(DepthUpdate update);
+
+    void onTopOfBook(TopOfBook topOfBook);
+}
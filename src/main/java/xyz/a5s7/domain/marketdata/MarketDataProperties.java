@@ -0,0 +1,13 @@
+package xyz.a5s7.domain.marketdata;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param ringSize capacity of the ring buffer handing price level changes over from the matching threads
+ *                 to the market data thread, must be a power of 2
+ */
+@ConfigurationProperties("orderbook.market-data")
+public record MarketDataProperties(
+        @DefaultValue("8192") int ringSize) {
+}
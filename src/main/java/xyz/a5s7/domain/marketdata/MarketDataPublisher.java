@@ -0,0 +1,221 @@
+package xyz.a5s7.domain.marketdata;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.RingBuffer;
+import xyz.a5s7.domain.engine.Sequence;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.service.InstrumentRegistry;
+
+/**
+ * Maintains the aggregated price levels of every order book and streams their changes to subscribers.
+ * <p>
+ * The matching threads only copy each level change into a preallocated entry of a ring buffer.
+ * The market data thread applies the changes to the {@link DepthBook} of the ticker, from which depth requests
+ * are served, and queues them to the {@link Subscription}s, which conflate them while their listener is busy,
+ * so neither a slow subscriber nor the number of subscribers holds up matching.
+ * The depth of every book is metered from its {@link DepthBook}, off the matching threads.
+ * <p>
+ * A {@link DepthBook} is created by the first change of its book, or by a request for a ticker listed in the
+ * {@link InstrumentRegistry}, so requests for arbitrary tickers do not grow the books.
+ */
+@Component
+public class MarketDataPublisher implements DepthListener, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(MarketDataPublisher.class);
+
+    private final RingBuffer<LevelChange> ringBuffer;
+    private final Sequence sequence = new Sequence();
+    private final Map<String, DepthBook> books = new ConcurrentHashMap<>();
+    // accessed by the market data thread only
+    private final Set<String> meteredBooks = new HashSet<>();
+    private final MeterRegistry meterRegistry;
+    private final InstrumentRegistry instrumentRegistry;
+    // not shut down when stopped, the subscriptions keep sending through it once started again
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("market-data-sender-", 0).factory());
+    // created by start(), a new one on every start
+    private Thread thread;
+    private volatile boolean running;
+
+    public MarketDataPublisher(MarketDataProperties properties, MeterRegistry meterRegistry,
+                               InstrumentRegistry instrumentRegistry) {
+        this.ringBuffer = new RingBuffer<>(properties.ringSize(), LevelChange::new);
+        this.meterRegistry = meterRegistry;
+        this.instrumentRegistry = instrumentRegistry;
+    }
+
+    @Override
+    public void onLevelChange(String ticker, Direction side, long price, long quantity, int orderCount) {
+        long next = ringBuffer.next();
+        try {
+            ringBuffer.get(next).set(ticker, side, price, quantity, orderCount);
+        } finally {
+            ringBuffer.publish(next);
+        }
+    }
+
+    /**
+     * @param depth maximum number of levels of each side
+     * @return best levels of the order book, as of the level changes applied so far
+     */
+    public BookDepth getDepth(String ticker, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be greater than 0");
+        }
+        return requestedBook(ticker).depth(depth);
+    }
+
+    public TopOfBook getTopOfBook(String ticker) {
+        return requestedBook(ticker).topOfBook();
+    }
+
+    /**
+     * Streams the changes of the order book to the listener, starting with its current depth.
+     *
+     * @param depth maximum number of levels of each side of the initial depth
+     * @throws IllegalArgumentException if the ticker is neither listed nor has a book yet
+     */
+    public Subscription subscribe(String ticker, int depth, MarketDataListener listener) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be greater than 0");
+        }
+        DepthBook book = books.get(ticker);
+        if (book == null) {
+            if (!instrumentRegistry.isListed(ticker)) {
+                throw new IllegalArgumentException("Unknown ticker " + ticker);
+            }
+            book = book(ticker);
+        }
+        var subscription = new Subscription(book, listener, senders);
+        book.subscribe(subscription, depth);
+        return subscription;
+    }
+
+    /**
+     * @return number of level changes not yet applied
+     */
+    public long backlog() {
+        return ringBuffer.backlog();
+    }
+
+    private DepthBook book(String ticker) {
+        return books.computeIfAbsent(ticker, DepthBook::new);
+    }
+
+    /**
+     * @return book of the ticker, an empty one not kept if the ticker is neither listed nor has a book yet
+     */
+    private DepthBook requestedBook(String ticker) {
+        DepthBook book = books.get(ticker);
+        if (book != null) {
+            return book;
+        }
+        return instrumentRegistry.isListed(ticker) ? book(ticker) : new DepthBook(ticker);
+    }
+
+    private void process() {
+        long next = sequence.get() + 1;
+        while (running) {
+            next = apply(next, ringBuffer.waitFor(next, this::isRunning));
+        }
+        long claimed = ringBuffer.cursor();
+        while (next <= claimed && ringBuffer.isPublished(next)) {
+            next = apply(next, next);
+        }
+        log.info("{} stopped", thread.getName());
+    }
+
+    private long apply(long next, long available) {
+        for (; next <= available; next++) {
+            LevelChange change = ringBuffer.get(next);
+            try {
+                DepthBook book = book(change.ticker);
+                book.apply(change.side, change.price, change.quantity, change.orderCount);
+                if (meteredBooks.add(change.ticker)) {
+                    meter(change.ticker, book);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error applying change of {} {} level {}", change.ticker, change.side, change.price, e);
+            }
+            change.ticker = null;
+        }
+        sequence.set(available);
+        return next;
+    }
+
+    /**
+     * Meters a book once it has changed, rather than when it is first requested,
+     * so that requests for tickers not traded do not create meters.
+     */
+    private void meter(String ticker, DepthBook book) {
+        for (Direction side : Direction.values()) {
+            String sideTag = side.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("orderbook.book.levels", book, depthBook -> depthBook.levelCount(side))
+                .description("Price levels with resting orders on the side of the book")
+                .tags("ticker", ticker, "side", sideTag)
+                .register(meterRegistry);
+            Gauge.builder("orderbook.book.quantity", book, depthBook -> depthBook.quantity(side))
+                .description("Quantity resting on the side of the book")
+                .tags("ticker", ticker, "side", sideTag)
+                .baseUnit("lots")
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public void start() {
+        Thread former = thread;
+        thread = new Thread(this::process, "market-data");
+        thread.setDaemon(true);
+        if (former == null) {
+            ringBuffer.addConsumer(sequence, thread);
+            Gauge.builder("orderbook.marketdata.backlog", this, MarketDataPublisher::backlog)
+                .description("Level changes not yet applied to the depth of the books")
+                .register(meterRegistry);
+        } else {
+            // the changes published while stopped are applied by the new thread
+            ringBuffer.replaceConsumerThread(former, thread);
+        }
+        running = true;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ringBuffer.signalConsumers();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started before and stopped after the matching engine, like the fills.
+     */
+    @Override
+    public int getPhase() {
+        return ExecutionEventRing.PHASE;
+    }
+}
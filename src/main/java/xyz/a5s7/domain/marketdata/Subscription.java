@@ -0,0 +1,121 @@
+package xyz.a5s7.domain.marketdata;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Market data of one order book delivered to a {@link MarketDataListener}.
+ * <p>
+ * Updates are queued by the market data thread and delivered by a sender task, started when the first update
+ * is queued and running while there are updates left. Updates are conflated while they wait: a newer update
+ * of a level replaces the queued one, and only the latest top of book is kept, so a slow listener
+ * receives the latest state of each changed level instead of falling further and further behind,
+ * and the queue never holds more than one update per price level.
+ */
+public final class Subscription {
+    private static final Logger log = LoggerFactory.getLogger(Subscription.class);
+
+    private final DepthBook book;
+    private final MarketDataListener listener;
+    private final Executor senders;
+    // guarded by this, updates of a side by price, in the order the prices first changed
+    private BookDepth pendingBook;
+    private Map<Long, DepthUpdate> pendingBids = new LinkedHashMap<>();
+    private Map<Long, DepthUpdate> pendingAsks = new LinkedHashMap<>();
+    private TopOfBook pendingTopOfBook;
+    private boolean sending;
+    private boolean closed;
+
+    Subscription(DepthBook book, MarketDataListener listener, Executor senders) {
+        this.book = book;
+        this.listener = listener;
+        this.senders = senders;
+    }
+
+    synchronized void offer(BookDepth depth) {
+        pendingBook = depth;
+        send();
+    }
+
+    synchronized void offer(DepthUpdate update) {
+        (update.side() == Direction.BID ? pendingBids : pendingAsks).put(update.price(), update);
+        send();
+    }
+
+    synchronized void offer(TopOfBook topOfBook) {
+        pendingTopOfBook = topOfBook;
+        send();
+    }
+
+    /**
+     * Stops the delivery, updates already being delivered may still reach the listener.
+     */
+    public void close() {
+        book.unsubscribe(this);
+        synchronized (this) {
+            closed = true;
+            pendingBook = null;
+            pendingBids.clear();
+            pendingAsks.clear();
+            pendingTopOfBook = null;
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void send() {
+        if (!sending && !closed) {
+            sending = true;
+            senders.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            BookDepth depth;
+            Map<Long, DepthUpdate> bids;
+            Map<Long, DepthUpdate> asks;
+            TopOfBook topOfBook;
+            synchronized (this) {
+                if (closed || (pendingBook == null && pendingBids.isEmpty() && pendingAsks.isEmpty()
+                    && pendingTopOfBook == null)) {
+                    sending = false;
+                    return;
+                }
+                depth = pendingBook;
+                bids = pendingBids;
+                asks = pendingAsks;
+                topOfBook = pendingTopOfBook;
+                pendingBook = null;
+                pendingBids = new LinkedHashMap<>();
+                pendingAsks = new LinkedHashMap<>();
+                pendingTopOfBook = null;
+            }
+            try {
+                if (depth != null) {
+                    listener.onBook(depth);
+                }
+                bids.values().forEach(listener::onLevel);
+                asks.values().forEach(listener::onLevel);
+                if (topOfBook != null) {
+                    listener.onTopOfBook(topOfBook);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Closing market data subscription", e);
+                synchronized (this) {
+                    sending = false;
+                }
+                close();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package xyz.a5s7.domain.marketdata;
+
+/**
+ * Best bid and offer of an order book.
+ *
+ * @param sequence sequence of the level change that produced it
+ * @param bid      best bid level, null when there is no bid
+ * @param ask      best ask level, null when there is no ask
+ */
+public record TopOfBook(String ticker, long sequence, Level bid, Level ask) {
+}
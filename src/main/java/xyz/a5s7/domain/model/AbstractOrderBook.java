@@ -0,0 +1,561 @@
+package xyz.a5s7.domain.model;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.a5s7.util.LongObjectHashMap;
+
+/**
+ * Price/Time matching shared by the order book implementations,
+ * which differ in how they keep the price levels of a side.
+ * Resting orders are indexed by id, and know their price level, so cancelling or amending
+ * an order takes constant time regardless of the depth of the book.
+ * Every change of a price level is reported to the {@link DepthListener}, and every order
+ * entering or leaving the book to the {@link OrderListener}.
+ * Orders that must not trade (post-only) or must not trade partially (FOK) are checked against the opposite
+ * side before the match loop, orders that must not rest (market, IOC, FOK) are cancelled after it, so neither
+ * ever enters the resting orders.
+ * Self-trades are caught in the match loop by comparing the unboxed user ids of the orders,
+ * the {@link SelfTradePrevention} of the incoming order is looked at only when they are equal.
+ * Iceberg orders rest with their peak in the visible quantity of their level and the rest in its hidden quantity.
+ * Trades take from the peak, and an order whose peak is consumed shows a new one at the back of its level
+ * within the same match loop, so an incoming order sweeping the level trades with it again after the others.
+ * Stop orders wait in a {@link TriggerIndex} rather than in the book. Each trade looks the index up with its price,
+ * and the orders it triggers are queued, then matched one after the other once the order that traded is done,
+ * with the time of the command. Their own trades may trigger more orders, which join the end of the queue,
+ * so a command returns with every order it triggered matched, in an order that only depends on the commands.
+ * Outside continuous trading orders rest without matching, and the book may be left crossed. Leaving the call
+ * uncrosses it: the crossed levels are collected once, the equilibrium price is found in a single pass over
+ * their cumulative quantities, and the crossed orders then trade at that price, the best bid with the best ask,
+ * until one side no longer reaches it.
+ */
+abstract class AbstractOrderBook implements OrderBook {
+    private static final Logger log = LoggerFactory.getLogger(OrderBook.class);
+
+    private final String ticker;
+    private final BookSide bids;
+    private final BookSide asks;
+    private final TradeListener tradeListener;
+    private final DepthListener depthListener;
+    private final OrderListener orderListener;
+    private final LongObjectHashMap<LimitOrder> restingOrders = new LongObjectHashMap<>();
+    private final TriggerIndex stopOrders = new TriggerIndex();
+    // stop orders triggered by the command being executed, not matched yet
+    private final ArrayDeque<LimitOrder> triggered = new ArrayDeque<>();
+    private TradingPhase phase = TradingPhase.CONTINUOUS;
+    private long matchCount;
+
+    AbstractOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener,
+                      OrderListener orderListener, BookSide bids, BookSide asks) {
+        this.ticker = ticker;
+        this.tradeListener = Objects.requireNonNull(tradeListener);
+        this.depthListener = Objects.requireNonNull(depthListener);
+        this.orderListener = Objects.requireNonNull(orderListener);
+        this.bids = bids;
+        this.asks = asks;
+    }
+
+    @Override
+    public String getTicker() {
+        return ticker;
+    }
+
+    @Override
+    public void addOrder(LimitOrder order) {
+        Objects.requireNonNull(order);
+        if (order.getId() == null) {
+            throw new IllegalArgumentException("Order id is required");
+        }
+        if (phase == TradingPhase.HALTED) {
+            order.cancel();
+            return;
+        }
+        if (order.isStopPending()) {
+            stopOrders.add(order);
+            orderRested(order);
+            return;
+        }
+        long timestamp = timestamp(order);
+        match(order, timestamp);
+        matchTriggered(timestamp);
+    }
+
+    @Override
+    public LimitOrder cancelOrder(long orderId) {
+        LimitOrder order = restingOrders.remove(orderId);
+        if (order != null) {
+            unlink(order);
+        } else if ((order = stopOrders.remove(orderId)) == null) {
+            return null;
+        }
+        order.cancel();
+        orderRemoved(order);
+        return order;
+    }
+
+    @Override
+    public List<LimitOrder> cancelOrders(long userId) {
+        List<LimitOrder> orders = new ArrayList<>();
+        Consumer<LimitOrder> collector = order -> {
+            if (order.getUserId() == userId) {
+                orders.add(order);
+            }
+        };
+        forEachOrder(Direction.BID, collector);
+        forEachOrder(Direction.ASK, collector);
+        for (LimitOrder order : orders) {
+            cancelOrder(order.getId());
+        }
+        return orders;
+    }
+
+    @Override
+    public LimitOrder amendOrder(long orderId, long price, long quantity, ZonedDateTime timestamp) {
+        LimitOrder order = restingOrders.get(orderId);
+        if (order == null) {
+            return amendStopOrder(orderId, price, quantity, timestamp);
+        }
+        if (quantity <= order.getFilledQuantity()) {
+            throw new IllegalArgumentException("Quantity must be greater than filled quantity");
+        }
+        if (price == order.getPrice() && quantity <= order.getQuantity()) {
+            order.level.reduceQuantity(order, order.getQuantity() - quantity);
+            levelChanged(order.getDirection(), order.level);
+            return order;
+        }
+        restingOrders.remove(orderId);
+        unlink(order);
+        order.replace(price, quantity, timestamp);
+        long commandTimestamp = timestamp(order);
+        if (!match(order, commandTimestamp)) {
+            orderRemoved(order);
+        }
+        matchTriggered(commandTimestamp);
+        return order;
+    }
+
+    /**
+     * Changes a stop order waiting for its trigger, which waits again behind the other orders of its stop price.
+     */
+    private LimitOrder amendStopOrder(long orderId, long price, long quantity, ZonedDateTime timestamp) {
+        LimitOrder order = stopOrders.get(orderId);
+        if (order == null) {
+            return null;
+        }
+        if (quantity <= order.getFilledQuantity()) {
+            throw new IllegalArgumentException("Quantity must be greater than filled quantity");
+        }
+        stopOrders.remove(orderId);
+        order.replace(price, quantity, timestamp);
+        stopOrders.add(order);
+        orderRested(order);
+        return order;
+    }
+
+    @Override
+    public TradingPhase getPhase() {
+        return phase;
+    }
+
+    @Override
+    public void changePhase(TradingPhase phase, ZonedDateTime timestamp) {
+        Objects.requireNonNull(phase);
+        if (phase == TradingPhase.UNCROSS) {
+            throw new IllegalArgumentException("Book is uncrossed by changing to continuous trading");
+        }
+        if (phase == this.phase) {
+            return;
+        }
+        if (phase != TradingPhase.CONTINUOUS) {
+            this.phase = phase;
+            return;
+        }
+        long commandTimestamp = timestamp == null ? 0 : timestamp.toInstant().toEpochMilli();
+        this.phase = TradingPhase.UNCROSS;
+        uncross(commandTimestamp);
+        this.phase = TradingPhase.CONTINUOUS;
+        matchTriggered(commandTimestamp);
+    }
+
+    /**
+     * @param timestamp time of the command, in milliseconds since the epoch, the trades are stamped with
+     * @return whether the order rests in the book
+     */
+    private boolean match(LimitOrder order, long timestamp) {
+        BookSide oppositeSide = side(order.getDirection().opposite());
+        long aggressingOrderId = order.getId();
+        long owner = order.owner;
+        boolean preventSelfTrade = order.getSelfTradePrevention() != SelfTradePrevention.NONE;
+        boolean continuous = phase == TradingPhase.CONTINUOUS;
+        boolean cancelled = order.getOrderType() == OrderType.POST_ONLY && wouldTrade(order)
+            || order.getTimeInForce() == TimeInForce.FOK && !isFillable(order);
+        //Orders are first matched in order of price (most aggressive to least aggressive)
+        PriceLevel level;
+        while (continuous && !cancelled && order.getPendingQuantity() > 0
+            && (level = oppositeSide.best()) != null && crosses(order, level)) {
+            // then by arrival time into the book (oldest to newest)
+            LimitOrder restingOrder = level.head();
+            while (restingOrder != null && order.getPendingQuantity() > 0) {
+                LimitOrder next = restingOrder.next;
+                if (restingOrder.owner == owner && preventSelfTrade) {
+                    cancelled = preventSelfTrade(order, restingOrder, level);
+                    if (cancelled) {
+                        break;
+                    }
+                    restingOrder = next;
+                    continue;
+                }
+                matchCount++;
+                long tradeQuantity = Math.min(order.getPendingQuantity(), restingOrder.getVisibleQuantity());
+                restingOrder.reducePendingQuantity(tradeQuantity);
+                level.reduceQuantity(tradeQuantity);
+                order.reducePendingQuantity(tradeQuantity);
+
+                try {
+                    tradeListener.onTrade(aggressingOrderId, restingOrder.getId(),
+                        restingOrder.getPrice(), tradeQuantity, timestamp);
+                } catch (Throwable e) {
+                    log.error("Error processing trade of order {}", aggressingOrderId, e);
+                }
+                stopOrders.trigger(restingOrder.getPrice(), triggered);
+
+                if (restingOrder.getPendingQuantity() == 0) {
+                    level.remove(restingOrder);
+                    restingOrders.remove(restingOrder.getId());
+                    orderRemoved(restingOrder);
+                } else if (restingOrder.getVisibleQuantity() == 0) {
+                    // next is still the order that follows, or null if the order was the last one and stays last
+                    level.replenish(restingOrder);
+                }
+                restingOrder = next;
+            }
+            levelChanged(order.getDirection().opposite(), level);
+            if (level.isEmpty()) {
+                oppositeSide.remove(level);
+            }
+        }
+        if (cancelled || order.getPendingQuantity() > 0
+            && (order.getOrderType() == OrderType.MARKET || order.getTimeInForce() != TimeInForce.GTC)) {
+            order.cancel();
+            return false;
+        }
+        if (order.getPendingQuantity() == 0) {
+            return false;
+        }
+        if (order.getHiddenQuantity() == 0) {
+            // restored iceberg orders keep the rest of their peak
+            order.showPeak();
+        }
+        level = side(order.getDirection()).levelFor(order.getPrice());
+        level.add(order);
+        restingOrders.put(order.getId(), order);
+        levelChanged(order.getDirection(), level);
+        orderRested(order);
+        return true;
+    }
+
+    /**
+     * Trades the crossed orders at the equilibrium price, the buy order of each trade is reported as the one
+     * initiating it. Self-trade prevention does not apply, the orders were accepted in the call knowing they
+     * would meet at a single price.
+     */
+    private void uncross(long timestamp) {
+        PriceLevel bestBid = bids.best();
+        PriceLevel bestAsk = asks.best();
+        if (bestBid == null || bestAsk == null || bestBid.price() < bestAsk.price()) {
+            return;
+        }
+        long price = equilibriumPrice(bestBid.price(), bestAsk.price());
+        PriceLevel bidLevel;
+        PriceLevel askLevel;
+        PriceLevel lastBidLevel = null;
+        PriceLevel lastAskLevel = null;
+        while ((bidLevel = bids.best()) != null && bidLevel.price() >= price
+            && (askLevel = asks.best()) != null && askLevel.price() <= price) {
+            LimitOrder bid = bidLevel.head();
+            LimitOrder ask = askLevel.head();
+            matchCount++;
+            long tradeQuantity = Math.min(bid.getVisibleQuantity(), ask.getVisibleQuantity());
+            bid.reducePendingQuantity(tradeQuantity);
+            bidLevel.reduceQuantity(tradeQuantity);
+            ask.reducePendingQuantity(tradeQuantity);
+            askLevel.reduceQuantity(tradeQuantity);
+            try {
+                tradeListener.onTrade(bid.getId(), ask.getId(), price, tradeQuantity, timestamp);
+            } catch (Throwable e) {
+                log.error("Error processing trade of order {}", bid.getId(), e);
+            }
+            settle(bid, bidLevel);
+            settle(ask, askLevel);
+            lastBidLevel = bidLevel;
+            lastAskLevel = askLevel;
+        }
+        // levels left empty were reported when removed, only the marginal levels are left partially filled
+        if (lastBidLevel != null) {
+            if (!lastBidLevel.isEmpty()) {
+                levelChanged(Direction.BID, lastBidLevel);
+            }
+            if (!lastAskLevel.isEmpty()) {
+                levelChanged(Direction.ASK, lastAskLevel);
+            }
+            stopOrders.trigger(price, triggered);
+        }
+    }
+
+    /**
+     * Finds the price maximizing the executable volume of a crossed book: at a price, the bids at it or above
+     * trade with the asks at it or below, up to the smaller of their cumulative quantities. Between prices giving
+     * the same volume the one leaving the smallest imbalance is chosen, then the highest if buyers are left over
+     * at all of them, the lowest if sellers are, and the midpoint of them otherwise.
+     * The crossed levels are copied into arrays and the prices visited once from the highest to the lowest,
+     * adding the bids reached and dropping the asks passed, so the cost is linear in the crossed levels.
+     */
+    private long equilibriumPrice(long bestBid, long bestAsk) {
+        List<PriceLevel> crossedBids = new ArrayList<>();
+        List<PriceLevel> crossedAsks = new ArrayList<>();
+        bids.forEachLevelWhile(level -> level.price() >= bestAsk && crossedBids.add(level));
+        asks.forEachLevelWhile(level -> level.price() <= bestBid && crossedAsks.add(level));
+        long askQuantity = 0;
+        for (PriceLevel level : crossedAsks) {
+            askQuantity += level.quantity() + level.hiddenQuantity();
+        }
+        long bidQuantity = 0;
+        long maxVolume = -1;
+        long minImbalance = 0;
+        long highest = 0;
+        long lowest = 0;
+        boolean buyersLeft = false;
+        boolean sellersLeft = false;
+        // bids from the highest price down, asks from the highest crossed price down
+        int bid = 0;
+        int ask = crossedAsks.size() - 1;
+        while (bid < crossedBids.size() || ask >= 0) {
+            long price = Math.max(bid < crossedBids.size() ? crossedBids.get(bid).price() : Long.MIN_VALUE,
+                ask >= 0 ? crossedAsks.get(ask).price() : Long.MIN_VALUE);
+            if (bid < crossedBids.size() && crossedBids.get(bid).price() == price) {
+                PriceLevel level = crossedBids.get(bid++);
+                bidQuantity += level.quantity() + level.hiddenQuantity();
+            }
+            long volume = Math.min(bidQuantity, askQuantity);
+            long imbalance = bidQuantity - askQuantity;
+            if (volume > maxVolume || volume == maxVolume && Math.abs(imbalance) < minImbalance) {
+                maxVolume = volume;
+                minImbalance = Math.abs(imbalance);
+                highest = price;
+                buyersLeft = false;
+                sellersLeft = false;
+            }
+            if (volume == maxVolume && Math.abs(imbalance) == minImbalance) {
+                lowest = price;
+                buyersLeft |= imbalance > 0;
+                sellersLeft |= imbalance < 0;
+            }
+            if (ask >= 0 && crossedAsks.get(ask).price() == price) {
+                PriceLevel level = crossedAsks.get(ask--);
+                askQuantity -= level.quantity() + level.hiddenQuantity();
+            }
+        }
+        if (buyersLeft && !sellersLeft) {
+            return highest;
+        }
+        if (sellersLeft && !buyersLeft) {
+            return lowest;
+        }
+        return lowest + (highest - lowest) / 2;
+    }
+
+    /**
+     * Removes a resting order filled by the uncross, and reports its level once it is empty,
+     * or shows a new peak of an iceberg order.
+     */
+    private void settle(LimitOrder order, PriceLevel level) {
+        if (order.getPendingQuantity() == 0) {
+            level.remove(order);
+            restingOrders.remove(order.getId());
+            orderRemoved(order);
+            if (level.isEmpty()) {
+                levelChanged(order.getDirection(), level);
+                side(order.getDirection()).remove(level);
+            }
+        } else if (order.getVisibleQuantity() == 0) {
+            level.replenish(order);
+        }
+    }
+
+    /**
+     * Matches the stop orders triggered by the command, in the order they were triggered, until none is left.
+     */
+    private void matchTriggered(long timestamp) {
+        LimitOrder order;
+        while ((order = triggered.poll()) != null) {
+            if (!match(order, timestamp)) {
+                orderRemoved(order);
+            }
+        }
+    }
+
+    /**
+     * Applies the self-trade prevention of the incoming order to a resting order of the same user,
+     * the level is reported as changed by the caller once the sweep of the level is over.
+     *
+     * @return whether the incoming order is to be cancelled
+     */
+    private boolean preventSelfTrade(LimitOrder order, LimitOrder restingOrder, PriceLevel level) {
+        switch (order.getSelfTradePrevention()) {
+            case CANCEL_NEWEST -> {
+                return true;
+            }
+            case CANCEL_OLDEST -> {
+                cancelResting(restingOrder, level);
+                return false;
+            }
+            case CANCEL_BOTH -> {
+                cancelResting(restingOrder, level);
+                return true;
+            }
+            case DECREMENT_AND_CANCEL -> {
+                long decrement = Math.min(order.getPendingQuantity(), restingOrder.getPendingQuantity());
+                level.reduceQuantity(restingOrder, decrement);
+                if (restingOrder.getPendingQuantity() == 0) {
+                    cancelResting(restingOrder, level);
+                }
+                order.reduceQuantity(decrement);
+                return order.getPendingQuantity() == 0;
+            }
+            default -> throw new IllegalStateException("Self-trade prevention " + order.getSelfTradePrevention());
+        }
+    }
+
+    private boolean wouldTrade(LimitOrder order) {
+        PriceLevel best = side(order.getDirection().opposite()).best();
+        return best != null && crosses(order, best);
+    }
+
+    /**
+     * Checks that the resting orders the order crosses have enough quantity to fill it, from the aggregated
+     * quantities of their levels, hidden ones included as the peaks are replenished while matching.
+     * Resting orders of the same user are looked at one by one when the order prevents self-trades: the order
+     * cannot trade with them, and they stop its matching unless they are cancelled (CANCEL_OLDEST).
+     */
+    private boolean isFillable(LimitOrder order) {
+        long quantity = order.getPendingQuantity();
+        SelfTradePrevention selfTradePrevention = order.getSelfTradePrevention();
+        long[] available = new long[1];
+        side(order.getDirection().opposite()).forEachLevelWhile(level -> {
+            if (!crosses(order, level)) {
+                return false;
+            }
+            if (selfTradePrevention == SelfTradePrevention.NONE) {
+                available[0] += level.quantity() + level.hiddenQuantity();
+                return available[0] < quantity;
+            }
+            for (LimitOrder restingOrder = level.head(); restingOrder != null; restingOrder = restingOrder.next) {
+                if (restingOrder.owner != order.owner) {
+                    available[0] += restingOrder.getPendingQuantity();
+                    if (available[0] >= quantity) {
+                        return false;
+                    }
+                } else if (selfTradePrevention != SelfTradePrevention.CANCEL_OLDEST) {
+                    return false;
+                }
+            }
+            return true;
+        });
+        return available[0] >= quantity;
+    }
+
+    private void cancelResting(LimitOrder restingOrder, PriceLevel level) {
+        level.remove(restingOrder);
+        restingOrders.remove(restingOrder.getId());
+        restingOrder.cancel();
+        orderRemoved(restingOrder);
+    }
+
+    private void orderRested(LimitOrder order) {
+        try {
+            orderListener.onRested(order);
+        } catch (Throwable e) {
+            log.error("Error processing resting order {}", order.getId(), e);
+        }
+    }
+
+    private void orderRemoved(LimitOrder order) {
+        try {
+            orderListener.onRemoved(order);
+        } catch (Throwable e) {
+            log.error("Error processing removal of order {}", order.getId(), e);
+        }
+    }
+
+    private void unlink(LimitOrder order) {
+        PriceLevel level = order.level;
+        level.remove(order);
+        levelChanged(order.getDirection(), level);
+        if (level.isEmpty()) {
+            side(order.getDirection()).remove(level);
+        }
+    }
+
+    private void levelChanged(Direction side, PriceLevel level) {
+        try {
+            depthListener.onLevelChange(ticker, side, level.price(), level.quantity(), level.orderCount());
+        } catch (Throwable e) {
+            log.error("Error processing change of {} level {}", side, level.price(), e);
+        }
+    }
+
+    @Override
+    public long getMatchCount() {
+        return matchCount;
+    }
+
+    @Override
+    public int getLevelCount(Direction side) {
+        return side(side).levelCount();
+    }
+
+    @Override
+    public void forEachOrder(Direction side, Consumer<LimitOrder> consumer) {
+        side(side).forEachLevel(level -> {
+            for (LimitOrder order = level.head(); order != null; order = order.next) {
+                consumer.accept(order);
+            }
+        });
+        stopOrders.forEachOrder(side, consumer);
+    }
+
+    private BookSide side(Direction direction) {
+        return direction == Direction.BID ? bids : asks;
+    }
+
+    /**
+     * @return time of the command that placed or amended the order, trades are stamped with it rather than
+     *         with the clock, so that executing the same commands again, on recovery or on a replica,
+     *         gives the same trades
+     */
+    private static long timestamp(LimitOrder order) {
+        return order.getTimestamp() == null ? 0 : order.getTimestamp().toInstant().toEpochMilli();
+    }
+
+    private static boolean crosses(LimitOrder order, PriceLevel level) {
+        return order.getDirection() == Direction.BID
+            ? level.price() <= order.getPrice()
+            : level.price() >= order.getPrice();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+                "ticker='" + ticker + '\'' +
+                ", bids=" + bids +
+                ", asks=" + asks +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package xyz.a5s7.domain.model;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Price levels of one side of an order book, ordered from the best price to the worst.
+ */
+interface BookSide {
+    /**
+     * @return level with the best price or null if the side is empty
+     */
+    PriceLevel best();
+
+    /**
+     * @return level for the price, created if the side has no orders at this price
+     */
+    PriceLevel levelFor(long price);
+
+    /**
+     * Removes a level that became empty.
+     */
+    void remove(PriceLevel level);
+
+    int levelCount();
+
+    default void forEachLevel(Consumer<PriceLevel> consumer) {
+        forEachLevelWhile(level -> {
+            consumer.accept(level);
+            return true;
+        });
+    }
+
+    /**
+     * Visits the levels from the best price to the worst until the visitor returns false.
+     */
+    void forEachLevelWhile(Predicate<PriceLevel> visitor);
+}
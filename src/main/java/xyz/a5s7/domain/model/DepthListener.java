@@ -0,0 +1,19 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Receives every change of the resting quantity at a price on the matching thread,
+ * so it must be cheap and must not block for long.
+ * A command reports each price level it changed once, after it is done with the level.
+ */
+@FunctionalInterface
+public interface DepthListener {
+    DepthListener NONE = (ticker, side, price, quantity, orderCount) -> { };
+
+    /**
+     * @param side       side of the book the level is on
+     * @param price      the price of the level, in ticks
+     * @param quantity   total pending quantity of the orders at the price, in lots, 0 when no order is left
+     * @param orderCount number of orders at the price
+     */
+    void onLevelChange(String ticker, Direction side, long price, long quantity, int orderCount);
+}
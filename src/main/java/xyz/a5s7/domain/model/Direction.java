@@ -6,5 +6,9 @@ package xyz.a5s7.domain.model;
  * ASK - sell order
  */
 public enum Direction {
-    BID, ASK
+    BID, ASK;
+
+    public Direction opposite() {
+        return this == BID ? ASK : BID;
+    }
 }
@@ -0,0 +1,17 @@
+package xyz.a5s7.domain.model;
+
+import java.time.ZonedDateTime;
+
+/**
+ * One side of a trade, as seen by the user whose order took part in it.
+ *
+ * @param tradeId   id of the trade
+ * @param orderId   id of the order of the user
+ * @param direction direction of the order of the user
+ * @param price     price of the trade, in ticks
+ * @param quantity  quantity of the trade, in lots
+ * @param aggressor whether the order of the user initiated the trade, rather than rested in the order book
+ */
+public record Fill(long tradeId, long orderId, String ticker, Direction direction, long price, long quantity,
+                   boolean aggressor, ZonedDateTime timestamp) {
+}
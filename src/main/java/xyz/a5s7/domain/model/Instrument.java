@@ -0,0 +1,61 @@
+package xyz.a5s7.domain.model;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Trading parameters of a ticker.
+ * Inside the matching engine prices are expressed as a whole number of ticks and quantities as a whole number
+ * of lots, so that matching works on primitive longs. Decimal values are converted only at the API boundary.
+ *
+ * @param ticker   ticker symbol
+ * @param tickSize minimum price increment
+ * @param lotSize  minimum quantity increment
+ */
+public record Instrument(String ticker, BigDecimal tickSize, BigDecimal lotSize) {
+    public Instrument {
+        Objects.requireNonNull(ticker);
+        if (tickSize == null || tickSize.signum() <= 0) {
+            throw new IllegalArgumentException("Tick size of " + ticker + " must be greater than 0");
+        }
+        if (lotSize == null || lotSize.signum() <= 0) {
+            throw new IllegalArgumentException("Lot size of " + ticker + " must be greater than 0");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the price is not a multiple of the tick size
+     */
+    public long toTicks(BigDecimal price) {
+        return toUnits(price, tickSize, "Price", "tick");
+    }
+
+    public BigDecimal toPrice(long ticks) {
+        return tickSize.multiply(BigDecimal.valueOf(ticks));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the quantity is not a multiple of the lot size
+     */
+    public long toLots(BigDecimal quantity) {
+        return toUnits(quantity, lotSize, "Quantity", "lot");
+    }
+
+    public BigDecimal toQuantity(long lots) {
+        return lotSize.multiply(BigDecimal.valueOf(lots));
+    }
+
+    private static long toUnits(BigDecimal value, BigDecimal unit, String valueName, String unitName) {
+        BigDecimal[] quotientAndRemainder = value.divideAndRemainder(unit);
+        if (quotientAndRemainder[1].signum() != 0) {
+            throw new IllegalArgumentException(
+                valueName + " must be a multiple of " + unitName + " size " + unit.toPlainString()
+            );
+        }
+        try {
+            return quotientAndRemainder[0].longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(valueName + " is out of range");
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package xyz.a5s7.domain.model;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Price levels kept in a dense array indexed by the distance in ticks from a base price,
+ * which is anchored around the first price placed on the side.
+ * Levels too far from the base to fit in the array are kept in an overflow tree.
+ * <p>
+ * A bitmap of non-empty array levels and the cached index of the best one make finding the next best
+ * price a scan of a few words instead of a tree walk.
+ * When the array runs empty while the overflow tree still has levels, the array is re-anchored around
+ * the best of them.
+ */
+final class LadderBookSide implements BookSide {
+    private final boolean higherIsBetter;
+    private final PriceLevel[] ladder;
+    // bit per non-empty level of the ladder
+    private final long[] occupied;
+    private final NavigableMap<Long, PriceLevel> overflow = new TreeMap<>();
+    private long basePrice;
+    private boolean anchored;
+    private int bestIndex = -1;
+    private int ladderLevelCount;
+    private PriceLevel overflowBest;
+
+    LadderBookSide(Direction direction, int ladderLevels) {
+        if (ladderLevels < 1) {
+            throw new IllegalArgumentException("Ladder must have at least one level");
+        }
+        this.higherIsBetter = direction == Direction.BID;
+        this.ladder = new PriceLevel[ladderLevels];
+        this.occupied = new long[(ladderLevels + 63) >>> 6];
+    }
+
+    @Override
+    public PriceLevel best() {
+        PriceLevel ladderBest = bestIndex < 0 ? null : ladder[bestIndex];
+        if (overflowBest == null) {
+            return ladderBest;
+        }
+        if (ladderBest == null || isBetter(overflowBest.price(), ladderBest.price())) {
+            return overflowBest;
+        }
+        return ladderBest;
+    }
+
+    @Override
+    public PriceLevel levelFor(long price) {
+        if (!anchored || (ladderLevelCount == 0 && !inLadder(price))) {
+            anchor(price);
+        }
+        if (!inLadder(price)) {
+            return overflowLevelFor(price);
+        }
+        int index = (int) (price - basePrice);
+        PriceLevel level = ladder[index];
+        if (level == null) {
+            level = new PriceLevel(index, price);
+            ladder[index] = level;
+        }
+        if (!isOccupied(index)) {
+            level.price = price;
+            occupy(index);
+        }
+        return level;
+    }
+
+    @Override
+    public void remove(PriceLevel level) {
+        if (level.index < 0) {
+            overflow.remove(level.price());
+            if (level == overflowBest) {
+                overflowBest = bestOf(overflow);
+            }
+        } else {
+            int index = level.index;
+            occupied[index >>> 6] &= ~(1L << index);
+            ladderLevelCount--;
+            if (index == bestIndex) {
+                bestIndex = higherIsBetter ? previousOccupied(index - 1) : nextOccupied(index + 1);
+            }
+        }
+        if (ladderLevelCount == 0 && overflowBest != null) {
+            anchor(overflowBest.price());
+        }
+    }
+
+    @Override
+    public int levelCount() {
+        return ladderLevelCount + overflow.size();
+    }
+
+    @Override
+    public void forEachLevelWhile(Predicate<PriceLevel> visitor) {
+        if (!anchored) {
+            return;
+        }
+        NavigableMap<Long, PriceLevel> below = overflow.headMap(basePrice, false);
+        NavigableMap<Long, PriceLevel> above = overflow.tailMap(basePrice + ladder.length, true);
+        if (higherIsBetter) {
+            if (!visit(above.descendingMap().values(), visitor)) {
+                return;
+            }
+            for (int i = previousOccupied(ladder.length - 1); i >= 0; i = previousOccupied(i - 1)) {
+                if (!visitor.test(ladder[i])) {
+                    return;
+                }
+            }
+            visit(below.descendingMap().values(), visitor);
+        } else {
+            if (!visit(below.values(), visitor)) {
+                return;
+            }
+            for (int i = nextOccupied(0); i >= 0; i = nextOccupied(i + 1)) {
+                if (!visitor.test(ladder[i])) {
+                    return;
+                }
+            }
+            visit(above.values(), visitor);
+        }
+    }
+
+    /**
+     * @return whether the visitor wants to go on
+     */
+    private static boolean visit(Iterable<PriceLevel> levels, Predicate<PriceLevel> visitor) {
+        for (PriceLevel level : levels) {
+            if (!visitor.test(level)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Centers the ladder around the price and moves overflow levels that fit into it.
+     * Must be called only when the ladder is empty.
+     */
+    private void anchor(long price) {
+        basePrice = price - ladder.length / 2;
+        anchored = true;
+        bestIndex = -1;
+        var fitting = overflow.subMap(basePrice, true, basePrice + ladder.length, false);
+        for (var iterator = fitting.values().iterator(); iterator.hasNext(); ) {
+            PriceLevel level = iterator.next();
+            iterator.remove();
+            int index = (int) (level.price() - basePrice);
+            level.index = index;
+            ladder[index] = level;
+            occupy(index);
+        }
+        overflowBest = bestOf(overflow);
+    }
+
+    private PriceLevel overflowLevelFor(long price) {
+        PriceLevel level = overflow.get(price);
+        if (level == null) {
+            level = new PriceLevel(-1, price);
+            overflow.put(price, level);
+            if (overflowBest == null || isBetter(price, overflowBest.price())) {
+                overflowBest = level;
+            }
+        }
+        return level;
+    }
+
+    private PriceLevel bestOf(NavigableMap<Long, PriceLevel> levels) {
+        Map.Entry<Long, PriceLevel> best = higherIsBetter ? levels.lastEntry() : levels.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    private void occupy(int index) {
+        occupied[index >>> 6] |= 1L << index;
+        ladderLevelCount++;
+        if (bestIndex < 0 || (higherIsBetter ? index > bestIndex : index < bestIndex)) {
+            bestIndex = index;
+        }
+    }
+
+    private boolean isOccupied(int index) {
+        return (occupied[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private boolean inLadder(long price) {
+        return price >= basePrice && price - basePrice < ladder.length;
+    }
+
+    private boolean isBetter(long price, long other) {
+        return higherIsBetter ? price > other : price < other;
+    }
+
+    /**
+     * @return lowest non-empty ladder index greater than or equal to {@code from}, or -1
+     */
+    private int nextOccupied(int from) {
+        if (from >= ladder.length) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == occupied.length) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+    }
+
+    /**
+     * @return highest non-empty ladder index less than or equal to {@code from}, or -1
+     */
+    private int previousOccupied(int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = occupied[word] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+            if (word-- == 0) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        forEachLevel(level -> {
+            if (builder.length() > 1) {
+                builder.append(", ");
+            }
+            builder.append(level.price()).append('=').append(level);
+        });
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,30 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Order book keeping price levels of each side in a dense array indexed by ticks around the traded price,
+ * with a tree only for levels far away from it. See {@link LadderBookSide}.
+ */
+public class LadderOrderBook extends AbstractOrderBook {
+    public static final int DEFAULT_LADDER_LEVELS = 4096;
+
+    public LadderOrderBook(String ticker, TradeListener tradeListener) {
+        this(ticker, tradeListener, DEFAULT_LADDER_LEVELS);
+    }
+
+    /**
+     * @param ladderLevels number of consecutive ticks kept in the array of each side
+     */
+    public LadderOrderBook(String ticker, TradeListener tradeListener, int ladderLevels) {
+        this(ticker, tradeListener, DepthListener.NONE, ladderLevels);
+    }
+
+    public LadderOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener, int ladderLevels) {
+        this(ticker, tradeListener, depthListener, OrderListener.NONE, ladderLevels);
+    }
+
+    public LadderOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener,
+                           OrderListener orderListener, int ladderLevels) {
+        super(ticker, tradeListener, depthListener, orderListener,
+            new LadderBookSide(Direction.BID, ladderLevels), new LadderBookSide(Direction.ASK, ladderLevels));
+    }
+}
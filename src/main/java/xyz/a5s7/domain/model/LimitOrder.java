@@ -1,23 +1,49 @@
 package xyz.a5s7.domain.model;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 
+/**
+ * Limit order. Price is expressed in ticks and quantities in lots of the {@link Instrument} of the ticker.
+ * The {@link OrderType} and {@link TimeInForce} decide whether the order trades right away and whether its rest
+ * is kept in the book, by default it is a GTC limit order.
+ * An iceberg order has a display quantity: while it rests, only a peak of at most that quantity is shown and traded,
+ * the rest of its pending quantity is hidden until the peak is consumed.
+ * A stop order has a stop price: it waits outside the book until a trade at or through that price triggers it,
+ * then it is matched as the market or limit order it is.
+ */
 public class LimitOrder {
     private final Long id;
     // user id who placed the order
     private final Long userId;
+    // userId unboxed, 0 without user, compared on every fill by the self-trade prevention
+    final long owner;
     private final String ticker;
     private final Direction direction;
-    private final BigDecimal price;
-    private final BigDecimal quantity;
-    private final ZonedDateTime timestamp;
-    private BigDecimal pendingQuantity;
+    private long price;
+    private long quantity;
+    private ZonedDateTime timestamp;
+    private long pendingQuantity;
+    private boolean cancelled;
+    private OrderType orderType = OrderType.LIMIT;
+    private TimeInForce timeInForce = TimeInForce.GTC;
+    private SelfTradePrevention selfTradePrevention = SelfTradePrevention.NONE;
+    // peak of an iceberg order, 0 shows the whole order
+    private long displayQuantity;
+    // part of the pending quantity of a resting iceberg order that is not shown, 0 while the order is matched
+    private long hiddenQuantity;
+    // price of the trade that triggers a stop order, 0 for other orders
+    private long stopPrice;
+    private boolean triggered;
+    // intrusive links of the price level the order rests at, maintained by PriceLevel
+    PriceLevel level;
+    LimitOrder prev;
+    LimitOrder next;
 
-    public LimitOrder(Long id, Long userId, String ticker, Direction type, BigDecimal price, BigDecimal quantity, ZonedDateTime timestamp) {
+    public LimitOrder(Long id, Long userId, String ticker, Direction type, long price, long quantity, ZonedDateTime timestamp) {
         this.id = id;
         this.userId = userId;
+        this.owner = userId == null ? 0 : userId;
         this.ticker = ticker;
         this.direction = type;
         this.price = price;
@@ -27,10 +53,113 @@ public class LimitOrder {
         this.timestamp = timestamp;
     }
 
-    public LimitOrder(Long userId, String ticker, Direction type, BigDecimal price, BigDecimal quantity, ZonedDateTime timestamp) {
+    public LimitOrder(Long userId, String ticker, Direction type, long price, long quantity, ZonedDateTime timestamp) {
         this(null, userId, ticker, type, price, quantity, timestamp);
     }
 
+    /**
+     * @return order in the given state, e.g. read back from storage, that does not rest in any order book
+     */
+    public static LimitOrder restore(Long id, Long userId, String ticker, Direction direction, long price,
+                                     long quantity, long pendingQuantity, boolean cancelled, ZonedDateTime timestamp) {
+        var order = new LimitOrder(id, userId, ticker, direction, price, quantity, timestamp);
+        order.pendingQuantity = pendingQuantity;
+        order.cancelled = cancelled;
+        return order;
+    }
+
+    /**
+     * Sets type and time in force of the order, meant to be called while the order is created, before it is placed.
+     *
+     * @return this order
+     * @throws IllegalArgumentException if a market order is GTC, it never rests,
+     *                                  or a post-only order is not GTC, it never trades right away
+     */
+    public LimitOrder withType(OrderType orderType, TimeInForce timeInForce) {
+        Objects.requireNonNull(orderType);
+        Objects.requireNonNull(timeInForce);
+        if (orderType == OrderType.MARKET && timeInForce == TimeInForce.GTC) {
+            throw new IllegalArgumentException("Market order must be IOC or FOK");
+        }
+        if (orderType == OrderType.POST_ONLY && timeInForce != TimeInForce.GTC) {
+            throw new IllegalArgumentException("Post-only order must be GTC");
+        }
+        if (displayQuantity > 0 && timeInForce != TimeInForce.GTC) {
+            throw new IllegalArgumentException("Iceberg order must be GTC");
+        }
+        if (stopPrice > 0 && orderType == OrderType.POST_ONLY) {
+            throw new IllegalArgumentException("Post-only order cannot be a stop order");
+        }
+        this.orderType = orderType;
+        this.timeInForce = timeInForce;
+        return this;
+    }
+
+    /**
+     * Sets how the order is kept from trading with resting orders of the same user, meant to be called
+     * while the order is created, before it is placed.
+     *
+     * @return this order
+     */
+    public LimitOrder withSelfTradePrevention(SelfTradePrevention selfTradePrevention) {
+        this.selfTradePrevention = Objects.requireNonNull(selfTradePrevention);
+        return this;
+    }
+
+    /**
+     * Makes the order an iceberg order, meant to be called while the order is created, before it is placed.
+     *
+     * @param displayQuantity largest quantity shown while the order rests, 0 shows the whole order
+     * @return this order
+     * @throws IllegalArgumentException if the display quantity is negative or the order is not GTC,
+     *                                  an order that never rests has nothing to hide
+     */
+    public LimitOrder withDisplayQuantity(long displayQuantity) {
+        if (displayQuantity < 0) {
+            throw new IllegalArgumentException("Display quantity must not be negative");
+        }
+        if (displayQuantity > 0 && timeInForce != TimeInForce.GTC) {
+            throw new IllegalArgumentException("Iceberg order must be GTC");
+        }
+        this.displayQuantity = displayQuantity;
+        return this;
+    }
+
+    /**
+     * Sets the hidden quantity of an iceberg order read back from storage, so that it rests with the rest of its
+     * peak rather than with a new one.
+     *
+     * @return this order
+     * @throws IllegalArgumentException if the hidden quantity is negative or the order is not an iceberg order
+     */
+    public LimitOrder withHiddenQuantity(long hiddenQuantity) {
+        if (hiddenQuantity < 0 || hiddenQuantity > 0 && displayQuantity == 0) {
+            throw new IllegalArgumentException("Hidden quantity must be 0 unless the order is an iceberg order");
+        }
+        this.hiddenQuantity = hiddenQuantity;
+        return this;
+    }
+
+    /**
+     * Makes the order a stop order, meant to be called while the order is created, before it is placed.
+     * A buy stop order is triggered by a trade at or above the stop price, a sell stop order by a trade at or below.
+     *
+     * @param stopPrice in ticks, 0 for an order that is not a stop order
+     * @return this order
+     * @throws IllegalArgumentException if the stop price is negative or the order is post-only,
+     *                                  a triggered order takes liquidity
+     */
+    public LimitOrder withStopPrice(long stopPrice) {
+        if (stopPrice < 0) {
+            throw new IllegalArgumentException("Stop price must not be negative");
+        }
+        if (stopPrice > 0 && orderType == OrderType.POST_ONLY) {
+            throw new IllegalArgumentException("Post-only order cannot be a stop order");
+        }
+        this.stopPrice = stopPrice;
+        return this;
+    }
+
     public Long getId() {
         return id;
     }
@@ -47,15 +176,15 @@ public class LimitOrder {
         return direction;
     }
 
-    public BigDecimal getPrice() {
+    public long getPrice() {
         return price;
     }
 
-    public BigDecimal getQuantity() {
+    public long getQuantity() {
         return quantity;
     }
 
-    public BigDecimal getPendingQuantity() {
+    public long getPendingQuantity() {
         return pendingQuantity;
     }
 
@@ -63,8 +192,103 @@ public class LimitOrder {
         return timestamp;
     }
 
-    public void reducePendingQuantity(BigDecimal tradeQuantity) {
-        pendingQuantity = pendingQuantity.subtract(tradeQuantity);
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public SelfTradePrevention getSelfTradePrevention() {
+        return selfTradePrevention;
+    }
+
+    public long getDisplayQuantity() {
+        return displayQuantity;
+    }
+
+    public long getHiddenQuantity() {
+        return hiddenQuantity;
+    }
+
+    public long getStopPrice() {
+        return stopPrice;
+    }
+
+    /**
+     * @return whether the order is a stop order that has not been triggered yet
+     */
+    public boolean isStopPending() {
+        return stopPrice > 0 && !triggered;
+    }
+
+    /**
+     * @return stop price of a stop order that has not been triggered yet, 0 for other orders, which is all
+     *         a copy of the order needs to be in the same state
+     */
+    public long getPendingStopPrice() {
+        return isStopPending() ? stopPrice : 0;
+    }
+
+    /**
+     * @return pending quantity shown in the book, the current peak of an iceberg order
+     */
+    public long getVisibleQuantity() {
+        return pendingQuantity - hiddenQuantity;
+    }
+
+    public OrderStatus getStatus() {
+        if (cancelled) {
+            return OrderStatus.CANCELLED;
+        }
+        return pendingQuantity == 0 ? OrderStatus.FILLED : OrderStatus.OPEN;
+    }
+
+    public void reducePendingQuantity(long tradeQuantity) {
+        pendingQuantity -= tradeQuantity;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    void trigger() {
+        triggered = true;
+    }
+
+    /**
+     * Reduces the quantity without touching the time priority, the hidden quantity of an iceberg order first.
+     */
+    void reduceQuantity(long reduction) {
+        hiddenQuantity -= Math.min(reduction, hiddenQuantity);
+        quantity -= reduction;
+        pendingQuantity -= reduction;
+    }
+
+    /**
+     * Shows a new peak of an iceberg order, taken from its pending quantity, the rest is hidden.
+     */
+    void showPeak() {
+        if (displayQuantity > 0) {
+            hiddenQuantity = Math.max(0, pendingQuantity - displayQuantity);
+        }
+    }
+
+    /**
+     * Changes price and quantity, the already filled quantity stays filled.
+     * The order gets new time priority.
+     */
+    void replace(long price, long quantity, ZonedDateTime timestamp) {
+        this.pendingQuantity = quantity - getFilledQuantity();
+        this.hiddenQuantity = 0;
+        this.price = price;
+        this.quantity = quantity;
+        this.timestamp = timestamp;
+    }
+
+    long getFilledQuantity() {
+        return quantity - pendingQuantity;
     }
 
     @Override
@@ -74,7 +298,7 @@ public class LimitOrder {
         LimitOrder that = (LimitOrder) o;
         return Objects.equals(id, that.id) && Objects.equals(userId, that.userId)
                 && Objects.equals(ticker, that.ticker) && direction == that.direction
-                && Objects.equals(price, that.price) && Objects.equals(quantity, that.quantity)
+                && price == that.price && quantity == that.quantity
                 && Objects.equals(timestamp, that.timestamp);
     }
 
@@ -94,6 +318,14 @@ public class LimitOrder {
                 ", quantity=" + quantity +
                 ", timestamp=" + timestamp +
                 ", pendingQuantity=" + pendingQuantity +
+                ", orderType=" + orderType +
+                ", timeInForce=" + timeInForce +
+                ", selfTradePrevention=" + selfTradePrevention +
+                ", displayQuantity=" + displayQuantity +
+                ", hiddenQuantity=" + hiddenQuantity +
+                ", stopPrice=" + stopPrice +
+                ", triggered=" + triggered +
+                ", status=" + getStatus() +
                 '}';
     }
 }
@@ -1,109 +1,86 @@
 package xyz.a5s7.domain.model;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.NavigableMap;
-import java.util.Objects;
-import java.util.Queue;
-import java.util.TreeMap;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.function.Consumer;
 
 /**
- * Represents an order book for a specific ticker symbol.
+ * Order book for a specific ticker symbol, matching orders with continuous Price/Time priority.
+ * Implementations are not thread safe, callers are expected to serialize access to a book.
  */
-public class OrderBook {
-    private static final Logger log = LoggerFactory.getLogger(OrderBook.class);
+public interface OrderBook {
+    String getTicker();
 
-    private final String ticker;
-    private final NavigableMap<BigDecimal, Queue<LimitOrder>> bids = new TreeMap<>();
-    private final NavigableMap<BigDecimal, Queue<LimitOrder>> asks = new TreeMap<>();
-    private final List<TradeListener> onTradeListeners;
+    /**
+     * Matches the order against resting orders of the opposite side,
+     * from the best price to the worst and by arrival time within a price,
+     * and rests the remaining quantity in the book. A resting order of the same user is not traded with
+     * unless the {@link SelfTradePrevention} of the order is NONE, the order is left cancelled if the prevention
+     * cancelled it. Depending on its {@link OrderType} and {@link TimeInForce}, the order is cancelled instead:
+     * without trading if it is post-only and crosses the book or if it is FOK and cannot be filled in full,
+     * or once it has traded if it is a market, IOC or FOK order with quantity left.
+     * An iceberg order rests with its peak only, resting iceberg orders show a new peak at the back of their level
+     * each time the order consumes their peak.
+     * A stop order waiting for its trigger is kept aside instead, until a trade triggers it. Orders triggered by
+     * the trades of a command are matched within the same command, after its own order.
+     * Outside continuous trading the order rests without matching, unless it would not rest (market, IOC, FOK),
+     * and is cancelled while the book is halted.
+     */
+    void addOrder(LimitOrder order);
 
-    public OrderBook(String ticker, List<TradeListener> onTradeListeners) {
-        this.ticker = ticker;
-        this.onTradeListeners = onTradeListeners;
-    }
+    /**
+     * Removes a resting order, or a stop order waiting for its trigger, from the book.
+     *
+     * @return cancelled order or null if no order with this id rests in the book or waits for its trigger
+     */
+    LimitOrder cancelOrder(long orderId);
 
-    public void addOrder(LimitOrder order) {
-        Objects.requireNonNull(order);
-        if (order.getId() == null) {
-            throw new IllegalArgumentException("Order id is required");
-        }
+    /**
+     * Removes all resting orders of the user from the book.
+     *
+     * @return cancelled orders, bids from the best price to the worst, then asks
+     */
+    List<LimitOrder> cancelOrders(long userId);
 
-        NavigableMap<BigDecimal, Queue<LimitOrder>> oppositeSideOrders;
-        NavigableMap<BigDecimal, Queue<LimitOrder>> restingOrdersMap = Collections.emptyNavigableMap();
-        NavigableMap<BigDecimal, Queue<LimitOrder>> orders = Collections.emptyNavigableMap();
-        switch (order.getDirection()) {
-            case ASK -> {
-                orders = asks;
-                oppositeSideOrders = bids;
-                restingOrdersMap = oppositeSideOrders.tailMap(order.getPrice(), true).descendingMap();
-            }
-            case BID -> {
-                orders = bids;
-                oppositeSideOrders = asks;
-                restingOrdersMap = oppositeSideOrders.headMap(order.getPrice(), true);
-            }
-        }
-        Long aggressingOrderId = order.getId();
-        //Orders are first matched in order of price (most aggressive to least aggressive)
-        for (Iterator<Queue<LimitOrder>> iterator = restingOrdersMap.values().iterator(); iterator.hasNext(); ) {
-            var restingOrders = iterator.next();
-            // then by arrival time into the book (oldest to newest)
-            while (!restingOrders.isEmpty() && order.getPendingQuantity().compareTo(BigDecimal.ZERO) > 0) {
-                LimitOrder restingOrder = restingOrders.peek();
-                if (restingOrder != null) {
-                    //TODO do not allow self trade - when user places an order that matches with their own order
-                    var tradeQuantity = order.getPendingQuantity().min(restingOrder.getPendingQuantity());
-                    restingOrder.reducePendingQuantity(tradeQuantity);
-                    order.reducePendingQuantity(tradeQuantity);
+    /**
+     * Changes price and/or quantity of a resting order, the quantity already filled stays filled.
+     * Reducing the quantity keeps the time priority of the order. Changing the price or increasing
+     * the quantity is a cancel/replace: the order loses its priority and is matched again as if
+     * it arrived at {@code timestamp}, and the stop orders its trades trigger are matched too.
+     * A stop order waiting for its trigger waits again, behind the other orders of its stop price.
+     *
+     * @param quantity new total quantity of the order
+     * @return amended order or null if no order with this id rests in the book
+     * @throws IllegalArgumentException if the new quantity is not greater than the filled quantity
+     */
+    LimitOrder amendOrder(long orderId, long price, long quantity, ZonedDateTime timestamp);
 
-                    var trade = new Trade(aggressingOrderId, restingOrder.getId(), 
-                        restingOrder.getPrice(), tradeQuantity, ZonedDateTime.now()
-                    );
-                    log.info("Order matched, trade: {}", trade);
-                    onTradeListeners.forEach(listener -> {
-                        try {
-                            listener.onTrade(trade);
-                        } catch (Throwable e) {
-                            log.error("Error processing trade", e);
-                        }
-                    });
+    TradingPhase getPhase();
 
-                    if (restingOrder.getPendingQuantity().compareTo(BigDecimal.ZERO) == 0) {
-                        restingOrders.poll();
-                    }
-                }
-            }
-            if (restingOrders.isEmpty()) {
-                iterator.remove();
-            }
-        }
-        if (order.getPendingQuantity().compareTo(BigDecimal.ZERO) > 0) {
-            orders.computeIfAbsent(order.getPrice(), k -> new LinkedList<>()).add(order);
-        }
-    }
+    /**
+     * Moves the book to another phase of the trading day. Returning to continuous trading from the call
+     * or a halt uncrosses the book first: the crossed orders trade at the single price maximizing the
+     * executed quantity, stamped with {@code timestamp}, and the stop orders the uncross triggers are matched.
+     * Changing to the current phase does nothing.
+     *
+     * @throws IllegalArgumentException if the phase is UNCROSS, which is only entered on the way to CONTINUOUS
+     */
+    void changePhase(TradingPhase phase, ZonedDateTime timestamp);
 
-    NavigableMap<BigDecimal, Queue<LimitOrder>> getAsksMap() {
-        return Collections.unmodifiableNavigableMap(asks);
-    }
+    /**
+     * @return number of times a resting order has been matched against an incoming one since the book was created,
+     *         the increase while adding an order is the number of iterations of its match loop
+     */
+    long getMatchCount();
 
-    NavigableMap<BigDecimal, Queue<LimitOrder>> getBidsMap() {
-        return Collections.unmodifiableNavigableMap(bids);
-    }
+    /**
+     * @return number of distinct prices with resting orders on the side
+     */
+    int getLevelCount(Direction side);
 
-    @Override
-    public String toString() {
-        return "OrderBook{" +
-                "ticker='" + ticker + '\'' +
-                ", bids=" + bids +
-                ", asks=" + asks +
-                '}';
-    }
+    /**
+     * Visits resting orders of the side from the best price to the worst and by arrival time within a price,
+     * then the stop orders of the side waiting for their trigger, in the order they would be triggered.
+     */
+    void forEachOrder(Direction side, Consumer<LimitOrder> consumer);
 }
@@ -0,0 +1,27 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Receives every order entering or leaving the resting orders of a book on the matching thread,
+ * so it must be cheap and must not block for long.
+ */
+public interface OrderListener {
+    OrderListener NONE = new OrderListener() {
+        @Override
+        public void onRested(LimitOrder order) {
+        }
+
+        @Override
+        public void onRemoved(LimitOrder order) {
+        }
+    };
+
+    /**
+     * The order rests in the book, called again for an order that stays in the book after being amended.
+     */
+    void onRested(LimitOrder order);
+
+    /**
+     * The order no longer rests in the book: it has been filled or cancelled.
+     */
+    void onRemoved(LimitOrder order);
+}
@@ -0,0 +1,10 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * OPEN - order rests in the order book, possibly partially filled
+ * FILLED - whole quantity of the order has been traded
+ * CANCELLED - order has been removed from the order book before it was filled
+ */
+public enum OrderStatus {
+    OPEN, FILLED, CANCELLED
+}
@@ -0,0 +1,11 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * LIMIT - trades at its price or better, the rest is kept according to its {@link TimeInForce}
+ * MARKET - trades at any price up to its price, which protects it from sweeping too deep into the book,
+ *          and never rests: the rest is cancelled
+ * POST_ONLY - limit order that only adds liquidity: it is cancelled instead of trading with a resting order
+ */
+public enum OrderType {
+    LIMIT, MARKET, POST_ONLY
+}
@@ -0,0 +1,128 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Resting orders at one price, in time priority.
+ * Orders are linked intrusively through their own prev/next fields,
+ * so adding or removing an order does not allocate a list node.
+ */
+final class PriceLevel {
+    // index in the ladder of LadderBookSide, -1 for levels kept in a tree
+    int index;
+    long price;
+    private LimitOrder head;
+    private LimitOrder tail;
+    private int orderCount;
+    private long quantity;
+    private long hiddenQuantity;
+
+    PriceLevel(int index, long price) {
+        this.index = index;
+        this.price = price;
+    }
+
+    long price() {
+        return price;
+    }
+
+    LimitOrder head() {
+        return head;
+    }
+
+    int orderCount() {
+        return orderCount;
+    }
+
+    /**
+     * @return pending quantity shown by the orders at this price, only the peaks of iceberg orders
+     */
+    long quantity() {
+        return quantity;
+    }
+
+    /**
+     * @return pending quantity hidden by the iceberg orders at this price
+     */
+    long hiddenQuantity() {
+        return hiddenQuantity;
+    }
+
+    boolean isEmpty() {
+        return head == null;
+    }
+
+    void add(LimitOrder order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        orderCount++;
+        quantity += order.getVisibleQuantity();
+        hiddenQuantity += order.getHiddenQuantity();
+    }
+
+    void remove(LimitOrder order) {
+        LimitOrder prev = order.prev;
+        LimitOrder next = order.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+        orderCount--;
+        quantity -= order.getVisibleQuantity();
+        hiddenQuantity -= order.getHiddenQuantity();
+    }
+
+    /**
+     * Accounts for a trade against one of the orders of this level, trades take from the visible quantity only.
+     */
+    void reduceQuantity(long tradeQuantity) {
+        quantity -= tradeQuantity;
+    }
+
+    /**
+     * Reduces the quantity of one of the orders of this level, keeping its place.
+     */
+    void reduceQuantity(LimitOrder order, long reduction) {
+        long hidden = order.getHiddenQuantity();
+        order.reduceQuantity(reduction);
+        long hiddenReduction = hidden - order.getHiddenQuantity();
+        hiddenQuantity -= hiddenReduction;
+        quantity -= reduction - hiddenReduction;
+    }
+
+    /**
+     * Shows a new peak of an iceberg order whose peak has been consumed, and moves the order to the back of
+     * the level: the new peak has new time priority.
+     */
+    void replenish(LimitOrder order) {
+        remove(order);
+        order.showPeak();
+        add(order);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (LimitOrder order = head; order != null; order = order.next) {
+            if (order != head) {
+                builder.append(", ");
+            }
+            builder.append(order);
+        }
+        return builder.append(']').toString();
+    }
+}
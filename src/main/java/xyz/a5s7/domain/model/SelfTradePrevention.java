@@ -0,0 +1,15 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * What happens when an incoming order would trade with a resting order of the same user,
+ * decided by the mode of the incoming order. No trade is executed in any mode but NONE.
+ * NONE - the orders trade
+ * CANCEL_NEWEST - the rest of the incoming order is cancelled, the resting order stays in the book
+ * CANCEL_OLDEST - the resting order is cancelled, the incoming order goes on matching
+ * CANCEL_BOTH - the resting order and the rest of the incoming order are cancelled
+ * DECREMENT_AND_CANCEL - the quantity both orders would trade is taken off both of them, and the order left
+ *                        without quantity is cancelled, the incoming order goes on matching if it has quantity left
+ */
+public enum SelfTradePrevention {
+    NONE, CANCEL_NEWEST, CANCEL_OLDEST, CANCEL_BOTH, DECREMENT_AND_CANCEL
+}
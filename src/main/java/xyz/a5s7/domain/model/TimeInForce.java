@@ -0,0 +1,10 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * GTC - good till cancelled, the rest of the order rests in the book
+ * IOC - immediate or cancel, the rest of the order is cancelled once it has traded what it could
+ * FOK - fill or kill, the order is cancelled without trading unless its whole quantity can trade right away
+ */
+public enum TimeInForce {
+    GTC, IOC, FOK
+}
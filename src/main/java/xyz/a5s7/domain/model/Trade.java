@@ -1,6 +1,5 @@
 package xyz.a5s7.domain.model;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 
@@ -11,19 +10,19 @@ public final class Trade {
     private final Long id;
     private final Long aggressingId;
     private final Long restingId;
-    private final BigDecimal price;
-    private final BigDecimal quantity;
+    private final long price;
+    private final long quantity;
     private final ZonedDateTime timestamp;
 
     /**
      * @param id           The id of the trade.
      * @param aggressingId The id of the order that initiated the trade.
      * @param restingId    The id of the order that was resting in the order book.
-     * @param price        The price at which the trade occurred.
-     * @param quantity     The quantity of the trade.
+     * @param price        The price at which the trade occurred, in ticks.
+     * @param quantity     The quantity of the trade, in lots.
      * @param timestamp    The timestamp of the trade.
      */
-    public Trade(Long id, Long aggressingId, Long restingId, BigDecimal price, BigDecimal quantity, ZonedDateTime timestamp) {
+    public Trade(Long id, Long aggressingId, Long restingId, long price, long quantity, ZonedDateTime timestamp) {
         this.id = id;
         this.aggressingId = aggressingId;
         this.restingId = restingId;
@@ -32,7 +31,7 @@ public final class Trade {
         this.timestamp = timestamp;
     }
 
-public Trade(Long aggressingId, Long restingId, BigDecimal price, BigDecimal quantity, ZonedDateTime timestamp) {
+public Trade(Long aggressingId, Long restingId, long price, long quantity, ZonedDateTime timestamp) {
         this(null, aggressingId, restingId, price, quantity, timestamp);
     }
 
@@ -48,11 +47,11 @@ public Trade(Long aggressingId, Long restingId, BigDecimal price, BigDecimal qua
         return restingId;
     }
 
-    public BigDecimal price() {
+    public long price() {
         return price;
     }
 
-    public BigDecimal quantity() {
+    public long quantity() {
         return quantity;
     }
 
@@ -68,8 +67,8 @@ public Trade(Long aggressingId, Long restingId, BigDecimal price, BigDecimal qua
         return Objects.equals(this.id, that.id) &&
                 Objects.equals(this.aggressingId, that.aggressingId) &&
                 Objects.equals(this.restingId, that.restingId) &&
-                Objects.equals(this.price, that.price) &&
-                Objects.equals(this.quantity, that.quantity) &&
+                this.price == that.price &&
+                this.quantity == that.quantity &&
                 Objects.equals(this.timestamp, that.timestamp);
     }
 
@@ -1,6 +1,17 @@
 package xyz.a5s7.domain.model;
 
+/**
+ * Receives every fill on the matching thread, so it must be cheap and must not block for long.
+ * Fields are passed as primitives so that reporting a fill allocates nothing.
+ */
 @FunctionalInterface
 public interface TradeListener {
-    void onTrade(Trade trade);
-} 
\ No newline at end of file
+    /**
+     * @param aggressingId the id of the order that initiated the trade, the buy order in an uncross
+     * @param restingId    the id of the order that was resting in the order book
+     * @param price        the price of the trade, in ticks
+     * @param quantity     the quantity of the trade, in lots
+     * @param timestamp    the time of the command that initiated the trade, in milliseconds since the epoch
+     */
+    void onTrade(long aggressingId, long restingId, long price, long quantity, long timestamp);
+}
@@ -0,0 +1,14 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Phase of the trading day an order book is in.
+ * CONTINUOUS - orders are matched as they arrive, the phase of a new book
+ * AUCTION_CALL - orders rest in the book without matching, even when they cross, orders that would not rest
+ *                (market, IOC, FOK) are cancelled
+ * UNCROSS - the book leaves the call or a halt: the crossed orders trade at a single equilibrium price,
+ *           entered and left within the command changing the phase
+ * HALTED - new orders are cancelled and nothing trades, resting orders can still be cancelled and amended
+ */
+public enum TradingPhase {
+    CONTINUOUS, AUCTION_CALL, UNCROSS, HALTED
+}
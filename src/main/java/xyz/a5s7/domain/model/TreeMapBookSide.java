@@ -0,0 +1,53 @@
+package xyz.a5s7.domain.model;
+
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Price levels kept in a red-black tree, the best price first.
+ */
+final class TreeMapBookSide implements BookSide {
+    private final NavigableMap<Long, PriceLevel> levels;
+
+    TreeMapBookSide(Direction direction) {
+        Comparator<Long> bestFirst = direction == Direction.BID ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        this.levels = new TreeMap<>(bestFirst);
+    }
+
+    @Override
+    public PriceLevel best() {
+        var best = levels.firstEntry();
+        return best == null ? null : best.getValue();
+    }
+
+    @Override
+    public PriceLevel levelFor(long price) {
+        return levels.computeIfAbsent(price, k -> new PriceLevel(-1, price));
+    }
+
+    @Override
+    public void remove(PriceLevel level) {
+        levels.remove(level.price());
+    }
+
+    @Override
+    public int levelCount() {
+        return levels.size();
+    }
+
+    @Override
+    public void forEachLevelWhile(Predicate<PriceLevel> visitor) {
+        for (PriceLevel level : levels.values()) {
+            if (!visitor.test(level)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return levels.toString();
+    }
+}
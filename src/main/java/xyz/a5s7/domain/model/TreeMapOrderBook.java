@@ -0,0 +1,20 @@
+package xyz.a5s7.domain.model;
+
+/**
+ * Order book keeping price levels of each side in a {@link java.util.TreeMap}.
+ */
+public class TreeMapOrderBook extends AbstractOrderBook {
+    public TreeMapOrderBook(String ticker, TradeListener tradeListener) {
+        this(ticker, tradeListener, DepthListener.NONE);
+    }
+
+    public TreeMapOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener) {
+        this(ticker, tradeListener, depthListener, OrderListener.NONE);
+    }
+
+    public TreeMapOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener,
+                            OrderListener orderListener) {
+        super(ticker, tradeListener, depthListener, orderListener,
+            new TreeMapBookSide(Direction.BID), new TreeMapBookSide(Direction.ASK));
+    }
+}
@@ -0,0 +1,111 @@
+package xyz.a5s7.domain.model;
+
+import java.util.Queue;
+import java.util.function.Consumer;
+
+import xyz.a5s7.util.LongObjectHashMap;
+
+/**
+ * Stop orders of a book waiting for their trigger, by side and stop price, and by arrival time within a price.
+ * Buy stop orders are kept from the lowest stop price and sell stop orders from the highest, the order
+ * in which moving prices reach them. The lowest buy and the highest sell stop prices are cached, so a trade
+ * that triggers nothing costs two comparisons, and one that does costs a walk over the orders it triggers.
+ */
+final class TriggerIndex {
+    // rising prices trigger buy stop orders, which are therefore ordered like asks, and sell stop orders like bids
+    private final BookSide buyStops = new TreeMapBookSide(Direction.ASK);
+    private final BookSide sellStops = new TreeMapBookSide(Direction.BID);
+    private final LongObjectHashMap<LimitOrder> orders = new LongObjectHashMap<>();
+    private long lowestBuyStop = Long.MAX_VALUE;
+    private long highestSellStop = Long.MIN_VALUE;
+
+    void add(LimitOrder order) {
+        long stopPrice = order.getStopPrice();
+        side(order.getDirection()).levelFor(stopPrice).add(order);
+        orders.put(order.getId(), order);
+        if (order.getDirection() == Direction.BID) {
+            lowestBuyStop = Math.min(lowestBuyStop, stopPrice);
+        } else {
+            highestSellStop = Math.max(highestSellStop, stopPrice);
+        }
+    }
+
+    LimitOrder get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * @return removed order or null if no stop order with this id waits for its trigger
+     */
+    LimitOrder remove(long orderId) {
+        LimitOrder order = orders.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        PriceLevel level = order.level;
+        level.remove(order);
+        if (level.isEmpty()) {
+            side(order.getDirection()).remove(level);
+            updateBounds();
+        }
+        return order;
+    }
+
+    /**
+     * Moves the stop orders triggered by a trade at the price to the end of the queue, buy stop orders first,
+     * each side in the order it is kept in.
+     */
+    void trigger(long price, Queue<LimitOrder> triggered) {
+        if (price >= lowestBuyStop) {
+            PriceLevel level;
+            while ((level = buyStops.best()) != null && level.price() <= price) {
+                release(buyStops, level, triggered);
+            }
+            updateBounds();
+        }
+        if (price <= highestSellStop) {
+            PriceLevel level;
+            while ((level = sellStops.best()) != null && level.price() >= price) {
+                release(sellStops, level, triggered);
+            }
+            updateBounds();
+        }
+    }
+
+    private void release(BookSide side, PriceLevel level, Queue<LimitOrder> triggered) {
+        LimitOrder order;
+        while ((order = level.head()) != null) {
+            level.remove(order);
+            orders.remove(order.getId());
+            order.trigger();
+            triggered.add(order);
+        }
+        side.remove(level);
+    }
+
+    /**
+     * Visits the stop orders of the side in the order they would be triggered.
+     */
+    void forEachOrder(Direction direction, Consumer<LimitOrder> consumer) {
+        side(direction).forEachLevel(level -> {
+            for (LimitOrder order = level.head(); order != null; order = order.next) {
+                consumer.accept(order);
+            }
+        });
+    }
+
+    int size() {
+        return orders.size();
+    }
+
+    private void updateBounds() {
+        PriceLevel lowestBuy = buyStops.best();
+        PriceLevel highestSell = sellStops.best();
+        lowestBuyStop = lowestBuy == null ? Long.MAX_VALUE : lowestBuy.price();
+        highestSellStop = highestSell == null ? Long.MIN_VALUE : highestSell.price();
+    }
+
+    private BookSide side(Direction direction) {
+        return direction == Direction.BID ? buyStops : sellStops;
+    }
+}
@@ -0,0 +1,233 @@
+package xyz.a5s7.domain.repository;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Repository;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.Fill;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.Trade;
+import xyz.a5s7.util.ConcurrentLongObjectHashMap;
+
+/**
+ * Fills of every user on every ticker, in the order their trades were saved, which is the order
+ * they were executed in: the trades of a ticker are all executed by the thread owning its order book.
+ * <p>
+ * The fills of a user on a ticker are kept in chunks of up to {@value #CHUNK_SIZE} fills stored column-wise
+ * in primitive arrays, so the index holds no reference to orders and trades, which can be archived, and
+ * a query finds the first fill of its time range with a binary search over the chunks.
+ * Fills are appended by the trade persistence thread and read without locking.
+ * <p>
+ * The order of execution is not quite the time order: a command is stamped when it is received, before it is
+ * sequenced, and the clock may step back. A fill keeps the time of its trade, the search goes by the latest time
+ * of the fills of the series up to it, which never decreases, and a query stops once that time is later than
+ * its range by more than the most a fill of the series has been late.
+ */
+@Repository
+public class FillIndex {
+    static final int CHUNK_SIZE = 1024;
+    private static final int FIRST_CHUNK_CAPACITY = 8;
+
+    private final ConcurrentLongObjectHashMap<Map<String, FillSeries>> users = new ConcurrentLongObjectHashMap<>();
+
+    /**
+     * Adds a fill of the trade for each of its orders.
+     */
+    public void add(Trade trade, LimitOrder aggressing, LimitOrder resting) {
+        add(trade, aggressing, true);
+        add(trade, resting, false);
+    }
+
+    private void add(Trade trade, LimitOrder order, boolean aggressor) {
+        Map<String, FillSeries> tickers = users.get(order.getUserId());
+        if (tickers == null) {
+            tickers = users.compute(order.getUserId(), current -> current == null ? new ConcurrentHashMap<>() : current);
+        }
+        tickers.computeIfAbsent(order.getTicker(), ticker -> new FillSeries())
+            .append(trade.id(), order.getId(), order.getDirection(), trade.price(), trade.quantity(), aggressor,
+                toMicros(trade.timestamp()));
+    }
+
+    /**
+     * @param from   earliest time of the fills, unbounded if null
+     * @param to     latest time of the fills, unbounded if null
+     * @param cursor position to continue from, as returned with the previous page, or null for the first page
+     * @param limit  maximal number of fills returned
+     */
+    public FillPage find(long userId, String ticker, ZonedDateTime from, ZonedDateTime to, Long cursor, int limit) {
+        Map<String, FillSeries> tickers = users.get(userId);
+        FillSeries series = tickers == null ? null : tickers.get(ticker);
+        if (series == null) {
+            return new FillPage(List.of(), null);
+        }
+        return series.find(ticker, from == null ? Long.MIN_VALUE : toMicros(from),
+            to == null ? Long.MAX_VALUE : toMicros(to), cursor, limit);
+    }
+
+    private static long toMicros(ZonedDateTime timestamp) {
+        if (timestamp == null) {
+            return 0;
+        }
+        return timestamp.toEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static ZonedDateTime fromMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L)
+            .atZone(ZoneId.systemDefault());
+    }
+
+    /**
+     * Fills of one user on one ticker. Every chunk but the last is full; the last one grows until it is.
+     * A reader reads the size before the chunks, so it only reads fills published by the size.
+     */
+    private static final class FillSeries {
+        private volatile Chunk[] chunks = new Chunk[0];
+        private volatile long size;
+        // guarded by this
+        private long maxTimestamp = Long.MIN_VALUE;
+        // most a fill has been earlier than the latest time before it, published by the size
+        private long maxLag;
+
+        synchronized void append(long tradeId, long orderId, Direction direction, long price, long quantity,
+                                 boolean aggressor, long timestamp) {
+            if (timestamp < maxTimestamp) {
+                maxLag = Math.max(maxLag, maxTimestamp - timestamp);
+            } else {
+                maxTimestamp = timestamp;
+            }
+            int index = (int) (size % CHUNK_SIZE);
+            Chunk[] current = chunks;
+            Chunk chunk;
+            if (index == 0) {
+                chunk = new Chunk(FIRST_CHUNK_CAPACITY);
+                current = Arrays.copyOf(current, current.length + 1);
+                current[current.length - 1] = chunk;
+                chunks = current;
+            } else {
+                chunk = current[current.length - 1];
+                if (index == chunk.tradeIds.length) {
+                    chunk = chunk.grow(Math.min(index * 2, CHUNK_SIZE));
+                    current = current.clone();
+                    current[current.length - 1] = chunk;
+                    chunks = current;
+                }
+            }
+            chunk.tradeIds[index] = tradeId;
+            chunk.orderIds[index] = orderId;
+            chunk.prices[index] = price;
+            chunk.quantities[index] = quantity;
+            chunk.timestamps[index] = timestamp;
+            chunk.maxTimestamps[index] = maxTimestamp;
+            chunk.flags[index] = (byte) ((direction == Direction.ASK ? 1 : 0) | (aggressor ? 2 : 0));
+            size = size + 1;
+        }
+
+        FillPage find(String ticker, long from, long to, Long cursor, int limit) {
+            long count = size;
+            Chunk[] current = chunks;
+            // no fill is later than a fill whose latest time before it is past the bound
+            long bound = to > Long.MAX_VALUE - maxLag ? Long.MAX_VALUE : to + maxLag;
+            long position = cursor != null ? Math.max(cursor, 0) : firstAtOrAfter(current, count, from);
+            List<Fill> fills = new ArrayList<>(Math.min(limit, 64));
+            while (position < count && fills.size() < limit) {
+                Chunk chunk = current[(int) (position / CHUNK_SIZE)];
+                int index = (int) (position % CHUNK_SIZE);
+                if (chunk.maxTimestamps[index] > bound) {
+                    return new FillPage(fills, null);
+                }
+                position++;
+                long timestamp = chunk.timestamps[index];
+                if (timestamp < from || timestamp > to) {
+                    continue;
+                }
+                byte flags = chunk.flags[index];
+                fills.add(new Fill(chunk.tradeIds[index], chunk.orderIds[index], ticker,
+                    (flags & 1) != 0 ? Direction.ASK : Direction.BID, chunk.prices[index], chunk.quantities[index],
+                    (flags & 2) != 0, fromMicros(timestamp)));
+            }
+            boolean more = position < count
+                && current[(int) (position / CHUNK_SIZE)].maxTimestamps[(int) (position % CHUNK_SIZE)] <= bound;
+            return new FillPage(fills, more ? position : null);
+        }
+
+        /**
+         * @return position of the first fill whose latest time up to it is not earlier than the time,
+         *         no fill before it is, or the count if there is none
+         */
+        private static long firstAtOrAfter(Chunk[] chunks, long count, long timestamp) {
+            int chunkCount = (int) ((count + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            // the last chunk whose first fill is earlier than the time holds the boundary, if any does
+            int low = 0;
+            int high = chunkCount - 1;
+            int chunk = -1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (chunks[middle].maxTimestamps[0] < timestamp) {
+                    chunk = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (chunk < 0) {
+                return 0;
+            }
+            long chunkStart = (long) chunk * CHUNK_SIZE;
+            int filled = (int) Math.min(count - chunkStart, CHUNK_SIZE);
+            low = 0;
+            high = filled;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (chunks[chunk].maxTimestamps[middle] < timestamp) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return chunkStart + low;
+        }
+    }
+
+    private static final class Chunk {
+        final long[] tradeIds;
+        final long[] orderIds;
+        final long[] prices;
+        final long[] quantities;
+        final long[] timestamps;
+        // latest time of the fills of the series up to each one, searched by
+        final long[] maxTimestamps;
+        // bit 0 - direction is ASK, bit 1 - aggressor
+        final byte[] flags;
+
+        Chunk(int capacity) {
+            this(new long[capacity], new long[capacity], new long[capacity], new long[capacity], new long[capacity],
+                new long[capacity], new byte[capacity]);
+        }
+
+        private Chunk(long[] tradeIds, long[] orderIds, long[] prices, long[] quantities, long[] timestamps,
+                      long[] maxTimestamps, byte[] flags) {
+            this.tradeIds = tradeIds;
+            this.orderIds = orderIds;
+            this.prices = prices;
+            this.quantities = quantities;
+            this.timestamps = timestamps;
+            this.maxTimestamps = maxTimestamps;
+            this.flags = flags;
+        }
+
+        Chunk grow(int capacity) {
+            return new Chunk(Arrays.copyOf(tradeIds, capacity), Arrays.copyOf(orderIds, capacity),
+                Arrays.copyOf(prices, capacity), Arrays.copyOf(quantities, capacity),
+                Arrays.copyOf(timestamps, capacity), Arrays.copyOf(maxTimestamps, capacity),
+                Arrays.copyOf(flags, capacity));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package xyz.a5s7.domain.repository;
+
+import java.util.List;
+
+import xyz.a5s7.domain.model.Fill;
+
+/**
+ * @param fills      fills in the order they were saved
+ * @param nextCursor position the next page starts at, null if there are no more fills in the queried range
+ */
+public record FillPage(List<Fill> fills, Long nextCursor) {
+}
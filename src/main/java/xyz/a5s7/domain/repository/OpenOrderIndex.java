@@ -0,0 +1,65 @@
+package xyz.a5s7.domain.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.springframework.stereotype.Repository;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderListener;
+import xyz.a5s7.util.ConcurrentLongObjectHashMap;
+
+/**
+ * Orders resting in the order books, by user and ticker, maintained by the order books as orders
+ * enter and leave them, so listing the open orders of a user takes time proportional to their number
+ * rather than to the number of orders in memory.
+ * <p>
+ * Orders are added and removed by the threads matching their tickers and listed from request threads
+ * without locking; a listing may or may not include an order entering or leaving its book meanwhile.
+ */
+@Repository
+public class OpenOrderIndex implements OrderListener {
+    private final ConcurrentLongObjectHashMap<Map<String, NavigableMap<Long, LimitOrder>>> users =
+        new ConcurrentLongObjectHashMap<>();
+
+    @Override
+    public void onRested(LimitOrder order) {
+        Map<String, NavigableMap<Long, LimitOrder>> tickers = users.get(order.getUserId());
+        if (tickers == null) {
+            tickers = users.compute(order.getUserId(), current -> current == null ? new ConcurrentHashMap<>() : current);
+        }
+        tickers.computeIfAbsent(order.getTicker(), ticker -> new ConcurrentSkipListMap<>())
+            .put(order.getId(), order);
+    }
+
+    @Override
+    public void onRemoved(LimitOrder order) {
+        Map<String, NavigableMap<Long, LimitOrder>> tickers = users.get(order.getUserId());
+        NavigableMap<Long, LimitOrder> orders = tickers == null ? null : tickers.get(order.getTicker());
+        if (orders != null) {
+            orders.remove(order.getId());
+        }
+    }
+
+    /**
+     * @param ticker ticker of the orders, or null for orders on every ticker
+     * @return open orders of the user, by ticker and then in the order they were placed
+     */
+    public List<LimitOrder> findOpenOrders(long userId, String ticker) {
+        Map<String, NavigableMap<Long, LimitOrder>> tickers = users.get(userId);
+        if (tickers == null) {
+            return List.of();
+        }
+        if (ticker != null) {
+            NavigableMap<Long, LimitOrder> orders = tickers.get(ticker);
+            return orders == null ? List.of() : List.copyOf(orders.values());
+        }
+        List<LimitOrder> orders = new ArrayList<>();
+        tickers.keySet().stream().sorted().forEach(key -> orders.addAll(tickers.get(key).values()));
+        return orders;
+    }
+}
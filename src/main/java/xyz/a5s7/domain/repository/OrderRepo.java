@@ -1,32 +1,95 @@
 package xyz.a5s7.domain.repository;
 
 import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.util.ConcurrentLongObjectHashMap;
 import org.springframework.stereotype.Repository;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
+/**
+ * Orders by id. Orders of different tickers are saved concurrently by the threads matching them
+ * and looked up from request threads, neither takes a lock shared with the other.
+ */
 @Repository
 public class OrderRepo {
-    private final Map<Long, LimitOrder> orders = new HashMap<>();
+    private final ConcurrentLongObjectHashMap<LimitOrder> orders = new ConcurrentLongObjectHashMap<>();
+    // ids are generated as id * idStride + idOffset, a stride of 1 generates consecutive ids
     private final AtomicLong id = new AtomicLong(1);
+    private int idStride = 1;
+    private int idOffset;
 
     public LimitOrder save(final LimitOrder order) {
         LimitOrder orderToSave = order;
         if (order.getId() == null) {
             orderToSave = new LimitOrder(generateId(), order.getUserId(), order.getTicker(), order.getDirection(),
-                    order.getPrice(), order.getQuantity(), order.getTimestamp());
+                    order.getPrice(), order.getQuantity(), order.getTimestamp())
+                .withType(order.getOrderType(), order.getTimeInForce())
+                .withSelfTradePrevention(order.getSelfTradePrevention())
+                .withDisplayQuantity(order.getDisplayQuantity())
+                .withStopPrice(order.getStopPrice());
+        } else {
+            // e.g. orders replayed from the journal, new orders must not reuse their ids
+            id.accumulateAndGet(order.getId() / idStride + 1, Math::max);
         }
         orders.put(orderToSave.getId(), orderToSave);
         return orderToSave;
     }
     private long generateId() {
-        return id.getAndIncrement();
+        return id.getAndIncrement() * idStride + idOffset;
     }
 
-    public Optional<LimitOrder> findById(Long orderId) {
+    /**
+     * Makes the ids generated from now on leave the remainder {@code partition} when divided by
+     * {@code partitions}, so that repositories of different partitions never generate the same id.
+     * Must be called before any order is saved.
+     */
+    public void partitionIds(int partition, int partitions) {
+        if (partition < 0 || partition >= partitions) {
+            throw new IllegalArgumentException("Partition must be between 0 and " + (partitions - 1));
+        }
+        idStride = partitions;
+        idOffset = partition;
+    }
+
+    /**
+     * @return id the next order saved without one will get
+     */
+    public long getNextId() {
+        return id.get() * idStride + idOffset;
+    }
+
+    /**
+     * Makes sure orders saved from now on without an id get one not lower than {@code nextId},
+     * e.g. after restoring a snapshot.
+     */
+    public void advanceNextId(long nextId) {
+        id.accumulateAndGet((nextId + idStride - 1) / idStride, Math::max);
+    }
+
+    public Optional<LimitOrder> findById(long orderId) {
         return Optional.ofNullable(orders.get(orderId));
     }
+
+    /**
+     * Visits the orders without blocking the threads saving them, an order saved meanwhile may not be visited.
+     */
+    public void forEach(Consumer<LimitOrder> action) {
+        orders.forEachValue(action);
+    }
+
+    /**
+     * @return number of orders held, an estimate while orders are saved or removed
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * @return removed order or empty if there was no order with the id
+     */
+    public Optional<LimitOrder> remove(long orderId) {
+        return Optional.ofNullable(orders.remove(orderId));
+    }
 }
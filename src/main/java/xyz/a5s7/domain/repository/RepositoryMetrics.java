@@ -0,0 +1,30 @@
+package xyz.a5s7.domain.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes of the repositories held in memory, read when the meters are published.
+ */
+@Component
+public class RepositoryMetrics implements MeterBinder {
+    private final OrderRepo orderRepo;
+    private final TradeRepo tradeRepo;
+
+    public RepositoryMetrics(OrderRepo orderRepo, TradeRepo tradeRepo) {
+        this.orderRepo = orderRepo;
+        this.tradeRepo = tradeRepo;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("orderbook.repository.orders", orderRepo, OrderRepo::size)
+            .description("Orders held in memory")
+            .register(meterRegistry);
+        Gauge.builder("orderbook.repository.trades", tradeRepo, TradeRepo::orderCount)
+            .description("Orders whose trades are held in memory")
+            .register(meterRegistry);
+    }
+}
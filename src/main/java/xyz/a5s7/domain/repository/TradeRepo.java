@@ -1,19 +1,22 @@
 package xyz.a5s7.domain.repository;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.stereotype.Repository;
 
 import xyz.a5s7.domain.model.Trade;
+import xyz.a5s7.util.ConcurrentLongObjectHashMap;
 
+/**
+ * Trades by the ids of both of their orders. Trades are appended by the trade persistence thread
+ * and read from request threads without locking.
+ */
 @Repository
 public class TradeRepo {
-    private final Map<Long, List<Trade>> trades = new ConcurrentHashMap<>();
+    private final ConcurrentLongObjectHashMap<OrderTrades> trades = new ConcurrentLongObjectHashMap<>();
     private final AtomicLong id = new AtomicLong(1);
 
     public Trade save(final Trade trade) {
@@ -21,16 +24,80 @@ public class TradeRepo {
         if (trade.id() == null) {
             tradeToSave = new Trade(generateId(), trade.aggressingId(), trade.restingId(), trade.price(), trade.quantity(), trade.timestamp());
         }
-        trades.computeIfAbsent(tradeToSave.restingId(), it -> new ArrayList<>()).add(tradeToSave);
-        trades.computeIfAbsent(tradeToSave.aggressingId(), it -> new ArrayList<>()).add(tradeToSave);
+        append(tradeToSave.restingId(), tradeToSave);
+        append(tradeToSave.aggressingId(), tradeToSave);
         return tradeToSave;
     }
 
+    private void append(long orderId, Trade trade) {
+        trades.compute(orderId, orderTrades -> {
+            OrderTrades appended = orderTrades == null ? new OrderTrades() : orderTrades;
+            appended.add(trade);
+            return appended;
+        });
+    }
+
     private long generateId() {
         return id.getAndIncrement();
     }
 
-    public Optional<List<Trade>> findTradesByOrderId(Long orderId) {
-        return Optional.ofNullable(trades.get(orderId));
+    /**
+     * @return id the next trade saved without one will get
+     */
+    public long getNextId() {
+        return id.get();
+    }
+
+    /**
+     * Makes sure trades saved from now on without an id get one not lower than {@code nextId},
+     * e.g. after restoring a snapshot.
+     */
+    public void advanceNextId(long nextId) {
+        id.accumulateAndGet(nextId, Math::max);
+    }
+
+    /**
+     * @return trades of the order saved so far, in the order they were saved
+     */
+    public Optional<List<Trade>> findTradesByOrderId(long orderId) {
+        return Optional.ofNullable(trades.get(orderId)).map(OrderTrades::toList);
+    }
+
+    /**
+     * @return number of orders whose trades are held, an estimate while trades are saved or removed
+     */
+    public int orderCount() {
+        return trades.size();
+    }
+
+    /**
+     * Forgets the trades of the order, they are still found by the id of the other order of each trade.
+     */
+    public void removeTradesByOrderId(long orderId) {
+        trades.remove(orderId);
+    }
+
+    /**
+     * Append-only trades of one order. Appended while the map segment of the order is locked,
+     * read without locking: a reader sees the first {@code size} trades of the array it reads after the size.
+     */
+    private static final class OrderTrades {
+        private volatile Trade[] trades = new Trade[2];
+        private volatile int size;
+
+        void add(Trade trade) {
+            Trade[] array = trades;
+            if (size == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+                trades = array;
+            }
+            array[size] = trade;
+            size = size + 1;
+        }
+
+        List<Trade> toList() {
+            int count = size;
+            return List.of(Arrays.copyOf(trades, count));
+        }
     }
 }
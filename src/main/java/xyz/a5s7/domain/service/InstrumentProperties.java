@@ -0,0 +1,21 @@
+package xyz.a5s7.domain.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param defaults tick and lot size of tickers not listed in {@code tickers}
+ * @param tickers  tick and lot size per ticker, e.g. {@code orderbook.instruments.tickers[BTC].lot-size=0.0001}
+ */
+@ConfigurationProperties("orderbook.instruments")
+public record InstrumentProperties(@DefaultValue Spec defaults, Map<String, Spec> tickers) {
+    public InstrumentProperties {
+        tickers = tickers == null ? Map.of() : Map.copyOf(tickers);
+    }
+
+    public record Spec(@DefaultValue("0.01") BigDecimal tickSize, @DefaultValue("0.01") BigDecimal lotSize) {
+    }
+}
@@ -0,0 +1,37 @@
+package xyz.a5s7.domain.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import xyz.a5s7.domain.model.Instrument;
+
+/**
+ * Resolves the {@link Instrument} of a ticker from configuration.
+ */
+@Service
+public class InstrumentRegistry {
+    private final Map<String, Instrument> instruments = new ConcurrentHashMap<>();
+    private final InstrumentProperties properties;
+
+    public InstrumentRegistry(InstrumentProperties properties) {
+        this.properties = properties;
+    }
+
+    public Instrument getInstrument(String ticker) {
+        return instruments.computeIfAbsent(ticker, this::createInstrument);
+    }
+
+    /**
+     * @return whether the ticker is listed in the configuration, rather than resolved to the defaults
+     */
+    public boolean isListed(String ticker) {
+        return properties.tickers().containsKey(ticker);
+    }
+
+    private Instrument createInstrument(String ticker) {
+        InstrumentProperties.Spec spec = properties.tickers().getOrDefault(ticker, properties.defaults());
+        return new Instrument(ticker, spec.tickSize(), spec.lotSize());
+    }
+}
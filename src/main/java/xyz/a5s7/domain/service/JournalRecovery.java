@@ -0,0 +1,174 @@
+package xyz.a5s7.domain.service;
+
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.engine.SequencedMatchingEngine;
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.journal.JournalHandler;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.TradingPhase;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.snapshot.BookSnapshot;
+import xyz.a5s7.domain.snapshot.Snapshot;
+import xyz.a5s7.domain.snapshot.SnapshotStore;
+
+/**
+ * Rebuilds the order books on startup by restoring the latest snapshot, if any, and replaying the journal
+ * written after it through the matching engine, before the web server starts accepting requests.
+ * Trades of the replayed commands are saved again, but users are not notified about them again.
+ * Orders that were no longer resting when the snapshot was taken, and their trades, are not restored.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.journal.enabled", havingValue = "true")
+public class JournalRecovery implements SmartLifecycle, JournalHandler {
+    /**
+     * Started after the matching engine and before the web server accepts requests.
+     */
+    public static final int PHASE = SequencedMatchingEngine.PHASE + 1;
+
+    private final Logger log = LoggerFactory.getLogger(JournalRecovery.class);
+
+    private final Journal journal;
+    private final MatchingEngine matchingEngine;
+    private final OrderRepo orderRepo;
+    private final TradeRepo tradeRepo;
+    private final ExecutionEventRing executionEventRing;
+    private final Optional<SnapshotStore> snapshotStore;
+    // journal sequence of the snapshot of each restored book, its records up to it are skipped
+    private final Map<String, Long> bookSequences = new HashMap<>();
+    private volatile boolean running;
+    private long replayed;
+    private long failed;
+
+    public JournalRecovery(Journal journal, MatchingEngine matchingEngine, OrderRepo orderRepo, TradeRepo tradeRepo,
+                           ExecutionEventRing executionEventRing, Optional<SnapshotStore> snapshotStore) {
+        this.journal = journal;
+        this.matchingEngine = matchingEngine;
+        this.orderRepo = orderRepo;
+        this.tradeRepo = tradeRepo;
+        this.executionEventRing = executionEventRing;
+        this.snapshotStore = snapshotStore;
+    }
+
+    @Override
+    public void start() {
+        long started = System.nanoTime();
+        long afterSequence = snapshotStore.flatMap(SnapshotStore::readLatest)
+            .map(this::restore)
+            .orElse(0L);
+        executionEventRing.setReplaying(true);
+        long lastSequence;
+        try {
+            lastSequence = journal.replay(afterSequence, this);
+        } finally {
+            executionEventRing.setReplaying(false);
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        log.info("Replayed {} journal records from #{} up to #{} in {} ms, {} failed",
+            replayed, afterSequence + 1, lastSequence, millis, failed);
+        running = true;
+    }
+
+    /**
+     * @return sequence of the journal record the replay continues after
+     */
+    private long restore(Snapshot snapshot) {
+        long orders = 0;
+        for (BookSnapshot book : snapshot.books()) {
+            matchingEngine.withOrderBook(book.ticker(), orderBook -> {
+                book.restore(orderBook, orderRepo::save);
+                return null;
+            });
+            bookSequences.put(book.ticker(), book.journalSequence());
+            orders += book.orders().size();
+        }
+        orderRepo.advanceNextId(snapshot.nextOrderId());
+        tradeRepo.advanceNextId(snapshot.nextTradeId());
+        log.info("Restored {} orders of {} order books from snapshot as of journal record #{}",
+            orders, snapshot.books().size(), snapshot.journalSequence());
+        return snapshot.journalSequence();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    @Override
+    public void onPlace(long sequence, LimitOrder order) {
+        execute(sequence, order.getTicker(), () -> matchingEngine.placeOrder(order));
+    }
+
+    @Override
+    public void onCancel(long sequence, String ticker, long orderId) {
+        execute(sequence, ticker, () -> orderRepo.findById(orderId).ifPresent(matchingEngine::cancelOrder));
+    }
+
+    @Override
+    public void onAmend(long sequence, String ticker, long orderId, long price, long quantity,
+                        ZonedDateTime timestamp) {
+        execute(sequence, ticker, () -> orderRepo.findById(orderId)
+            .ifPresent(order -> matchingEngine.amendOrder(order, price, quantity, timestamp)));
+    }
+
+    @Override
+    public void onRestore(long sequence, LimitOrder order) {
+        execute(sequence, order.getTicker(), () -> matchingEngine.withOrderBook(order.getTicker(), orderBook -> {
+            orderBook.addOrder(orderRepo.save(order));
+            return null;
+        }));
+    }
+
+    @Override
+    public void onRemove(long sequence, String ticker, long orderId) {
+        execute(sequence, ticker, () -> matchingEngine.withOrderBook(ticker, orderBook -> {
+            if (orderBook.cancelOrder(orderId) != null) {
+                orderRepo.remove(orderId);
+            }
+            return null;
+        }));
+    }
+
+    @Override
+    public void onPhase(long sequence, String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+        execute(sequence, ticker, () -> matchingEngine.withOrderBook(ticker, orderBook -> {
+            orderBook.changePhase(phase, timestamp);
+            return null;
+        }));
+    }
+
+    private void execute(long sequence, String ticker, Runnable command) {
+        if (sequence <= bookSequences.getOrDefault(ticker, 0L)) {
+            return;
+        }
+        try {
+            command.run();
+            replayed++;
+        } catch (RuntimeException e) {
+            failed++;
+            log.warn("Cannot replay journal record #{}", sequence, e);
+        }
+    }
+}
@@ -1,32 +1,34 @@
 package xyz.a5s7.domain.service;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import xyz.a5s7.domain.engine.ExecutionEvent;
+import xyz.a5s7.domain.engine.ExecutionEventHandler;
+import xyz.a5s7.domain.model.Instrument;
 import xyz.a5s7.domain.model.LimitOrder;
 import xyz.a5s7.domain.model.Trade;
-import xyz.a5s7.domain.model.TradeListener;
 import xyz.a5s7.domain.repository.OrderRepo;
 
 /**
  * Sending notifications and saving trades to DB should go in one transaction.
- * It should be @Async method calling transactional method with:
+ * It should be an execution event handler calling transactional method with:
  * - saving to DB
  * - sending notification to queue
  */
 @Service
-public class NotificationService implements TradeListener {
+public class NotificationService implements ExecutionEventHandler {
     private final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
     private final OrderRepo orderRepo;
+    private final InstrumentRegistry instrumentRegistry;
 
-    public NotificationService(OrderRepo orderRepo) {
+    public NotificationService(OrderRepo orderRepo, InstrumentRegistry instrumentRegistry) {
         this.orderRepo = orderRepo;
+        this.instrumentRegistry = instrumentRegistry;
     }
 
     public void notifyAbout(Trade trade) {
@@ -40,25 +42,31 @@ public class NotificationService implements TradeListener {
     }
 
     private void notifyUserAboutTrade(LimitOrder order, Trade trade) {
-        boolean isFullyFilled = order.getPendingQuantity().compareTo(BigDecimal.ZERO) == 0;
+        boolean isFullyFilled = order.getPendingQuantity() == 0;
         Long userId = order.getUserId();
+        Instrument instrument = instrumentRegistry.getInstrument(order.getTicker());
         if (isFullyFilled) {
-            log.info("MSG to user#{}: Order#{} {} {} {}@{} is fully filled",
+            log.debug("MSG to user#{}: Order#{} {} {} {}@{} is fully filled",
                 userId, 
-                order.getId(), order.getDirection(), order.getTicker(), order.getQuantity(), order.getPrice()
+                order.getId(), order.getDirection(), order.getTicker(),
+                instrument.toQuantity(order.getQuantity()), instrument.toPrice(order.getPrice())
             );
         } else {
-            log.info("MSG to user#{}: Order#{} {} {} {}@{} is partially filled: {}@{}",
+            log.debug("MSG to user#{}: Order#{} {} {} {}@{} is partially filled: {}@{}",
                 userId, 
-                order.getId(), order.getDirection(), order.getTicker(), order.getQuantity(), order.getPrice(),
-                trade.quantity(), trade.price()
+                order.getId(), order.getDirection(), order.getTicker(),
+                instrument.toQuantity(order.getQuantity()), instrument.toPrice(order.getPrice()),
+                instrument.toQuantity(trade.quantity()), instrument.toPrice(trade.price())
             );
         }
     }
 
     @Override
-    @Async
-    public void onTrade(Trade trade) {
-        notifyAbout(trade);
+    public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch) {
+        // users have been notified about replayed trades before the restart,
+        // and notifications are only logged for now, see the audit log for a record of every fill
+        if (!event.replayed() && log.isDebugEnabled()) {
+            notifyAbout(event.toTrade());
+        }
     }
 }
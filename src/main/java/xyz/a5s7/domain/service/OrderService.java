@@ -1,42 +1,92 @@
 package xyz.a5s7.domain.service;
 
+import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.stereotype.Service;
 
+import xyz.a5s7.domain.archive.ArchiveStore;
+import xyz.a5s7.domain.archive.ArchivedOrder;
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.engine.PlaceResult;
 import xyz.a5s7.domain.model.LimitOrder;
-import xyz.a5s7.domain.model.OrderBook;
-import xyz.a5s7.domain.model.TradeListener;
+import xyz.a5s7.domain.repository.OpenOrderIndex;
 import xyz.a5s7.domain.repository.OrderRepo;
 
 @Service
 public class OrderService {
-    private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
     private final OrderRepo orderRepo;
-    private final List<TradeListener> onTradeListeners;
+    private final OpenOrderIndex openOrderIndex;
+    private final MatchingEngine matchingEngine;
+    private final Optional<ArchiveStore> archiveStore;
 
-    public OrderService(OrderRepo orderRepo, List<TradeListener> onTradeListeners) {
+    public OrderService(OrderRepo orderRepo, OpenOrderIndex openOrderIndex, MatchingEngine matchingEngine,
+                        Optional<ArchiveStore> archiveStore) {
         this.orderRepo = orderRepo;
-        this.onTradeListeners = onTradeListeners;
+        this.openOrderIndex = openOrderIndex;
+        this.matchingEngine = matchingEngine;
+        this.archiveStore = archiveStore;
     }
 
     public LimitOrder placeOrder(LimitOrder request) {
-        LimitOrder order;
-        OrderBook orderBook = orderBooks.computeIfAbsent(
-            request.getTicker(), 
-            ticker -> new OrderBook(ticker, onTradeListeners)
-        );
-        synchronized (orderBook) {
-            order = orderRepo.save(request);
-            orderBook.addOrder(order);
-        }
-        return order;
+        return matchingEngine.placeOrder(request);
     }
 
+    /**
+     * @return future of the placed order, completed exceptionally if the order is invalid
+     * @see MatchingEngine#placeOrderAsync(LimitOrder)
+     */
+    public CompletableFuture<LimitOrder> placeOrderAsync(LimitOrder request) {
+        return matchingEngine.placeOrderAsync(request);
+    }
+
+    /**
+     * @return results in the order of the requests
+     * @see MatchingEngine#placeOrders(List)
+     */
+    public List<PlaceResult> placeOrders(List<LimitOrder> requests) {
+        return matchingEngine.placeOrders(requests);
+    }
+
+    /**
+     * @return cancelled order or empty if the order is no longer open
+     */
+    public Optional<LimitOrder> cancelOrder(LimitOrder order) {
+        return matchingEngine.cancelOrder(order);
+    }
+
+    /**
+     * Cancels all open orders of the user on the ticker at once.
+     *
+     * @return cancelled orders
+     */
+    public List<LimitOrder> cancelOrders(String ticker, Long userId) {
+        return matchingEngine.cancelOrders(ticker, userId);
+    }
+
+    /**
+     * @return amended order or empty if the order is no longer open
+     */
+    public Optional<LimitOrder> amendOrder(LimitOrder order, long price, long quantity, ZonedDateTime timestamp) {
+        return matchingEngine.amendOrder(order, price, quantity, timestamp);
+    }
+
+    /**
+     * @return order in memory or, once it has been closed for long enough to be archived, read from the archive
+     */
     public Optional<LimitOrder> findOrder(Long orderId) {
-        return orderRepo.findById(orderId);
+        return orderRepo.findById(orderId)
+            .or(() -> archiveStore.flatMap(store -> store.find(orderId)).map(ArchivedOrder::order));
+    }
+
+    /**
+     * @param ticker ticker of the orders, or null for orders on every ticker
+     * @return orders of the user resting in the order books
+     * @see OpenOrderIndex#findOpenOrders(long, String)
+     */
+    public List<LimitOrder> findOpenOrders(long userId, String ticker) {
+        return openOrderIndex.findOpenOrders(userId, ticker);
     }
 }
@@ -1,38 +1,74 @@
 package xyz.a5s7.domain.service;
 
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import xyz.a5s7.domain.archive.ArchiveStore;
+import xyz.a5s7.domain.archive.ArchivedOrder;
+import xyz.a5s7.domain.engine.ExecutionEvent;
+import xyz.a5s7.domain.engine.ExecutionEventHandler;
+import xyz.a5s7.domain.model.LimitOrder;
 import xyz.a5s7.domain.model.Trade;
-import xyz.a5s7.domain.model.TradeListener;
+import xyz.a5s7.domain.repository.FillIndex;
+import xyz.a5s7.domain.repository.FillPage;
+import xyz.a5s7.domain.repository.OrderRepo;
 import xyz.a5s7.domain.repository.TradeRepo;
 
 @Service
-public class TradeService implements TradeListener {
+public class TradeService implements ExecutionEventHandler {
     private final Logger log = LoggerFactory.getLogger(TradeService.class);
     private final TradeRepo tradeRepo;
+    private final FillIndex fillIndex;
+    private final OrderRepo orderRepo;
+    private final Optional<ArchiveStore> archiveStore;
 
-    public TradeService(TradeRepo tradeRepo) {
+    public TradeService(TradeRepo tradeRepo, FillIndex fillIndex, OrderRepo orderRepo,
+                        Optional<ArchiveStore> archiveStore) {
         this.tradeRepo = tradeRepo;
+        this.fillIndex = fillIndex;
+        this.orderRepo = orderRepo;
+        this.archiveStore = archiveStore;
     }
 
+    /**
+     * Saves the trade and indexes it by the users and the ticker of its orders.
+     */
     public Trade save(Trade trade) {
-        return tradeRepo.save(trade);
+        Trade saved = tradeRepo.save(trade);
+        LimitOrder aggressing = orderRepo.findById(saved.aggressingId()).orElse(null);
+        LimitOrder resting = orderRepo.findById(saved.restingId()).orElse(null);
+        if (aggressing != null && resting != null) {
+            fillIndex.add(saved, aggressing, resting);
+        }
+        return saved;
     }
 
+    /**
+     * @return trades of the order, read from the archive once the order has been archived
+     */
     public List<Trade> findTrades(Long orderId) {
         return tradeRepo.findTradesByOrderId(orderId)
+                .or(() -> archiveStore.flatMap(store -> store.find(orderId)).map(ArchivedOrder::trades))
                 .orElseGet(List::of);
     }
 
+    /**
+     * @return fills of the user on the ticker executed in the time range
+     * @see FillIndex#find(long, String, ZonedDateTime, ZonedDateTime, Long, int)
+     */
+    public FillPage findFills(long userId, String ticker, ZonedDateTime from, ZonedDateTime to, Long cursor,
+                              int limit) {
+        return fillIndex.find(userId, ticker, from, to, cursor, limit);
+    }
+
     @Override
-    @Async
-    public void onTrade(Trade trade) {
-        var persistedTrade = save(trade);
-        log.info("Trade saved: {}", persistedTrade);
+    public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch) {
+        var persistedTrade = save(event.toTrade());
+        log.debug("Trade saved: {}", persistedTrade);
     }
 }
@@ -0,0 +1,47 @@
+package xyz.a5s7.domain.service;
+
+import java.time.ZonedDateTime;
+
+import org.springframework.stereotype.Service;
+
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Moves the order books through the phases of the trading day, e.g. from the opening call to continuous trading.
+ */
+@Service
+public class TradingPhaseService {
+    private final MatchingEngine matchingEngine;
+    private final Journal journal;
+
+    public TradingPhaseService(MatchingEngine matchingEngine, Journal journal) {
+        this.matchingEngine = matchingEngine;
+        this.journal = journal;
+    }
+
+    /**
+     * @return phase of the order book of the ticker, CONTINUOUS, the phase of a new book, if there is no book yet
+     */
+    public TradingPhase getPhase(String ticker) {
+        return matchingEngine.withExistingOrderBook(ticker, OrderBook::getPhase).orElse(TradingPhase.CONTINUOUS);
+    }
+
+    /**
+     * Changes the phase of the order book of the ticker, returning once the change is journaled.
+     * The trades of the uncross, when the book returns to continuous trading, are executed by the change.
+     *
+     * @throws IllegalArgumentException if the phase is UNCROSS
+     * @see OrderBook#changePhase(TradingPhase, ZonedDateTime)
+     */
+    public void changePhase(String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+        long journalSequence = matchingEngine.withOrderBook(ticker, orderBook -> {
+            TradingPhase previous = orderBook.getPhase();
+            orderBook.changePhase(phase, timestamp);
+            return previous == phase ? 0L : journal.appendPhase(ticker, phase, timestamp);
+        });
+        journal.awaitDurable(journalSequence);
+    }
+}
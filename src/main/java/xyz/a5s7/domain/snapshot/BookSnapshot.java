@@ -0,0 +1,53 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Resting orders of an order book, bids then asks, each side from the best price to the worst
+ * and by arrival time within a price, followed by the stop orders of the side waiting for their trigger
+ * in the order they would be triggered, so adding them back in this order restores their priority.
+ *
+ * @param journalSequence sequence of the last journal record when the copy was made,
+ *                        later records of the ticker are not reflected in the copy
+ * @param phase           trading phase of the book, CONTINUOUS if null, e.g. sent by a node that did not know it
+ */
+public record BookSnapshot(String ticker, long journalSequence, List<RestingOrder> orders, TradingPhase phase) {
+    public BookSnapshot {
+        if (phase == null) {
+            phase = TradingPhase.CONTINUOUS;
+        }
+    }
+
+    /**
+     * Copies the book, must be called by the thread owning it.
+     */
+    public static BookSnapshot of(OrderBook orderBook, long journalSequence) {
+        List<RestingOrder> orders = new ArrayList<>();
+        orderBook.forEachOrder(Direction.BID, order -> orders.add(RestingOrder.of(order)));
+        orderBook.forEachOrder(Direction.ASK, order -> orders.add(RestingOrder.of(order)));
+        return new BookSnapshot(orderBook.getTicker(), journalSequence, orders, orderBook.getPhase());
+    }
+
+    /**
+     * Adds the orders back to an empty book and puts it in the phase of the copy. A book copied outside
+     * continuous trading may be crossed, its orders are added during the call so that they rest without trading.
+     *
+     * @param save applied to each order before it is added, e.g. to assign it to the order repository
+     */
+    public void restore(OrderBook orderBook, UnaryOperator<LimitOrder> save) {
+        if (phase != TradingPhase.CONTINUOUS) {
+            orderBook.changePhase(TradingPhase.AUCTION_CALL, null);
+        }
+        for (RestingOrder order : orders) {
+            orderBook.addOrder(save.apply(order.toLimitOrder(ticker)));
+        }
+        orderBook.changePhase(phase, null);
+    }
+}
@@ -0,0 +1,53 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+
+/**
+ * Copy of an order resting in an order book.
+ *
+ * @param selfTradePrevention NONE if null, e.g. sent by a node that did not know it
+ * @param orderType           LIMIT if null, orders rest only as GTC limit or post-only orders
+ * @param displayQuantity     peak of an iceberg order, 0 for other orders
+ * @param hiddenQuantity      part of the pending quantity of an iceberg order not shown in the book
+ * @param stopPrice           of a stop order waiting for its trigger, 0 for other orders
+ */
+public record RestingOrder(long id, Long userId, Direction direction, long price, long quantity,
+                           long pendingQuantity, ZonedDateTime timestamp, SelfTradePrevention selfTradePrevention,
+                           OrderType orderType, long displayQuantity, long hiddenQuantity,
+                           long stopPrice) {
+    public RestingOrder {
+        if (selfTradePrevention == null) {
+            selfTradePrevention = SelfTradePrevention.NONE;
+        }
+        if (orderType == null) {
+            orderType = OrderType.LIMIT;
+        }
+    }
+
+    static RestingOrder of(LimitOrder order) {
+        return new RestingOrder(order.getId(), order.getUserId(), order.getDirection(), order.getPrice(),
+            order.getQuantity(), order.getPendingQuantity(), order.getTimestamp(), order.getSelfTradePrevention(),
+            order.getOrderType(), order.getDisplayQuantity(), order.getHiddenQuantity(),
+            order.getPendingStopPrice());
+    }
+
+    /**
+     * @return new order in the same state as the copied one
+     */
+    public LimitOrder toLimitOrder(String ticker) {
+        var order = new LimitOrder(id, userId, ticker, direction, price, quantity, timestamp)
+            .withType(orderType, TimeInForce.GTC)
+            .withSelfTradePrevention(selfTradePrevention)
+            .withDisplayQuantity(displayQuantity)
+            .withHiddenQuantity(hiddenQuantity)
+            .withStopPrice(stopPrice);
+        order.reducePendingQuantity(quantity - pendingQuantity);
+        return order;
+    }
+}
@@ -0,0 +1,18 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.util.List;
+
+/**
+ * State of all order books, restored on startup before replaying the rest of the journal.
+ * <p>
+ * The books are copied one at a time while matching goes on, so each one is as of its own
+ * {@link BookSnapshot#journalSequence()}. The journal is replayed from the sequence of the snapshot,
+ * which precedes all of them, skipping the records of a ticker already reflected in its book.
+ *
+ * @param journalSequence sequence of the last journal record before the first book was copied,
+ *                        records of tickers without a book follow it
+ * @param nextOrderId     id counter of the orders
+ * @param nextTradeId     id counter of the trades
+ */
+public record Snapshot(long journalSequence, long nextOrderId, long nextTradeId, List<BookSnapshot> books) {
+}
@@ -0,0 +1,21 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param enabled   whether snapshots of the order books are taken and restored on startup,
+ *                  requires the journal to be enabled
+ * @param directory directory of the snapshot files
+ * @param interval  how often a snapshot is taken, if anything was journaled since the previous one
+ * @param retained  number of snapshot files kept, older ones are deleted
+ */
+@ConfigurationProperties("orderbook.snapshot")
+public record SnapshotProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("snapshots") String directory,
+        @DefaultValue("5m") Duration interval,
+        @DefaultValue("3") int retained) {
+}
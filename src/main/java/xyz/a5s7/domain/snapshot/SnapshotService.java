@@ -0,0 +1,139 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.service.JournalRecovery;
+
+/**
+ * Periodically snapshots the order books, so that recovery replays only the journal written since.
+ * <p>
+ * Matching is not stopped for a snapshot: each book is copied by the thread owning it between two commands,
+ * and the copies are written to the file on the snapshot thread.
+ * A last snapshot is taken on shutdown, once no more requests are accepted.
+ */
+@Component
+@ConditionalOnProperty(name = {"orderbook.journal.enabled", "orderbook.snapshot.enabled"}, havingValue = "true")
+public class SnapshotService implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final SnapshotStore store;
+    private final MatchingEngine matchingEngine;
+    private final Journal journal;
+    private final OrderRepo orderRepo;
+    private final TradeRepo tradeRepo;
+    private final long intervalMillis;
+    private final Timer duration;
+    private final AtomicLong size = new AtomicLong();
+    // accessed by the snapshot thread, or by the stopping thread once it is terminated
+    private long lastJournalSequence = -1;
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    public SnapshotService(SnapshotProperties properties, SnapshotStore store, MatchingEngine matchingEngine,
+                           Journal journal, OrderRepo orderRepo, TradeRepo tradeRepo, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.matchingEngine = matchingEngine;
+        this.journal = journal;
+        this.orderRepo = orderRepo;
+        this.tradeRepo = tradeRepo;
+        this.intervalMillis = properties.interval().toMillis();
+        this.duration = Timer.builder("orderbook.snapshot.duration")
+            .description("Time to copy the order books and write the snapshot file")
+            .register(meterRegistry);
+        Gauge.builder("orderbook.snapshot.size", size, AtomicLong::get)
+            .description("Size of the last snapshot file")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Takes a snapshot unless nothing was journaled since the previous one.
+     */
+    public void snapshot() {
+        long started = System.nanoTime();
+        long journalSequence = journal.lastSequence();
+        if (journalSequence == lastJournalSequence) {
+            return;
+        }
+        List<BookSnapshot> books = Collections.synchronizedList(new ArrayList<>());
+        matchingEngine.forEachOrderBook(orderBook -> books.add(BookSnapshot.of(orderBook, journal.lastSequence())));
+        books.sort(Comparator.comparing(BookSnapshot::ticker));
+        var snapshot = new Snapshot(journalSequence, orderRepo.getNextId(), tradeRepo.getNextId(), books);
+        // the copies may include commands not acknowledged yet, which must not outlive a crash
+        journal.awaitDurable(books.stream().mapToLong(BookSnapshot::journalSequence).max().orElse(0));
+        size.set(store.write(snapshot));
+        lastJournalSequence = journalSequence;
+        long nanos = System.nanoTime() - started;
+        duration.record(nanos, TimeUnit.NANOSECONDS);
+        log.info("Snapshot of {} order books as of journal record #{} written in {} ms, {} bytes",
+            books.size(), journalSequence, nanos / 1_000_000, size.get());
+    }
+
+    private void snapshotSafely() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Error taking snapshot", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::snapshotSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Snapshot thread did not stop, skipping the last snapshot");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        snapshotSafely();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started once the order books are recovered, stopped while the matching engine still runs.
+     */
+    @Override
+    public int getPhase() {
+        return JournalRecovery.PHASE + 1;
+    }
+}
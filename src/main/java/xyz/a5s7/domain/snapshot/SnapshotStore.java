@@ -0,0 +1,229 @@
+package xyz.a5s7.domain.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * Snapshot files named after the journal sequence of the snapshot.
+ * <p>
+ * A file is big-endian: magic, version, the sequence and id counters, then for each book
+ * its ticker, journal sequence, trading phase and order count followed by the orders as
+ * id, user id, direction, price, quantity, pending quantity, timestamp in microseconds since the epoch
+ * self-trade prevention, order type, display quantity, hidden quantity and stop price.
+ * Files of earlier versions, without the fields added since, are still read.
+ * It ends with the CRC32 of everything before it.
+ * <p>
+ * A file is written under a temporary name, forced to the storage device and renamed,
+ * so a crash while writing never leaves a partial snapshot behind the latest complete one.
+ */
+@Component
+@ConditionalOnProperty(name = {"orderbook.journal.enabled", "orderbook.snapshot.enabled"}, havingValue = "true")
+public class SnapshotStore {
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x4F42534E;
+    private static final int VERSION = 6;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final SelfTradePrevention[] SELF_TRADE_PREVENTIONS = SelfTradePrevention.values();
+    private static final OrderType[] ORDER_TYPES = OrderType.values();
+    private static final TradingPhase[] TRADING_PHASES = TradingPhase.values();
+
+    private final Path directory;
+    private final int retained;
+
+    public SnapshotStore(SnapshotProperties properties) {
+        if (properties.retained() < 1) {
+            throw new IllegalArgumentException("At least one snapshot must be retained");
+        }
+        this.directory = Path.of(properties.directory());
+        this.retained = properties.retained();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create snapshot directory " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Writes the snapshot and deletes the snapshots beyond the retained count.
+     *
+     * @return size of the file in bytes
+     */
+    public long write(Snapshot snapshot) {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.journalSequence(), SUFFIX));
+        Path temporary = directory.resolve(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                var checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32());
+                var out = new DataOutputStream(checked);
+                write(snapshot, out);
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            deleteOld();
+            return Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + path.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * @return the latest snapshot that can be read, older ones are tried when the latest is damaged
+     */
+    public Optional<Snapshot> readLatest() {
+        for (Path path : snapshots().reversed()) {
+            try {
+                return Optional.of(read(path));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot read snapshot {}", path.toAbsolutePath(), e);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static void write(Snapshot snapshot, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(snapshot.journalSequence());
+        out.writeLong(snapshot.nextOrderId());
+        out.writeLong(snapshot.nextTradeId());
+        out.writeInt(snapshot.books().size());
+        for (BookSnapshot book : snapshot.books()) {
+            out.writeUTF(book.ticker());
+            out.writeLong(book.journalSequence());
+            out.writeByte(book.phase().ordinal());
+            out.writeInt(book.orders().size());
+            for (RestingOrder order : book.orders()) {
+                out.writeLong(order.id());
+                out.writeLong(order.userId() == null ? 0 : order.userId());
+                out.writeByte(order.direction().ordinal());
+                out.writeLong(order.price());
+                out.writeLong(order.quantity());
+                out.writeLong(order.pendingQuantity());
+                out.writeLong(toMicros(order.timestamp()));
+                out.writeByte(order.selfTradePrevention().ordinal());
+                out.writeByte(order.orderType().ordinal());
+                out.writeLong(order.displayQuantity());
+                out.writeLong(order.hiddenQuantity());
+                out.writeLong(order.stopPrice());
+            }
+        }
+    }
+
+    private static Snapshot read(Path path) throws IOException {
+        try (var checked = new CheckedInputStream(
+            new BufferedInputStream(Files.newInputStream(path), 1 << 16), new CRC32())) {
+            var in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a snapshot");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            long journalSequence = in.readLong();
+            long nextOrderId = in.readLong();
+            long nextTradeId = in.readLong();
+            int bookCount = in.readInt();
+            List<BookSnapshot> books = new ArrayList<>(bookCount);
+            for (int i = 0; i < bookCount; i++) {
+                String ticker = in.readUTF();
+                long bookSequence = in.readLong();
+                TradingPhase phase = version > 5 ? TRADING_PHASES[in.readByte()] : TradingPhase.CONTINUOUS;
+                int orderCount = in.readInt();
+                List<RestingOrder> orders = new ArrayList<>(orderCount);
+                for (int j = 0; j < orderCount; j++) {
+                    orders.add(new RestingOrder(in.readLong(), in.readLong(), DIRECTIONS[in.readByte()],
+                        in.readLong(), in.readLong(), in.readLong(), fromMicros(in.readLong()),
+                        version > 1 ? SELF_TRADE_PREVENTIONS[in.readByte()] : SelfTradePrevention.NONE,
+                        version > 2 ? ORDER_TYPES[in.readByte()] : OrderType.LIMIT,
+                        version > 3 ? in.readLong() : 0, version > 3 ? in.readLong() : 0,
+                        version > 4 ? in.readLong() : 0));
+                }
+                books.add(new BookSnapshot(ticker, bookSequence, orders, phase));
+            }
+            long checksum = checked.getChecksum().getValue();
+            if (in.readLong() != checksum) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            return new Snapshot(journalSequence, nextOrderId, nextTradeId, books);
+        }
+    }
+
+    private void deleteOld() throws IOException {
+        List<Path> snapshots = snapshots();
+        for (int i = 0; i < snapshots.size() - retained; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    /**
+     * @return snapshot files from the oldest to the latest
+     */
+    private List<Path> snapshots() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> {
+                    String name = path.getFileName().toString();
+                    return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                })
+                .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list snapshots in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private static long toMicros(ZonedDateTime timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        return timestamp.toEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    private static ZonedDateTime fromMicros(long micros) {
+        if (micros == NO_TIMESTAMP) {
+            return null;
+        }
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1_000L)
+            .atZone(ZoneId.systemDefault());
+    }
+}
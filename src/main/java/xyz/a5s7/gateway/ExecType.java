@@ -0,0 +1,34 @@
+package xyz.a5s7.gateway;
+
+/**
+ * What an execution report reports, encoded as {@link #code()}.
+ * NEW - the order has been accepted, it may have been filled right away, see its status
+ * TRADE - the order has been (partially) filled by a trade
+ * CANCELLED - the order has been cancelled
+ * REPLACED - the order has been amended, it may have been filled right away, see its status
+ */
+public enum ExecType {
+    NEW(0), TRADE(1), CANCELLED(2), REPLACED(3);
+
+    private final byte code;
+
+    ExecType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no exec type has the code
+     */
+    public static ExecType of(byte code) {
+        for (ExecType execType : values()) {
+            if (execType.code == code) {
+                return execType;
+            }
+        }
+        throw new IllegalArgumentException("Unknown exec type " + code);
+    }
+}
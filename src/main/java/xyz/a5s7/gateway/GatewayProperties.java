@@ -0,0 +1,18 @@
+package xyz.a5s7.gateway;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param enabled        whether the binary order entry gateway accepts connections
+ * @param port           TCP port of the gateway, 0 for any free port
+ * @param sendBufferSize reports buffered for a session while it is being written to,
+ *                       a session falling further behind is disconnected
+ */
+@ConfigurationProperties("orderbook.gateway")
+public record GatewayProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("9001") int port,
+        @DefaultValue("256KB") DataSize sendBufferSize) {
+}
@@ -0,0 +1,148 @@
+package xyz.a5s7.gateway;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.service.OrderService;
+
+/**
+ * Order entry over TCP with the fixed-layout binary {@link Protocol}, for clients that cannot afford
+ * the JSON and servlet overhead of the REST API. Commands are executed by the same {@link OrderService}.
+ * <p>
+ * Every accepted connection gets a {@link GatewaySession} with a reader and a writer virtual thread
+ * blocking on the socket channel, so a session costs no platform thread and needs no selector loop.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.gateway.enabled", havingValue = "true")
+public class GatewayServer implements SmartLifecycle {
+    /**
+     * Started and stopped together with the web server: after journal recovery and before the matching engine
+     * stops.
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 2048;
+
+    private static final Logger log = LoggerFactory.getLogger(GatewayServer.class);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final GatewayProperties properties;
+    private final OrderService orderService;
+    private final GatewaySessions sessions;
+    private final Set<GatewaySession> openSessions = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel serverChannel;
+    private ExecutorService executor;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public GatewayServer(GatewayProperties properties, OrderService orderService, GatewaySessions sessions) {
+        this.properties = properties;
+        this.orderService = orderService;
+        this.sessions = sessions;
+    }
+
+    /**
+     * @return port the gateway listens on, useful when configured with port 0
+     */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept() {
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                log.warn("Failed to accept gateway connection", e);
+                continue;
+            }
+            var session = new GatewaySession(channel, orderService, sessions,
+                (int) properties.sendBufferSize().toBytes());
+            openSessions.add(session);
+            executor.execute(() -> {
+                try {
+                    session.write();
+                } finally {
+                    openSessions.remove(session);
+                }
+            });
+            executor.execute(session::read);
+        }
+        log.info("{} stopped", acceptor.getName());
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(properties.port()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bind gateway to port " + properties.port(), e);
+        }
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("gateway-session-", 0).factory());
+        acceptor = new Thread(this::accept, "gateway-acceptor");
+        running = true;
+        acceptor.start();
+        log.info("Gateway started on port {}", getPort());
+    }
+
+    /**
+     * Stops accepting connections and reading commands. Commands already read are executed and reported
+     * before the sessions are closed, unless their clients do not read the reports.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverChannel.close();
+            acceptor.join();
+        } catch (IOException e) {
+            log.warn("Failed to close gateway", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        openSessions.forEach(GatewaySession::shutdownInput);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                openSessions.forEach(GatewaySession::close);
+            }
+        } catch (InterruptedException e) {
+            openSessions.forEach(GatewaySession::close);
+            Thread.currentThread().interrupt();
+        }
+        executor.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
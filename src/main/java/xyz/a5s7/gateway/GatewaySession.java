@@ -0,0 +1,364 @@
+package xyz.a5s7.gateway;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.util.LongObjectHashMap;
+
+/**
+ * Connection of one client to the gateway.
+ * <p>
+ * The reader executes the commands of the client one at a time on its own virtual thread, blocked in
+ * {@link SocketChannel#read} while there is nothing to read. Reports are encoded by the reader and by the
+ * execution event thread into a send buffer and written out by the writer virtual thread, with everything
+ * encoded while the previous write was in progress written at once. Neither of them ever waits for the client:
+ * a client not reading its reports until the send buffer is full is disconnected.
+ */
+final class GatewaySession {
+    private static final Logger log = LoggerFactory.getLogger(GatewaySession.class);
+
+    private final SocketChannel channel;
+    private final OrderService orderService;
+    private final GatewaySessions sessions;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+    // tickers decoded by the reader, by their encoding
+    private final LongObjectHashMap<String> tickers = new LongObjectHashMap<>();
+    // guarded by this, reports encoded while the writer writes the other buffer
+    private ByteBuffer pending;
+    private ByteBuffer writing;
+    private boolean closing;
+    private boolean closed;
+    private volatile long userId;
+
+    GatewaySession(SocketChannel channel, OrderService orderService, GatewaySessions sessions, int sendBufferSize) {
+        this.channel = channel;
+        this.orderService = orderService;
+        this.sessions = sessions;
+        this.pending = ByteBuffer.allocateDirect(sendBufferSize);
+        this.writing = ByteBuffer.allocateDirect(sendBufferSize);
+    }
+
+    /**
+     * @return id of the logged on user, 0 before the logon
+     */
+    long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Executes commands until the client closes the connection or the input is shut down.
+     */
+    void read() {
+        try {
+            while (channel.read(in) >= 0) {
+                in.flip();
+                while (in.remaining() >= Protocol.HEADER_LENGTH) {
+                    int start = in.position();
+                    int length = in.getShort(start) & 0xFFFF;
+                    if (length < Protocol.HEADER_LENGTH || length > Protocol.MAX_MESSAGE_LENGTH) {
+                        log.warn("Closing session of user#{}: message length {} is out of range", userId, length);
+                        close();
+                        return;
+                    }
+                    if (in.remaining() < length) {
+                        break;
+                    }
+                    in.position(start + Protocol.HEADER_LENGTH);
+                    handle(in.get(start + 2), length);
+                    in.position(start + length);
+                }
+                in.compact();
+            }
+        } catch (IOException e) {
+            log.debug("Session of user#{} failed to read", userId, e);
+        } catch (RuntimeException e) {
+            log.error("Closing session of user#{}", userId, e);
+            close();
+            return;
+        }
+        closeAfterWriting();
+    }
+
+    private void handle(byte type, int length) {
+        switch (type) {
+            case Protocol.LOGON -> {
+                if (length == Protocol.LOGON_LENGTH) {
+                    logon(in.getLong());
+                    return;
+                }
+            }
+            case Protocol.NEW_ORDER -> {
+                if (length == Protocol.NEW_ORDER_LENGTH) {
+                    newOrder(in.getLong(), in.getLong(), in.get(), in.getLong(), in.getLong(), (byte) 0, (byte) 0,
+                        (byte) 0);
+                    return;
+                }
+                if (length == Protocol.NEW_ORDER_EXTENDED_LENGTH) {
+                    newOrder(in.getLong(), in.getLong(), in.get(), in.getLong(), in.getLong(), in.get(), in.get(),
+                        in.get());
+                    return;
+                }
+            }
+            case Protocol.CANCEL_ORDER -> {
+                if (length == Protocol.CANCEL_ORDER_LENGTH) {
+                    cancelOrder(in.getLong(), in.getLong());
+                    return;
+                }
+            }
+            case Protocol.AMEND_ORDER -> {
+                if (length == Protocol.AMEND_ORDER_LENGTH) {
+                    amendOrder(in.getLong(), in.getLong(), in.getLong(), in.getLong());
+                    return;
+                }
+            }
+            default -> {
+            }
+        }
+        sendReject(0, 0, RejectReason.MALFORMED_MESSAGE);
+    }
+
+    private void logon(long userId) {
+        if (this.userId != 0 || userId <= 0) {
+            sendReject(0, 0, RejectReason.NOT_LOGGED_ON);
+            return;
+        }
+        this.userId = userId;
+        sessions.add(this);
+        synchronized (this) {
+            if (reserve(Protocol.LOGON_ACCEPTED_LENGTH)) {
+                putHeader(Protocol.LOGON_ACCEPTED_LENGTH, Protocol.LOGON_ACCEPTED);
+                pending.putLong(userId);
+            }
+        }
+    }
+
+    private void newOrder(long clientOrderId, long ticker, byte side, long price, long quantity, byte orderType,
+                          byte timeInForce, byte selfTradePrevention) {
+        if (userId == 0) {
+            sendReject(clientOrderId, 0, RejectReason.NOT_LOGGED_ON);
+            return;
+        }
+        LimitOrder order;
+        try {
+            if (price <= 0 || quantity <= 0) {
+                throw new IllegalArgumentException("Price and quantity must be greater than 0");
+            }
+            order = orderService.placeOrder(new LimitOrder(userId, ticker(ticker), Protocol.decodeSide(side),
+                price, quantity, now())
+                .withType(Protocol.decodeOrderType(orderType), Protocol.decodeTimeInForce(timeInForce))
+                .withSelfTradePrevention(Protocol.decodeSelfTradePrevention(selfTradePrevention)));
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejecting order {} of user#{}: {}", clientOrderId, userId, e.getMessage());
+            sendReject(clientOrderId, 0, RejectReason.INVALID_ORDER);
+            return;
+        }
+        sendExecutionReport(clientOrderId, ExecType.NEW, order, 0, 0, Protocol.toEpochMicros(order.getTimestamp()));
+    }
+
+    private void cancelOrder(long clientOrderId, long orderId) {
+        LimitOrder order = findUserOrder(clientOrderId, orderId);
+        if (order == null) {
+            return;
+        }
+        Optional<LimitOrder> cancelled = orderService.cancelOrder(order);
+        if (cancelled.isEmpty()) {
+            sendReject(clientOrderId, orderId, RejectReason.ORDER_NOT_OPEN);
+            return;
+        }
+        sendExecutionReport(clientOrderId, ExecType.CANCELLED, cancelled.get(), 0, 0,
+            Protocol.toEpochMicros(ZonedDateTime.now()));
+    }
+
+    private void amendOrder(long clientOrderId, long orderId, long price, long quantity) {
+        LimitOrder order = findUserOrder(clientOrderId, orderId);
+        if (order == null) {
+            return;
+        }
+        ZonedDateTime timestamp = now();
+        Optional<LimitOrder> amended;
+        try {
+            if (price <= 0 || quantity <= 0) {
+                throw new IllegalArgumentException("Price and quantity must be greater than 0");
+            }
+            amended = orderService.amendOrder(order, price, quantity, timestamp);
+        } catch (IllegalArgumentException e) {
+            log.debug("Rejecting amendment {} of user#{}: {}", clientOrderId, userId, e.getMessage());
+            sendReject(clientOrderId, orderId, RejectReason.INVALID_ORDER);
+            return;
+        }
+        if (amended.isEmpty()) {
+            sendReject(clientOrderId, orderId, RejectReason.ORDER_NOT_OPEN);
+            return;
+        }
+        sendExecutionReport(clientOrderId, ExecType.REPLACED, amended.get(), 0, 0,
+            Protocol.toEpochMicros(timestamp));
+    }
+
+    /**
+     * Time of a command, truncated to the precision of the journal so that the command executes the same
+     * when replayed.
+     */
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * @return order of the logged on user, or null if a reject has been sent instead
+     */
+    private LimitOrder findUserOrder(long clientOrderId, long orderId) {
+        if (userId == 0) {
+            sendReject(clientOrderId, orderId, RejectReason.NOT_LOGGED_ON);
+            return null;
+        }
+        LimitOrder order = orderService.findOrder(orderId).orElse(null);
+        if (order == null) {
+            sendReject(clientOrderId, orderId, RejectReason.UNKNOWN_ORDER);
+            return null;
+        }
+        if (order.getUserId() != userId) {
+            sendReject(clientOrderId, orderId, RejectReason.NOT_ALLOWED);
+            return null;
+        }
+        return order;
+    }
+
+    private String ticker(long encoded) {
+        String ticker = tickers.get(encoded);
+        if (ticker == null) {
+            ticker = Protocol.decodeTicker(encoded);
+            tickers.put(encoded, ticker);
+        }
+        return ticker;
+    }
+
+    /**
+     * @param clientOrderId id of the command the report answers, 0 if it is not an answer
+     * @param timestamp     time of the execution, in microseconds since the epoch
+     */
+    synchronized void sendExecutionReport(long clientOrderId, ExecType execType, LimitOrder order,
+                                          long lastPrice, long lastQuantity, long timestamp) {
+        if (reserve(Protocol.EXECUTION_REPORT_LENGTH)) {
+            putHeader(Protocol.EXECUTION_REPORT_LENGTH, Protocol.EXECUTION_REPORT);
+            pending.putLong(clientOrderId)
+                .putLong(order.getId())
+                .put(execType.code())
+                .put(Protocol.encodeStatus(order.getStatus()))
+                .putLong(Protocol.encodeTicker(order.getTicker()))
+                .put(Protocol.encodeSide(order.getDirection()))
+                .putLong(order.getPrice())
+                .putLong(order.getQuantity())
+                .putLong(order.getPendingQuantity())
+                .putLong(lastPrice)
+                .putLong(lastQuantity)
+                .putLong(timestamp);
+        }
+    }
+
+    private synchronized void sendReject(long clientOrderId, long orderId, RejectReason reason) {
+        if (reserve(Protocol.REJECT_LENGTH)) {
+            putHeader(Protocol.REJECT_LENGTH, Protocol.REJECT);
+            pending.putLong(clientOrderId)
+                .putLong(orderId)
+                .put(reason.code());
+        }
+    }
+
+    /**
+     * @return whether there is room for the message, the session is closed otherwise
+     */
+    private boolean reserve(int length) {
+        if (closed) {
+            return false;
+        }
+        if (pending.remaining() < length) {
+            log.warn("Closing session of user#{}: it does not read its reports", userId);
+            close();
+            return false;
+        }
+        if (pending.position() == 0) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    private void putHeader(int length, byte type) {
+        pending.putShort((short) length).put(type);
+    }
+
+    /**
+     * Writes the encoded reports until the session is closed.
+     */
+    void write() {
+        try {
+            while (true) {
+                synchronized (this) {
+                    while (pending.position() == 0 && !closing && !closed) {
+                        wait();
+                    }
+                    if (closed || pending.position() == 0) {
+                        break;
+                    }
+                    ByteBuffer encoded = pending;
+                    pending = writing;
+                    writing = encoded;
+                }
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                writing.clear();
+            }
+        } catch (IOException e) {
+            log.debug("Session of user#{} failed to write", userId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        close();
+    }
+
+    /**
+     * Stops reading commands, the session is closed once the reports of the commands already read are written.
+     */
+    void shutdownInput() {
+        try {
+            channel.shutdownInput();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    private synchronized void closeAfterWriting() {
+        closing = true;
+        notifyAll();
+    }
+
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        notifyAll();
+        if (userId != 0) {
+            sessions.remove(this);
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Failed to close session of user#{}", userId, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GatewaySession[user#" + userId + ", " + channel + "]";
+    }
+}
@@ -0,0 +1,70 @@
+package xyz.a5s7.gateway;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.engine.ExecutionEvent;
+import xyz.a5s7.domain.engine.ExecutionEventHandler;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+/**
+ * Logged on gateway sessions by user, to which it reports the fills of the orders of the user,
+ * whether they have been placed through the gateway or the REST API.
+ * <p>
+ * A fill of an order reaches the session from the execution event thread, so it may be reported
+ * before the report answering the command that caused it.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.gateway.enabled", havingValue = "true")
+public class GatewaySessions implements ExecutionEventHandler {
+    private final OrderRepo orderRepo;
+    private final Map<Long, Set<GatewaySession>> sessionsByUser = new ConcurrentHashMap<>();
+
+    public GatewaySessions(OrderRepo orderRepo) {
+        this.orderRepo = orderRepo;
+    }
+
+    void add(GatewaySession session) {
+        sessionsByUser.compute(session.getUserId(), (userId, sessions) -> {
+            Set<GatewaySession> added = sessions == null ? ConcurrentHashMap.newKeySet() : sessions;
+            added.add(session);
+            return added;
+        });
+    }
+
+    void remove(GatewaySession session) {
+        sessionsByUser.computeIfPresent(session.getUserId(), (userId, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @Override
+    public void onEvent(ExecutionEvent event, long sequence, boolean endOfBatch) {
+        // replayed fills have been reported before the restart
+        if (event.replayed() || sessionsByUser.isEmpty()) {
+            return;
+        }
+        long timestamp = event.timestamp() * 1_000;
+        reportTrade(event.aggressingId(), event.price(), event.quantity(), timestamp);
+        reportTrade(event.restingId(), event.price(), event.quantity(), timestamp);
+    }
+
+    private void reportTrade(long orderId, long price, long quantity, long timestamp) {
+        LimitOrder order = orderRepo.findById(orderId).orElse(null);
+        if (order == null) {
+            return;
+        }
+        Set<GatewaySession> sessions = sessionsByUser.get(order.getUserId());
+        if (sessions != null) {
+            for (GatewaySession session : sessions) {
+                session.sendExecutionReport(0, ExecType.TRADE, order, price, quantity, timestamp);
+            }
+        }
+    }
+}
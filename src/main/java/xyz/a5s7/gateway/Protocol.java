@@ -0,0 +1,170 @@
+package xyz.a5s7.gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+
+/**
+ * Fixed-layout binary protocol of the order entry gateway.
+ * <p>
+ * Every message starts with a header of its length in bytes, header included ({@code u16}), and its type
+ * ({@code u8}), followed by the fields of the type, big-endian, in this order:
+ * <pre>
+ * client → gateway
+ *   LOGON            'L'  userId:i64
+ *   NEW_ORDER        'N'  clientOrderId:i64 ticker:8 side:u8 price:i64 quantity:i64
+ *                         [orderType:u8 timeInForce:u8 selfTradePrevention:u8]
+ *   CANCEL_ORDER     'C'  clientOrderId:i64 orderId:i64
+ *   AMEND_ORDER      'A'  clientOrderId:i64 orderId:i64 price:i64 quantity:i64
+ * gateway → client
+ *   LOGON_ACCEPTED   'l'  userId:i64
+ *   EXECUTION_REPORT 'E'  clientOrderId:i64 orderId:i64 execType:u8 status:u8 ticker:8 side:u8
+ *                         price:i64 quantity:i64 pendingQuantity:i64 lastPrice:i64 lastQuantity:i64
+ *                         timestamp:i64
+ *   REJECT           'R'  clientOrderId:i64 orderId:i64 reason:u8
+ * </pre>
+ * Prices are in ticks and quantities in lots of the instrument, so no decimal is parsed on the order path.
+ * A ticker is up to 8 ASCII characters, padded with zero bytes. Timestamps are microseconds since the epoch.
+ * {@code clientOrderId} is chosen by the client and echoed in the reports answering its commands.
+ * A NEW_ORDER without the optional fields is a GTC limit order without self-trade prevention; with them, each is
+ * the position of the value in {@link OrderType}, {@link TimeInForce} and {@link SelfTradePrevention}, from 0.
+ */
+public final class Protocol {
+    public static final int HEADER_LENGTH = 3;
+    public static final int MAX_MESSAGE_LENGTH = 128;
+
+    public static final byte LOGON = 'L';
+    public static final byte NEW_ORDER = 'N';
+    public static final byte CANCEL_ORDER = 'C';
+    public static final byte AMEND_ORDER = 'A';
+    public static final byte LOGON_ACCEPTED = 'l';
+    public static final byte EXECUTION_REPORT = 'E';
+    public static final byte REJECT = 'R';
+
+    public static final int LOGON_LENGTH = HEADER_LENGTH + 8;
+    public static final int NEW_ORDER_LENGTH = HEADER_LENGTH + 8 + 8 + 1 + 8 + 8;
+    public static final int NEW_ORDER_EXTENDED_LENGTH = NEW_ORDER_LENGTH + 3;
+    public static final int CANCEL_ORDER_LENGTH = HEADER_LENGTH + 8 + 8;
+    public static final int AMEND_ORDER_LENGTH = HEADER_LENGTH + 8 + 8 + 8 + 8;
+    public static final int LOGON_ACCEPTED_LENGTH = HEADER_LENGTH + 8;
+    public static final int EXECUTION_REPORT_LENGTH = HEADER_LENGTH + 8 + 8 + 1 + 1 + 8 + 1 + 6 * 8;
+    public static final int REJECT_LENGTH = HEADER_LENGTH + 8 + 8 + 1;
+
+    public static final byte SIDE_BID = 0;
+    public static final byte SIDE_ASK = 1;
+
+    public static final byte STATUS_OPEN = 0;
+    public static final byte STATUS_FILLED = 1;
+    public static final byte STATUS_CANCELLED = 2;
+
+    private static final int TICKER_LENGTH = 8;
+
+    private Protocol() {
+    }
+
+    /**
+     * @return ticker packed into the 8 bytes of a long, as it is laid out in a message
+     * @throws IllegalArgumentException if the ticker is empty, longer than 8 characters or not ASCII
+     */
+    public static long encodeTicker(String ticker) {
+        if (ticker.isEmpty() || ticker.length() > TICKER_LENGTH || ticker.indexOf(0) >= 0
+            || !StandardCharsets.US_ASCII.newEncoder().canEncode(ticker)) {
+            throw new IllegalArgumentException("Ticker must be 1 to 8 ASCII characters");
+        }
+        long encoded = 0;
+        for (int i = 0; i < TICKER_LENGTH; i++) {
+            encoded = encoded << 8 | (i < ticker.length() ? ticker.charAt(i) : 0);
+        }
+        return encoded;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no ticker or a zero byte precedes a character
+     */
+    public static String decodeTicker(long encoded) {
+        byte[] bytes = new byte[TICKER_LENGTH];
+        int length = 0;
+        for (int i = 0; i < TICKER_LENGTH; i++) {
+            byte b = (byte) (encoded >>> (TICKER_LENGTH - 1 - i) * 8);
+            if (b != 0) {
+                if (length != i || b < 0) {
+                    throw new IllegalArgumentException("Ticker must be 1 to 8 ASCII characters");
+                }
+                bytes[length++] = b;
+            }
+        }
+        if (length == 0) {
+            throw new IllegalArgumentException("Ticker must be 1 to 8 ASCII characters");
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    public static byte encodeSide(Direction direction) {
+        return direction == Direction.BID ? SIDE_BID : SIDE_ASK;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the code is neither {@link #SIDE_BID} nor {@link #SIDE_ASK}
+     */
+    public static Direction decodeSide(byte side) {
+        return switch (side) {
+            case SIDE_BID -> Direction.BID;
+            case SIDE_ASK -> Direction.ASK;
+            default -> throw new IllegalArgumentException("Unknown side " + side);
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if no order type has the code
+     */
+    public static OrderType decodeOrderType(byte code) {
+        return decode(OrderType.values(), code, "order type");
+    }
+
+    /**
+     * @throws IllegalArgumentException if no time in force has the code
+     */
+    public static TimeInForce decodeTimeInForce(byte code) {
+        return decode(TimeInForce.values(), code, "time in force");
+    }
+
+    /**
+     * @throws IllegalArgumentException if no self-trade prevention has the code
+     */
+    public static SelfTradePrevention decodeSelfTradePrevention(byte code) {
+        return decode(SelfTradePrevention.values(), code, "self-trade prevention");
+    }
+
+    private static <E extends Enum<E>> E decode(E[] values, byte code, String name) {
+        if (code < 0 || code >= values.length) {
+            throw new IllegalArgumentException("Unknown " + name + " " + code);
+        }
+        return values[code];
+    }
+
+    public static byte encodeStatus(OrderStatus status) {
+        return switch (status) {
+            case OPEN -> STATUS_OPEN;
+            case FILLED -> STATUS_FILLED;
+            case CANCELLED -> STATUS_CANCELLED;
+        };
+    }
+
+    public static OrderStatus decodeStatus(byte status) {
+        return switch (status) {
+            case STATUS_OPEN -> OrderStatus.OPEN;
+            case STATUS_FILLED -> OrderStatus.FILLED;
+            case STATUS_CANCELLED -> OrderStatus.CANCELLED;
+            default -> throw new IllegalArgumentException("Unknown status " + status);
+        };
+    }
+
+    public static long toEpochMicros(ZonedDateTime timestamp) {
+        return timestamp.toEpochSecond() * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+}
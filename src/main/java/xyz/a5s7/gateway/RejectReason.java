@@ -0,0 +1,36 @@
+package xyz.a5s7.gateway;
+
+/**
+ * Why a command has been rejected, encoded as {@link #code()}.
+ * NOT_LOGGED_ON - an order command has been sent before the logon, or a second logon has been sent
+ * MALFORMED_MESSAGE - the type of the message is unknown or its length does not match the type
+ * INVALID_ORDER - a field of the command is out of range, e.g. a price that is not greater than 0
+ * UNKNOWN_ORDER - there is no order with the id
+ * NOT_ALLOWED - the order belongs to another user
+ * ORDER_NOT_OPEN - the order is already filled or cancelled
+ */
+public enum RejectReason {
+    NOT_LOGGED_ON(1), MALFORMED_MESSAGE(2), INVALID_ORDER(3), UNKNOWN_ORDER(4), NOT_ALLOWED(5), ORDER_NOT_OPEN(6);
+
+    private final byte code;
+
+    RejectReason(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no reason has the code
+     */
+    public static RejectReason of(byte code) {
+        for (RejectReason reason : values()) {
+            if (reason.code == code) {
+                return reason;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reject reason " + code);
+    }
+}
@@ -0,0 +1,40 @@
+package xyz.a5s7.replication;
+
+import java.io.IOException;
+import java.util.Set;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Rejects the commands sent to a replica until it is promoted, its order books change only by following
+ * the primary. Queries are served, possibly slightly behind the primary.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.replication.role", havingValue = "replica")
+public class ReplicaGuard extends OncePerRequestFilter {
+    private static final Set<String> QUERY_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaNode replicaNode;
+
+    public ReplicaGuard(ReplicaNode replicaNode) {
+        this.replicaNode = replicaNode;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+        throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (replicaNode.isPromoted() || QUERY_METHODS.contains(request.getMethod())
+            || path.startsWith("/replication/") || path.startsWith("/actuator/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Replica accepts commands once promoted");
+    }
+}
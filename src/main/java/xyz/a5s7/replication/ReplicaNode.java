@@ -0,0 +1,218 @@
+package xyz.a5s7.replication;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.cluster.ClusterProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.journal.MappedJournal;
+import xyz.a5s7.domain.service.JournalRecovery;
+import xyz.a5s7.gateway.GatewayProperties;
+
+/**
+ * Follows the journal of the primary: every record received is appended to the journal of this node with
+ * the same sequence, then executed by the matching engine like a recovered one, so the order books, orders
+ * and trades of the replica stay those of the primary and its journal stays a copy of the primary's.
+ * Users are not notified of the fills executed by a replica.
+ * <p>
+ * A record that does not directly follow the last one received is a gap: the replica disconnects and
+ * subscribes again after its last record. Once promoted, the replica stops following the primary and accepts
+ * commands of its own, journaled after the last record received.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.replication.role", havingValue = "replica")
+public class ReplicaNode implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaNode.class);
+    private static final int HEARTBEATS_MISSED = 5;
+
+    private final ReplicationProperties properties;
+    private final MappedJournal journal;
+    private final JournalRecovery journalRecovery;
+    private final ExecutionEventRing executionEventRing;
+    private volatile Socket socket;
+    private volatile boolean connected;
+    private volatile boolean promoted;
+    // last durable sequence announced by the primary
+    private volatile long primarySequence;
+    private Thread follower;
+    private volatile boolean running;
+
+    public ReplicaNode(ReplicationProperties properties, Journal journal, JournalRecovery journalRecovery,
+                       ExecutionEventRing executionEventRing, GatewayProperties gatewayProperties,
+                       ClusterProperties clusterProperties) {
+        if (!(journal instanceof MappedJournal mappedJournal)) {
+            throw new IllegalStateException("Replication follows the journal, "
+                + "enable it with orderbook.journal.enabled=true");
+        }
+        if (gatewayProperties.enabled() || clusterProperties.enabled()) {
+            // orders entered through the gateway or moved in by the cluster would not come from the primary
+            throw new IllegalStateException("Order entry gateway and cluster mode are not supported on a replica");
+        }
+        this.properties = properties;
+        this.journal = mappedJournal;
+        this.journalRecovery = journalRecovery;
+        this.executionEventRing = executionEventRing;
+    }
+
+    /**
+     * Stops following the primary and lets commands through.
+     *
+     * @param force whether to promote even if records announced by the primary have not been received,
+     *              those records are then lost
+     * @return sequence of the last record received from the primary
+     * @throws IllegalStateException if the replica is behind the primary and not forced
+     */
+    public synchronized long promote(boolean force) {
+        if (promoted) {
+            throw new IllegalStateException("Replica is already promoted");
+        }
+        long lag = getLag();
+        if (lag > 0 && !force) {
+            throw new IllegalStateException("Replica is " + lag + " journal records behind the primary");
+        }
+        stopFollowing();
+        executionEventRing.setReplaying(false);
+        promoted = true;
+        long lastSequence = journal.lastSequence();
+        log.warn("Promoted to primary after journal record #{}, {} records of the primary lost", lastSequence,
+            getLag());
+        return lastSequence;
+    }
+
+    public boolean isPromoted() {
+        return promoted;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * @return sequence of the last record received from the primary
+     */
+    public long getLastSequence() {
+        return journal.lastSequence();
+    }
+
+    /**
+     * @return number of records the primary announced and the replica has not received
+     */
+    public long getLag() {
+        return Math.max(0, primarySequence - journal.lastSequence());
+    }
+
+    private void follow() {
+        while (running) {
+            try (var socket = new Socket()) {
+                this.socket = socket;
+                int timeout = (int) properties.heartbeatInterval().multipliedBy(HEARTBEATS_MISSED).toMillis();
+                socket.connect(new InetSocketAddress(properties.primaryHost(), properties.primaryPort()), timeout);
+                // a primary silent for several heartbeats is considered gone
+                socket.setSoTimeout(timeout);
+                socket.setTcpNoDelay(true);
+                var output = new DataOutputStream(socket.getOutputStream());
+                output.writeByte(ReplicationProtocol.SUBSCRIBE);
+                output.writeLong(journal.lastSequence());
+                output.flush();
+                connected = true;
+                log.info("Following primary {}:{} after journal record #{}", properties.primaryHost(),
+                    properties.primaryPort(), journal.lastSequence());
+                receive(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            } catch (IOException | IllegalStateException e) {
+                if (running) {
+                    log.warn("Lost primary {}:{}, reconnecting: {}", properties.primaryHost(),
+                        properties.primaryPort(), e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            if (running) {
+                LockSupport.parkNanos(properties.reconnectInterval().toNanos());
+            }
+        }
+    }
+
+    private void receive(DataInputStream input) throws IOException {
+        var buffer = new byte[256];
+        while (running) {
+            byte type = input.readByte();
+            switch (type) {
+                case ReplicationProtocol.RECORD -> {
+                    int length = input.readInt();
+                    if (length > buffer.length) {
+                        buffer = new byte[Math.max(length, buffer.length * 2)];
+                    }
+                    input.readFully(buffer, 0, length);
+                    ByteBuffer record = ByteBuffer.wrap(buffer, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+                    // fails on a gap, the connection is then subscribed again
+                    long sequence = journal.appendCopy(record);
+                    primarySequence = Math.max(primarySequence, sequence);
+                    journal.apply(record, journalRecovery);
+                }
+                case ReplicationProtocol.HEARTBEAT -> primarySequence = Math.max(primarySequence, input.readLong());
+                default -> throw new IOException("Unknown replication message " + type);
+            }
+        }
+    }
+
+    private void stopFollowing() {
+        running = false;
+        Socket socket = this.socket;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close connection to the primary", e);
+            }
+        }
+        if (follower != null && follower != Thread.currentThread()) {
+            LockSupport.unpark(follower);
+            try {
+                follower.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Follows the primary once the journal of this node is recovered, fills executed from then on are replayed.
+     */
+    @Override
+    public void start() {
+        executionEventRing.setReplaying(true);
+        running = true;
+        follower = new Thread(this::follow, "replication-follower");
+        follower.start();
+    }
+
+    @Override
+    public void stop() {
+        stopFollowing();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return JournalRecovery.PHASE + 1;
+    }
+}
@@ -0,0 +1,57 @@
+package xyz.a5s7.replication;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * State of a replica and its promotion, to be called by operators or a failover monitor, not by clients.
+ */
+@RestController
+@RequestMapping("/replication")
+@ConditionalOnProperty(name = "orderbook.replication.role", havingValue = "replica")
+public class ReplicationController {
+    private final ReplicaNode replicaNode;
+
+    public ReplicationController(ReplicaNode replicaNode) {
+        this.replicaNode = replicaNode;
+    }
+
+    @GetMapping
+    public ReplicaView getReplica() {
+        return toView();
+    }
+
+    /**
+     * Promotes the replica, refused while it has not received every record announced by the primary
+     * unless forced.
+     */
+    @PostMapping("/promote")
+    public ReplicaView promote(@RequestParam(defaultValue = "false") boolean force) {
+        replicaNode.promote(force);
+        return toView();
+    }
+
+    private ReplicaView toView() {
+        return new ReplicaView(replicaNode.isPromoted(), replicaNode.isConnected(), replicaNode.getLastSequence(),
+            replicaNode.getLag());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalStateException(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    /**
+     * @param lastSequence sequence of the last journal record received from the primary
+     * @param lag          records announced by the primary and not received
+     */
+    public record ReplicaView(boolean promoted, boolean connected, long lastSequence, long lag) {
+    }
+}
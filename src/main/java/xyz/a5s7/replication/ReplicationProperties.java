@@ -0,0 +1,24 @@
+package xyz.a5s7.replication;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param role              role of this node
+ * @param port              TCP port a primary streams its journal on, 0 for any free port
+ * @param primaryHost       host of the primary a replica follows
+ * @param primaryPort       port of the primary a replica follows
+ * @param heartbeatInterval how often a primary tells its replicas its last sequence when it has nothing to send
+ * @param reconnectInterval how long a replica waits before connecting again to the primary
+ */
+@ConfigurationProperties("orderbook.replication")
+public record ReplicationProperties(
+        @DefaultValue("NONE") ReplicationRole role,
+        @DefaultValue("9101") int port,
+        @DefaultValue("localhost") String primaryHost,
+        @DefaultValue("9101") int primaryPort,
+        @DefaultValue("1s") Duration heartbeatInterval,
+        @DefaultValue("1s") Duration reconnectInterval) {
+}
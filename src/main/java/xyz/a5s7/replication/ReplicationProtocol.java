@@ -0,0 +1,18 @@
+package xyz.a5s7.replication;
+
+/**
+ * Messages between a primary and its replicas, big-endian, each starting with its type:
+ * <ul>
+ *     <li>{@link #SUBSCRIBE} - replica to primary once connected: long sequence of the last record it has</li>
+ *     <li>{@link #RECORD} - primary to replica: int length, followed by a journal record as it is stored</li>
+ *     <li>{@link #HEARTBEAT} - primary to replica: long sequence of the last durable record of the primary</li>
+ * </ul>
+ */
+final class ReplicationProtocol {
+    static final byte SUBSCRIBE = 'S';
+    static final byte RECORD = 'R';
+    static final byte HEARTBEAT = 'H';
+
+    private ReplicationProtocol() {
+    }
+}
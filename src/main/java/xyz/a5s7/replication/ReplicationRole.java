@@ -0,0 +1,17 @@
+package xyz.a5s7.replication;
+
+public enum ReplicationRole {
+    /**
+     * Neither streams its journal nor follows another node.
+     */
+    NONE,
+    /**
+     * Streams its journal to the replicas connecting to it.
+     */
+    PRIMARY,
+    /**
+     * Follows the journal of the primary, executing its commands to be ready to take over, and rejects commands
+     * of its own until promoted.
+     */
+    REPLICA
+}
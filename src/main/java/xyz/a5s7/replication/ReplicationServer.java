@@ -0,0 +1,203 @@
+package xyz.a5s7.replication;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import xyz.a5s7.domain.journal.Journal;
+import xyz.a5s7.domain.journal.MappedJournal;
+import xyz.a5s7.domain.service.JournalRecovery;
+
+/**
+ * Streams the journal of the primary to its replicas over TCP.
+ * <p>
+ * A replica subscribes with the sequence of the last record it has, and is sent every durable record after it,
+ * then every record as soon as it is durable, so a replica never has a command the primary could lose
+ * in a crash. Replication is asynchronous: commands are acknowledged without waiting for the replicas.
+ * Every replica is served by a virtual thread.
+ */
+@Component
+@ConditionalOnProperty(name = "orderbook.replication.role", havingValue = "primary")
+public class ReplicationServer implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(ReplicationServer.class);
+
+    private final ReplicationProperties properties;
+    private final MappedJournal journal;
+    private final Set<Socket> replicas = ConcurrentHashMap.newKeySet();
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+    private Thread acceptor;
+    private volatile boolean running;
+
+    public ReplicationServer(ReplicationProperties properties, Journal journal) {
+        if (!(journal instanceof MappedJournal mappedJournal)) {
+            throw new IllegalStateException("Replication streams the journal, "
+                + "enable it with orderbook.journal.enabled=true");
+        }
+        this.properties = properties;
+        this.journal = mappedJournal;
+    }
+
+    /**
+     * @return port replicas connect to, useful when configured with port 0
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of replicas connected
+     */
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    private void accept() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+            } catch (SocketException e) {
+                break;
+            } catch (IOException e) {
+                log.warn("Failed to accept replica connection", e);
+                continue;
+            }
+            replicas.add(socket);
+            executor.execute(() -> {
+                try (socket) {
+                    stream(socket);
+                } catch (IOException | UncheckedIOException e) {
+                    if (running) {
+                        log.warn("Replica {} disconnected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                    }
+                } finally {
+                    replicas.remove(socket);
+                }
+            });
+        }
+    }
+
+    private void stream(Socket socket) throws IOException {
+        var input = new DataInputStream(socket.getInputStream());
+        var output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        if (input.readByte() != ReplicationProtocol.SUBSCRIBE) {
+            throw new IOException("Replica did not subscribe");
+        }
+        long sent = input.readLong();
+        if (sent > journal.lastSequence()) {
+            // e.g. a former primary that executed commands this node never received
+            throw new IOException("Replica is ahead of the primary, at journal record #" + sent + " of #"
+                + journal.lastSequence());
+        }
+        log.info("Replica {} subscribed after journal record #{}", socket.getRemoteSocketAddress(), sent);
+        Duration heartbeatInterval = properties.heartbeatInterval();
+        var records = new RecordWriter(output);
+        while (running) {
+            long durable = journal.awaitDurableAfter(sent, heartbeatInterval);
+            if (durable > sent) {
+                journal.readRecords(sent, durable, records);
+                sent = durable;
+            }
+            output.writeByte(ReplicationProtocol.HEARTBEAT);
+            output.writeLong(durable);
+            output.flush();
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(properties.port()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to bind replication to port " + properties.port(), e);
+        }
+        executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("replication-", 0).factory());
+        acceptor = new Thread(this::accept, "replication-acceptor");
+        running = true;
+        acceptor.start();
+        log.info("Replication started on port {}", getPort());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            serverSocket.close();
+            acceptor.join();
+        } catch (IOException e) {
+            log.warn("Failed to close replication", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        replicas.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Failed to close replica connection", e);
+            }
+        });
+        executor.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Started once the journal is recovered, stopped before the journal.
+     */
+    @Override
+    public int getPhase() {
+        return JournalRecovery.PHASE + 1;
+    }
+
+    /**
+     * Writes the records to a replica through a buffer reused for every record.
+     */
+    private static final class RecordWriter implements MappedJournal.RecordHandler {
+        private final DataOutputStream output;
+        private byte[] buffer = new byte[256];
+
+        RecordWriter(DataOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void onRecord(long sequence, ByteBuffer record) {
+            int length = record.remaining();
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            record.get(record.position(), buffer, 0, length);
+            try {
+                output.writeByte(ReplicationProtocol.RECORD);
+                output.writeInt(length);
+                output.write(buffer, 0, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package xyz.a5s7.util;
+
+import java.io.Serial;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread safe map from primitive long keys to objects, with open addressing and linear probing.
+ * <p>
+ * Keys are spread over segments, each with its own table and lock, so writers of different segments
+ * do not contend. Readers take no lock: a writer stores the key of a slot before publishing its value
+ * with release semantics, a reader loads the value with acquire semantics before comparing the key,
+ * and a table is replaced as a whole when it grows. Removal leaves a tombstone instead of shifting
+ * entries, so that a concurrent reader never misses an entry moved behind it; tombstones are dropped
+ * when the table is rehashed.
+ *
+ * @param <V> type of values, null values are not supported
+ */
+public class ConcurrentLongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final Object TOMBSTONE = new Object();
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private final Segment[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongObjectHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param segments number of independently locked segments, rounded up to a power of 2
+     */
+    public ConcurrentLongObjectHashMap(int expectedSize, int segments) {
+        int segmentCount = Integer.highestOneBit(Math.max(segments, 1) * 2 - 1);
+        this.segments = new Segment[segmentCount];
+        // segments are chosen by the high bits of the hash, slots within a segment by the low bits
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(Math.max(expectedSize / segmentCount, 1));
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int hash = hash(key);
+        Table table = segmentFor(hash).table;
+        Object[] values = table.values;
+        int index = hash & table.mask;
+        Object value;
+        while ((value = SLOT.getAcquire(values, index)) != null) {
+            if (value != TOMBSTONE && table.keys[index] == key) {
+                return (V) value;
+            }
+            index = (index + 1) & table.mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return previous value associated with the key or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            return (V) segment.put(key, hash, value);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Replaces the value of the key with the result of the function, atomically with respect to other writers.
+     * The function is called while the segment of the key is locked, so it must be short and must not access
+     * the map.
+     *
+     * @param remapping receives the current value or null if the key is not mapped, returns the new value
+     * @return new value
+     */
+    @SuppressWarnings("unchecked")
+    public V compute(long key, UnaryOperator<V> remapping) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            V value = remapping.apply((V) segment.get(key, hash));
+            if (value == null) {
+                throw new IllegalArgumentException("Null values are not supported");
+            }
+            segment.put(key, hash, value);
+            return value;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * @return removed value or null if the key was not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        segment.lock();
+        try {
+            return (V) segment.remove(key, hash);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Visits the values without locking, a value put or removed concurrently may or may not be visited.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> consumer) {
+        for (Segment segment : segments) {
+            Object[] values = segment.table.values;
+            for (int i = 0; i < values.length; i++) {
+                Object value = SLOT.getAcquire(values, i);
+                if (value != null && value != TOMBSTONE) {
+                    consumer.accept((V) value);
+                }
+            }
+        }
+    }
+
+    private Segment segmentFor(int hash) {
+        return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+    }
+
+    private static int hash(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    /**
+     * Table of one segment, all of its fields but {@link #table} are accessed only while the segment is locked.
+     * A segment is serializable only because the lock is, the map itself is never serialized.
+     */
+    private static final class Segment extends ReentrantLock {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        transient volatile Table table;
+        // read unlocked by size(), which is only an estimate while the map is modified
+        volatile int size;
+        // slots holding a value or a tombstone
+        int used;
+        int resizeThreshold;
+
+        Segment(int expectedSize) {
+            allocate(Math.max(2, Integer.highestOneBit(expectedSize * 2 - 1) << 1));
+        }
+
+        Object get(long key, int hash) {
+            Table table = this.table;
+            int index = hash & table.mask;
+            Object value;
+            while ((value = table.values[index]) != null) {
+                if (value != TOMBSTONE && table.keys[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return null;
+        }
+
+        Object put(long key, int hash, Object value) {
+            Table table = this.table;
+            int index = hash & table.mask;
+            Object current;
+            while ((current = table.values[index]) != null) {
+                if (current != TOMBSTONE && table.keys[index] == key) {
+                    SLOT.setRelease(table.values, index, value);
+                    return current;
+                }
+                index = (index + 1) & table.mask;
+            }
+            table.keys[index] = key;
+            SLOT.setRelease(table.values, index, value);
+            size++;
+            if (++used > resizeThreshold) {
+                // grow only if live entries fill the table, otherwise rehashing drops the tombstones
+                rehash(size > resizeThreshold >>> 1 ? table.values.length << 1 : table.values.length);
+            }
+            return null;
+        }
+
+        Object remove(long key, int hash) {
+            Table table = this.table;
+            int index = hash & table.mask;
+            Object current;
+            while ((current = table.values[index]) != null) {
+                if (current != TOMBSTONE && table.keys[index] == key) {
+                    SLOT.setRelease(table.values, index, TOMBSTONE);
+                    size--;
+                    return current;
+                }
+                index = (index + 1) & table.mask;
+            }
+            return null;
+        }
+
+        private void rehash(int capacity) {
+            Table old = table;
+            var rehashed = new Table(capacity);
+            for (int i = 0; i < old.values.length; i++) {
+                Object value = old.values[i];
+                if (value != null && value != TOMBSTONE) {
+                    int index = hash(old.keys[i]) & rehashed.mask;
+                    while (rehashed.values[index] != null) {
+                        index = (index + 1) & rehashed.mask;
+                    }
+                    rehashed.keys[index] = old.keys[i];
+                    rehashed.values[index] = value;
+                }
+            }
+            used = size;
+            // the volatile write publishes the filled table to readers
+            table = rehashed;
+            resizeThreshold = capacity >>> 1;
+        }
+
+        private void allocate(int capacity) {
+            table = new Table(capacity);
+            // load factor of 0.5 keeps probe chains short
+            resizeThreshold = capacity >>> 1;
+        }
+    }
+}
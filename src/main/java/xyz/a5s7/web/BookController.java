@@ -0,0 +1,164 @@
+package xyz.a5s7.web;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import xyz.a5s7.domain.marketdata.BookDepth;
+import xyz.a5s7.domain.marketdata.DepthUpdate;
+import xyz.a5s7.domain.marketdata.Level;
+import xyz.a5s7.domain.marketdata.MarketDataListener;
+import xyz.a5s7.domain.marketdata.MarketDataPublisher;
+import xyz.a5s7.domain.marketdata.Subscription;
+import xyz.a5s7.domain.marketdata.TopOfBook;
+import xyz.a5s7.domain.model.Instrument;
+import xyz.a5s7.domain.service.InstrumentRegistry;
+import xyz.a5s7.domain.service.TradingPhaseService;
+import xyz.a5s7.web.request.ChangePhaseRequest;
+import xyz.a5s7.web.response.BookView;
+import xyz.a5s7.web.response.LevelUpdateView;
+import xyz.a5s7.web.response.LevelView;
+import xyz.a5s7.web.response.PhaseView;
+import xyz.a5s7.web.response.TopOfBookView;
+
+/**
+ * Public market data: aggregated price levels of the order books, as a snapshot or as a stream
+ * of server-sent events, and the trading phase of the books.
+ */
+@RestController
+@RequestMapping("/books")
+public class BookController {
+    private final MarketDataPublisher marketDataPublisher;
+    private final InstrumentRegistry instrumentRegistry;
+    private final TradingPhaseService tradingPhaseService;
+    private final Set<SseEmitter> streams = ConcurrentHashMap.newKeySet();
+
+    public BookController(MarketDataPublisher marketDataPublisher, InstrumentRegistry instrumentRegistry,
+                          TradingPhaseService tradingPhaseService) {
+        this.marketDataPublisher = marketDataPublisher;
+        this.instrumentRegistry = instrumentRegistry;
+        this.tradingPhaseService = tradingPhaseService;
+    }
+
+    @GetMapping("/{ticker}")
+    public BookView getBook(@PathVariable String ticker, @RequestParam(defaultValue = "10") int depth) {
+        return toBookView(marketDataPublisher.getDepth(ticker, depth));
+    }
+
+    /**
+     * Streams a {@code book} event with the current depth, followed by a {@code level} event for every change
+     * of a price level and a {@code bbo} event for every change of the best bid or offer.
+     * Events of a slow client are conflated, so it may miss intermediate states of a level.
+     */
+    @GetMapping(path = "/{ticker}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBook(@PathVariable String ticker, @RequestParam(defaultValue = "10") int depth) {
+        var emitter = new SseEmitter(0L);
+        Subscription subscription = marketDataPublisher.subscribe(ticker, depth, new MarketDataListener() {
+            @Override
+            public void onBook(BookDepth book) {
+                send(emitter, "book", book.sequence(), toBookView(book));
+            }
+
+            @Override
+            public void onLevel(DepthUpdate update) {
+                Instrument instrument = instrumentRegistry.getInstrument(update.ticker());
+                send(emitter, "level", update.sequence(), new LevelUpdateView(update.ticker(), update.sequence(),
+                    update.side(), instrument.toPrice(update.price()), instrument.toQuantity(update.quantity()),
+                    update.orderCount()));
+            }
+
+            @Override
+            public void onTopOfBook(TopOfBook topOfBook) {
+                Instrument instrument = instrumentRegistry.getInstrument(topOfBook.ticker());
+                send(emitter, "bbo", topOfBook.sequence(), new TopOfBookView(topOfBook.ticker(),
+                    topOfBook.sequence(), toLevelView(instrument, topOfBook.bid()),
+                    toLevelView(instrument, topOfBook.ask())));
+            }
+        });
+        streams.add(emitter);
+        emitter.onCompletion(() -> {
+            streams.remove(emitter);
+            subscription.close();
+        });
+        emitter.onError(e -> subscription.close());
+        return emitter;
+    }
+
+    @GetMapping("/{ticker}/phase")
+    public PhaseView getPhase(@PathVariable String ticker) {
+        return new PhaseView(ticker, tradingPhaseService.getPhase(ticker));
+    }
+
+    /**
+     * Moves the book to another trading phase, e.g. opens it with a call and uncrosses it by changing
+     * to continuous trading, which executes the trades of the uncross before returning.
+     */
+    @PutMapping("/{ticker}/phase")
+    public PhaseView changePhase(@PathVariable String ticker, @RequestBody ChangePhaseRequest request) {
+        if (request.phase() == null) {
+            throw new IllegalArgumentException("Phase is required");
+        }
+        // truncated to the precision of the journal, so that the uncross executes the same when replayed
+        tradingPhaseService.changePhase(ticker, request.phase(),
+            ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        return new PhaseView(ticker, request.phase());
+    }
+
+    /**
+     * Ends the streams on shutdown, which would otherwise keep the web server waiting for them to complete.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void completeStreams() {
+        streams.forEach(SseEmitter::complete);
+    }
+
+    private static void send(SseEmitter emitter, String name, long sequence, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).id(Long.toString(sequence)).data(data));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BookView toBookView(BookDepth book) {
+        Instrument instrument = instrumentRegistry.getInstrument(book.ticker());
+        return new BookView(book.ticker(), book.sequence(),
+            toLevelViews(instrument, book.bids()), toLevelViews(instrument, book.asks()));
+    }
+
+    private static List<LevelView> toLevelViews(Instrument instrument, List<Level> levels) {
+        return levels.stream().map(level -> toLevelView(instrument, level)).toList();
+    }
+
+    private static LevelView toLevelView(Instrument instrument, Level level) {
+        if (level == null) {
+            return null;
+        }
+        return new LevelView(instrument.toPrice(level.price()), instrument.toQuantity(level.quantity()),
+            level.orderCount());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+}
@@ -1,59 +1,135 @@
 package xyz.a5s7.web;
 
 import java.math.BigDecimal;
-import java.net.URI;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import xyz.a5s7.domain.engine.PlaceResult;
+import xyz.a5s7.domain.model.Instrument;
 import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.service.InstrumentRegistry;
 import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.web.request.AmendOrderRequest;
 import xyz.a5s7.web.request.PlaceOrderRequest;
 import xyz.a5s7.web.response.OrderResponse;
+import xyz.a5s7.web.response.PlaceOrderResult;
 
 
 @RestController
 @RequestMapping("/orders")
 public class OrderController {
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private final OrderService orderService;
+    private final InstrumentRegistry instrumentRegistry;
+    // executor of the web layer, which also runs asynchronous requests
+    private final Executor responseExecutor;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, InstrumentRegistry instrumentRegistry,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                           Executor responseExecutor) {
         this.orderService = orderService;
+        this.instrumentRegistry = instrumentRegistry;
+        this.responseExecutor = responseExecutor;
     }
 
+    /**
+     * The request thread is released while the order waits for the matching engine and the journal,
+     * the response is written once the order is placed. The order may be completed by a matching thread,
+     * so the response is built and dispatched on the web executor instead, off the matching hot path.
+     */
     @PostMapping
-    public ResponseEntity<OrderResponse> placeOrder(
+    public CompletableFuture<ResponseEntity<OrderResponse>> placeOrder(
                 @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
                 @RequestBody PlaceOrderRequest request) {
         Long userId = getUserIdFromToken(authorizationHeader);
         validate(request);
-        
-        LimitOrder order = orderService.placeOrder(
-            new LimitOrder(userId, request.ticker(), request.direction(), request.price(), request.quantity(), ZonedDateTime.now())
-        );
-        OrderResponse response = toOrderResponse(order);
-        
-        URI location = ServletUriComponentsBuilder
+        Instrument instrument = instrumentRegistry.getInstrument(request.ticker());
+        // the current request is not available on the thread completing the order
+        UriComponentsBuilder location = ServletUriComponentsBuilder
             .fromCurrentRequest()
-            .path("/{id}")
-            .buildAndExpand(order.getId())
-            .toUri();
-        
-        return ResponseEntity
-            .created(location)
-            .body(response);
+            .path("/{id}");
+
+        return orderService.placeOrderAsync(
+            toLimitOrder(userId, request, instrument, now())
+        ).thenApplyAsync(order -> ResponseEntity
+            .created(location.buildAndExpand(order.getId()).toUri())
+            .body(toOrderResponse(order)), responseExecutor);
+    }
+
+    /**
+     * Places the orders grouped by ticker, each order book is acquired once for its group.
+     * An invalid order is rejected without failing the others.
+     *
+     * @return results in the order of the requests
+     */
+    @PostMapping("/batch")
+    public List<PlaceOrderResult> placeOrders(
+                @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
+                @RequestBody List<PlaceOrderRequest> requests) {
+        Long userId = getUserIdFromToken(authorizationHeader);
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one order must be provided");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " orders can be placed at once");
+        }
+        var results = new PlaceOrderResult[requests.size()];
+        List<LimitOrder> orders = new ArrayList<>(requests.size());
+        List<Integer> indexes = new ArrayList<>(requests.size());
+        ZonedDateTime timestamp = now();
+        for (int i = 0; i < requests.size(); i++) {
+            PlaceOrderRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Order must be provided");
+                }
+                validate(request);
+                Instrument instrument = instrumentRegistry.getInstrument(request.ticker());
+                orders.add(toLimitOrder(userId, request, instrument, timestamp));
+                indexes.add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = PlaceOrderResult.rejected(e.getMessage());
+            }
+        }
+        if (!orders.isEmpty()) {
+            List<PlaceResult> placed = orderService.placeOrders(orders);
+            for (int i = 0; i < placed.size(); i++) {
+                PlaceResult result = placed.get(i);
+                results[indexes.get(i)] = result.isPlaced()
+                    ? PlaceOrderResult.placed(toOrderResponse(result.order()))
+                    : PlaceOrderResult.rejected(result.failure() instanceof IllegalArgumentException
+                        ? result.failure().getMessage() : "Order could not be placed");
+            }
+        }
+        return List.of(results);
     }
 
     /**
@@ -69,6 +145,26 @@ public class OrderController {
         return Long.parseLong(token);
     }
 
+    private static LimitOrder toLimitOrder(Long userId, PlaceOrderRequest request, Instrument instrument,
+                                           ZonedDateTime timestamp) {
+        var order = new LimitOrder(userId, request.ticker(), request.direction(),
+            instrument.toTicks(request.price()), instrument.toLots(request.quantity()), timestamp);
+        OrderType orderType = request.orderType() == null ? OrderType.LIMIT : request.orderType();
+        TimeInForce timeInForce = request.timeInForce() != null ? request.timeInForce()
+            : orderType == OrderType.MARKET ? TimeInForce.IOC : TimeInForce.GTC;
+        order.withType(orderType, timeInForce);
+        if (request.selfTradePrevention() != null) {
+            order.withSelfTradePrevention(request.selfTradePrevention());
+        }
+        if (request.displayQuantity() != null) {
+            order.withDisplayQuantity(instrument.toLots(request.displayQuantity()));
+        }
+        if (request.stopPrice() != null) {
+            order.withStopPrice(instrument.toTicks(request.stopPrice()));
+        }
+        return order;
+    }
+
     private void validate(PlaceOrderRequest request) {
         if (request.ticker() == null) {
             throw new IllegalArgumentException("Ticker must be provided");
@@ -79,17 +175,101 @@ public class OrderController {
         if (request.price() == null) {
             throw new IllegalArgumentException("Price must be provided");
         }
+        if (request.price().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
         if (request.quantity() == null) {
             throw new IllegalArgumentException("Quantity must be provided");
         }
         if (request.quantity().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than 0");
         }
+        if (request.displayQuantity() != null && (request.displayQuantity().compareTo(BigDecimal.ZERO) <= 0
+            || request.displayQuantity().compareTo(request.quantity()) >= 0)) {
+            throw new IllegalArgumentException("Display quantity must be greater than 0 and less than quantity");
+        }
+        if (request.stopPrice() != null && request.stopPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Stop price must be greater than 0");
+        }
     }
 
     @GetMapping("/{orderId}")
     public OrderResponse getOrder(@PathVariable Long orderId, 
         @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        return toOrderResponse(findUserOrder(orderId, authorizationHeader));
+    }
+
+    /**
+     * Lists the orders of the user resting in the order books, e.g. to reconcile state after reconnecting.
+     * Only open orders are indexed, closed ones are looked up by id.
+     *
+     * @param ticker ticker of the orders, orders on every ticker if not provided
+     */
+    @GetMapping
+    public List<OrderResponse> getOrders(@RequestParam(defaultValue = "open") String status,
+        @RequestParam(required = false) String ticker,
+        @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        Long userId = getUserIdFromToken(authorizationHeader);
+        if (!OrderStatus.OPEN.name().equalsIgnoreCase(status)) {
+            throw new IllegalArgumentException("Only open orders can be listed");
+        }
+        return orderService.findOpenOrders(userId, ticker).stream()
+            .map(this::toOrderResponse)
+            .toList();
+    }
+
+    @DeleteMapping("/{orderId}")
+    public OrderResponse cancelOrder(@PathVariable Long orderId,
+        @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        LimitOrder order = findUserOrder(orderId, authorizationHeader);
+        LimitOrder cancelledOrder = orderService.cancelOrder(order).orElseThrow(() -> orderNotOpen(order));
+        return toOrderResponse(cancelledOrder);
+    }
+
+    /**
+     * Cancels all open orders of the user on the ticker at once.
+     */
+    @DeleteMapping
+    public List<OrderResponse> cancelOrders(@RequestParam String ticker,
+        @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader) {
+        Long userId = getUserIdFromToken(authorizationHeader);
+        return orderService.cancelOrders(ticker, userId).stream()
+            .map(this::toOrderResponse)
+            .toList();
+    }
+
+    @PatchMapping("/{orderId}")
+    public OrderResponse amendOrder(@PathVariable Long orderId,
+        @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader,
+        @RequestBody AmendOrderRequest request) {
+        LimitOrder order = findUserOrder(orderId, authorizationHeader);
+        if (request.price() == null && request.quantity() == null) {
+            throw new IllegalArgumentException("Price or quantity must be provided");
+        }
+        if (request.price() != null && request.price().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
+        if (request.quantity() != null && request.quantity().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        Instrument instrument = instrumentRegistry.getInstrument(order.getTicker());
+        long price = request.price() == null ? order.getPrice() : instrument.toTicks(request.price());
+        long quantity = request.quantity() == null ? order.getQuantity() : instrument.toLots(request.quantity());
+
+        LimitOrder amendedOrder = orderService.amendOrder(order, price, quantity, now())
+            .orElseThrow(() -> orderNotOpen(order));
+        return toOrderResponse(amendedOrder);
+    }
+
+    /**
+     * Time of a command, truncated to the precision of the journal so that the command executes the same
+     * when replayed.
+     */
+    private static ZonedDateTime now() {
+        return ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private LimitOrder findUserOrder(Long orderId, String authorizationHeader) {
         LimitOrder order = orderService.findOrder(orderId).orElseThrow(
             () -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order with id " + orderId + " not found")
         );
@@ -97,18 +277,30 @@ public class OrderController {
         if (!order.getUserId().equals(getUserIdFromToken(authorizationHeader))) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not allowed to see this order");
         }
-        return toOrderResponse(order);
+        return order;
+    }
+
+    private static ResponseStatusException orderNotOpen(LimitOrder order) {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+            "Order with id " + order.getId() + " is " + order.getStatus());
     }
 
     private OrderResponse toOrderResponse(final LimitOrder order) {
+        Instrument instrument = instrumentRegistry.getInstrument(order.getTicker());
         return new OrderResponse(
             order.getId(), 
             order.getTimestamp(),
             order.getTicker(), 
-            order.getPrice(), 
-            order.getQuantity(), 
+            instrument.toPrice(order.getPrice()),
+            instrument.toQuantity(order.getQuantity()),
             order.getDirection(),
-            order.getPendingQuantity()
+            instrument.toQuantity(order.getPendingQuantity()),
+            order.getStatus(),
+            order.getOrderType(),
+            order.getTimeInForce(),
+            order.getSelfTradePrevention(),
+            order.getDisplayQuantity() == 0 ? null : instrument.toQuantity(order.getDisplayQuantity()),
+            order.getStopPrice() == 0 ? null : instrument.toPrice(order.getStopPrice())
         );
     }
 
@@ -1,10 +1,13 @@
 package xyz.a5s7.web;
 
+import java.time.ZonedDateTime;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -12,23 +15,34 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import xyz.a5s7.domain.model.Instrument;
 import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.repository.FillPage;
+import xyz.a5s7.domain.service.InstrumentRegistry;
 import xyz.a5s7.domain.service.OrderService;
 import xyz.a5s7.domain.service.TradeService;
+import xyz.a5s7.web.response.FillPageView;
+import xyz.a5s7.web.response.FillView;
 import xyz.a5s7.web.response.TradeView;
 
 @RestController
 @RequestMapping("/trades")
 public class TradeController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final TradeService tradeService;
     private final OrderService orderService;
+    private final InstrumentRegistry instrumentRegistry;
 
-    public TradeController(TradeService tradeService, OrderService orderService) {
+    public TradeController(TradeService tradeService, OrderService orderService,
+                           InstrumentRegistry instrumentRegistry) {
         this.tradeService = tradeService;
         this.orderService = orderService;
+        this.instrumentRegistry = instrumentRegistry;
     }
 
-    @GetMapping
+    @GetMapping(params = "orderId")
     public ResponseEntity<List<TradeView>> getTradesByOrderId(
             @RequestParam Long orderId,
             @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader    
@@ -41,12 +55,13 @@ public class TradeController {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not allowed to see this order");
         }
 
+        Instrument instrument = instrumentRegistry.getInstrument(order.getTicker());
         var trades = tradeService
                 .findTrades(orderId)
                 .stream()
                 .map(trade -> new TradeView(
-                    trade.quantity(),
-                    trade.price(),
+                    instrument.toQuantity(trade.quantity()),
+                    instrument.toPrice(trade.price()),
                     trade.timestamp()
                 ))
                 .toList();
@@ -56,6 +71,41 @@ public class TradeController {
         return ResponseEntity.ok(trades);
     }
 
+    /**
+     * Pages through the fills of the user on the ticker, in the order they were executed.
+     * The next page is requested with the same parameters and the cursor returned with the previous page.
+     */
+    @GetMapping(params = "!orderId")
+    public FillPageView getFills(
+            @RequestParam String ticker,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authorizationHeader
+        ) {
+        Long callerId = getUserIdFromToken(authorizationHeader);
+        if (userId != null && !userId.equals(callerId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "User is not allowed to see fills of other users");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("From must not be after to");
+        }
+        Instrument instrument = instrumentRegistry.getInstrument(ticker);
+        FillPage page = tradeService.findFills(callerId, ticker, from, to, cursor, limit);
+        return new FillPageView(
+            page.fills().stream()
+                .map(fill -> new FillView(fill.tradeId(), fill.orderId(), fill.ticker(), fill.direction(),
+                    instrument.toPrice(fill.price()), instrument.toQuantity(fill.quantity()), fill.aggressor(),
+                    fill.timestamp()))
+                .toList(),
+            page.nextCursor());
+    }
+
     /**
      * Extracts user id from token.
      * Just for simplicity we will use token as user id
@@ -68,4 +118,9 @@ public class TradeController {
         }
         return Long.parseLong(token);
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
 } 
\ No newline at end of file
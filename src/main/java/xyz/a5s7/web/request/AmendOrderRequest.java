@@ -0,0 +1,10 @@
+package xyz.a5s7.web.request;
+
+import java.math.BigDecimal;
+
+/**
+ * price - number, new price of the order, optional: the price does not change if not provided
+ * quantity - number, new total quantity of the order including already filled quantity, optional:
+ * the quantity does not change if not provided
+ */
+public record AmendOrderRequest(BigDecimal price, BigDecimal quantity) { }
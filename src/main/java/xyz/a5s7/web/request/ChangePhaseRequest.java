@@ -0,0 +1,8 @@
+package xyz.a5s7.web.request;
+
+import xyz.a5s7.domain.model.TradingPhase;
+
+/**
+ * phase - AUCTION_CALL, CONTINUOUS or HALTED, changing to CONTINUOUS uncrosses the book
+ */
+public record ChangePhaseRequest(TradingPhase phase) { }
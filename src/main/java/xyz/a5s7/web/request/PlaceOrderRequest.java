@@ -3,11 +3,23 @@ package xyz.a5s7.web.request;
 import java.math.BigDecimal;
 
 import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
 
 /**
  * ticker - string, asset name, for simplicity this can be any text
- * price - number, a price for limit order
+ * price - number, a price for limit order, the worst price a market order may trade at
  * quantity - number, quantity of asset to fill by order
  * direction - string, can be either "BID" (buy) or "ASK" (sell)
+ * orderType - string, optional, "LIMIT" (default), "MARKET" or "POST_ONLY"
+ * timeInForce - string, optional, "GTC" (default, "IOC" for market orders), "IOC" or "FOK"
+ * selfTradePrevention - string, optional, what happens when the order would trade with an order of the same user:
+ *                       "NONE" (default), "CANCEL_NEWEST", "CANCEL_OLDEST", "CANCEL_BOTH" or "DECREMENT_AND_CANCEL"
+ * displayQuantity - number, optional, makes a GTC order an iceberg order showing at most this quantity at a time
+ * stopPrice - number, optional, makes the order a stop order that waits for a trade at or through this price
  */
-public record PlaceOrderRequest(String ticker, BigDecimal price, BigDecimal quantity, Direction direction) { }
+public record PlaceOrderRequest(String ticker, BigDecimal price, BigDecimal quantity, Direction direction,
+                                OrderType orderType, TimeInForce timeInForce,
+                                SelfTradePrevention selfTradePrevention, BigDecimal displayQuantity,
+                                BigDecimal stopPrice) { }
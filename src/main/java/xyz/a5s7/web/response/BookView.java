@@ -0,0 +1,6 @@
+package xyz.a5s7.web.response;
+
+import java.util.List;
+
+public record BookView(String ticker, long sequence, List<LevelView> bids, List<LevelView> asks) {
+}
@@ -0,0 +1,9 @@
+package xyz.a5s7.web.response;
+
+import java.util.List;
+
+/**
+ * @param nextCursor value of the {@code cursor} parameter to get the next page with, null on the last page
+ */
+public record FillPageView(List<FillView> fills, Long nextCursor) {
+}
@@ -0,0 +1,13 @@
+package xyz.a5s7.web.response;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * @param aggressor whether the order of the user initiated the trade, rather than rested in the order book
+ */
+public record FillView(long tradeId, long orderId, String ticker, Direction direction, BigDecimal price,
+                       BigDecimal quantity, boolean aggressor, ZonedDateTime executedAt) {
+}
@@ -0,0 +1,9 @@
+package xyz.a5s7.web.response;
+
+import java.math.BigDecimal;
+
+import xyz.a5s7.domain.model.Direction;
+
+public record LevelUpdateView(String ticker, long sequence, Direction side, BigDecimal price, BigDecimal quantity,
+                              int orders) {
+}
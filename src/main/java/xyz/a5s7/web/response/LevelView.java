@@ -0,0 +1,6 @@
+package xyz.a5s7.web.response;
+
+import java.math.BigDecimal;
+
+public record LevelView(BigDecimal price, BigDecimal quantity, int orders) {
+}
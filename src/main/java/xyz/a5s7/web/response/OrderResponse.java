@@ -1,10 +1,16 @@
 package xyz.a5s7.web.response;
 
 import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
 public record OrderResponse(Long id, ZonedDateTime timestamp, String ticker, BigDecimal price, BigDecimal quantity,
-                            Direction direction, BigDecimal pendingQuantity) {
+                            Direction direction, BigDecimal pendingQuantity, OrderStatus status, OrderType orderType,
+                            TimeInForce timeInForce, SelfTradePrevention selfTradePrevention,
+                            BigDecimal displayQuantity, BigDecimal stopPrice) {
 }
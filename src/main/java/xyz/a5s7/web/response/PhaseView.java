@@ -0,0 +1,6 @@
+package xyz.a5s7.web.response;
+
+import xyz.a5s7.domain.model.TradingPhase;
+
+public record PhaseView(String ticker, TradingPhase phase) {
+}
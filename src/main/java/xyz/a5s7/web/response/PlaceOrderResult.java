@@ -0,0 +1,14 @@
+package xyz.a5s7.web.response;
+
+/**
+ * Result of one order of a batch: the placed order, or why it was rejected.
+ */
+public record PlaceOrderResult(OrderResponse order, String error) {
+    public static PlaceOrderResult placed(OrderResponse order) {
+        return new PlaceOrderResult(order, null);
+    }
+
+    public static PlaceOrderResult rejected(String error) {
+        return new PlaceOrderResult(null, error);
+    }
+}
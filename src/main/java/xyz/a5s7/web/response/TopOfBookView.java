@@ -0,0 +1,4 @@
+package xyz.a5s7.web.response;
+
+public record TopOfBookView(String ticker, long sequence, LevelView bid, LevelView ask) {
+}
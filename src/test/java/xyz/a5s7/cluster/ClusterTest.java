@@ -0,0 +1,139 @@
+package xyz.a5s7.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import xyz.a5s7.OrderBookApplication;
+
+/**
+ * Runs two nodes in the same JVM and sends every request to the node not owning the ticker.
+ */
+class ClusterTest {
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private static final List<String> urls = new ArrayList<>();
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        for (int node = 0; node < 2; node++) {
+            try (var socket = new ServerSocket(0)) {
+                urls.add("http://localhost:" + socket.getLocalPort());
+            }
+        }
+        for (int node = 0; node < 2; node++) {
+            Path nodeDirectory = directory.resolve("node" + node);
+            nodes.add(new SpringApplicationBuilder(OrderBookApplication.class).run(
+                "--server.port=" + URI.create(urls.get(node)).getPort(),
+                "--orderbook.cluster.enabled=true",
+                "--orderbook.cluster.node-id=" + node,
+                "--orderbook.cluster.nodes=" + String.join(",", urls),
+                "--orderbook.cluster.directory=" + nodeDirectory.resolve("cluster"),
+                "--orderbook.journal.directory=" + nodeDirectory.resolve("journal"),
+                "--orderbook.audit.directory=" + nodeDirectory.resolve("audit"),
+                "--orderbook.snapshot.enabled=false",
+                "--orderbook.retention.enabled=false",
+                "--orderbook.gateway.enabled=false"));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void shouldServeTickerThroughAnyNodeBeforeAndAfterItMoves() throws Exception {
+        var ring = new HashRing(2, 128);
+        String ticker = tickerOwnedBy(ring, 1, "MOVE");
+        HttpResponse<String> placed = send(0, "POST", "/orders", order(ticker, "ASK", "10.00", "2.00"));
+        assertThat(placed.statusCode()).isEqualTo(201);
+        long askId = objectMapper.readTree(placed.body()).get("id").asLong();
+        assertThat(askId % 2).isEqualTo(1);
+
+        assertThat(json(send(0, "GET", "/orders/" + askId, null)).get("status").asText()).isEqualTo("OPEN");
+        assertThat(json(send(0, "GET", "/books/" + ticker, null)).get("asks")).hasSize(1);
+
+        JsonNode moved = json(send(0, "POST", "/cluster/tickers/" + ticker + "/move?node=0", null));
+        assertThat(moved.get("orders").asInt()).isEqualTo(1);
+        assertThat(json(send(1, "GET", "/cluster/tickers/" + ticker, null)).get("node").asInt()).isEqualTo(0);
+        assertThat(json(send(0, "GET", "/cluster", null)).get("assignments").get(ticker).asInt()).isEqualTo(0);
+
+        HttpResponse<String> bid = send(1, "POST", "/orders", order(ticker, "BID", "10.00", "0.50"));
+        assertThat(bid.statusCode()).isEqualTo(201);
+        assertThat(json(bid).get("id").asLong() % 2).isEqualTo(0);
+        JsonNode ask = json(send(1, "GET", "/orders/" + askId, null));
+        assertThat(ask.get("pendingQuantity").decimalValue()).isEqualByComparingTo("1.50");
+        assertThat(json(send(1, "GET", "/books/" + ticker, null)).get("asks").get(0).get("quantity").decimalValue())
+            .isEqualByComparingTo("1.50");
+    }
+
+    @Test
+    void shouldSplitBatchByOwnerAndGatherOpenOrders() throws Exception {
+        var ring = new HashRing(2, 128);
+        String first = tickerOwnedBy(ring, 0, "SPLIT");
+        String second = tickerOwnedBy(ring, 1, "SPLIT");
+        String batch = "[" + order(first, "BID", "5.00", "1.00") + "," + order(second, "BID", "6.00", "1.00") + ","
+            + order(first, "BID", "-1", "1.00") + "]";
+
+        JsonNode results = json(send(0, "POST", "/orders/batch", batch));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).get("order").get("ticker").asText()).isEqualTo(first);
+        assertThat(results.get(1).get("order").get("ticker").asText()).isEqualTo(second);
+        assertThat(results.get(2).get("error").asText()).isNotEmpty();
+        JsonNode openOrders = json(send(1, "GET", "/orders", null));
+        assertThat(openOrders.findValuesAsText("ticker")).isSorted()
+            .filteredOn(ticker -> ticker.startsWith("SPLIT")).containsExactlyInAnyOrder(first, second);
+    }
+
+    private static String tickerOwnedBy(HashRing ring, int node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (ring.nodeFor(prefix + i) == node) {
+                return prefix + i;
+            }
+        }
+    }
+
+    private static String order(String ticker, String direction, String price, String quantity) {
+        return """
+            {"ticker": "%s", "direction": "%s", "price": %s, "quantity": %s}""".formatted(ticker, direction, price,
+            quantity);
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws IOException {
+        assertThat(response.statusCode()).as(response.body()).isBetween(200, 299);
+        return objectMapper.readTree(response.body());
+    }
+
+    private static HttpResponse<String> send(int node, String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(urls.get(node) + path))
+            .header("Authorization", "7")
+            .header("Content-Type", "application/json")
+            .method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
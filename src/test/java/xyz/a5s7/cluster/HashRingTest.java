@@ -0,0 +1,56 @@
+package xyz.a5s7.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    @Test
+    void shouldSpreadKeysEvenlyOverNodes() {
+        var ring = new HashRing(4, 128);
+        var counts = new int[4];
+        for (int i = 0; i < 100_000; i++) {
+            counts[ring.nodeFor("TICKER" + i)]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(20_000, 30_000);
+        }
+    }
+
+    @Test
+    void shouldMoveOnlyKeysTakenOverByAddedNode() {
+        var ring = new HashRing(3, 128);
+        var grown = new HashRing(4, 128);
+        int moved = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String key = "TICKER" + i;
+            int node = grown.nodeFor(key);
+            if (node != ring.nodeFor(key)) {
+                assertThat(node).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(20_000, 30_000);
+    }
+
+    @Test
+    void shouldAssignKeysTheSameWayOnEveryNode() {
+        var ring = new HashRing(5, 64);
+        var other = new HashRing(5, 64);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(other.nodeFor("TICKER" + i)).isEqualTo(ring.nodeFor("TICKER" + i));
+        }
+    }
+
+    @Test
+    void shouldRejectRingWithoutNodes() {
+        assertThatThrownBy(() -> new HashRing(0, 128))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("At least one node is required");
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.a5s7.domain.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.Trade;
+
+class ArchiveStoreTest {
+    private static final ZonedDateTime TIMESTAMP = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindArchivedOrdersAcrossSegmentsAfterReopening() throws IOException {
+        try (ArchiveStore store = store()) {
+            for (long id = 1; id <= 20; id += 4) {
+                // batches with ids out of order, like orders closing in a different order than placed
+                store.append(LongStream.of(id + 3, id, id + 2, id + 1).mapToObj(ArchiveStoreTest::filled).toList());
+            }
+            store.append(List.of(cancelled(21L)));
+
+            assertThat(store.size()).isEqualTo(21);
+            assertArchived(store, 21);
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(path -> path.toString().endsWith(".idx")).count()).isGreaterThan(1);
+        }
+
+        try (ArchiveStore reopened = store()) {
+            assertThat(reopened.size()).isEqualTo(21);
+            assertArchived(reopened, 21);
+            assertThat(reopened.find(22L)).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldFindLatestRecordOfOrderArchivedTwice() {
+        try (ArchiveStore store = store()) {
+            store.append(List.of(filled(1L), filled(2L)));
+            store.append(List.of(cancelled(1L)));
+
+            assertThat(store.find(1L)).hasValueSatisfying(archived ->
+                assertThat(archived.order().getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        }
+        try (ArchiveStore reopened = store()) {
+            assertThat(reopened.find(1L)).hasValueSatisfying(archived ->
+                assertThat(archived.order().getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        }
+    }
+
+    @Test
+    void shouldTruncateTornRecordAtEndOfLastSegment() throws IOException {
+        try (ArchiveStore store = store()) {
+            store.append(List.of(filled(1L)));
+        }
+        Path segment = directory.resolve("archive-0000000001.bin");
+        long size = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (ArchiveStore reopened = store()) {
+            assertThat(Files.size(segment)).isEqualTo(size);
+            reopened.append(List.of(filled(2L)));
+
+            assertArchived(reopened, 2);
+        }
+    }
+
+    private static void assertArchived(ArchiveStore store, int count) {
+        for (long id = 1; id <= count; id++) {
+            long orderId = id;
+            assertThat(store.find(orderId)).hasValueSatisfying(archived -> {
+                LimitOrder order = archived.order();
+                assertThat(order.getId()).isEqualTo(orderId);
+                assertThat(order.getUserId()).isEqualTo(100L + orderId);
+                assertThat(order.getTicker()).isEqualTo("BTC");
+                assertThat(order.getTimestamp()).isEqualTo(TIMESTAMP);
+                assertThat(archived.trades()).extracting(Trade::restingId).containsExactly(orderId);
+            });
+        }
+    }
+
+    private ArchiveStore store() {
+        // a few records per segment
+        return new ArchiveStore(new RetentionProperties(true, directory.toString(), null, 0, null,
+            DataSize.ofBytes(400), 4));
+    }
+
+    private static ArchivedOrder filled(long id) {
+        var order = LimitOrder.restore(id, 100L + id, "BTC", Direction.ASK, 4325100L, 10L, 0L, false, TIMESTAMP);
+        return new ArchivedOrder(order, List.of(new Trade(id * 10, 1000L, id, 4325100L, 10L, TIMESTAMP)));
+    }
+
+    private static ArchivedOrder cancelled(long id) {
+        var order = LimitOrder.restore(id, 100L + id, "BTC", Direction.BID, 4325000L, 10L, 4L, true, TIMESTAMP);
+        return new ArchivedOrder(order, List.of(new Trade(id * 10, 1000L, id, 4325000L, 6L, null)));
+    }
+}
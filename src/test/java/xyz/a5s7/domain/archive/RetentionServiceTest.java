@@ -0,0 +1,163 @@
+package xyz.a5s7.domain.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.engine.SynchronizedMatchingEngine;
+import xyz.a5s7.domain.journal.DisabledJournal;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.Trade;
+import xyz.a5s7.domain.repository.FillIndex;
+import xyz.a5s7.domain.repository.OpenOrderIndex;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.domain.service.TradeService;
+
+class RetentionServiceTest {
+    private final OrderRepo orderRepo = new OrderRepo();
+    private final TradeRepo tradeRepo = new TradeRepo();
+    private final TradeService tradeService = new TradeService(tradeRepo, new FillIndex(), orderRepo, Optional.empty());
+    // released before the trade persistence handler saves the trades of the fills
+    private CountDownLatch tradesReleased = new CountDownLatch(0);
+    private ArchiveStore archiveStore;
+    private ExecutionEventRing executionEventRing;
+    private OrderService orderService;
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void tearDown() {
+        tradesReleased.countDown();
+        executionEventRing.stop();
+        archiveStore.close();
+    }
+
+    @Test
+    void shouldArchiveClosedOrdersAndFindThemInArchive() throws Exception {
+        RetentionService retention = retention(Duration.ZERO, 1000);
+        LimitOrder bid = orderService.placeOrder(new LimitOrder(1L, "BTC", Direction.BID, 100L, 10L, ZonedDateTime.now()));
+        LimitOrder ask = orderService.placeOrder(new LimitOrder(2L, "BTC", Direction.ASK, 100L, 4L, ZonedDateTime.now()));
+        LimitOrder cancelled = orderService.placeOrder(new LimitOrder(3L, "BTC", Direction.ASK, 105L, 4L, ZonedDateTime.now()));
+        orderService.cancelOrder(cancelled);
+        awaitTradesSaved();
+
+        // found closed by the first check, archived by the next one
+        assertThat(retention.archive()).isZero();
+        assertThat(retention.archive()).isEqualTo(2);
+
+        assertThat(orderRepo.findById(ask.getId())).isEmpty();
+        assertThat(orderRepo.findById(cancelled.getId())).isEmpty();
+        assertThat(orderRepo.findById(bid.getId())).containsSame(bid);
+        assertThat(tradeRepo.findTradesByOrderId(ask.getId())).isEmpty();
+        assertThat(tradeRepo.findTradesByOrderId(bid.getId())).hasValueSatisfying(trades ->
+            assertThat(trades).hasSize(1));
+
+        assertThat(orderService.findOrder(ask.getId())).hasValueSatisfying(order -> {
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.FILLED);
+            assertThat(order.getUserId()).isEqualTo(2L);
+        });
+        assertThat(orderService.findOrder(cancelled.getId())).hasValueSatisfying(order ->
+            assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        var archivedTrades = new TradeService(tradeRepo, new FillIndex(), orderRepo, Optional.of(archiveStore)).findTrades(ask.getId());
+        assertThat(archivedTrades).singleElement()
+            .extracting(Trade::aggressingId, Trade::restingId, Trade::quantity)
+            .containsExactly(ask.getId(), bid.getId(), 4L);
+    }
+
+    @Test
+    void shouldArchiveClosedOrdersBeyondMaximumBeforeTheyAreOld() {
+        RetentionService retention = retention(Duration.ofHours(1), 1);
+        List<LimitOrder> placed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            placed.add(orderService.placeOrder(new LimitOrder(1L, "ETH", Direction.BID, 100L, 1L, ZonedDateTime.now())));
+        }
+        placed.forEach(orderService::cancelOrder);
+        LimitOrder open = orderService.placeOrder(new LimitOrder(1L, "ETH", Direction.BID, 100L, 1L, ZonedDateTime.now()));
+
+        assertThat(retention.archive()).isZero();
+        assertThat(retention.archive()).isEqualTo(2);
+        assertThat(retention.archive()).isZero();
+
+        assertThat(placed).filteredOn(order -> orderRepo.findById(order.getId()).isPresent()).hasSize(1);
+        assertThat(orderRepo.findById(open.getId())).isPresent();
+        assertThat(placed).allSatisfy(order -> assertThat(orderService.findOrder(order.getId())).isPresent());
+    }
+
+    @Test
+    void shouldArchiveFilledOrderOnlyOnceItsTradesAreSaved() throws Exception {
+        tradesReleased = new CountDownLatch(1);
+        RetentionService retention = retention(Duration.ZERO, 1000);
+        LimitOrder bid = orderService.placeOrder(new LimitOrder(1L, "BTC", Direction.BID, 100L, 4L, ZonedDateTime.now()));
+        LimitOrder ask = orderService.placeOrder(new LimitOrder(2L, "BTC", Direction.ASK, 100L, 4L, ZonedDateTime.now()));
+
+        assertThat(retention.archive()).isZero();
+        assertThat(retention.archive()).isZero();
+        assertThat(retention.archive()).isZero();
+        tradesReleased.countDown();
+        awaitTradesSaved();
+
+        assertThat(retention.archive()).isEqualTo(2);
+        assertThat(tradeRepo.findTradesByOrderId(bid.getId())).isEmpty();
+        assertThat(archiveStore.find(ask.getId())).hasValueSatisfying(archived ->
+            assertThat(archived.trades()).singleElement()
+                .extracting(Trade::aggressingId, Trade::restingId, Trade::quantity)
+                .containsExactly(ask.getId(), bid.getId(), 4L));
+    }
+
+    private void awaitTradesSaved() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executionEventRing.backlog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(executionEventRing.backlog()).isZero();
+    }
+
+    private RetentionService retention(Duration closedAge, int maxClosedOrders) {
+        var properties = new RetentionProperties(true, directory.toString(), closedAge, maxClosedOrders,
+            Duration.ofSeconds(10), DataSize.ofMegabytes(1), 16);
+        archiveStore = new ArchiveStore(properties);
+        var engineProperties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 16, BookType.TREE_MAP, 16, 16);
+        var openOrderIndex = new OpenOrderIndex();
+        executionEventRing = new ExecutionEventRing(engineProperties, List.of((event, sequence, endOfBatch) -> {
+            try {
+                tradesReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            tradeService.onEvent(event, sequence, endOfBatch);
+        }), new SimpleMeterRegistry());
+        executionEventRing.start();
+        var orderBookFactory = new OrderBookFactory(engineProperties, executionEventRing, DepthListener.NONE,
+            openOrderIndex);
+        orderService = new OrderService(orderRepo, openOrderIndex,
+            new SynchronizedMatchingEngine(orderRepo, orderBookFactory, new DisabledJournal(),
+                new SimpleMeterRegistry()),
+            Optional.of(archiveStore));
+        return new RetentionService(properties, archiveStore, orderRepo, tradeRepo, executionEventRing,
+            new SimpleMeterRegistry());
+    }
+}
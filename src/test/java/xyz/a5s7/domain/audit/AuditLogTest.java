@@ -0,0 +1,96 @@
+package xyz.a5s7.domain.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+class AuditLogTest {
+    private static final EngineProperties PROPERTIES =
+            new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, BookType.TREE_MAP, 1, 64);
+
+    @TempDir
+    Path directory;
+
+    private final OrderRepo orderRepo = new OrderRepo();
+
+    @Test
+    void shouldLogFillsExecutedSinceStartAcrossFiles() throws IOException {
+        LimitOrder ask = orderRepo.save(new LimitOrder(7L, "BTC", Direction.ASK, 100L, 10L, null));
+        LimitOrder bid = orderRepo.save(new LimitOrder(8L, "BTC", Direction.BID, 101L, 10L, null));
+        // a file is full after a couple of fills
+        run(DataSize.ofBytes(100), ring -> {
+            ring.setReplaying(true);
+            ring.onTrade(bid.getId(), ask.getId(), 100L, 1L, 1_000L);
+            ring.setReplaying(false);
+            for (long i = 1; i <= 3; i++) {
+                ring.onTrade(bid.getId(), ask.getId(), 100L, i, 1_000L + i);
+            }
+            ring.onTrade(42L, ask.getId(), 100L, 4L, 2_000L);
+        });
+
+        List<AuditRecord> records = decodeAll();
+
+        assertThat(AuditLogDecoder.files(directory)).hasSizeGreaterThan(1);
+        assertThat(records).hasSize(4);
+        assertThat(records.getFirst()).isEqualTo(
+                new AuditRecord(1_001L, "BTC", bid.getId(), ask.getId(), 8L, 7L, Direction.BID, 100L, 1L));
+        assertThat(records).extracting(AuditRecord::quantity).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(records.getLast()).isEqualTo(
+                new AuditRecord(2_000L, "", 42L, ask.getId(), 0L, 7L, null, 100L, 4L));
+        assertThat(AuditLogDecoder.toJson(records.getFirst())).isEqualTo("""
+                {"time":"1970-01-01T00:00:01.001Z","ticker":"BTC","aggressingId":2,"restingId":1,\
+                "aggressingUserId":8,"restingUserId":7,"side":"BID","price":100,"quantity":1}""");
+    }
+
+    @Test
+    void shouldStartNewFileOnRestartAndIgnoreTornRecord() throws IOException {
+        LimitOrder ask = orderRepo.save(new LimitOrder(7L, "ETH", Direction.ASK, 5L, 10L, null));
+        run(DataSize.ofMegabytes(1), ring -> ring.onTrade(ask.getId(), ask.getId(), 5L, 1L, 0L));
+        Path first = AuditLogDecoder.files(directory).getFirst();
+        Files.write(first, new byte[] {100, 0, 0, 0, 1, 2}, StandardOpenOption.APPEND);
+        run(DataSize.ofMegabytes(1), ring -> ring.onTrade(ask.getId(), ask.getId(), 5L, 2L, 0L));
+
+        assertThat(AuditLogDecoder.files(directory)).hasSize(2).first().isEqualTo(first);
+        assertThat(decodeAll()).extracting(AuditRecord::quantity).containsExactly(1L, 2L);
+    }
+
+    private void run(DataSize segmentSize, Consumer<ExecutionEventRing> fills) {
+        var auditLog = new AuditLog(new AuditProperties(true, directory.toString(), segmentSize,
+                DataSize.ofKilobytes(4)), orderRepo);
+        var ring = new ExecutionEventRing(PROPERTIES, List.of(auditLog), new SimpleMeterRegistry());
+        ring.start();
+        try {
+            fills.accept(ring);
+        } finally {
+            ring.stop();
+            auditLog.close();
+        }
+    }
+
+    private List<AuditRecord> decodeAll() throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        for (Path file : AuditLogDecoder.files(directory)) {
+            AuditLogDecoder.decode(file, records::add);
+        }
+        return records;
+    }
+}
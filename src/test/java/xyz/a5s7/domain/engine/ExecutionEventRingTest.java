@@ -0,0 +1,89 @@
+package xyz.a5s7.domain.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import xyz.a5s7.domain.model.Trade;
+
+class ExecutionEventRingTest {
+    private static final EngineProperties PROPERTIES =
+            new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, BookType.TREE_MAP, 1, 4);
+
+    private ExecutionEventRing ring;
+
+    @AfterEach
+    void tearDown() {
+        ring.stop();
+    }
+
+    @Test
+    void shouldDeliverEveryEventToEveryHandlerInOrder() {
+        List<Trade> trades = Collections.synchronizedList(new ArrayList<>());
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        ring = new ExecutionEventRing(PROPERTIES, List.of(
+                (event, sequence, endOfBatch) -> trades.add(event.toTrade()),
+                (event, sequence, endOfBatch) -> sequences.add(sequence)), new SimpleMeterRegistry());
+        ring.start();
+
+        for (long i = 1; i <= 100; i++) {
+            ring.onTrade(i, i + 1000, 100L, i, 0L);
+        }
+        ring.stop();
+
+        assertThat(trades).extracting(Trade::aggressingId).containsExactlyElementsOf(
+                sequences.stream().map(sequence -> sequence + 1).toList());
+        assertThat(trades).hasSize(100).first()
+                .usingRecursiveComparison()
+                .ignoringFields("timestamp")
+                .isEqualTo(new Trade(1L, 1001L, 100L, 1L, null));
+    }
+
+    @Test
+    void shouldWaitForSlowestHandlerWhenRingIsFull() throws Exception {
+        var blocked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        List<Long> handled = Collections.synchronizedList(new ArrayList<>());
+        ring = new ExecutionEventRing(PROPERTIES, List.of((event, sequence, endOfBatch) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            handled.add(event.aggressingId());
+        }), new SimpleMeterRegistry());
+        ring.start();
+
+        var published = new AtomicBoolean();
+        var producer = new Thread(() -> {
+            // the handler holds on to the first event, so the fifth does not fit the ring of four
+            for (long i = 1; i <= 5; i++) {
+                ring.onTrade(i, 0L, 100L, 1L, 0L);
+            }
+            published.set(true);
+        });
+        producer.start();
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        producer.join(200);
+
+        assertThat(published).isFalse();
+        assertThat(ring.backlog()).isGreaterThanOrEqualTo(4);
+
+        release.countDown();
+        producer.join(5000);
+        ring.stop();
+
+        assertThat(published).isTrue();
+        assertThat(handled).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+}
@@ -0,0 +1,193 @@
+package xyz.a5s7.domain.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import xyz.a5s7.domain.journal.DisabledJournal;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderBook;
+import xyz.a5s7.domain.model.OrderListener;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.Trade;
+import xyz.a5s7.domain.repository.OrderRepo;
+
+class SequencedMatchingEngineTest {
+    private final List<Trade> trades = Collections.synchronizedList(new ArrayList<>());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private SequencedMatchingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new EngineProperties(EngineMode.SEQUENCED, 2, 8, BookType.LADDER, 64, 8);
+        engine = new SequencedMatchingEngine(properties, new OrderRepo(),
+                new OrderBookFactory(properties, (aggressingId, restingId, price, quantity, timestamp) ->
+                        trades.add(new Trade(aggressingId, restingId, price, quantity, null)), DepthListener.NONE,
+                        OrderListener.NONE),
+                new DisabledJournal(), meterRegistry);
+        engine.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void shouldMatchOrdersOnShardThread() {
+        LimitOrder bid = engine.placeOrder(order("BTC", Direction.BID, 10));
+        LimitOrder ask = engine.placeOrder(order("BTC", Direction.ASK, 4));
+
+        assertThat(bid.getId()).isEqualTo(1L);
+        assertThat(ask.getId()).isEqualTo(2L);
+        assertThat(ask.getPendingQuantity()).isZero();
+        assertThat(bid.getPendingQuantity()).isEqualTo(6L);
+        assertThat(trades).singleElement()
+                .usingRecursiveComparison()
+                .ignoringFields("timestamp", "id")
+                .isEqualTo(new Trade(2L, 1L, 100L, 4L, null));
+    }
+
+    @Test
+    void shouldMeterCommandsAndMatches() {
+        engine.placeOrder(order("BTC", Direction.ASK, 2));
+        engine.placeOrder(order("BTC", Direction.ASK, 2));
+        engine.placeOrder(order("BTC", Direction.BID, 3));
+
+        assertThat(meterRegistry.get("orderbook.engine.wait").tag("command", "place").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("orderbook.engine.execution").tag("command", "place").timer().count())
+                .isEqualTo(3);
+        assertThat(meterRegistry.get("orderbook.engine.matches").summary().totalAmount()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("orderbook.engine.matches").summary().max()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("orderbook.engine.fills").tag("ticker", "BTC").counter().count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void shouldSequenceConcurrentOrdersWithoutLosingAny() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 500;
+        List<String> tickers = List.of("BTC", "ETH", "SOL");
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<LimitOrder> placed = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                // half of the threads buy and half sell the same quantity at the same price
+                Direction direction = t % 2 == 0 ? Direction.BID : Direction.ASK;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        LimitOrder order = engine.placeOrder(order(tickers.get(i % tickers.size()), direction, 1));
+                        ids.add(order.getId());
+                        placed.add(order);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(ids).hasSize(threads * ordersPerThread);
+        assertThat(trades).hasSize(threads * ordersPerThread / 2);
+        assertThat(placed).allSatisfy(order ->
+                assertThat(order.getPendingQuantity()).isZero());
+    }
+
+    @Test
+    void shouldCancelAndAmendOrdersOnShardThread() {
+        LimitOrder first = engine.placeOrder(order("BTC", Direction.BID, 10));
+        LimitOrder second = engine.placeOrder(order("BTC", Direction.BID, 10));
+
+        assertThat(engine.amendOrder(first, 100L, 5L, ZonedDateTime.now())).hasValueSatisfying(order ->
+                assertThat(order.getPendingQuantity()).isEqualTo(5L));
+        assertThat(engine.cancelOrder(second)).hasValueSatisfying(order ->
+                assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        assertThat(engine.cancelOrder(second)).isEmpty();
+
+        engine.placeOrder(order("BTC", Direction.ASK, 20));
+
+        assertThat(trades).singleElement().extracting(Trade::restingId, Trade::quantity).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void shouldPlaceBatchGroupedByTickerAndCancelAllOrdersOfUser() {
+        List<PlaceResult> results = engine.placeOrders(List.of(
+                order("BTC", Direction.BID, 10),
+                order("ETH", Direction.BID, 5),
+                new LimitOrder(100L, "BTC", Direction.ASK, 100L, 4L, ZonedDateTime.now()),
+                new LimitOrder(200L, "ETH", Direction.BID, 99L, 1L, ZonedDateTime.now())));
+
+        assertThat(results).allMatch(PlaceResult::isPlaced);
+        assertThat(results).extracting(result -> result.order().getTicker())
+                .containsExactly("BTC", "ETH", "BTC", "ETH");
+        assertThat(results.get(0).order().getPendingQuantity()).isEqualTo(6L);
+        assertThat(trades).singleElement().extracting(Trade::aggressingId, Trade::restingId)
+                .containsExactly(results.get(2).order().getId(), results.get(0).order().getId());
+
+        assertThat(engine.cancelOrders("ETH", 100L)).singleElement()
+                .isSameAs(results.get(1).order());
+        assertThat(engine.cancelOrders("ETH", 100L)).isEmpty();
+        assertThat(engine.cancelOrders("SOL", 100L)).isEmpty();
+        assertThat(results.get(3).order().getStatus()).isEqualTo(OrderStatus.OPEN);
+    }
+
+    @Test
+    void shouldCompletePlacementAsynchronously() {
+        CompletableFuture<LimitOrder> bid = engine.placeOrderAsync(order("BTC", Direction.BID, 10));
+        CompletableFuture<LimitOrder> ask = engine.placeOrderAsync(order("BTC", Direction.ASK, 4));
+
+        assertThat(ask.join().getPendingQuantity()).isZero();
+        assertThat(bid.join().getPendingQuantity()).isEqualTo(6L);
+        assertThat(trades).singleElement().extracting(Trade::aggressingId, Trade::restingId)
+                .containsExactly(ask.join().getId(), bid.join().getId());
+    }
+
+    @Test
+    void shouldVisitOnlyExistingBookWithoutCreatingIt() {
+        engine.placeOrder(order("BTC", Direction.BID, 10));
+
+        assertThat(engine.withExistingOrderBook("BTC", OrderBook::getTicker)).contains("BTC");
+        assertThat(engine.withExistingOrderBook("SOL", OrderBook::getTicker)).isEmpty();
+        List<String> tickers = Collections.synchronizedList(new ArrayList<>());
+        engine.forEachOrderBook(orderBook -> tickers.add(orderBook.getTicker()));
+        assertThat(tickers).containsExactly("BTC");
+    }
+
+    @Test
+    void shouldRejectOrdersWhenStopped() {
+        engine.stop();
+
+        assertThrows(IllegalStateException.class, () -> engine.placeOrder(order("BTC", Direction.BID, 1)));
+        assertThat(engine.placeOrderAsync(order("BTC", Direction.BID, 1)))
+                .failsWithin(Duration.ZERO)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private static LimitOrder order(String ticker, Direction direction, int quantity) {
+        return new LimitOrder(100L, ticker, direction, 100L, quantity, ZonedDateTime.now());
+    }
+}
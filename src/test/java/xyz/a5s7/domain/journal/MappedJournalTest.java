@@ -0,0 +1,246 @@
+package xyz.a5s7.domain.journal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.model.TradingPhase;
+
+class MappedJournalTest {
+    @TempDir
+    Path directory;
+
+    private final List<MappedJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(MappedJournal::stop);
+    }
+
+    @Test
+    void shouldReplayRecordsInOrderOfAppend() {
+        MappedJournal journal = open(DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        ZonedDateTime timestamp = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LimitOrder order = new LimitOrder(7L, 100L, "BTC", Direction.ASK, 4325100L, 25L, timestamp)
+                .withType(OrderType.MARKET, TimeInForce.FOK)
+                .withSelfTradePrevention(SelfTradePrevention.CANCEL_OLDEST)
+                .withStopPrice(4325000L);
+
+        assertThat(journal.appendPlace(order)).isEqualTo(1L);
+        assertThat(journal.appendAmend(order, 4325000L, 20L, null)).isEqualTo(2L);
+        assertThat(journal.appendCancel(order)).isEqualTo(3L);
+        assertThat(journal.appendPhase("BTC", TradingPhase.AUCTION_CALL, null)).isEqualTo(4L);
+
+        List<String> records = new ArrayList<>();
+        long last = journal.replay(0, recording(records));
+
+        assertThat(last).isEqualTo(4L);
+        assertThat(records).containsExactly(
+                "1 place 7 100 BTC ASK 4325100 25 " + timestamp.toInstant() + " CANCEL_OLDEST MARKET FOK 0 4325000",
+                "2 amend 7 BTC 4325000 20 null",
+                "3 cancel 7 BTC",
+                "4 phase BTC AUCTION_CALL null");
+    }
+
+    @Test
+    void shouldContinueAfterLastRecordWhenReopened() {
+        MappedJournal journal = open(DataSize.ofMegabytes(1), FsyncPolicy.GROUP_COMMIT);
+        journal.appendPlace(order(1L));
+        journal.appendPlace(order(2L));
+        journal.stop();
+
+        MappedJournal reopened = open(DataSize.ofMegabytes(1), FsyncPolicy.GROUP_COMMIT);
+        assertThat(reopened.lastSequence()).isEqualTo(2L);
+        assertThat(reopened.appendCancel(order(1L))).isEqualTo(3L);
+
+        List<String> records = new ArrayList<>();
+        assertThat(reopened.replay(1, recording(records))).isEqualTo(3L);
+        assertThat(records).extracting(record -> record.substring(0, record.indexOf(' ', 2)))
+                .containsExactly("2 place", "3 cancel");
+    }
+
+    @Test
+    void shouldRollOverToNewSegmentWhenFull() throws Exception {
+        MappedJournal journal = open(DataSize.ofBytes(256), FsyncPolicy.ASYNC);
+        for (long id = 1; id <= 20; id++) {
+            journal.appendPlace(order(id));
+        }
+        journal.stop();
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+        MappedJournal reopened = open(DataSize.ofBytes(256), FsyncPolicy.ASYNC);
+        List<String> records = new ArrayList<>();
+        assertThat(reopened.replay(0, recording(records))).isEqualTo(20L);
+        assertThat(records).hasSize(20);
+        records.clear();
+        assertThat(reopened.replay(15, recording(records))).isEqualTo(20L);
+        assertThat(records).hasSize(5).first().asString().startsWith("16 place 16 ");
+    }
+
+    @Test
+    void shouldAcknowledgeAfterGroupCommit() {
+        MappedJournal journal = open(DataSize.ofMegabytes(1), FsyncPolicy.GROUP_COMMIT);
+
+        long sequence = journal.appendPlace(order(1L));
+        journal.awaitDurable(sequence);
+
+        assertThat(sequence).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldIgnoreAppendsWhileReplaying() {
+        MappedJournal journal = open(DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        journal.appendPlace(order(1L));
+
+        journal.replay(0, new RecordingHandler(new ArrayList<>()) {
+            @Override
+            public void onPlace(long sequence, LimitOrder order) {
+                journal.appendPlace(order);
+            }
+        });
+
+        assertThat(journal.lastSequence()).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldReadRecordsUpToSequenceWhileAppending() {
+        MappedJournal journal = open(DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        LimitOrder order = new LimitOrder(7L, 100L, "BTC", Direction.ASK, 4325100L, 25L, null);
+        order.reducePendingQuantity(10L);
+        journal.appendPlace(order(1L));
+        journal.appendRestore(order);
+        journal.appendRemove(order);
+        journal.appendPlace(order(2L));
+
+        List<String> records = new ArrayList<>();
+        journal.read(1, 3, new RecordingHandler(records) {
+            @Override
+            public void onRemove(long sequence, String ticker, long orderId) {
+                super.onRemove(sequence, ticker, orderId);
+                journal.appendCancel(order);
+            }
+        });
+
+        assertThat(records).containsExactly("2 restore 7 BTC 25 15", "3 remove 7 BTC");
+        assertThat(journal.lastSequence()).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldCopyRecordsToAnotherJournalKeepingSequences() {
+        MappedJournal source = open(DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        MappedJournal copy = open(directory.resolve("copy"), DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        LimitOrder order = new LimitOrder(7L, 100L, "BTC", Direction.ASK, 4325100L, 25L, null);
+        source.appendPlace(order);
+        source.appendAmend(order, 4325000L, 20L, null);
+        source.appendCancel(order);
+
+        List<String> applied = new ArrayList<>();
+        source.readRecords(0, 3, (sequence, record) -> {
+            assertThat(copy.appendCopy(record)).isEqualTo(sequence);
+            copy.apply(record, recording(applied));
+        });
+
+        List<String> records = new ArrayList<>();
+        copy.replay(0, recording(records));
+        assertThat(records).containsExactly("1 place 7 100 BTC ASK 4325100 25 null NONE LIMIT GTC 0 0",
+                "2 amend 7 BTC 4325000 20 null", "3 cancel 7 BTC");
+        assertThat(applied).isEqualTo(records);
+        assertThat(copy.appendPlace(order(1L))).isEqualTo(4L);
+    }
+
+    @Test
+    void shouldRejectCopyOfRecordNotFollowingLastOne() {
+        MappedJournal source = open(DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        MappedJournal copy = open(directory.resolve("copy"), DataSize.ofMegabytes(1), FsyncPolicy.EVERY_MESSAGE);
+        source.appendPlace(order(1L));
+        source.appendPlace(order(2L));
+
+        source.readRecords(1, 2, (sequence, record) -> assertThatThrownBy(() -> copy.appendCopy(record))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Journal record #2 does not follow #0"));
+        assertThat(copy.lastSequence()).isZero();
+    }
+
+    private MappedJournal open(DataSize segmentSize, FsyncPolicy fsync) {
+        return open(directory, segmentSize, fsync);
+    }
+
+    private MappedJournal open(Path directory, DataSize segmentSize, FsyncPolicy fsync) {
+        var journal = new MappedJournal(new JournalProperties(true, directory.toString(), segmentSize, fsync,
+                Duration.ofNanos(100_000)));
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private static LimitOrder order(long id) {
+        return new LimitOrder(id, 1L, "ETH", Direction.BID, 100L, 1L, null);
+    }
+
+    private static RecordingHandler recording(List<String> records) {
+        return new RecordingHandler(records);
+    }
+
+    private static class RecordingHandler implements JournalHandler {
+        private final List<String> records;
+
+        RecordingHandler(List<String> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void onPlace(long sequence, LimitOrder order) {
+            records.add(sequence + " place " + order.getId() + " " + order.getUserId() + " " + order.getTicker()
+                    + " " + order.getDirection() + " " + order.getPrice() + " " + order.getQuantity() + " "
+                    + (order.getTimestamp() == null ? null : order.getTimestamp().toInstant()) + " "
+                    + order.getSelfTradePrevention() + " " + order.getOrderType() + " " + order.getTimeInForce() + " "
+                    + order.getDisplayQuantity() + " " + order.getStopPrice());
+        }
+
+        @Override
+        public void onCancel(long sequence, String ticker, long orderId) {
+            records.add(sequence + " cancel " + orderId + " " + ticker);
+        }
+
+        @Override
+        public void onAmend(long sequence, String ticker, long orderId, long price, long quantity,
+                            ZonedDateTime timestamp) {
+            records.add(sequence + " amend " + orderId + " " + ticker + " " + price + " " + quantity + " " + timestamp);
+        }
+
+        @Override
+        public void onRestore(long sequence, LimitOrder order) {
+            records.add(sequence + " restore " + order.getId() + " " + order.getTicker() + " " + order.getQuantity()
+                    + " " + order.getPendingQuantity());
+        }
+
+        @Override
+        public void onRemove(long sequence, String ticker, long orderId) {
+            records.add(sequence + " remove " + orderId + " " + ticker);
+        }
+
+        @Override
+        public void onPhase(long sequence, String ticker, TradingPhase phase, ZonedDateTime timestamp) {
+            records.add(sequence + " phase " + ticker + " " + phase + " " + timestamp);
+        }
+    }
+}
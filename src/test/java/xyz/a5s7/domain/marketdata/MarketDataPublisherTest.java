@@ -0,0 +1,188 @@
+package xyz.a5s7.domain.marketdata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.service.InstrumentProperties;
+import xyz.a5s7.domain.service.InstrumentRegistry;
+
+class MarketDataPublisherTest {
+    private static final InstrumentProperties.Spec SPEC =
+            new InstrumentProperties.Spec(new BigDecimal("0.01"), new BigDecimal("0.01"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MarketDataPublisher publisher = new MarketDataPublisher(new MarketDataProperties(16),
+            meterRegistry, new InstrumentRegistry(new InstrumentProperties(SPEC, Map.of("BTC", SPEC))));
+
+    @BeforeEach
+    void setUp() {
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+    }
+
+    @Test
+    void shouldServeDepthFromAggregatedLevels() throws Exception {
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 5L, 1);
+        publisher.onLevelChange("BTC", Direction.BID, 102L, 3L, 2);
+        publisher.onLevelChange("BTC", Direction.BID, 101L, 4L, 1);
+        publisher.onLevelChange("BTC", Direction.ASK, 105L, 1L, 1);
+        publisher.onLevelChange("BTC", Direction.ASK, 104L, 2L, 1);
+        publisher.onLevelChange("BTC", Direction.ASK, 104L, 0L, 0);
+        publisher.onLevelChange("ETH", Direction.ASK, 7L, 1L, 1);
+        awaitApplied();
+
+        assertThat(publisher.getDepth("BTC", 2)).isEqualTo(new BookDepth("BTC", 6L,
+                List.of(new Level(102L, 3L, 2), new Level(101L, 4L, 1)),
+                List.of(new Level(105L, 1L, 1))));
+        assertThat(publisher.getTopOfBook("BTC")).isEqualTo(new TopOfBook("BTC", 6L,
+                new Level(102L, 3L, 2), new Level(105L, 1L, 1)));
+        assertThat(publisher.getDepth("SOL", 5)).isEqualTo(new BookDepth("SOL", 0L, List.of(), List.of()));
+        assertThrows(IllegalArgumentException.class, () -> publisher.getDepth("BTC", 0));
+    }
+
+    @Test
+    void shouldMeterDepthOfChangedBooks() throws Exception {
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 5L, 1);
+        publisher.onLevelChange("BTC", Direction.BID, 101L, 4L, 1);
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 2L, 1);
+        publisher.onLevelChange("BTC", Direction.ASK, 104L, 2L, 1);
+        publisher.onLevelChange("BTC", Direction.ASK, 104L, 0L, 0);
+        awaitApplied();
+        publisher.getDepth("SOL", 5);
+
+        assertThat(meterRegistry.get("orderbook.book.levels").tags("ticker", "BTC", "side", "bid").gauge().value())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("orderbook.book.quantity").tags("ticker", "BTC", "side", "bid").gauge().value())
+                .isEqualTo(6.0);
+        assertThat(meterRegistry.get("orderbook.book.levels").tags("ticker", "BTC", "side", "ask").gauge().value())
+                .isZero();
+        assertThat(meterRegistry.get("orderbook.book.quantity").tags("ticker", "BTC", "side", "ask").gauge().value())
+                .isZero();
+        assertThat(meterRegistry.find("orderbook.book.levels").tag("ticker", "SOL").gauge()).isNull();
+    }
+
+    @Test
+    void shouldConflateUpdatesWhileSubscriberIsBusy() throws Exception {
+        var busy = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var done = new CountDownLatch(1);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        publisher.subscribe("BTC", 10, new MarketDataListener() {
+            @Override
+            public void onBook(BookDepth book) {
+                received.add(book);
+                busy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onLevel(DepthUpdate update) {
+                received.add(update);
+            }
+
+            @Override
+            public void onTopOfBook(TopOfBook topOfBook) {
+                received.add(topOfBook);
+                done.countDown();
+            }
+        });
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 1L, 1);
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 2L, 2);
+        publisher.onLevelChange("BTC", Direction.ASK, 101L, 5L, 1);
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 3L, 3);
+        awaitApplied();
+        release.countDown();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(
+                new BookDepth("BTC", 0L, List.of(), List.of()),
+                new DepthUpdate("BTC", 4L, Direction.BID, 100L, 3L, 3),
+                new DepthUpdate("BTC", 3L, Direction.ASK, 101L, 5L, 1),
+                new TopOfBook("BTC", 4L, new Level(100L, 3L, 3), new Level(101L, 5L, 1)));
+    }
+
+    @Test
+    void shouldSubscribeOnlyToListedOrTradedTickers() throws Exception {
+        var listener = new MarketDataListener() {
+            @Override
+            public void onBook(BookDepth book) {
+            }
+
+            @Override
+            public void onLevel(DepthUpdate update) {
+            }
+
+            @Override
+            public void onTopOfBook(TopOfBook topOfBook) {
+            }
+        };
+        assertThrows(IllegalArgumentException.class, () -> publisher.subscribe("SOL", 10, listener));
+        publisher.onLevelChange("ETH", Direction.ASK, 7L, 1L, 1);
+        awaitApplied();
+
+        publisher.subscribe("BTC", 10, listener).close();
+        publisher.subscribe("ETH", 10, listener).close();
+    }
+
+    @Test
+    void shouldStreamChangesOnceStartedAgain() throws Exception {
+        publisher.stop();
+        publisher.onLevelChange("BTC", Direction.BID, 100L, 5L, 1);
+        publisher.start();
+        awaitApplied();
+        var received = new CountDownLatch(1);
+        publisher.subscribe("BTC", 10, new MarketDataListener() {
+            @Override
+            public void onBook(BookDepth book) {
+            }
+
+            @Override
+            public void onLevel(DepthUpdate update) {
+                received.countDown();
+            }
+
+            @Override
+            public void onTopOfBook(TopOfBook topOfBook) {
+            }
+        });
+
+        publisher.onLevelChange("BTC", Direction.ASK, 101L, 2L, 1);
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publisher.getDepth("BTC", 1)).isEqualTo(new BookDepth("BTC", 2L,
+                List.of(new Level(100L, 5L, 1)), List.of(new Level(101L, 2L, 1))));
+        assertThat(meterRegistry.find("orderbook.marketdata.backlog").gauges()).hasSize(1);
+    }
+
+    private void awaitApplied() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (publisher.backlog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(publisher.backlog()).isZero();
+    }
+}
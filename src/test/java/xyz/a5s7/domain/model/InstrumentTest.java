@@ -0,0 +1,49 @@
+package xyz.a5s7.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class InstrumentTest {
+    private final Instrument instrument = new Instrument("BTC", new BigDecimal("0.01"), new BigDecimal("0.0001"));
+
+    @Test
+    void shouldConvertPriceToTicksAndBack() {
+        long ticks = instrument.toTicks(new BigDecimal("43251.5"));
+
+        assertThat(ticks).isEqualTo(4325150L);
+        assertThat(instrument.toPrice(ticks)).isEqualTo(new BigDecimal("43251.50"));
+    }
+
+    @Test
+    void shouldConvertQuantityToLotsAndBack() {
+        long lots = instrument.toLots(new BigDecimal("1.65"));
+
+        assertThat(lots).isEqualTo(16500L);
+        assertThat(instrument.toQuantity(lots)).isEqualTo(new BigDecimal("1.6500"));
+    }
+
+    @Test
+    void shouldRejectPriceNotMultipleOfTickSize() {
+        assertThatThrownBy(() -> instrument.toTicks(new BigDecimal("43251.005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Price must be a multiple of tick size 0.01");
+    }
+
+    @Test
+    void shouldRejectQuantityNotMultipleOfLotSize() {
+        assertThatThrownBy(() -> instrument.toLots(new BigDecimal("0.00001")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Quantity must be a multiple of lot size 0.0001");
+    }
+
+    @Test
+    void shouldRejectValuesOutOfRange() {
+        assertThatThrownBy(() -> instrument.toTicks(new BigDecimal("1e30")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Price is out of range");
+    }
+}
@@ -0,0 +1,98 @@
+package xyz.a5s7.domain.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LadderOrderBookTest extends OrderBookTest {
+    private static final int LADDER_LEVELS = 16;
+
+    @Override
+    protected OrderBook createOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener) {
+        // a short ladder, so that tests can place orders beyond it
+        return new LadderOrderBook(ticker, tradeListener, depthListener, LADDER_LEVELS);
+    }
+
+    @Test
+    void shouldKeepFarLevelsInOverflowInPriceOrder() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 1000L, 1L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 5000L, 1L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 500L, 1L, null));
+        orderBook.addOrder(new LimitOrder(4L, 100L, "ticker", Direction.ASK, 1003L, 1L, null));
+        orderBook.addOrder(new LimitOrder(5L, 100L, "ticker", Direction.BID, 400L, 1L, null));
+        orderBook.addOrder(new LimitOrder(6L, 100L, "ticker", Direction.BID, 9L, 1L, null));
+
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(3L, 1L, 4L, 2L);
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(5L, 6L);
+        assertThat(orderBook.getLevelCount(Direction.ASK)).isEqualTo(4);
+    }
+
+    @Test
+    void shouldSweepFromLadderIntoOverflowAndReanchor() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 1000L, 1L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 1005L, 1L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 2000L, 1L, null));
+        orderBook.addOrder(new LimitOrder(4L, 100L, "ticker", Direction.ASK, 2003L, 1L, null));
+        orderBook.addOrder(new LimitOrder(5L, 100L, "ticker", Direction.ASK, 3000L, 1L, null));
+
+        // takes both ladder levels and the first overflow level, the ladder is re-anchored around 2003
+        orderBook.addOrder(new LimitOrder(6L, 200L, "ticker", Direction.BID, 2000L, 3L, null));
+
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(4L, 5L);
+
+        orderBook.addOrder(new LimitOrder(7L, 200L, "ticker", Direction.BID, 2001L, 1L, null));
+        orderBook.addOrder(new LimitOrder(8L, 100L, "ticker", Direction.ASK, 2002L, 1L, null));
+        orderBook.addOrder(new LimitOrder(9L, 200L, "ticker", Direction.BID, 5000L, 3L, null));
+
+        assertThat(orders(Direction.ASK)).isEmpty();
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(7L);
+        assertThat(orderBook.getLevelCount(Direction.ASK)).isZero();
+    }
+
+    @Test
+    void shouldMatchLikeTreeMapBookOnRandomFlow() {
+        List<Trade> expectedTrades = new ArrayList<>();
+        List<Trade> actualTrades = new ArrayList<>();
+        OrderBook expected = new TreeMapOrderBook("ticker", collectingTo(expectedTrades));
+        OrderBook actual = new LadderOrderBook("ticker", collectingTo(actualTrades), LADDER_LEVELS);
+        Random random = new Random(42);
+        long mid = 1000;
+        for (long id = 1; id <= 5_000; id++) {
+            // drifting mid with a wide spread of prices, so that levels move in and out of the ladder
+            mid = Math.max(100, mid + random.nextInt(3) - 1);
+            Direction direction = random.nextBoolean() ? Direction.BID : Direction.ASK;
+            long price = mid + (long) (random.nextGaussian() * 20);
+            long quantity = 1 + random.nextInt(10);
+            int action = random.nextInt(10);
+            if (action < 3) {
+                long orderId = 1 + random.nextInt((int) id);
+                assertThat(actual.cancelOrder(orderId) == null).isEqualTo(expected.cancelOrder(orderId) == null);
+            } else if (action < 4) {
+                long orderId = 1 + random.nextInt((int) id);
+                LimitOrder expectedOrder = expected.amendOrder(orderId, price, 100, null);
+                LimitOrder actualOrder = actual.amendOrder(orderId, price, 100, null);
+                assertThat(actualOrder == null).isEqualTo(expectedOrder == null);
+            } else {
+                expected.addOrder(new LimitOrder(id, 1L, "ticker", direction, price, quantity, null));
+                actual.addOrder(new LimitOrder(id, 1L, "ticker", direction, price, quantity, null));
+            }
+        }
+
+        assertThat(actualTrades)
+                .containsExactlyElementsOf(expectedTrades);
+        for (Direction side : Direction.values()) {
+            assertThat(ids(actual, side)).containsExactlyElementsOf(ids(expected, side));
+            assertThat(actual.getLevelCount(side)).isEqualTo(expected.getLevelCount(side));
+        }
+    }
+
+    private static List<Long> ids(OrderBook orderBook, Direction side) {
+        List<Long> ids = new ArrayList<>();
+        orderBook.forEachOrder(side, order -> ids.add(order.getId()));
+        return ids;
+    }
+}
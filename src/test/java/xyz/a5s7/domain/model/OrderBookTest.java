@@ -1,146 +1,162 @@
 package xyz.a5s7.domain.model;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.verify;
 
-import java.math.BigDecimal;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 
-public class OrderBookTest {
-    private OrderBook orderBook;
-    @Captor
-    private ArgumentCaptor<Trade> tradeCaptor;
-    private TradeListener tradeListener;
+/**
+ * Matching behaviour every {@link OrderBook} implementation must have.
+ */
+public abstract class OrderBookTest {
+    protected OrderBook orderBook;
+    private final List<Trade> trades = new ArrayList<>();
+    private final List<String> levelChanges = new ArrayList<>();
 
     @BeforeEach
     public void setup() {
-        var tradeListeners = new ArrayList<TradeListener>();
-        tradeListener = mock(TradeListener.class);
-        tradeListeners.add(tradeListener);
-        orderBook = new OrderBook("ticker", tradeListeners);
-        tradeCaptor = ArgumentCaptor.forClass(Trade.class);
+        trades.clear();
+        levelChanges.clear();
+        orderBook = createOrderBook("ticker", collectingTo(trades), (ticker, side, price, quantity, orderCount) ->
+                levelChanges.add(side + " " + price + " " + quantity + " " + orderCount));
     }
 
+    protected abstract OrderBook createOrderBook(String ticker, TradeListener tradeListener,
+                                                 DepthListener depthListener);
+
     @Test
     public void shouldMatchOrdersWhenPricesAreEqual() {
-        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(10), null);
-        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, new BigDecimal(100), new BigDecimal(10), null);
+        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, null);
+        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, 100L, 10L, null);
 
         orderBook.addOrder(buyOrder);
         orderBook.addOrder(sellOrder);
 
-        assertThat(orderBook.getAsksMap()).isEmpty();
-        assertThat(orderBook.getBidsMap()).isEmpty();
+        assertThat(levels(Direction.ASK)).isEmpty();
+        assertThat(levels(Direction.BID)).isEmpty();
 
-        verify(tradeListener).onTrade(tradeCaptor.capture());
-        Trade capturedTrade = tradeCaptor.getValue();
-        assertThat(capturedTrade)
+        assertThat(trades).singleElement()
                 .usingRecursiveComparison()
                 .ignoringFields("timestamp", "id")
-                .isEqualTo(new Trade(2L, 1L, new BigDecimal(100), new BigDecimal(10), null));
+                .isEqualTo(new Trade(2L, 1L, 100L, 10L, null));
     }
 
     @Test
     public void shouldNotMatchOrdersWhenPricesAreNotEqual() {
-        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(10), null);
-        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, new BigDecimal(102), new BigDecimal(5), null);
+        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, null);
+        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, 102L, 5L, null);
 
         orderBook.addOrder(buyOrder);
         orderBook.addOrder(sellOrder);
 
-        verify(tradeListener, never()).onTrade(any());
-        assertThat(orderBook.getBidsMap()).hasSize(1);
-        assertThat(orderBook.getAsksMap()).hasSize(1);
+        assertThat(trades).isEmpty();
+        assertThat(levels(Direction.BID)).hasSize(1);
+        assertThat(levels(Direction.ASK)).hasSize(1);
     }
 
     @Test
     public void shouldPartiallyMatchOrdersWhenSellQuantityIsLessThanBuyQuantity() {
-        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(10), null);
-        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, new BigDecimal(100), new BigDecimal(5), null);
+        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, null);
+        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, 100L, 5L, null);
 
         orderBook.addOrder(buyOrder);
         orderBook.addOrder(sellOrder);
 
-        assertThat(orderBook.getBidsMap()).hasSize(1);
-        assertThat(orderBook.getBidsMap().get(new BigDecimal(100))).hasSize(1);
-        assertThat(orderBook.getBidsMap().get(new BigDecimal(100)).peek().getPendingQuantity())
-                .isEqualTo(new BigDecimal(5));
-        assertThat(orderBook.getAsksMap()).isEmpty();
+        assertThat(levels(Direction.BID)).hasSize(1);
+        assertThat(levels(Direction.BID).get(100L)).hasSize(1);
+        assertThat(levels(Direction.BID).get(100L).getFirst().getPendingQuantity())
+                .isEqualTo(5L);
+        assertThat(levels(Direction.ASK)).isEmpty();
 
-        verify(tradeListener).onTrade(tradeCaptor.capture());
-        Trade capturedTrade = tradeCaptor.getValue();
-        assertThat(capturedTrade)
+        assertThat(trades).singleElement()
                 .usingRecursiveComparison()
                 .ignoringFields("timestamp", "id")
-                .isEqualTo(new Trade(2L, 1L, new BigDecimal(100), new BigDecimal(5), null));
+                .isEqualTo(new Trade(2L, 1L, 100L, 5L, null));
     }
 
     @Test
     public void shouldPartiallyMatchOrdersWhenAskPriceIsLowerBestBidPrice() {
-        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(5), null);
-        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, new BigDecimal(98), new BigDecimal(10), null);
+        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 5L, null);
+        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, 98L, 10L, null);
 
         orderBook.addOrder(buyOrder);
         orderBook.addOrder(sellOrder);
 
-        assertThat(orderBook.getBidsMap()).isEmpty();
-        assertThat(orderBook.getAsksMap()).hasSize(1);
-        assertThat(orderBook.getAsksMap().get(new BigDecimal(98))).hasSize(1);
-        assertThat(orderBook.getAsksMap().get(new BigDecimal(98)).peek().getPendingQuantity())
-                .isEqualTo(new BigDecimal(5));
+        assertThat(levels(Direction.BID)).isEmpty();
+        assertThat(levels(Direction.ASK)).hasSize(1);
+        assertThat(levels(Direction.ASK).get(98L)).hasSize(1);
+        assertThat(levels(Direction.ASK).get(98L).getFirst().getPendingQuantity())
+                .isEqualTo(5L);
 
-        verify(tradeListener).onTrade(tradeCaptor.capture());
-        Trade capturedTrade = tradeCaptor.getValue();
-        assertThat(capturedTrade)
+        assertThat(trades).singleElement()
                 .usingRecursiveComparison()
                 .ignoringFields("timestamp", "id")
-                .isEqualTo(new Trade(2L, 1L, new BigDecimal(100), new BigDecimal(5), null));
+                .isEqualTo(new Trade(2L, 1L, 100L, 5L, null));
     }
 
     @Test
     public void shouldPartiallyMatchOrdersWhenBidPriceIsHigherBestAskPrice() {
-        LimitOrder sellOrder = new LimitOrder(1L, 100L, "ticker", Direction.ASK, new BigDecimal(98), new BigDecimal(5), null);
-        LimitOrder buyOrder = new LimitOrder(2L, 200L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(10), null);
+        LimitOrder sellOrder = new LimitOrder(1L, 100L, "ticker", Direction.ASK, 98L, 5L, null);
+        LimitOrder buyOrder = new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 10L, null);
 
         orderBook.addOrder(sellOrder);
         orderBook.addOrder(buyOrder);
 
-        assertThat(orderBook.getBidsMap()).hasSize(1);
-        assertThat(orderBook.getBidsMap().get(new BigDecimal(100))).hasSize(1);
-        assertThat(orderBook.getBidsMap().get(new BigDecimal(100)).peek().getPendingQuantity())
-                .isEqualTo(new BigDecimal(5));
+        assertThat(levels(Direction.BID)).hasSize(1);
+        assertThat(levels(Direction.BID).get(100L)).hasSize(1);
+        assertThat(levels(Direction.BID).get(100L).getFirst().getPendingQuantity())
+                .isEqualTo(5L);
 
-        verify(tradeListener).onTrade(tradeCaptor.capture());
-        Trade capturedTrade = tradeCaptor.getValue();
-        assertThat(capturedTrade)
+        assertThat(trades).singleElement()
                 .usingRecursiveComparison()
                 .ignoringFields("timestamp", "id")
-                .isEqualTo(new Trade(2L, 1L, new BigDecimal(98), new BigDecimal(5), null));
+                .isEqualTo(new Trade(2L, 1L, 98L, 5L, null));
     }
 
     @Test
-    void shouldCallAllTradeListeners() {
-        LimitOrder buyOrder = new LimitOrder(1L, 100L, "ticker", Direction.BID, new BigDecimal(100), new BigDecimal(10), null);
-        LimitOrder sellOrder = new LimitOrder(2L, 200L, "ticker", Direction.ASK, new BigDecimal(100), new BigDecimal(10), null);
+    void shouldStampTradesWithTimeOfAggressingCommand() {
+        List<Long> timestamps = new ArrayList<>();
+        OrderBook orderBook = createOrderBook("ticker",
+                (aggressingId, restingId, price, quantity, timestamp) -> timestamps.add(timestamp),
+                DepthListener.NONE);
+        ZonedDateTime placed = ZonedDateTime.parse("2025-01-03T15:16:11.997206Z");
+        ZonedDateTime amended = placed.plusSeconds(5);
 
-        var tradeListener1 = mock(TradeListener.class);
-        var tradeListener2 = mock(TradeListener.class);
-        OrderBook orderBook = new OrderBook("ticker", List.of(tradeListener1, tradeListener2));
-        orderBook.addOrder(buyOrder);
-        orderBook.addOrder(sellOrder);
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, placed.minusDays(1)));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.ASK, 100L, 4L, placed));
+        orderBook.addOrder(new LimitOrder(3L, 200L, "ticker", Direction.ASK, 101L, 4L, placed.plusSeconds(1)));
+        orderBook.amendOrder(3L, 100L, 4L, amended);
 
-        verify(tradeListener1).onTrade(any(Trade.class));
-        verify(tradeListener2).onTrade(any(Trade.class));
+        assertThat(timestamps).containsExactly(placed.toInstant().toEpochMilli(), amended.toInstant().toEpochMilli());
+    }
+
+    @Test
+    void shouldReportEachChangedLevelOnce() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 101L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 102L, 5L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 101L, 3L, null));
+        orderBook.addOrder(new LimitOrder(4L, 200L, "ticker", Direction.BID, 102L, 10L, null));
+        orderBook.cancelOrder(2L);
+        orderBook.addOrder(new LimitOrder(5L, 200L, "ticker", Direction.BID, 99L, 4L, null));
+        orderBook.amendOrder(5L, 99L, 3L, null);
+
+        assertThat(levelChanges).containsExactly(
+                "ASK 101 5 1",
+                "ASK 102 5 1",
+                "ASK 101 8 2",
+                "ASK 101 0 0",
+                "ASK 102 3 1",
+                "ASK 102 0 0",
+                "BID 99 4 1",
+                "BID 99 3 1");
     }
 
     @Test
@@ -150,6 +166,511 @@ public class OrderBookTest {
 
     @Test
     void shouldNotAllowOrderWithoutId() {
-        assertThrows(IllegalArgumentException.class, () -> orderBook.addOrder(new LimitOrder(null, "", null, null, BigDecimal.TEN, null)));
+        assertThrows(IllegalArgumentException.class, () -> orderBook.addOrder(new LimitOrder(null, "", null, 0L, 10L, null)));
+    }
+
+    @Test
+    void shouldSweepLevelsInPriceThenTimePriority() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 1005L, 40L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 1004L, 20L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 1005L, 20L, null));
+        orderBook.addOrder(new LimitOrder(4L, 100L, "ticker", Direction.ASK, 1007L, 10L, null));
+
+        orderBook.addOrder(new LimitOrder(5L, 200L, "ticker", Direction.BID, 1006L, 55L, null));
+
+        assertThat(trades)
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("timestamp", "id")
+                .containsExactly(
+                        new Trade(5L, 2L, 1004L, 20L, null),
+                        new Trade(5L, 1L, 1005L, 35L, null));
+        assertThat(orderBook.getLevelCount(Direction.ASK)).isEqualTo(2);
+        assertThat(orderBook.getLevelCount(Direction.BID)).isZero();
+        assertThat(levels(Direction.ASK).get(1005L))
+                .extracting(LimitOrder::getId, LimitOrder::getPendingQuantity)
+                .containsExactly(tuple(1L, 5L), tuple(3L, 20L));
+    }
+
+    @Test
+    void shouldVisitOrdersFromBestPrice() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 1000L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.BID, 1002L, 10L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.BID, 1000L, 10L, null));
+        orderBook.addOrder(new LimitOrder(4L, 100L, "ticker", Direction.ASK, 1010L, 10L, null));
+        orderBook.addOrder(new LimitOrder(5L, 100L, "ticker", Direction.ASK, 1005L, 10L, null));
+
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(2L, 1L, 3L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void shouldCancelRestingOrder() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.BID, 99L, 10L, null));
+
+        LimitOrder cancelled = orderBook.cancelOrder(3L);
+        orderBook.cancelOrder(1L);
+
+        assertThat(cancelled.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(2L);
+        assertThat(orderBook.getLevelCount(Direction.BID)).isEqualTo(1);
+        assertThat(orderBook.cancelOrder(3L)).isNull();
+
+        orderBook.addOrder(new LimitOrder(4L, 200L, "ticker", Direction.ASK, 99L, 20L, null));
+
+        assertThat(trades).singleElement()
+                .usingRecursiveComparison()
+                .ignoringFields("timestamp", "id")
+                .isEqualTo(new Trade(4L, 2L, 100L, 10L, null));
+    }
+
+    @Test
+    void shouldCancelAllRestingOrdersOfUser() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 99L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(4L, 100L, "ticker", Direction.ASK, 105L, 10L, null));
+        orderBook.addOrder(new LimitOrder(5L, 200L, "ticker", Direction.ASK, 101L, 10L, null));
+
+        List<LimitOrder> cancelled = orderBook.cancelOrders(100L);
+
+        assertThat(cancelled).extracting(LimitOrder::getId, LimitOrder::getStatus).containsExactly(
+                tuple(3L, OrderStatus.CANCELLED), tuple(1L, OrderStatus.CANCELLED), tuple(4L, OrderStatus.CANCELLED));
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(2L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(5L);
+        assertThat(orderBook.getLevelCount(Direction.BID)).isEqualTo(1);
+        assertThat(orderBook.cancelOrders(100L)).isEmpty();
+    }
+
+    @Test
+    void shouldNotCancelFilledOrder() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.ASK, 100L, 10L, null));
+
+        assertThat(orderBook.cancelOrder(1L)).isNull();
+        assertThat(orderBook.cancelOrder(2L)).isNull();
+    }
+
+    @Test
+    void shouldKeepTimePriorityWhenQuantityIsReduced() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(3L, 200L, "ticker", Direction.BID, 100L, 4L, null));
+
+        LimitOrder amended = orderBook.amendOrder(1L, 100L, 7L, null);
+
+        assertThat(amended.getQuantity()).isEqualTo(7L);
+        assertThat(amended.getPendingQuantity()).isEqualTo(3L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldLoseTimePriorityWhenQuantityIsIncreased() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+
+        orderBook.amendOrder(1L, 100L, 15L, null);
+
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(2L, 1L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getPendingQuantity).containsExactly(10L, 15L);
+    }
+
+    @Test
+    void shouldMatchOrderWhenPriceIsAmendedAcrossSpread() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 102L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 4L, null));
+
+        LimitOrder amended = orderBook.amendOrder(1L, 100L, 10L, null);
+
+        assertThat(trades).singleElement()
+                .usingRecursiveComparison()
+                .ignoringFields("timestamp", "id")
+                .isEqualTo(new Trade(1L, 2L, 100L, 4L, null));
+        assertThat(amended.getPendingQuantity()).isEqualTo(6L);
+        assertThat(levels(Direction.ASK)).containsOnlyKeys(100L);
+        assertThat(levels(Direction.BID)).isEmpty();
+    }
+
+    @Test
+    void shouldNotAmendQuantityBelowFilledQuantity() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 6L, null));
+
+        assertThrows(IllegalArgumentException.class, () -> orderBook.amendOrder(1L, 100L, 6L, null));
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getPendingQuantity).containsExactly(4L);
+    }
+
+    @Test
+    void shouldTradeWithOwnOrderWithoutSelfTradePrevention() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+
+        assertThat(trades).singleElement()
+                .usingRecursiveComparison()
+                .ignoringFields("timestamp", "id")
+                .isEqualTo(new Trade(2L, 1L, 100L, 10L, null));
+    }
+
+    @Test
+    void shouldCancelIncomingOrderOnSelfTradeWhenCancelNewest() {
+        addAsksOfTwoUsers();
+        LimitOrder bid = new LimitOrder(4L, 100L, "ticker", Direction.BID, 101L, 20L, null)
+                .withSelfTradePrevention(SelfTradePrevention.CANCEL_NEWEST);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).usingRecursiveFieldByFieldElementComparatorIgnoringFields("timestamp", "id")
+                .containsExactly(new Trade(4L, 1L, 100L, 5L, null));
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(bid.getPendingQuantity()).isEqualTo(15L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(2L, 3L);
+        assertThat(orders(Direction.BID)).isEmpty();
+    }
+
+    @Test
+    void shouldCancelRestingOrderOnSelfTradeWhenCancelOldest() {
+        addAsksOfTwoUsers();
+        LimitOrder bid = new LimitOrder(4L, 100L, "ticker", Direction.BID, 101L, 20L, null)
+                .withSelfTradePrevention(SelfTradePrevention.CANCEL_OLDEST);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).usingRecursiveFieldByFieldElementComparatorIgnoringFields("timestamp", "id")
+                .containsExactly(new Trade(4L, 1L, 100L, 5L, null), new Trade(4L, 3L, 101L, 10L, null));
+        assertThat(orderBook.cancelOrder(2L)).isNull();
+        assertThat(orders(Direction.ASK)).isEmpty();
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId, LimitOrder::getPendingQuantity)
+                .containsExactly(tuple(4L, 5L));
+        assertThat(levelChanges).endsWith("ASK 100 0 0", "ASK 101 0 0", "BID 101 5 1");
+    }
+
+    @Test
+    void shouldCancelBothOrdersOnSelfTradeWhenCancelBoth() {
+        LimitOrder own = addAsksOfTwoUsers();
+        LimitOrder bid = new LimitOrder(4L, 100L, "ticker", Direction.BID, 101L, 20L, null)
+                .withSelfTradePrevention(SelfTradePrevention.CANCEL_BOTH);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).hasSize(1);
+        assertThat(own.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(3L);
+        assertThat(orders(Direction.BID)).isEmpty();
+    }
+
+    @Test
+    void shouldDecrementBothOrdersOnSelfTradeWhenDecrementAndCancel() {
+        LimitOrder own = addAsksOfTwoUsers();
+        LimitOrder bid = new LimitOrder(4L, 100L, "ticker", Direction.BID, 101L, 20L, null)
+                .withSelfTradePrevention(SelfTradePrevention.DECREMENT_AND_CANCEL);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).usingRecursiveFieldByFieldElementComparatorIgnoringFields("timestamp", "id")
+                .containsExactly(new Trade(4L, 1L, 100L, 5L, null), new Trade(4L, 3L, 101L, 5L, null));
+        assertThat(own.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(bid.getQuantity()).isEqualTo(10L);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId, LimitOrder::getPendingQuantity)
+                .containsExactly(tuple(3L, 5L));
+        assertThat(levelChanges).endsWith("ASK 100 0 0", "ASK 101 5 1");
+    }
+
+    @Test
+    void shouldCancelRestOfImmediateOrCancelOrder() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+        LimitOrder bid = new LimitOrder(2L, 200L, "ticker", Direction.BID, 101L, 8L, null)
+                .withType(OrderType.LIMIT, TimeInForce.IOC);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).hasSize(1);
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(bid.getPendingQuantity()).isEqualTo(3L);
+        assertThat(orderBook.getLevelCount(Direction.BID)).isZero();
+        assertThat(orderBook.cancelOrder(2L)).isNull();
+    }
+
+    @Test
+    void shouldKillFillOrKillOrderWithoutTradingUnlessItCanBeFilled() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 101L, 5L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 102L, 5L, null));
+        LimitOrder killed = new LimitOrder(4L, 200L, "ticker", Direction.BID, 101L, 11L, null)
+                .withType(OrderType.LIMIT, TimeInForce.FOK);
+        LimitOrder filled = new LimitOrder(5L, 200L, "ticker", Direction.BID, 102L, 11L, null)
+                .withType(OrderType.LIMIT, TimeInForce.FOK);
+
+        orderBook.addOrder(killed);
+
+        assertThat(trades).isEmpty();
+        assertThat(killed.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.ASK)).hasSize(3);
+
+        orderBook.addOrder(filled);
+
+        assertThat(trades).extracting(Trade::quantity).containsExactly(5L, 5L, 1L);
+        assertThat(filled.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(orders(Direction.BID)).isEmpty();
+    }
+
+    @Test
+    void shouldNotCountOwnOrdersAsLiquidityOfFillOrKillOrderPreventingSelfTrades() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.ASK, 100L, 5L, null));
+        LimitOrder bid = new LimitOrder(3L, 100L, "ticker", Direction.BID, 100L, 10L, null)
+                .withType(OrderType.LIMIT, TimeInForce.FOK)
+                .withSelfTradePrevention(SelfTradePrevention.CANCEL_OLDEST);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).isEmpty();
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldSweepMarketOrderUpToItsProtectionPrice() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.BID, 95L, 5L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.BID, 90L, 5L, null));
+        LimitOrder ask = new LimitOrder(4L, 200L, "ticker", Direction.ASK, 95L, 20L, null)
+                .withType(OrderType.MARKET, TimeInForce.IOC);
+
+        orderBook.addOrder(ask);
+
+        assertThat(trades).extracting(Trade::price).containsExactly(100L, 95L);
+        assertThat(ask.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(ask.getPendingQuantity()).isEqualTo(10L);
+        assertThat(orders(Direction.ASK)).isEmpty();
+        assertThat(orders(Direction.BID)).extracting(LimitOrder::getId).containsExactly(3L);
+    }
+
+    @Test
+    void shouldCancelPostOnlyOrderThatWouldTrade() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+        LimitOrder taker = new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 5L, null)
+                .withType(OrderType.POST_ONLY, TimeInForce.GTC);
+        LimitOrder maker = new LimitOrder(3L, 200L, "ticker", Direction.BID, 99L, 5L, null)
+                .withType(OrderType.POST_ONLY, TimeInForce.GTC);
+
+        orderBook.addOrder(taker);
+        orderBook.addOrder(maker);
+
+        assertThat(trades).isEmpty();
+        assertThat(taker.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.BID)).containsExactly(maker);
+        assertThat(orderBook.amendOrder(3L, 100L, 5L, null).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.BID)).isEmpty();
+    }
+
+    @Test
+    void shouldNotAllowMarketOrderToRest() {
+        LimitOrder order = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 5L, null);
+
+        assertThrows(IllegalArgumentException.class, () -> order.withType(OrderType.MARKET, TimeInForce.GTC));
+        assertThrows(IllegalArgumentException.class, () -> order.withType(OrderType.POST_ONLY, TimeInForce.IOC));
+    }
+
+    @Test
+    void shouldShowOnlyPeakOfIcebergOrder() {
+        LimitOrder iceberg = new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 25L, null)
+                .withDisplayQuantity(10L);
+
+        orderBook.addOrder(iceberg);
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+
+        assertThat(levelChanges).containsExactly("ASK 100 10 1", "ASK 100 15 2");
+        assertThat(iceberg.getVisibleQuantity()).isEqualTo(10L);
+        assertThat(iceberg.getHiddenQuantity()).isEqualTo(15L);
+        assertThrows(IllegalArgumentException.class, () -> iceberg.withType(OrderType.LIMIT, TimeInForce.IOC));
+    }
+
+    @Test
+    void shouldReplenishIcebergOrderAtBackOfLevel() {
+        LimitOrder iceberg = new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 25L, null)
+                .withDisplayQuantity(10L);
+        orderBook.addOrder(iceberg);
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+
+        orderBook.addOrder(new LimitOrder(3L, 200L, "ticker", Direction.BID, 100L, 18L, null));
+
+        assertThat(trades).extracting(Trade::restingId, Trade::quantity)
+                .containsExactly(tuple(1L, 10L), tuple(2L, 5L), tuple(1L, 3L));
+        assertThat(orders(Direction.ASK)).containsExactly(iceberg);
+        assertThat(levelChanges).last().isEqualTo("ASK 100 7 1");
+        assertThat(iceberg.getHiddenQuantity()).isEqualTo(5L);
+
+        // reducing the quantity takes from the hidden quantity first
+        orderBook.amendOrder(1L, 100L, 20L, null);
+
+        assertThat(iceberg.getPendingQuantity()).isEqualTo(7L);
+        assertThat(iceberg.getHiddenQuantity()).isZero();
+        assertThat(levelChanges).last().isEqualTo("ASK 100 7 1");
+    }
+
+    @Test
+    void shouldCountHiddenQuantityAsLiquidityOfFillOrKillOrder() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 25L, null)
+                .withDisplayQuantity(10L));
+        LimitOrder bid = new LimitOrder(2L, 200L, "ticker", Direction.BID, 100L, 25L, null)
+                .withType(OrderType.LIMIT, TimeInForce.FOK);
+
+        orderBook.addOrder(bid);
+
+        assertThat(trades).extracting(Trade::quantity).containsExactly(10L, 10L, 5L);
+        assertThat(bid.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(orderBook.getLevelCount(Direction.ASK)).isZero();
+    }
+
+    @Test
+    void shouldMatchStopOrdersTriggeredByCommandWithinIt() {
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.ASK, 100L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 101L, 5L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.ASK, 102L, 5L, null));
+        LimitOrder stopLimit = new LimitOrder(10L, 300L, "ticker", Direction.BID, 102L, 5L, null)
+                .withStopPrice(101L);
+        LimitOrder stopMarket = new LimitOrder(11L, 300L, "ticker", Direction.BID, 102L, 3L, null)
+                .withType(OrderType.MARKET, TimeInForce.IOC)
+                .withStopPrice(100L);
+        LimitOrder sellStop = new LimitOrder(12L, 300L, "ticker", Direction.ASK, 90L, 5L, null)
+                .withStopPrice(95L);
+        orderBook.addOrder(stopLimit);
+        orderBook.addOrder(stopMarket);
+        orderBook.addOrder(sellStop);
+
+        assertThat(trades).isEmpty();
+        assertThat(orderBook.getLevelCount(Direction.BID)).isZero();
+
+        // trades at 100, which triggers the stop market order, whose trade at 101 triggers the stop limit order
+        orderBook.addOrder(new LimitOrder(4L, 200L, "ticker", Direction.BID, 100L, 5L, null));
+
+        assertThat(trades).extracting(Trade::aggressingId, Trade::restingId, Trade::price, Trade::quantity)
+                .containsExactly(tuple(4L, 1L, 100L, 5L), tuple(11L, 2L, 101L, 3L), tuple(10L, 2L, 101L, 2L),
+                        tuple(10L, 3L, 102L, 3L));
+        assertThat(stopMarket.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(stopLimit.getStatus()).isEqualTo(OrderStatus.FILLED);
+        assertThat(sellStop.isStopPending()).isTrue();
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(3L, 12L);
+    }
+
+    @Test
+    void shouldCancelAndAmendStopOrderWaitingForTrigger() {
+        LimitOrder first = new LimitOrder(1L, 100L, "ticker", Direction.ASK, 90L, 5L, null).withStopPrice(95L);
+        orderBook.addOrder(first);
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.ASK, 90L, 5L, null).withStopPrice(95L));
+
+        orderBook.amendOrder(1L, 90L, 6L, null);
+
+        assertThat(orders(Direction.ASK)).extracting(LimitOrder::getId).containsExactly(2L, 1L);
+        assertThat(orderBook.cancelOrder(2L).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orders(Direction.ASK)).containsExactly(first);
+
+        orderBook.addOrder(new LimitOrder(3L, 200L, "ticker", Direction.BID, 96L, 1L, null));
+        orderBook.addOrder(new LimitOrder(4L, 200L, "ticker", Direction.ASK, 96L, 1L, null));
+
+        assertThat(first.isStopPending()).isTrue();
+
+        orderBook.addOrder(new LimitOrder(5L, 200L, "ticker", Direction.BID, 95L, 1L, null));
+        orderBook.addOrder(new LimitOrder(6L, 200L, "ticker", Direction.ASK, 95L, 1L, null));
+
+        assertThat(first.isStopPending()).isFalse();
+        assertThat(levels(Direction.ASK)).containsOnlyKeys(90L);
+        assertThat(first.getPendingQuantity()).isEqualTo(6L);
+        assertThrows(IllegalArgumentException.class, () -> first.withType(OrderType.POST_ONLY, TimeInForce.GTC));
+    }
+
+    @Test
+    void shouldUncrossCallAtPriceMaximizingVolume() {
+        orderBook.changePhase(TradingPhase.AUCTION_CALL, null);
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 102L, 5L, null));
+        orderBook.addOrder(new LimitOrder(2L, 100L, "ticker", Direction.BID, 101L, 5L, null));
+        orderBook.addOrder(new LimitOrder(3L, 100L, "ticker", Direction.BID, 100L, 10L, null));
+        orderBook.addOrder(new LimitOrder(4L, 200L, "ticker", Direction.ASK, 99L, 5L, null));
+        orderBook.addOrder(new LimitOrder(5L, 200L, "ticker", Direction.ASK, 100L, 5L, null));
+        orderBook.addOrder(new LimitOrder(6L, 200L, "ticker", Direction.ASK, 101L, 6L, null));
+        LimitOrder ioc = new LimitOrder(7L, 300L, "ticker", Direction.BID, 110L, 5L, null)
+                .withType(OrderType.LIMIT, TimeInForce.IOC);
+        orderBook.addOrder(ioc);
+        orderBook.addOrder(new LimitOrder(8L, 300L, "ticker", Direction.BID, 101L, 2L, null).withStopPrice(101L));
+
+        assertThat(trades).isEmpty();
+        assertThat(ioc.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(orderBook.getLevelCount(Direction.BID)).isEqualTo(3);
+        assertThat(orderBook.getLevelCount(Direction.ASK)).isEqualTo(3);
+
+        // 10 trade at 100 and at 101, 101 leaves the smaller imbalance
+        orderBook.changePhase(TradingPhase.CONTINUOUS, null);
+
+        assertThat(orderBook.getPhase()).isEqualTo(TradingPhase.CONTINUOUS);
+        assertThat(trades).extracting(Trade::aggressingId, Trade::restingId, Trade::price, Trade::quantity)
+                .containsExactly(tuple(1L, 4L, 101L, 5L), tuple(2L, 5L, 101L, 5L), tuple(8L, 6L, 101L, 2L));
+        assertThat(levels(Direction.BID)).containsOnlyKeys(100L);
+        assertThat(levels(Direction.ASK)).containsOnlyKeys(101L);
+        assertThat(levels(Direction.ASK).get(101L).getFirst().getPendingQuantity()).isEqualTo(4L);
+        assertThat(levelChanges).contains("BID 102 0 0", "ASK 99 0 0", "BID 101 0 0", "ASK 100 0 0", "ASK 101 4 1");
+    }
+
+    @Test
+    void shouldUncrossAtHighestPriceWhenBuyersAreLeftOver() {
+        orderBook.changePhase(TradingPhase.AUCTION_CALL, null);
+        orderBook.addOrder(new LimitOrder(1L, 100L, "ticker", Direction.BID, 101L, 10L, null));
+        orderBook.addOrder(new LimitOrder(2L, 200L, "ticker", Direction.ASK, 99L, 5L, null)
+                .withDisplayQuantity(2L));
+
+        orderBook.changePhase(TradingPhase.CONTINUOUS, null);
+
+        assertThat(trades).extracting(Trade::aggressingId, Trade::restingId, Trade::price, Trade::quantity)
+                .containsExactly(tuple(1L, 2L, 101L, 2L), tuple(1L, 2L, 101L, 2L), tuple(1L, 2L, 101L, 1L));
+        assertThat(levels(Direction.BID).get(101L).getFirst().getPendingQuantity()).isEqualTo(5L);
+        assertThat(levels(Direction.ASK)).isEmpty();
+    }
+
+    @Test
+    void shouldCancelNewOrdersWhileHalted() {
+        LimitOrder bid = new LimitOrder(1L, 100L, "ticker", Direction.BID, 100L, 5L, null);
+        orderBook.addOrder(bid);
+        orderBook.changePhase(TradingPhase.HALTED, null);
+        LimitOrder ask = new LimitOrder(2L, 200L, "ticker", Direction.ASK, 99L, 5L, null);
+
+        orderBook.addOrder(ask);
+        orderBook.amendOrder(1L, 98L, 5L, null);
+
+        assertThat(ask.getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(trades).isEmpty();
+        assertThat(orders(Direction.BID)).containsExactly(bid);
+        assertThat(bid.getPrice()).isEqualTo(98L);
+        assertThrows(IllegalArgumentException.class, () -> orderBook.changePhase(TradingPhase.UNCROSS, null));
+        assertThat(orderBook.getPhase()).isEqualTo(TradingPhase.HALTED);
+    }
+
+    /**
+     * @return ask of user 100 resting behind an ask of user 200 at 100, with another ask of user 200 at 101
+     */
+    private LimitOrder addAsksOfTwoUsers() {
+        LimitOrder own = new LimitOrder(2L, 100L, "ticker", Direction.ASK, 100L, 10L, null);
+        orderBook.addOrder(new LimitOrder(1L, 200L, "ticker", Direction.ASK, 100L, 5L, null));
+        orderBook.addOrder(own);
+        orderBook.addOrder(new LimitOrder(3L, 200L, "ticker", Direction.ASK, 101L, 10L, null));
+        return own;
+    }
+
+    protected static TradeListener collectingTo(List<Trade> trades) {
+        return (aggressingId, restingId, price, quantity, timestamp) ->
+                trades.add(new Trade(aggressingId, restingId, price, quantity, null));
+    }
+
+    protected List<LimitOrder> orders(Direction side) {
+        List<LimitOrder> orders = new ArrayList<>();
+        orderBook.forEachOrder(side, orders::add);
+        return orders;
+    }
+
+    protected NavigableMap<Long, List<LimitOrder>> levels(Direction side) {
+        NavigableMap<Long, List<LimitOrder>> levels = new TreeMap<>();
+        orderBook.forEachOrder(side,
+                order -> levels.computeIfAbsent(order.getPrice(), price -> new ArrayList<>()).add(order));
+        return levels;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,8 @@
+package xyz.a5s7.domain.model;
+
+class TreeMapOrderBookTest extends OrderBookTest {
+    @Override
+    protected OrderBook createOrderBook(String ticker, TradeListener tradeListener, DepthListener depthListener) {
+        return new TreeMapOrderBook(ticker, tradeListener, depthListener);
+    }
+}
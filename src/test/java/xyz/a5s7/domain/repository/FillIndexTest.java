@@ -0,0 +1,107 @@
+package xyz.a5s7.domain.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.Fill;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.Trade;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FillIndexTest {
+    private static final ZonedDateTime START = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+
+    private FillIndex fillIndex;
+    private LimitOrder buyer;
+    private LimitOrder seller;
+
+    @BeforeEach
+    void setUp() {
+        fillIndex = new FillIndex();
+        buyer = new LimitOrder(1L, 1L, "BTC", Direction.BID, 100L, 1_000_000L, START);
+        seller = new LimitOrder(2L, 2L, "BTC", Direction.ASK, 100L, 1_000_000L, START);
+    }
+
+    @Test
+    void shouldIndexFillOfBothOrders() {
+        fillIndex.add(new Trade(7L, 1L, 2L, 100L, 5L, START), buyer, seller);
+
+        assertThat(fillIndex.find(1L, "BTC", null, null, null, 10).fills())
+            .singleElement()
+            .usingRecursiveComparison()
+            .ignoringFields("timestamp")
+            .isEqualTo(new Fill(7L, 1L, "BTC", Direction.BID, 100L, 5L, true, null));
+        assertThat(fillIndex.find(2L, "BTC", null, null, null, 10).fills())
+            .singleElement()
+            .usingRecursiveComparison()
+            .ignoringFields("timestamp")
+            .isEqualTo(new Fill(7L, 2L, "BTC", Direction.ASK, 100L, 5L, false, null));
+        assertThat(fillIndex.find(1L, "ETH", null, null, null, 10).fills()).isEmpty();
+        assertThat(fillIndex.find(3L, "BTC", null, null, null, 10).fills()).isEmpty();
+    }
+
+    @Test
+    void shouldPageThroughFillsInTimeRange() {
+        // spans several chunks, one fill per second
+        int trades = FillIndex.CHUNK_SIZE * 3 + 10;
+        for (int i = 0; i < trades; i++) {
+            fillIndex.add(new Trade((long) i, 1L, 2L, 100L, 1L, START.plusSeconds(i)), buyer, seller);
+        }
+        ZonedDateTime from = START.plusSeconds(1500);
+        ZonedDateTime to = START.plusSeconds(2600);
+
+        List<Long> tradeIds = new ArrayList<>();
+        Long cursor = null;
+        do {
+            FillPage page = fillIndex.find(1L, "BTC", from, to, cursor, 100);
+            page.fills().forEach(fill -> tradeIds.add(fill.tradeId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(tradeIds).hasSize(1101);
+        assertThat(tradeIds.getFirst()).isEqualTo(1500L);
+        assertThat(tradeIds.getLast()).isEqualTo(2600L);
+        assertThat(tradeIds).isSorted();
+    }
+
+    @Test
+    void shouldFindFillsOfTradesSequencedOutOfTimeOrder() {
+        // the second and fourth commands were stamped before the one executed before them
+        fillIndex.add(new Trade(1L, 1L, 2L, 100L, 1L, START.plusSeconds(10)), buyer, seller);
+        fillIndex.add(new Trade(2L, 1L, 2L, 100L, 1L, START.plusSeconds(5)), buyer, seller);
+        fillIndex.add(new Trade(3L, 1L, 2L, 100L, 1L, START.plusSeconds(20)), buyer, seller);
+        fillIndex.add(new Trade(4L, 1L, 2L, 100L, 1L, START.plusSeconds(14)), buyer, seller);
+
+        FillPage page = fillIndex.find(1L, "BTC", START.plusSeconds(8), START.plusSeconds(15), null, 10);
+        FillPage first = fillIndex.find(1L, "BTC", START.plusSeconds(8), START.plusSeconds(15), null, 1);
+        FillPage last = fillIndex.find(1L, "BTC", START.plusSeconds(8), START.plusSeconds(15), first.nextCursor(), 1);
+
+        assertThat(page.fills()).extracting(Fill::tradeId).containsExactly(1L, 4L);
+        assertThat(page.fills()).extracting(fill -> fill.timestamp().toInstant())
+            .containsExactly(START.plusSeconds(10).toInstant(), START.plusSeconds(14).toInstant());
+        assertThat(page.nextCursor()).isNull();
+        assertThat(first.fills()).extracting(Fill::tradeId).containsExactly(1L);
+        assertThat(last.fills()).extracting(Fill::tradeId).containsExactly(4L);
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void shouldReturnNoCursorOnLastPage() {
+        for (int i = 0; i < 3; i++) {
+            fillIndex.add(new Trade((long) i, 1L, 2L, 100L, 1L, START.plusSeconds(i)), buyer, seller);
+        }
+
+        FillPage first = fillIndex.find(1L, "BTC", null, null, null, 2);
+        FillPage last = fillIndex.find(1L, "BTC", null, null, first.nextCursor(), 2);
+
+        assertThat(first.fills()).hasSize(2);
+        assertThat(first.nextCursor()).isNotNull();
+        assertThat(last.fills()).hasSize(1);
+        assertThat(last.nextCursor()).isNull();
+    }
+}
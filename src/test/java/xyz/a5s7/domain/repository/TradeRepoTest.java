@@ -5,10 +5,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -24,18 +30,18 @@ class TradeRepoTest {
     @Test
     @DisplayName("should save trade and assign id if not present")
     void shouldSaveTradeAndAssignIdIfNotPresent() {
-        Trade trade = new Trade(null, 1L, 2L, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
+        Trade trade = new Trade(null, 1L, 2L, 4325100L, 100L, ZonedDateTime.now());
         Trade savedTrade = tradeRepo.save(trade);
 
         assertThat(savedTrade).usingRecursiveComparison()
                 .ignoringFields("timestamp")
-                .isEqualTo(new Trade(1L, 1L, 2L, new BigDecimal("43251.00"), new BigDecimal("1.0"), null));
+                .isEqualTo(new Trade(1L, 1L, 2L, 4325100L, 100L, null));
     }
 
     @Test
     @DisplayName("should save trade with existing id")
     void shouldSaveTradeWithExistingId() {
-        Trade trade = new Trade(1L, 1L, 2L, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
+        Trade trade = new Trade(1L, 1L, 2L, 4325100L, 100L, ZonedDateTime.now());
         Trade savedTrade = tradeRepo.save(trade);
 
         assertThat(savedTrade).isEqualTo(trade);
@@ -44,8 +50,8 @@ class TradeRepoTest {
     @Test
     @DisplayName("should find trades by order id")
     void shouldFindTradesByOrderId() {
-        Trade trade1 = new Trade(null, 1L, 2L, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
-        Trade trade2 = new Trade(null, 2L, 1L, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
+        Trade trade1 = new Trade(null, 1L, 2L, 4325100L, 100L, ZonedDateTime.now());
+        Trade trade2 = new Trade(null, 2L, 1L, 4325100L, 100L, ZonedDateTime.now());
         tradeRepo.save(trade1);
         tradeRepo.save(trade2);
 
@@ -59,6 +65,54 @@ class TradeRepoTest {
 
     }
 
+    @Test
+    @DisplayName("should not lose trades saved concurrently while they are read")
+    void shouldNotLoseTradesSavedConcurrently() throws Exception {
+        int threads = 4;
+        int tradesPerThread = 20_000;
+        int restingOrders = 10;
+        var start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads + 1)) {
+            List<Future<?>> saved = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long firstAggressingId = 1_000L + (long) t * tradesPerThread;
+                saved.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < tradesPerThread; i++) {
+                        // every thread fills the same few resting orders
+                        tradeRepo.save(new Trade(null, firstAggressingId + i, (long) (i % restingOrders), 100L, 1L, null));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> read = executor.submit(() -> {
+                start.await();
+                int previous = 0;
+                while (previous < threads * tradesPerThread / restingOrders) {
+                    int size = tradeRepo.findTradesByOrderId(0L).map(List::size).orElse(0);
+                    assertThat(size).isGreaterThanOrEqualTo(previous);
+                    previous = size;
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : saved) {
+                future.get();
+            }
+            read.get();
+        }
+
+        Set<Long> ids = new HashSet<>();
+        for (long orderId = 0; orderId < restingOrders; orderId++) {
+            List<Trade> trades = tradeRepo.findTradesByOrderId(orderId).orElseThrow();
+            assertThat(trades).hasSize(threads * tradesPerThread / restingOrders);
+            trades.forEach(trade -> ids.add(trade.id()));
+        }
+        assertThat(ids).hasSize(threads * tradesPerThread);
+        assertThat(tradeRepo.findTradesByOrderId(1_000L)).hasValueSatisfying(trades ->
+            assertThat(trades).singleElement().extracting(Trade::restingId).isEqualTo(0L));
+    }
+
     @Test
     @DisplayName("should return empty if no trades found for order id")
     void shouldReturnEmptyIfNoTradesFoundForOrderId() {
@@ -0,0 +1,183 @@
+package xyz.a5s7.domain.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.MatchingEngine;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.engine.SynchronizedMatchingEngine;
+import xyz.a5s7.domain.journal.FsyncPolicy;
+import xyz.a5s7.domain.journal.JournalProperties;
+import xyz.a5s7.domain.journal.MappedJournal;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderListener;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.repository.TradeRepo;
+import xyz.a5s7.domain.snapshot.SnapshotProperties;
+import xyz.a5s7.domain.snapshot.SnapshotService;
+import xyz.a5s7.domain.snapshot.SnapshotStore;
+
+class JournalRecoveryTest {
+    private static final EngineProperties PROPERTIES =
+            new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, BookType.LADDER, 64, 16);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRestoreOrdersFromJournal() {
+        Node node = new Node();
+        LimitOrder cancelled = node.engine.placeOrder(order(Direction.BID, 100L, 10L));
+        LimitOrder amended = node.engine.placeOrder(order(Direction.BID, 99L, 10L));
+        LimitOrder filled = node.engine.placeOrder(order(Direction.ASK, 105L, 5L));
+        node.engine.cancelOrder(cancelled);
+        node.engine.amendOrder(amended, 101L, 10L, null);
+        node.engine.placeOrder(order(Direction.BID, 105L, 5L));
+        node.engine.placeOrder(order(Direction.ASK, 101L, 4L));
+        node.stop();
+
+        Node restarted = new Node();
+        restarted.recover();
+
+        assertThat(restarted.orderRepo.findById(cancelled.getId())).hasValueSatisfying(order ->
+                assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        assertThat(restarted.orderRepo.findById(filled.getId())).hasValueSatisfying(order ->
+                assertThat(order.getStatus()).isEqualTo(OrderStatus.FILLED));
+        assertThat(restarted.orderRepo.findById(amended.getId())).hasValueSatisfying(order -> {
+            assertThat(order.getPrice()).isEqualTo(101L);
+            assertThat(order.getPendingQuantity()).isEqualTo(6L);
+        });
+        // new orders continue the ids of the replayed ones and are journaled after them
+        LimitOrder next = restarted.engine.placeOrder(order(Direction.ASK, 101L, 6L));
+        assertThat(next.getId()).isEqualTo(6L);
+        assertThat(restarted.journal.lastSequence()).isEqualTo(8L);
+        restarted.stop();
+    }
+
+    @Test
+    void shouldRestoreSnapshotAndReplayJournalWrittenAfterIt() {
+        Node node = new Node();
+        LimitOrder partiallyFilled = node.engine.placeOrder(order(Direction.BID, 100L, 10L));
+        LimitOrder later = node.engine.placeOrder(order(Direction.BID, 100L, 10L));
+        node.engine.placeOrder(order(Direction.ASK, 100L, 4L));
+        node.engine.placeOrder(order("ETH", Direction.ASK, 50L, 1L));
+        node.snapshot();
+        node.engine.cancelOrder(later);
+        LimitOrder afterSnapshot = node.engine.placeOrder(order(Direction.ASK, 102L, 3L));
+        node.engine.placeOrder(order("SOL", Direction.BID, 7L, 2L));
+        node.stop();
+
+        Node restarted = new Node();
+        restarted.recover();
+
+        // the snapshot holds only resting orders, with their pending quantity
+        assertThat(restarted.orderRepo.findById(partiallyFilled.getId())).hasValueSatisfying(order ->
+                assertThat(order.getPendingQuantity()).isEqualTo(6L));
+        assertThat(restarted.orderRepo.findById(3L)).isEmpty();
+        assertThat(restarted.orderRepo.findById(later.getId())).hasValueSatisfying(order ->
+                assertThat(order.getStatus()).isEqualTo(OrderStatus.CANCELLED));
+        assertThat(restarted.orderRepo.findById(afterSnapshot.getId())).isPresent();
+        assertThat(restarted.orderRepo.findById(6L)).hasValueSatisfying(order ->
+                assertThat(order.getTicker()).isEqualTo("SOL"));
+        // the partially filled bid keeps its time priority and matches before any other
+        LimitOrder next = restarted.engine.placeOrder(order(Direction.ASK, 100L, 6L));
+        assertThat(next.getId()).isEqualTo(7L);
+        assertThat(next.getPendingQuantity()).isZero();
+        assertThat(restarted.orderRepo.findById(partiallyFilled.getId())).hasValueSatisfying(order ->
+                assertThat(order.getStatus()).isEqualTo(OrderStatus.FILLED));
+        restarted.stop();
+    }
+
+    @Test
+    void shouldReplayOrderDecrementedBySelfTradePreventionAsSubmitted() {
+        Node node = new Node();
+        node.engine.placeOrder(new LimitOrder(2L, "BTC", Direction.ASK, 100L, 5L, null));
+        node.engine.placeOrder(new LimitOrder(1L, "BTC", Direction.ASK, 100L, 10L, null));
+        LimitOrder decremented = node.engine.placeOrder(new LimitOrder(1L, "BTC", Direction.BID, 101L, 20L, null)
+                .withSelfTradePrevention(SelfTradePrevention.DECREMENT_AND_CANCEL));
+        assertThat(decremented.getQuantity()).isEqualTo(10L);
+        List<String> book = node.book("BTC");
+        node.stop();
+
+        Node restarted = new Node();
+        restarted.recover();
+
+        assertThat(restarted.book("BTC")).isEqualTo(book).containsExactly("3 BID 101 10 5");
+        restarted.stop();
+    }
+
+    private static LimitOrder order(Direction direction, long price, long quantity) {
+        return order("BTC", direction, price, quantity);
+    }
+
+    private static LimitOrder order(String ticker, Direction direction, long price, long quantity) {
+        return new LimitOrder(1L, ticker, direction, price, quantity, null);
+    }
+
+    private class Node {
+        final OrderRepo orderRepo = new OrderRepo();
+        final TradeRepo tradeRepo = new TradeRepo();
+        final ExecutionEventRing executionEventRing = new ExecutionEventRing(PROPERTIES, List.of(),
+                new SimpleMeterRegistry());
+        final MappedJournal journal = new MappedJournal(new JournalProperties(true, directory.toString(),
+                DataSize.ofMegabytes(1), FsyncPolicy.GROUP_COMMIT, Duration.ofNanos(100_000)));
+        final MatchingEngine engine = new SynchronizedMatchingEngine(orderRepo,
+                new OrderBookFactory(PROPERTIES, executionEventRing, DepthListener.NONE, OrderListener.NONE),
+                journal, new SimpleMeterRegistry());
+        final SnapshotStore snapshotStore = new SnapshotStore(
+                new SnapshotProperties(true, directory.resolve("snapshots").toString(), Duration.ofMinutes(5), 2));
+
+        Node() {
+            journal.start();
+            executionEventRing.start();
+        }
+
+        void recover() {
+            new JournalRecovery(journal, engine, orderRepo, tradeRepo, executionEventRing, Optional.of(snapshotStore))
+                    .start();
+        }
+
+        /**
+         * @return id, side, price, quantity and pending quantity of the resting orders of the ticker
+         */
+        List<String> book(String ticker) {
+            return engine.withOrderBook(ticker, orderBook -> {
+                List<String> orders = new ArrayList<>();
+                Consumer<LimitOrder> collector = order -> orders.add(order.getId() + " " + order.getDirection()
+                        + " " + order.getPrice() + " " + order.getQuantity() + " " + order.getPendingQuantity());
+                orderBook.forEachOrder(Direction.BID, collector);
+                orderBook.forEachOrder(Direction.ASK, collector);
+                return orders;
+            });
+        }
+
+        void snapshot() {
+            new SnapshotService(new SnapshotProperties(true, "", Duration.ofMinutes(5), 2), snapshotStore, engine,
+                    journal, orderRepo, tradeRepo, new SimpleMeterRegistry()).snapshot();
+        }
+
+        void stop() {
+            executionEventRing.stop();
+            journal.stop();
+        }
+    }
+}
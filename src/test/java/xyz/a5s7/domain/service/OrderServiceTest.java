@@ -1,16 +1,25 @@
 package xyz.a5s7.domain.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.engine.SynchronizedMatchingEngine;
+import xyz.a5s7.domain.journal.DisabledJournal;
+import xyz.a5s7.domain.model.DepthListener;
 import xyz.a5s7.domain.model.Direction;
 import xyz.a5s7.domain.model.LimitOrder;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.repository.OpenOrderIndex;
 import xyz.a5s7.domain.repository.OrderRepo;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.Optional;
 
@@ -23,29 +32,39 @@ class OrderServiceTest {
     @Spy
     private OrderRepo orderRepo;
 
-    @InjectMocks
     private OrderService orderService;
 
+    @BeforeEach
+    void setUp() {
+        var properties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 1, BookType.TREE_MAP, 1, 1);
+        var openOrderIndex = new OpenOrderIndex();
+        var orderBookFactory = new OrderBookFactory(properties,
+                (aggressingId, restingId, price, quantity, timestamp) -> { }, DepthListener.NONE, openOrderIndex);
+        orderService = new OrderService(orderRepo, openOrderIndex, new SynchronizedMatchingEngine(orderRepo, orderBookFactory, new DisabledJournal(),
+                new SimpleMeterRegistry()),
+                Optional.empty());
+    }
+
     @Test
     @DisplayName("should place order successfully")
     void shouldPlaceOrderSuccessfully() {
         // Given
-        LimitOrder requestOrder = new LimitOrder(999L, "XYZ", Direction.ASK, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
+        LimitOrder requestOrder = new LimitOrder(999L, "XYZ", Direction.ASK, 4325100L, 100L, ZonedDateTime.now());
 
         // When
         LimitOrder order = orderService.placeOrder(requestOrder);
 
         // Then
         assertThat(order).usingRecursiveComparison()
-                .ignoringFields("timestamp")
-                .isEqualTo(new LimitOrder(1L, 999L, "XYZ", Direction.ASK, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now()));
+                .ignoringFields("timestamp", "level", "prev", "next")
+                .isEqualTo(new LimitOrder(1L, 999L, "XYZ", Direction.ASK, 4325100L, 100L, ZonedDateTime.now()));
     }
 
     @Test
     @DisplayName("should find order successfully")
     void shouldFindOrderSuccessfully() {
         // Given
-        LimitOrder mockOrder = new LimitOrder(1L, 999L, "ETH", Direction.ASK, new BigDecimal("43251.00"), new BigDecimal("1.0"), ZonedDateTime.now());
+        LimitOrder mockOrder = new LimitOrder(1L, 999L, "ETH", Direction.ASK, 4325100L, 100L, ZonedDateTime.now());
         when(orderRepo.findById(1L)).thenReturn(Optional.of(mockOrder));
 
         // When
@@ -70,4 +89,29 @@ class OrderServiceTest {
         // Then
         assertThat(foundOrder).isNotPresent();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should list orders of user while they rest in the order book")
+    void shouldListOpenOrdersOfUser() {
+        // Given
+        LimitOrder filled = orderService.placeOrder(
+                new LimitOrder(1L, "BTC", Direction.ASK, 100L, 10L, ZonedDateTime.now()));
+        LimitOrder partiallyFilled = orderService.placeOrder(
+                new LimitOrder(1L, "BTC", Direction.ASK, 101L, 5L, ZonedDateTime.now()));
+        LimitOrder cancelled = orderService.placeOrder(
+                new LimitOrder(1L, "ETH", Direction.BID, 100L, 10L, ZonedDateTime.now()));
+        LimitOrder other = orderService.placeOrder(
+                new LimitOrder(2L, "ETH", Direction.BID, 99L, 10L, ZonedDateTime.now()));
+
+        // When
+        orderService.placeOrder(new LimitOrder(2L, "BTC", Direction.BID, 101L, 12L, ZonedDateTime.now()));
+        orderService.cancelOrder(cancelled);
+
+        // Then
+        assertThat(orderService.findOpenOrders(1L, null)).containsExactly(partiallyFilled);
+        assertThat(orderService.findOpenOrders(1L, "BTC")).containsExactly(partiallyFilled);
+        assertThat(orderService.findOpenOrders(1L, "ETH")).isEmpty();
+        assertThat(orderService.findOpenOrders(2L, null)).containsExactly(other);
+        assertThat(filled.getStatus()).isEqualTo(OrderStatus.FILLED);
+    }
+}
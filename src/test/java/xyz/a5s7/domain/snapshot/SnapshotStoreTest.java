@@ -0,0 +1,81 @@
+package xyz.a5s7.domain.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TradingPhase;
+
+class SnapshotStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadWrittenSnapshot() {
+        SnapshotStore store = store(3);
+        ZonedDateTime timestamp = ZonedDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        var snapshot = new Snapshot(42L, 17L, 9L, List.of(
+                new BookSnapshot("BTC", 44L, List.of(
+                        new RestingOrder(3L, 100L, Direction.BID, 4325000L, 25L, 20L, timestamp,
+                            SelfTradePrevention.CANCEL_OLDEST, OrderType.POST_ONLY, 0, 0, 0),
+                        new RestingOrder(5L, 101L, Direction.ASK, 4325100L, 10L, 10L, null,
+                            SelfTradePrevention.NONE, OrderType.LIMIT, 4L, 6L, 4325500L)),
+                    TradingPhase.AUCTION_CALL),
+                new BookSnapshot("ETH", 43L, List.of(), TradingPhase.HALTED)));
+
+        assertThat(store.write(snapshot)).isPositive();
+
+        assertThat(store.readLatest()).contains(snapshot);
+    }
+
+    @Test
+    void shouldKeepOnlyRetainedSnapshots() throws IOException {
+        SnapshotStore store = store(2);
+        for (long sequence = 1; sequence <= 4; sequence++) {
+            store.write(new Snapshot(sequence, 1L, 1L, List.of()));
+        }
+
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(path -> path.getFileName().toString())).containsExactlyInAnyOrder(
+                    "snapshot-00000000000000000003.bin", "snapshot-00000000000000000004.bin");
+        }
+        assertThat(store.readLatest()).hasValueSatisfying(read ->
+                assertThat(read.journalSequence()).isEqualTo(4L));
+    }
+
+    @Test
+    void shouldFallBackToPreviousSnapshotWhenLatestIsDamaged() throws IOException {
+        SnapshotStore store = store(2);
+        store.write(new Snapshot(1L, 1L, 1L, List.of()));
+        store.write(new Snapshot(2L, 1L, 1L, List.of()));
+        Path latest = directory.resolve("snapshot-00000000000000000002.bin");
+        byte[] bytes = Files.readAllBytes(latest);
+        bytes[10]++;
+        Files.write(latest, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertThat(store.readLatest()).hasValueSatisfying(read ->
+                assertThat(read.journalSequence()).isEqualTo(1L));
+    }
+
+    @Test
+    void shouldReadNothingWithoutSnapshots() {
+        assertThat(store(1).readLatest()).isEmpty();
+    }
+
+    private SnapshotStore store(int retained) {
+        return new SnapshotStore(new SnapshotProperties(true, directory.toString(), Duration.ofMinutes(5), retained));
+    }
+}
@@ -0,0 +1,125 @@
+package xyz.a5s7.gateway;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+
+/**
+ * Blocking client of the {@link Protocol}, for tests and the {@link GatewayLoadGenerator}.
+ */
+class GatewayClient implements AutoCloseable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    GatewayClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(10_000);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    void logon(long userId) throws IOException {
+        header(Protocol.LOGON_LENGTH, Protocol.LOGON);
+        out.writeLong(userId);
+        out.flush();
+    }
+
+    void newOrder(long clientOrderId, String ticker, Direction side, long price, long quantity) throws IOException {
+        header(Protocol.NEW_ORDER_LENGTH, Protocol.NEW_ORDER);
+        out.writeLong(clientOrderId);
+        out.writeLong(Protocol.encodeTicker(ticker));
+        out.writeByte(Protocol.encodeSide(side));
+        out.writeLong(price);
+        out.writeLong(quantity);
+        out.flush();
+    }
+
+    void newOrder(long clientOrderId, String ticker, Direction side, long price, long quantity, OrderType orderType,
+                  TimeInForce timeInForce, SelfTradePrevention selfTradePrevention) throws IOException {
+        header(Protocol.NEW_ORDER_EXTENDED_LENGTH, Protocol.NEW_ORDER);
+        out.writeLong(clientOrderId);
+        out.writeLong(Protocol.encodeTicker(ticker));
+        out.writeByte(Protocol.encodeSide(side));
+        out.writeLong(price);
+        out.writeLong(quantity);
+        out.writeByte(orderType.ordinal());
+        out.writeByte(timeInForce.ordinal());
+        out.writeByte(selfTradePrevention.ordinal());
+        out.flush();
+    }
+
+    void cancelOrder(long clientOrderId, long orderId) throws IOException {
+        header(Protocol.CANCEL_ORDER_LENGTH, Protocol.CANCEL_ORDER);
+        out.writeLong(clientOrderId);
+        out.writeLong(orderId);
+        out.flush();
+    }
+
+    void amendOrder(long clientOrderId, long orderId, long price, long quantity) throws IOException {
+        header(Protocol.AMEND_ORDER_LENGTH, Protocol.AMEND_ORDER);
+        out.writeLong(clientOrderId);
+        out.writeLong(orderId);
+        out.writeLong(price);
+        out.writeLong(quantity);
+        out.flush();
+    }
+
+    private void header(int length, byte type) throws IOException {
+        out.writeShort(length);
+        out.writeByte(type);
+    }
+
+    /**
+     * Blocks until the next message arrives.
+     *
+     * @return {@link LogonAccepted}, {@link ExecutionReport} or {@link Reject}
+     */
+    Message read() throws IOException {
+        int length = in.readUnsignedShort();
+        byte type = in.readByte();
+        Message message = switch (type) {
+            case Protocol.LOGON_ACCEPTED -> new LogonAccepted(in.readLong());
+            case Protocol.EXECUTION_REPORT -> new ExecutionReport(in.readLong(), in.readLong(),
+                ExecType.of(in.readByte()), Protocol.decodeStatus(in.readByte()), Protocol.decodeTicker(in.readLong()),
+                Protocol.decodeSide(in.readByte()), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                in.readLong(), in.readLong());
+            case Protocol.REJECT -> new Reject(in.readLong(), in.readLong(), RejectReason.of(in.readByte()));
+            default -> throw new IOException("Unknown message type " + type + " of length " + length);
+        };
+        return message;
+    }
+
+    <T extends Message> T read(Class<T> type) throws IOException {
+        return type.cast(read());
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    sealed interface Message permits LogonAccepted, ExecutionReport, Reject {
+    }
+
+    record LogonAccepted(long userId) implements Message {
+    }
+
+    record ExecutionReport(long clientOrderId, long orderId, ExecType execType, OrderStatus status, String ticker,
+                           Direction side, long price, long quantity, long pendingQuantity,
+                           long lastPrice, long lastQuantity, long timestamp) implements Message {
+    }
+
+    record Reject(long clientOrderId, long orderId, RejectReason reason) implements Message {
+    }
+}
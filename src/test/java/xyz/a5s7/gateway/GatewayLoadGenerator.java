@@ -0,0 +1,99 @@
+package xyz.a5s7.gateway;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import xyz.a5s7.domain.model.Direction;
+
+/**
+ * Places orders through a running gateway from several connections and prints the round-trip latency
+ * from sending a new order to receiving its acknowledgement.
+ * <p>
+ * Every connection alternates bids and asks at the same price, waiting for the acknowledgement of each order
+ * before sending the next, so half of the orders trade and the order book stays small.
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes xyz.a5s7.gateway.GatewayLoadGenerator \
+ *     [host] [port] [connections] [orders per connection] [ticker]
+ * </pre>
+ */
+public class GatewayLoadGenerator {
+    private static final long PRICE = 10_000L;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9001;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int orders = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+        String ticker = args.length > 4 ? args[4] : "LOAD";
+        int warmup = Math.min(orders, 10_000);
+
+        List<Callable<long[]>> clients = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            long userId = 1_000_000L + i;
+            clients.add(() -> run(host, port, userId, ticker, warmup, orders));
+        }
+        long started = System.nanoTime();
+        List<long[]> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(connections)) {
+            for (Future<long[]> result : executor.invokeAll(clients)) {
+                results.add(result.get());
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] latencies = results.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d orders from %d connections in %.2f s, %.0f orders/s%n",
+            (long) connections * (warmup + orders), connections, seconds,
+            connections * (warmup + orders) / seconds);
+        System.out.printf("round trip (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+            percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+            percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e3);
+    }
+
+    /**
+     * @return round-trip latencies of the measured orders, in nanoseconds
+     */
+    private static long[] run(String host, int port, long userId, String ticker, int warmup, int orders)
+        throws IOException {
+        try (var client = new GatewayClient(host, port)) {
+            client.logon(userId);
+            if (!(client.read() instanceof GatewayClient.LogonAccepted)) {
+                throw new IllegalStateException("Logon of user#" + userId + " was rejected");
+            }
+            long[] latencies = new long[orders];
+            for (int i = 0; i < warmup + orders; i++) {
+                long clientOrderId = i + 1;
+                long sent = System.nanoTime();
+                client.newOrder(clientOrderId, ticker, i % 2 == 0 ? Direction.BID : Direction.ASK, PRICE, 1L);
+                awaitAcknowledgement(client, clientOrderId);
+                if (i >= warmup) {
+                    latencies[i - warmup] = System.nanoTime() - sent;
+                }
+            }
+            return latencies;
+        }
+    }
+
+    private static void awaitAcknowledgement(GatewayClient client, long clientOrderId) throws IOException {
+        while (true) {
+            GatewayClient.Message message = client.read();
+            if (message instanceof GatewayClient.Reject reject) {
+                throw new IllegalStateException("Order was rejected: " + reject);
+            }
+            if (message instanceof GatewayClient.ExecutionReport report && report.clientOrderId() == clientOrderId) {
+                return;
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1e3;
+    }
+}
@@ -0,0 +1,169 @@
+package xyz.a5s7.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import xyz.a5s7.domain.engine.BookType;
+import xyz.a5s7.domain.engine.EngineMode;
+import xyz.a5s7.domain.engine.EngineProperties;
+import xyz.a5s7.domain.engine.ExecutionEventRing;
+import xyz.a5s7.domain.engine.OrderBookFactory;
+import xyz.a5s7.domain.engine.SynchronizedMatchingEngine;
+import xyz.a5s7.domain.journal.DisabledJournal;
+import xyz.a5s7.domain.model.DepthListener;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.OrderStatus;
+import xyz.a5s7.domain.model.OrderType;
+import xyz.a5s7.domain.model.SelfTradePrevention;
+import xyz.a5s7.domain.model.TimeInForce;
+import xyz.a5s7.domain.repository.OpenOrderIndex;
+import xyz.a5s7.domain.repository.OrderRepo;
+import xyz.a5s7.domain.service.OrderService;
+import xyz.a5s7.gateway.GatewayClient.ExecutionReport;
+import xyz.a5s7.gateway.GatewayClient.LogonAccepted;
+import xyz.a5s7.gateway.GatewayClient.Message;
+import xyz.a5s7.gateway.GatewayClient.Reject;
+
+class GatewayServerTest {
+    private ExecutionEventRing executionEventRing;
+    private GatewayServer server;
+
+    @BeforeEach
+    void setUp() {
+        var orderRepo = new OrderRepo();
+        var sessions = new GatewaySessions(orderRepo);
+        var engineProperties = new EngineProperties(EngineMode.SYNCHRONIZED, 1, 16, BookType.TREE_MAP, 16, 16);
+        executionEventRing = new ExecutionEventRing(engineProperties, List.of(sessions), new SimpleMeterRegistry());
+        var openOrderIndex = new OpenOrderIndex();
+        var orderBookFactory = new OrderBookFactory(engineProperties, executionEventRing, DepthListener.NONE,
+            openOrderIndex);
+        var orderService = new OrderService(orderRepo, openOrderIndex,
+            new SynchronizedMatchingEngine(orderRepo, orderBookFactory, new DisabledJournal(),
+                new SimpleMeterRegistry()), Optional.empty());
+        server = new GatewayServer(new GatewayProperties(true, 0, DataSize.ofKilobytes(4)), orderService, sessions);
+        executionEventRing.start();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+        executionEventRing.stop();
+    }
+
+    @Test
+    void shouldAcknowledgeOrdersAndReportFillsToOwners() throws IOException {
+        try (var seller = logon(1L); var buyer = logon(2L)) {
+            seller.newOrder(11L, "BTC", Direction.ASK, 100L, 10L);
+            ExecutionReport ask = seller.read(ExecutionReport.class);
+            assertThat(ask).isEqualTo(new ExecutionReport(11L, 1L, ExecType.NEW, OrderStatus.OPEN, "BTC",
+                Direction.ASK, 100L, 10L, 10L, 0L, 0L, ask.timestamp()));
+
+            buyer.newOrder(21L, "BTC", Direction.BID, 101L, 4L);
+
+            // the fill may be reported before the acknowledgement
+            assertThat(read(buyer, 2)).extracting(ExecutionReport.class::cast)
+                .extracting(ExecutionReport::clientOrderId, ExecutionReport::orderId, ExecutionReport::execType,
+                    ExecutionReport::status, ExecutionReport::pendingQuantity, ExecutionReport::lastPrice,
+                    ExecutionReport::lastQuantity)
+                .containsExactlyInAnyOrder(
+                    tuple(21L, 2L, ExecType.NEW, OrderStatus.FILLED, 0L, 0L, 0L),
+                    tuple(0L, 2L, ExecType.TRADE, OrderStatus.FILLED, 0L, 100L, 4L));
+            ExecutionReport fill = seller.read(ExecutionReport.class);
+            assertThat(fill).isEqualTo(new ExecutionReport(0L, 1L, ExecType.TRADE, OrderStatus.OPEN, "BTC",
+                Direction.ASK, 100L, 10L, 6L, 100L, 4L, fill.timestamp()));
+        }
+    }
+
+    @Test
+    void shouldAmendAndCancelOrders() throws IOException {
+        try (var client = logon(1L)) {
+            client.newOrder(1L, "ETH", Direction.BID, 50L, 8L);
+            long orderId = client.read(ExecutionReport.class).orderId();
+
+            client.amendOrder(2L, orderId, 49L, 6L);
+            ExecutionReport amended = client.read(ExecutionReport.class);
+            assertThat(amended.execType()).isEqualTo(ExecType.REPLACED);
+            assertThat(amended.clientOrderId()).isEqualTo(2L);
+            assertThat(amended.price()).isEqualTo(49L);
+            assertThat(amended.quantity()).isEqualTo(6L);
+
+            client.cancelOrder(3L, orderId);
+            ExecutionReport cancelled = client.read(ExecutionReport.class);
+            assertThat(cancelled.execType()).isEqualTo(ExecType.CANCELLED);
+            assertThat(cancelled.status()).isEqualTo(OrderStatus.CANCELLED);
+
+            client.cancelOrder(4L, orderId);
+            assertThat(client.read()).isEqualTo(new Reject(4L, orderId, RejectReason.ORDER_NOT_OPEN));
+        }
+    }
+
+    @Test
+    void shouldCancelRestOfImmediateOrCancelOrder() throws IOException {
+        try (var seller = logon(1L); var buyer = logon(2L)) {
+            seller.newOrder(1L, "BTC", Direction.ASK, 100L, 3L);
+            seller.read(ExecutionReport.class);
+
+            buyer.newOrder(2L, "BTC", Direction.BID, 100L, 5L, OrderType.LIMIT, TimeInForce.IOC,
+                SelfTradePrevention.NONE);
+
+            List<ExecutionReport> reports = read(buyer, 2).stream().map(ExecutionReport.class::cast).toList();
+            assertThat(reports)
+                .extracting(ExecutionReport::execType, ExecutionReport::pendingQuantity, ExecutionReport::lastQuantity)
+                .containsExactlyInAnyOrder(tuple(ExecType.NEW, 2L, 0L), tuple(ExecType.TRADE, 2L, 3L));
+            // acknowledged once the rest has been cancelled
+            assertThat(reports).filteredOn(report -> report.execType() == ExecType.NEW)
+                .extracting(ExecutionReport::status).containsExactly(OrderStatus.CANCELLED);
+
+            buyer.newOrder(3L, "BTC", Direction.BID, 100L, 5L, OrderType.MARKET, TimeInForce.GTC,
+                SelfTradePrevention.NONE);
+            assertThat(buyer.read()).isEqualTo(new Reject(3L, 0L, RejectReason.INVALID_ORDER));
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidCommands() throws IOException {
+        try (var owner = logon(1L); var other = new GatewayClient("localhost", server.getPort())) {
+            other.newOrder(1L, "BTC", Direction.BID, 100L, 1L);
+            assertThat(other.read()).isEqualTo(new Reject(1L, 0L, RejectReason.NOT_LOGGED_ON));
+
+            other.logon(2L);
+            other.read(LogonAccepted.class);
+            other.newOrder(2L, "BTC", Direction.BID, 0L, 1L);
+            assertThat(other.read()).isEqualTo(new Reject(2L, 0L, RejectReason.INVALID_ORDER));
+            other.cancelOrder(3L, 42L);
+            assertThat(other.read()).isEqualTo(new Reject(3L, 42L, RejectReason.UNKNOWN_ORDER));
+
+            owner.newOrder(1L, "BTC", Direction.ASK, 100L, 1L);
+            long orderId = owner.read(ExecutionReport.class).orderId();
+            other.amendOrder(4L, orderId, 100L, 2L);
+            assertThat(other.read()).isEqualTo(new Reject(4L, orderId, RejectReason.NOT_ALLOWED));
+        }
+    }
+
+    private GatewayClient logon(long userId) throws IOException {
+        var client = new GatewayClient("localhost", server.getPort());
+        client.logon(userId);
+        assertThat(client.read()).isEqualTo(new LogonAccepted(userId));
+        return client;
+    }
+
+    private static List<Message> read(GatewayClient client, int count) throws IOException {
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(client.read());
+        }
+        return messages;
+    }
+}
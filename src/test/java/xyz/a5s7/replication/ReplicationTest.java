@@ -0,0 +1,140 @@
+package xyz.a5s7.replication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import xyz.a5s7.OrderBookApplication;
+
+/**
+ * Runs a primary and a replica in the same JVM, then promotes the replica.
+ */
+class ReplicationTest {
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static ConfigurableApplicationContext primary;
+    private static ConfigurableApplicationContext replica;
+    private static String primaryUrl;
+    private static String replicaUrl;
+
+    @TempDir
+    static Path directory;
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int replicationPort = freePort();
+        primaryUrl = "http://localhost:" + freePort();
+        replicaUrl = "http://localhost:" + freePort();
+        primary = start(primaryUrl, "primary",
+            "--orderbook.replication.role=primary",
+            "--orderbook.replication.port=" + replicationPort);
+        replica = start(replicaUrl, "replica",
+            "--orderbook.replication.role=replica",
+            "--orderbook.replication.primary-port=" + replicationPort,
+            "--orderbook.replication.heartbeat-interval=100ms",
+            "--orderbook.replication.reconnect-interval=100ms");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        replica.close();
+        primary.close();
+    }
+
+    @Test
+    void shouldFollowPrimaryUntilPromoted() throws Exception {
+        long askId = json(send(primaryUrl, "POST", "/orders", order("REPL", "ASK", "10.00", "2.00")))
+            .get("id").asLong();
+        json(send(primaryUrl, "POST", "/orders", order("REPL", "BID", "10.00", "0.50")));
+        json(send(primaryUrl, "PATCH", "/orders/" + askId, """
+            {"price": 11.00}"""));
+
+        JsonNode replicated = awaitReplicated();
+        assertThat(replicated.get("promoted").asBoolean()).isFalse();
+        assertThat(json(send(replicaUrl, "GET", "/books/REPL", null)))
+            .isEqualTo(json(send(primaryUrl, "GET", "/books/REPL", null)));
+        assertThat(json(send(replicaUrl, "GET", "/orders/" + askId, null)))
+            .isEqualTo(json(send(primaryUrl, "GET", "/orders/" + askId, null)));
+        assertThat(send(replicaUrl, "POST", "/orders", order("REPL", "BID", "11.00", "1.00")).statusCode())
+            .isEqualTo(503);
+
+        primary.close();
+        assertThat(json(send(replicaUrl, "POST", "/replication/promote", null)).get("promoted").asBoolean())
+            .isTrue();
+        HttpResponse<String> bid = send(replicaUrl, "POST", "/orders", order("REPL", "BID", "11.00", "1.00"));
+        assertThat(bid.statusCode()).isEqualTo(201);
+        assertThat(json(send(replicaUrl, "GET", "/orders/" + askId, null)).get("pendingQuantity").decimalValue())
+            .isEqualByComparingTo("0.50");
+    }
+
+    private static JsonNode awaitReplicated() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        JsonNode state;
+        do {
+            Thread.sleep(50);
+            state = json(send(replicaUrl, "GET", "/replication", null));
+        } while ((!state.get("connected").asBoolean() || state.get("lastSequence").asLong() < 3)
+            && System.nanoTime() < deadline);
+        assertThat(state.get("lastSequence").asLong()).isEqualTo(3L);
+        assertThat(state.get("lag").asLong()).isZero();
+        return state;
+    }
+
+    private static ConfigurableApplicationContext start(String url, String node, String... properties) {
+        Path nodeDirectory = directory.resolve(node);
+        String[] args = {
+            "--server.port=" + URI.create(url).getPort(),
+            "--orderbook.journal.directory=" + nodeDirectory.resolve("journal"),
+            "--orderbook.audit.directory=" + nodeDirectory.resolve("audit"),
+            "--orderbook.snapshot.enabled=false",
+            "--orderbook.retention.enabled=false",
+            "--orderbook.gateway.enabled=false"};
+        String[] all = new String[args.length + properties.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(properties, 0, all, args.length, properties.length);
+        return new SpringApplicationBuilder(OrderBookApplication.class).run(all);
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String order(String ticker, String direction, String price, String quantity) {
+        return """
+            {"ticker": "%s", "direction": "%s", "price": %s, "quantity": %s}""".formatted(ticker, direction, price,
+            quantity);
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws IOException {
+        assertThat(response.statusCode()).as(response.body()).isBetween(200, 299);
+        return objectMapper.readTree(response.body());
+    }
+
+    private static HttpResponse<String> send(String url, String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+            .header("Authorization", "7")
+            .header("Content-Type", "application/json")
+            .method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
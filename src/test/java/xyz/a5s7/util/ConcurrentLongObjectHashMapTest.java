@@ -0,0 +1,101 @@
+package xyz.a5s7.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentLongObjectHashMapTest {
+
+    @Test
+    void shouldBehaveLikeHashMapOnRandomOperations() {
+        var map = new ConcurrentLongObjectHashMap<Long>(4, 4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // small key range, so that keys collide and removals leave tombstones in probe chains
+            long key = random.nextInt(2_000) * 1024L;
+            int operation = random.nextInt(4);
+            if (operation == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else if (operation == 1) {
+                long value = i;
+                assertThat(map.compute(key, current -> current == null ? value : current + value))
+                    .isEqualTo(expected.merge(key, value, Long::sum));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertThat(values).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+
+    @Test
+    void shouldNotLoseEntriesWrittenConcurrentlyWhileReadersProbe() throws Exception {
+        var map = new ConcurrentLongObjectHashMap<Long>(16, 4);
+        int writers = 4;
+        int keysPerWriter = 50_000;
+        var start = new CountDownLatch(1);
+        var writing = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newFixedThreadPool(writers + 2)) {
+            List<Future<?>> written = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                long first = (long) w * keysPerWriter;
+                written.add(executor.submit(() -> {
+                    start.await();
+                    for (long key = first; key < first + keysPerWriter; key++) {
+                        map.put(key, key);
+                        // every other key is removed again, leaving tombstones behind while tables grow
+                        if (key % 2 == 1) {
+                            map.remove(key);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            List<Future<Long>> read = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                read.add(executor.submit(() -> {
+                    start.await();
+                    long mismatches = 0;
+                    Random random = new Random();
+                    while (writing.get()) {
+                        long key = random.nextInt(writers * keysPerWriter);
+                        Long value = map.get(key);
+                        if (value != null && value != key) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : written) {
+                future.get();
+            }
+            writing.set(false);
+            for (Future<Long> future : read) {
+                assertThat(future.get()).isZero();
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(writers * keysPerWriter / 2);
+        for (long key = 0; key < writers * keysPerWriter; key++) {
+            assertThat(map.get(key)).isEqualTo(key % 2 == 0 ? key : null);
+        }
+    }
+}
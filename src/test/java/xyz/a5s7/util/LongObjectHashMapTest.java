@@ -0,0 +1,55 @@
+package xyz.a5s7.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void shouldPutGetAndRemove() {
+        var map = new LongObjectHashMap<String>();
+
+        assertThat(map.put(1L, "one")).isNull();
+        assertThat(map.put(-5L, "minus five")).isNull();
+        assertThat(map.put(1L, "uno")).isEqualTo("one");
+
+        assertThat(map.get(1L)).isEqualTo("uno");
+        assertThat(map.get(-5L)).isEqualTo("minus five");
+        assertThat(map.get(2L)).isNull();
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.remove(1L)).isEqualTo("uno");
+        assertThat(map.remove(1L)).isNull();
+        assertThat(map.containsKey(1L)).isFalse();
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldBehaveLikeHashMapOnRandomOperations() {
+        var map = new LongObjectHashMap<Long>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // small key range, so that keys collide, probe chains wrap and removals shift entries
+            long key = random.nextInt(2_000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                assertThat(map.remove(key)).isEqualTo(expected.remove(key));
+            } else {
+                assertThat(map.put(key, (long) i)).isEqualTo(expected.put(key, (long) i));
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        expected.forEach((key, value) -> assertThat(map.get(key)).isEqualTo(value));
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertThat(values).containsExactlyInAnyOrderElementsOf(expected.values());
+    }
+}
@@ -0,0 +1,96 @@
+package xyz.a5s7.web;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import xyz.a5s7.domain.marketdata.BookDepth;
+import xyz.a5s7.domain.marketdata.Level;
+import xyz.a5s7.domain.marketdata.MarketDataPublisher;
+
+@SpringBootTest(properties = {"orderbook.journal.enabled=false", "orderbook.gateway.enabled=false",
+    "orderbook.retention.enabled=false", "orderbook.audit.enabled=false"})
+@AutoConfigureMockMvc
+public class BookControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private MarketDataPublisher marketDataPublisher;
+
+    @Test
+    void shouldReturnBestLevelsInInstrumentUnits() throws Exception {
+        given(marketDataPublisher.getDepth("BTC", 2)).willReturn(new BookDepth("BTC", 7L,
+                List.of(new Level(4325000L, 15000L, 2), new Level(4324900L, 100L, 1)),
+                List.of(new Level(4325100L, 5000L, 1))));
+
+        mockMvc.perform(get("/books/BTC")
+                .param("depth", "2")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                    {
+                      "ticker": "BTC",
+                      "sequence": 7,
+                      "bids": [
+                        {"price": 43250.00, "quantity": 1.5, "orders": 2},
+                        {"price": 43249.00, "quantity": 0.01, "orders": 1}
+                      ],
+                      "asks": [
+                        {"price": 43251.00, "quantity": 0.5, "orders": 1}
+                      ]
+                    }
+                    """));
+    }
+
+    @Test
+    void shouldRejectInvalidDepth() throws Exception {
+        given(marketDataPublisher.getDepth("BTC", 0))
+                .willThrow(new IllegalArgumentException("Depth must be greater than 0"));
+
+        mockMvc.perform(get("/books/BTC")
+                .param("depth", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldChangeTradingPhase() throws Exception {
+        mockMvc.perform(put("/books/ADA/phase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"phase\": \"AUCTION_CALL\"}"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"ticker\": \"ADA\", \"phase\": \"AUCTION_CALL\"}"));
+
+        mockMvc.perform(get("/books/ADA/phase"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"ticker\": \"ADA\", \"phase\": \"AUCTION_CALL\"}"));
+    }
+
+    @Test
+    void shouldReturnContinuousPhaseOfTickerWithoutBook() throws Exception {
+        mockMvc.perform(get("/books/DOT/phase"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"ticker\": \"DOT\", \"phase\": \"CONTINUOUS\"}"));
+    }
+
+    @Test
+    void shouldRejectUncrossPhase() throws Exception {
+        mockMvc.perform(put("/books/ADA/phase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"phase\": \"UNCROSS\"}"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -1,6 +1,7 @@
 package xyz.a5s7.web;
 
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import xyz.a5s7.domain.engine.PlaceResult;
 import xyz.a5s7.domain.model.LimitOrder;
 import xyz.a5s7.domain.model.Direction;
 import xyz.a5s7.domain.service.OrderService;
@@ -10,20 +11,28 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {"orderbook.journal.enabled=false", "orderbook.gateway.enabled=false",
+    "orderbook.retention.enabled=false", "orderbook.audit.enabled=false"})
 @AutoConfigureMockMvc
 public class OrderControllerTest {
 
@@ -56,22 +65,52 @@ public class OrderControllerTest {
             }
             """;
 
-        given(orderService.placeOrder(any()))
-            .willReturn(
-                new LimitOrder(1L, 999L, "BTC", Direction.ASK, new BigDecimal("43251.00"), new BigDecimal("1.65"), 
+        given(orderService.placeOrderAsync(any()))
+            .willReturn(CompletableFuture.completedFuture(
+                new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, 
                     ZonedDateTime.parse("2024-12-08T13:34:44.498770729Z")
                 )
-            );
+            ));
 
-        mockMvc.perform(post("/orders")
+        MvcResult result = mockMvc.perform(post("/orders")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(orderRequest)
                 .header("Authorization", "999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isCreated())
                 .andExpect(header().string("Location", "http://localhost/orders/1"))
                 .andExpect(content().json(expectedResponse));
     }
 
+    @Test
+    void shouldReturnBadRequestIfOrderIsRejectedByMatchingEngine() throws Exception {
+        String orderRequest = """
+            {
+              "ticker": "BTC",
+              "price": 43251.00,
+              "quantity": 1.65,
+              "direction": "ASK"
+            }
+            """;
+
+        given(orderService.placeOrderAsync(any()))
+            .willReturn(CompletableFuture.failedFuture(new IllegalArgumentException("Order book is closed")));
+
+        MvcResult result = mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderRequest)
+                .header("Authorization", "999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Order book is closed"));
+    }
+
     @Test
     void shouldReturn404IfOrderNotFound() throws Exception {
         given(orderService.findOrder(999L)).willReturn(Optional.empty());
@@ -101,6 +140,45 @@ public class OrderControllerTest {
                 .andExpect(content().string("Quantity must be greater than 0"));
     }
 
+    @Test
+    void shouldReturnBadRequestIfMarketOrderIsGoodTillCancelled() throws Exception {
+        String orderRequest = """
+            {
+              "ticker": "BTC",
+              "price": 43251.00,
+              "quantity": 0.65,
+              "direction": "BID",
+              "orderType": "MARKET",
+              "timeInForce": "GTC"
+            }
+            """;
+
+        mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderRequest)
+                .header("Authorization", "999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnBadRequestIfQuantityIsNotMultipleOfLotSize() throws Exception {
+        String orderRequest = """
+            {
+              "ticker": "BTC",
+              "price": 43251.00,
+              "quantity": 0.00005,
+              "direction": "BID"
+            }
+            """;
+
+        mockMvc.perform(post("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(orderRequest)
+                .header("Authorization", "999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Quantity must be a multiple of lot size 0.0001"));
+    }
+
     @Test
     void shouldReturnUnauthorizedIfTokenIsEmpty() throws Exception {
         String orderRequest = """
@@ -121,8 +199,8 @@ public class OrderControllerTest {
 
     @Test
     void shouldReturnForbiddenIfUserNotAllowedToViewOrder() throws Exception {
-        LimitOrder order = new LimitOrder(1L, "BTC", Direction.ASK, new BigDecimal("43251.00"),
-                new BigDecimal("1.65"), ZonedDateTime.now());
+        LimitOrder order = new LimitOrder(1L, "BTC", Direction.ASK, 4325100L,
+                16500L, ZonedDateTime.now());
         given(orderService.findOrder(1L)).willReturn(Optional.of(order));
 
         mockMvc.perform(get("/orders/1")
@@ -130,4 +208,140 @@ public class OrderControllerTest {
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    void shouldCancelOrder() throws Exception {
+        LimitOrder order = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now());
+        given(orderService.findOrder(1L)).willReturn(Optional.of(order));
+        given(orderService.cancelOrder(order)).willReturn(Optional.of(order));
+
+        mockMvc.perform(delete("/orders/1")
+                .header("Authorization", "999"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\": 1, \"pendingQuantity\": 1.65}"));
+    }
+
+    @Test
+    void shouldPlaceValidOrdersOfBatchAndRejectInvalidOnes() throws Exception {
+        String batchRequest = """
+            [
+              {"ticker": "BTC", "price": 43251.00, "quantity": 1.65, "direction": "ASK"},
+              {"ticker": "BTC", "price": 43251.00, "quantity": 1.65},
+              {"ticker": "ETH", "price": 2300.50, "quantity": 2, "direction": "BID"}
+            ]
+            """;
+        given(orderService.placeOrders(any())).willAnswer(invocation -> {
+            List<LimitOrder> orders = invocation.getArgument(0);
+            return List.of(
+                PlaceResult.placed(new LimitOrder(1L, 999L, orders.get(0).getTicker(), orders.get(0).getDirection(),
+                    orders.get(0).getPrice(), orders.get(0).getQuantity(), orders.get(0).getTimestamp())),
+                PlaceResult.placed(new LimitOrder(2L, 999L, orders.get(1).getTicker(), orders.get(1).getDirection(),
+                    orders.get(1).getPrice(), orders.get(1).getQuantity(), orders.get(1).getTimestamp())));
+        });
+
+        mockMvc.perform(post("/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batchRequest)
+                .header("Authorization", "999"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                    [
+                      {"order": {"id": 1, "ticker": "BTC", "price": 43251.00, "quantity": 1.65}, "error": null},
+                      {"order": null, "error": "Direction must be provided"},
+                      {"order": {"id": 2, "ticker": "ETH", "price": 2300.50, "quantity": 2.000}, "error": null}
+                    ]
+                    """));
+    }
+
+    @Test
+    void shouldReturnBadRequestIfBatchIsEmpty() throws Exception {
+        mockMvc.perform(post("/orders/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .header("Authorization", "999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldCancelAllOrdersOfUserOnTicker() throws Exception {
+        given(orderService.cancelOrders("BTC", 999L)).willReturn(List.of(
+            new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now()),
+            new LimitOrder(3L, 999L, "BTC", Direction.BID, 4325000L, 100L, ZonedDateTime.now())));
+
+        mockMvc.perform(delete("/orders")
+                .param("ticker", "BTC")
+                .header("Authorization", "999"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\": 1}, {\"id\": 3}]"));
+    }
+
+    @Test
+    void shouldListOpenOrdersOfUserOnTicker() throws Exception {
+        given(orderService.findOpenOrders(999L, "BTC")).willReturn(List.of(
+            new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now())));
+
+        mockMvc.perform(get("/orders")
+                .param("status", "open")
+                .param("ticker", "BTC")
+                .header("Authorization", "999"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"id\": 1, \"status\": \"OPEN\"}]"));
+    }
+
+    @Test
+    void shouldReturnBadRequestIfListedStatusIsNotOpen() throws Exception {
+        mockMvc.perform(get("/orders")
+                .param("status", "filled")
+                .header("Authorization", "999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldReturnConflictIfCancelledOrderIsNotOpen() throws Exception {
+        LimitOrder order = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now());
+        given(orderService.findOrder(1L)).willReturn(Optional.of(order));
+        given(orderService.cancelOrder(order)).willReturn(Optional.empty());
+
+        mockMvc.perform(delete("/orders/1")
+                .header("Authorization", "999"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldReturnForbiddenIfUserNotAllowedToCancelOrder() throws Exception {
+        LimitOrder order = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now());
+        given(orderService.findOrder(1L)).willReturn(Optional.of(order));
+
+        mockMvc.perform(delete("/orders/1")
+                .header("Authorization", "2"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldAmendOrderQuantityKeepingPrice() throws Exception {
+        LimitOrder order = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now());
+        LimitOrder amended = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 10000L, ZonedDateTime.now());
+        given(orderService.findOrder(1L)).willReturn(Optional.of(order));
+        given(orderService.amendOrder(eq(order), eq(4325100L), eq(10000L), any())).willReturn(Optional.of(amended));
+
+        mockMvc.perform(patch("/orders/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 1.0}")
+                .header("Authorization", "999"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\": 1, \"price\": 43251.00, \"quantity\": 1.0}"));
+    }
+
+    @Test
+    void shouldReturnBadRequestIfAmendRequestIsEmpty() throws Exception {
+        LimitOrder order = new LimitOrder(1L, 999L, "BTC", Direction.ASK, 4325100L, 16500L, ZonedDateTime.now());
+        given(orderService.findOrder(1L)).willReturn(Optional.of(order));
+
+        mockMvc.perform(patch("/orders/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")
+                .header("Authorization", "999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Price or quantity must be provided"));
+    }
 }
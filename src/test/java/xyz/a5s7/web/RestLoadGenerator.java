@@ -0,0 +1,104 @@
+package xyz.a5s7.web;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Places orders on one ticker through {@code POST /orders} of a running server from many concurrent clients
+ * and prints the throughput and the latency percentiles of the requests.
+ * <p>
+ * Every client is a virtual thread alternating bids and asks at the same price, waiting for the response
+ * to each order before sending the next, so all clients contend for the same order book.
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes xyz.a5s7.web.RestLoadGenerator \
+ *     [base url] [clients] [orders per client] [ticker]
+ * </pre>
+ */
+public class RestLoadGenerator {
+    private static final String PRICE = "100.00";
+    private static final String QUANTITY = "1";
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int orders = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        String ticker = args.length > 3 ? args[3] : "ETH";
+        URI uri = URI.create(baseUrl + "/orders");
+
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        try (HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build()) {
+            for (int i = 0; i < clients; i++) {
+                long userId = 1_000_000L + i;
+                tasks.add(() -> run(httpClient, uri, userId, ticker, orders));
+            }
+            long started = System.nanoTime();
+            List<long[]> results = new ArrayList<>();
+            int failedClients = 0;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (Future<long[]> result : executor.invokeAll(tasks)) {
+                    try {
+                        results.add(result.get());
+                    } catch (Exception e) {
+                        failedClients++;
+                        if (failedClients == 1) {
+                            System.out.println("Client failed: " + e.getCause());
+                        }
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            long[] latencies = results.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            System.out.printf("%d orders from %d clients (%d failed) in %.2f s, %.0f orders/s%n",
+                latencies.length, clients, failedClients, seconds, latencies.length / seconds);
+            if (latencies.length > 0) {
+                System.out.printf("latency (ms): p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e6);
+            }
+        }
+    }
+
+    /**
+     * @return latencies of the requests, in nanoseconds
+     */
+    private static long[] run(HttpClient httpClient, URI uri, long userId, String ticker, int orders)
+        throws Exception {
+        long[] latencies = new long[orders];
+        for (int i = 0; i < orders; i++) {
+            String body = """
+                {"ticker": "%s", "price": %s, "quantity": %s, "direction": "%s"}
+                """.formatted(ticker, PRICE, QUANTITY, i % 2 == 0 ? "BID" : "ASK");
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header("Authorization", Long.toString(userId))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+            long sent = System.nanoTime();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Order was not placed: HTTP " + response.statusCode());
+            }
+            latencies[i] = System.nanoTime() - sent;
+        }
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * sorted.length))] / 1e6;
+    }
+}
@@ -8,12 +8,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import xyz.a5s7.domain.model.Direction;
+import xyz.a5s7.domain.model.Fill;
 import xyz.a5s7.domain.model.LimitOrder;
 import xyz.a5s7.domain.model.Trade;
+import xyz.a5s7.domain.repository.FillPage;
 import xyz.a5s7.domain.service.OrderService;
 import xyz.a5s7.domain.service.TradeService;
 
-import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -23,7 +25,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {"orderbook.journal.enabled=false", "orderbook.gateway.enabled=false",
+    "orderbook.retention.enabled=false", "orderbook.audit.enabled=false"})
 @AutoConfigureMockMvc
 public class TradeControllerTest {
 
@@ -38,9 +41,9 @@ public class TradeControllerTest {
 
     @Test
     void shouldReturnTradesForValidOrder() throws Exception {
-        LimitOrder order = new LimitOrder(1L, "BTC", null, BigDecimal.ONE, BigDecimal.ONE, ZonedDateTime.now());
+        LimitOrder order = new LimitOrder(1L, "BTC", null, 100L, 10000L, ZonedDateTime.now());
         given(orderService.findOrder(1L)).willReturn(Optional.of(order));
-        given(tradeService.findTrades(1L)).willReturn(List.of(new Trade(1L, 2L, BigDecimal.ONE, BigDecimal.TEN,
+        given(tradeService.findTrades(1L)).willReturn(List.of(new Trade(1L, 2L, 100L, 100000L,
                 ZonedDateTime.parse("2025-01-01T00:00:00Z"))));
 
         mockMvc.perform(get("/trades")
@@ -64,7 +67,7 @@ public class TradeControllerTest {
 
     @Test
     void shouldReturnUnauthorizedIfTokenIsIncorrect() throws Exception {
-        LimitOrder order = new LimitOrder(1L, "BTC", null, BigDecimal.ONE, BigDecimal.ONE, ZonedDateTime.now());
+        LimitOrder order = new LimitOrder(1L, "BTC", null, 100L, 10000L, ZonedDateTime.now());
         given(orderService.findOrder(1L)).willReturn(Optional.of(order));
         mockMvc.perform(get("/trades")
                 .param("orderId", "1")
@@ -74,7 +77,7 @@ public class TradeControllerTest {
 
     @Test
     void shouldReturnForbiddenIfUserNotAllowedToViewOrder() throws Exception {
-        LimitOrder order = new LimitOrder(1L, "BTC", null, BigDecimal.ZERO, BigDecimal.ZERO, ZonedDateTime.now());
+        LimitOrder order = new LimitOrder(1L, "BTC", null, 0L, 0L, ZonedDateTime.now());
         given(orderService.findOrder(1L)).willReturn(Optional.of(order));
 
         mockMvc.perform(get("/trades")
@@ -86,7 +89,7 @@ public class TradeControllerTest {
 
     @Test
     void shouldReturnNoContentIfNoTradesFound() throws Exception {
-        LimitOrder order = new LimitOrder(1L, "BTC", null, BigDecimal.ZERO, BigDecimal.ZERO, ZonedDateTime.now());
+        LimitOrder order = new LimitOrder(1L, "BTC", null, 0L, 0L, ZonedDateTime.now());
         given(orderService.findOrder(1L)).willReturn(Optional.of(order));
         given(tradeService.findTrades(1L)).willReturn(List.of());
 
@@ -96,4 +99,39 @@ public class TradeControllerTest {
                 .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNoContent());
     }
+
+    @Test
+    void shouldReturnFillsOfCaller() throws Exception {
+        ZonedDateTime from = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+        given(tradeService.findFills(1L, "BTC", from, null, null, 100)).willReturn(new FillPage(
+            List.of(new Fill(5L, 3L, "BTC", Direction.BID, 100L, 100000L, true, from.plusSeconds(1))), 1L));
+
+        mockMvc.perform(get("/trades")
+                .param("ticker", "BTC")
+                .param("from", "2025-01-01T00:00:00Z")
+                .header(HttpHeaders.AUTHORIZATION, "1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"fills\":[{\"tradeId\":5,\"orderId\":3,\"ticker\":\"BTC\","
+                    + "\"direction\":\"BID\",\"price\":1,\"quantity\":10,\"aggressor\":true,"
+                    + "\"executedAt\":\"2025-01-01T00:00:01Z\"}],\"nextCursor\":1}"));
+    }
+
+    @Test
+    void shouldReturnForbiddenIfUserNotAllowedToViewFills() throws Exception {
+        mockMvc.perform(get("/trades")
+                .param("ticker", "BTC")
+                .param("userId", "2")
+                .header(HttpHeaders.AUTHORIZATION, "1"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldReturnBadRequestIfFillsLimitIsTooLarge() throws Exception {
+        mockMvc.perform(get("/trades")
+                .param("ticker", "BTC")
+                .param("limit", "1001")
+                .header(HttpHeaders.AUTHORIZATION, "1"))
+                .andExpect(status().isBadRequest());
+    }
 }